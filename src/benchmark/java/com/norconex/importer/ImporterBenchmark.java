@@ -0,0 +1,105 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.norconex.importer.response.ImporterResponse;
+
+/**
+ * End-to-end import of test files of various formats, using a default
+ * importer configuration.
+ * @author Pascal Essiembre
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImporterBenchmark {
+
+    private static final String ALICE =
+            "src/site/resources/examples/books/"
+          + "alice-in-wonderland-book-chapter-1";
+    private static final String PARSER = "src/test/resources/parser/";
+
+    @Param({
+        ALICE + ".txt",
+        ALICE + ".html",
+        ALICE + ".pdf",
+        ALICE + ".docx",
+        ALICE + ".zip",
+        PARSER + "msoffice/word.doc",
+        PARSER + "msoffice/excel.xlsx",
+        PARSER + "msoffice/powerpoint.pptx",
+        PARSER + "wordperfect/wordperfect.wpd",
+        PARSER + "embedded/embedded.zip"
+    })
+    public String file;
+
+    private byte[] content;
+    private Importer importer;
+
+    @Setup
+    public void setup() throws IOException {
+        content = Files.readAllBytes(Paths.get(file));
+        importer = new Importer();
+    }
+
+    @TearDown
+    public void tearDown() {
+        importer.close();
+    }
+
+    @Benchmark
+    public ImporterResponse importDocument() {
+        ImporterResponse response = importer.importDocument(
+                new ImporterRequest(new ByteArrayInputStream(content))
+                        .setReference(file));
+        dispose(response);
+        return response;
+    }
+
+    static void dispose(ImporterResponse response) {
+        if (response.getDocument() != null) {
+            try {
+                response.getDocument().dispose();
+            } catch (IOException e) {
+                throw new ImporterRuntimeException(e);
+            }
+        }
+        for (ImporterResponse nested : response.getNestedResponses()) {
+            dispose(nested);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.norconex.commons.lang.file.ContentType;
+import com.norconex.commons.lang.text.TextMatcher;
+import com.norconex.importer.handler.IImporterHandler;
+import com.norconex.importer.handler.filter.OnMatch;
+import com.norconex.importer.handler.filter.impl.TextFilter;
+import com.norconex.importer.handler.tagger.impl.TextPatternTagger;
+import com.norconex.importer.handler.transformer.impl.ReduceConsecutivesTransformer;
+import com.norconex.importer.handler.transformer.impl.ReplaceTransformer;
+import com.norconex.importer.handler.transformer.impl.ReplaceTransformer.Replacement;
+import com.norconex.importer.response.ImporterResponse;
+
+/**
+ * Import of a large text document going through several post-parse
+ * string handlers, with and without fusing them
+ * (see {@link ImporterConfig#setFuseStringHandlers(boolean)}).
+ * @author Pascal Essiembre
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StringHandlersPipelineBenchmark {
+
+    private static final String TEXT_FILE = "src/site/resources/examples/"
+            + "books/alice-in-wonderland-book-chapter-1.txt";
+
+    @Param({ "false", "true" })
+    public boolean fuse;
+
+    @Param({ "20" })
+    public int copies;
+
+    private byte[] content;
+    private Importer importer;
+
+    @Setup
+    public void setup() throws IOException {
+        byte[] text = Files.readAllBytes(Paths.get(TEXT_FILE));
+        content = new byte[text.length * copies];
+        for (int i = 0; i < copies; i++) {
+            System.arraycopy(text, 0, content, i * text.length, text.length);
+        }
+
+        List<IImporterHandler> handlers = new ArrayList<>();
+        ReplaceTransformer replace = new ReplaceTransformer();
+        replace.addReplacement(new Replacement(
+                null, TextMatcher.basic("Alice").setPartial(true),
+                null, "ALICE"));
+        handlers.add(replace);
+        TextPatternTagger tagger = new TextPatternTagger();
+        tagger.addPattern("rabbit", "[Rr]abbit\\s+\\w+");
+        handlers.add(tagger);
+        ReduceConsecutivesTransformer reduce =
+                new ReduceConsecutivesTransformer();
+        reduce.setReductions(" ");
+        handlers.add(reduce);
+        handlers.add(new TextFilter(
+                TextMatcher.basic("ALICE").setPartial(true), OnMatch.INCLUDE));
+
+        ImporterConfig config = new ImporterConfig();
+        config.setFuseStringHandlers(fuse);
+        config.setPostParseHandlers(handlers);
+        importer = new Importer(config);
+    }
+
+    @TearDown
+    public void tearDown() {
+        importer.close();
+    }
+
+    @Benchmark
+    public ImporterResponse importDocument() {
+        ImporterResponse response = importer.importDocument(
+                new ImporterRequest(new ByteArrayInputStream(content))
+                        .setContentType(ContentType.TEXT)
+                        .setReference("pipeline"));
+        ImporterBenchmark.dispose(response);
+        return response;
+    }
+}
@@ -0,0 +1,83 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.doc;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.norconex.commons.lang.file.ContentType;
+
+/**
+ * Content type detection of test files, with and without a file name
+ * to help detection.
+ * @author Pascal Essiembre
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContentTypeDetectorBenchmark {
+
+    @Param({
+        "src/site/resources/examples/books/"
+                + "alice-in-wonderland-book-chapter-1.html",
+        "src/site/resources/examples/books/"
+                + "alice-in-wonderland-book-chapter-1.pdf",
+        "src/test/resources/parser/msoffice/word.docx",
+        "src/test/resources/parser/msoffice/excel.xls",
+        "src/test/resources/parser/image/importer.png",
+        "src/test/resources/parser/xfdl/regular.xfdl"
+    })
+    public String file;
+
+    private byte[] content;
+    private String fileName;
+
+    @Setup
+    public void setup() throws IOException {
+        Path path = Paths.get(file);
+        content = Files.readAllBytes(path);
+        fileName = path.getFileName().toString();
+    }
+
+    @Benchmark
+    public ContentType detectWithFileName() throws IOException {
+        return ContentTypeDetector.detect(
+                new ByteArrayInputStream(content), fileName);
+    }
+
+    @Benchmark
+    public ContentType detectWithoutFileName() throws IOException {
+        return ContentTypeDetector.detect(new ByteArrayInputStream(content));
+    }
+}
@@ -0,0 +1,156 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.handler;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.norconex.commons.lang.io.CachedInputStream;
+import com.norconex.commons.lang.map.Properties;
+import com.norconex.commons.lang.xml.XML;
+import com.norconex.importer.doc.Doc;
+import com.norconex.importer.handler.filter.AbstractStringFilter;
+import com.norconex.importer.handler.tagger.AbstractStringTagger;
+import com.norconex.importer.handler.transformer.AbstractStringTransformer;
+import com.norconex.importer.parser.ParseState;
+
+/**
+ * Overhead of the string-based handler base classes (reading, decoding and
+ * sectioning text) on large synthetic text, using handlers doing
+ * as little as possible with each section.
+ * @author Pascal Essiembre
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class StringHandlerBenchmark {
+
+    private static final String SENTENCE =
+            "Alice was beginning to get very tired of sitting by her sister "
+          + "on the bank, and of having nothing to do. ";
+
+    @Param({ "100000", "10000000" })
+    public int textLength;
+
+    private Doc doc;
+    private HandlerDoc handlerDoc;
+    private final CountingTagger tagger = new CountingTagger();
+    private final NeverMatchingFilter filter = new NeverMatchingFilter();
+    private final IdentityTransformer transformer = new IdentityTransformer();
+
+    @Setup
+    public void setup() {
+        StringBuilder b = new StringBuilder(textLength + SENTENCE.length());
+        int sentences = 0;
+        while (b.length() < textLength) {
+            b.append(SENTENCE);
+            if (++sentences % 10 == 0) {
+                b.append("\n\n");
+            }
+        }
+        b.setLength(textLength);
+        doc = new Doc("benchmark", CachedInputStream.cache(
+                new ByteArrayInputStream(b.toString().getBytes(
+                        StandardCharsets.UTF_8))), new Properties());
+        handlerDoc = new HandlerDoc(doc);
+    }
+
+    @Benchmark
+    public long stringTagger() throws ImporterHandlerException {
+        tagger.tagDocument(
+                handlerDoc, doc.getInputStream(), ParseState.POST);
+        return tagger.count;
+    }
+
+    @Benchmark
+    public boolean stringFilter() throws ImporterHandlerException {
+        return filter.acceptDocument(
+                handlerDoc, doc.getInputStream(), ParseState.POST);
+    }
+
+    @Benchmark
+    public void stringTransformer() throws ImporterHandlerException {
+        transformer.transformDocument(handlerDoc, doc.getInputStream(),
+                NullOutputStream.NULL_OUTPUT_STREAM, ParseState.POST);
+    }
+
+    static class CountingTagger extends AbstractStringTagger {
+        private long count;
+        @Override
+        protected void tagStringContent(HandlerDoc doc, StringBuilder content,
+                ParseState parseState, int sectionIndex) {
+            count += content.length();
+        }
+        @Override
+        protected void saveStringTaggerToXML(XML xml) {
+            //NOOP
+        }
+        @Override
+        protected void loadStringTaggerFromXML(XML xml) {
+            //NOOP
+        }
+    }
+
+    static class NeverMatchingFilter extends AbstractStringFilter {
+        @Override
+        protected boolean isStringContentMatching(HandlerDoc doc,
+                StringBuilder content, ParseState parseState,
+                int sectionIndex) {
+            return content.length() < 0;
+        }
+        @Override
+        protected void saveStringFilterToXML(XML xml) {
+            //NOOP
+        }
+        @Override
+        protected void loadStringFilterFromXML(XML xml) {
+            //NOOP
+        }
+    }
+
+    static class IdentityTransformer extends AbstractStringTransformer {
+        @Override
+        protected void transformStringContent(HandlerDoc doc,
+                StringBuilder content, ParseState parseState,
+                int sectionIndex) {
+            //NOOP
+        }
+        @Override
+        protected void saveStringTransformerToXML(XML xml) {
+            //NOOP
+        }
+        @Override
+        protected void loadStringTransformerFromXML(XML xml) {
+            //NOOP
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.handler.splitter;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.norconex.commons.lang.io.CachedInputStream;
+import com.norconex.commons.lang.map.Properties;
+import com.norconex.importer.doc.Doc;
+import com.norconex.importer.handler.HandlerDoc;
+import com.norconex.importer.handler.ImporterHandlerException;
+import com.norconex.importer.handler.splitter.impl.CsvSplitter;
+import com.norconex.importer.parser.ParseState;
+
+/**
+ * Time taken to split a large generated CSV file into child documents,
+ * with the OpenCSV reader, the fast tokenizer, and the fast tokenizer
+ * keeping only a few columns as metadata. Use a large row count
+ * (e.g., 20000000 for about 2 GB) to measure multi-gigabyte files.
+ * @author Pascal Essiembre
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Thread)
+public class CsvSplitterBenchmark {
+
+    private static final int COLUMNS = 12;
+
+    @Param({ "100000", "1000000" })
+    public int rows;
+
+    private Path file;
+    private final CsvSplitter openCsv = new CsvSplitter();
+    private final CsvSplitter fast = new CsvSplitter();
+    private final CsvSplitter fastProjected = new CsvSplitter();
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = Files.createTempFile("CsvSplitterBenchmark", ".csv");
+        try (BufferedWriter w = Files.newBufferedWriter(
+                file, StandardCharsets.UTF_8)) {
+            for (int c = 1; c <= COLUMNS; c++) {
+                w.write(c == 1 ? "" : ",");
+                w.write("\"col" + c + "\"");
+            }
+            w.write('\n');
+            for (int r = 0; r < rows; r++) {
+                w.write(Integer.toString(r));
+                w.write(",\"Dalton, Joe\",\"He said \"\"hi\"\"\"");
+                for (int c = 4; c <= COLUMNS; c++) {
+                    w.write(",value-");
+                    w.write(Integer.toString(c * r));
+                }
+                w.write('\n');
+            }
+        }
+        for (CsvSplitter s : new CsvSplitter[] {
+                openCsv, fast, fastProjected }) {
+            s.setUseFirstRowAsFields(true);
+            s.setReferenceColumn("col1");
+            s.setContentColumns("col3");
+        }
+        fast.setFastTokenizer(true);
+        fastProjected.setFastTokenizer(true);
+        fastProjected.setMetadataColumns("col2");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long openCsv() throws ImporterHandlerException, IOException {
+        return split(openCsv);
+    }
+
+    @Benchmark
+    public long fastTokenizer()
+            throws ImporterHandlerException, IOException {
+        return split(fast);
+    }
+
+    @Benchmark
+    public long fastTokenizerProjected()
+            throws ImporterHandlerException, IOException {
+        return split(fastProjected);
+    }
+
+    private long split(CsvSplitter splitter)
+            throws ImporterHandlerException, IOException {
+        long[] count = new long[1];
+        try (InputStream is = Files.newInputStream(file)) {
+            HandlerDoc doc = new HandlerDoc(new Doc(file.toString(),
+                    CachedInputStream.cache(new ByteArrayInputStream(
+                            new byte[0])), new Properties()));
+            splitter.splitDocument(doc, is,
+                    NullOutputStream.NULL_OUTPUT_STREAM, ParseState.PRE,
+                    child -> {
+                count[0] += child.getMetadata().size();
+                try {
+                    child.dispose();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        return count[0];
+    }
+}
@@ -0,0 +1,67 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Character encoding detection of test files.
+ * @author Pascal Essiembre
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CharsetUtilBenchmark {
+
+    @Param({
+        "src/test/resources/charset/UTF-8.txt",
+        "src/test/resources/charset/ISO-8859-1.txt",
+        "src/test/resources/charset/windows-1250.txt",
+        "src/site/resources/examples/books/"
+                + "alice-in-wonderland-book-chapter-1.html"
+    })
+    public String file;
+
+    private byte[] content;
+
+    @Setup
+    public void setup() throws IOException {
+        content = Files.readAllBytes(Paths.get(file));
+    }
+
+    @Benchmark
+    public String detectCharset() throws IOException {
+        return CharsetUtil.detectCharset(new ByteArrayInputStream(content));
+    }
+}
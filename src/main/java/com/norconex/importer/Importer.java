@@ -21,21 +21,54 @@ import static com.norconex.importer.ImporterEvent.IMPORTER_PARSER_BEGIN;
 import static com.norconex.importer.ImporterEvent.IMPORTER_PARSER_END;
 import static com.norconex.importer.ImporterEvent.IMPORTER_PARSER_ERROR;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.UUID;
-
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.codec.digest.MessageDigestAlgorithms;
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.mutable.MutableObject;
 import org.slf4j.Logger;
@@ -48,13 +81,20 @@ import com.norconex.commons.lang.io.CachedInputStream;
 import com.norconex.commons.lang.io.CachedOutputStream;
 import com.norconex.commons.lang.io.CachedStreamFactory;
 import com.norconex.commons.lang.io.IOUtil;
+import com.norconex.commons.lang.io.TextReader;
 import com.norconex.commons.lang.map.Properties;
+import com.norconex.importer.digest.ContentDigestConfig;
+import com.norconex.importer.digest.IParsedContentStore;
+import com.norconex.importer.digest.ParsedContent;
+import com.norconex.importer.doc.ContentTypeDetectionCache;
 import com.norconex.importer.doc.ContentTypeDetector;
 import com.norconex.importer.doc.Doc;
 import com.norconex.importer.doc.DocInfo;
 import com.norconex.importer.doc.DocMetadata;
 import com.norconex.importer.handler.HandlerDoc;
+import com.norconex.importer.handler.IDOMHandler;
 import com.norconex.importer.handler.IImporterHandler;
+import com.norconex.importer.handler.IStringSectionHandler;
 import com.norconex.importer.handler.ImporterHandlerException;
 import com.norconex.importer.handler.filter.IDocumentFilter;
 import com.norconex.importer.handler.filter.IOnMatchFilter;
@@ -62,9 +102,18 @@ import com.norconex.importer.handler.filter.OnMatch;
 import com.norconex.importer.handler.splitter.IDocumentSplitter;
 import com.norconex.importer.handler.tagger.IDocumentTagger;
 import com.norconex.importer.handler.transformer.IDocumentTransformer;
+import com.norconex.importer.metrics.ComponentMetrics;
+import com.norconex.importer.metrics.IMetricsReporter;
+import com.norconex.importer.metrics.ImporterMetrics;
+import com.norconex.importer.metrics.MetricsConfig;
+import com.norconex.importer.parser.CachingDocumentParser;
 import com.norconex.importer.parser.DocumentParserException;
+import com.norconex.importer.parser.GenericDocumentParserFactory;
 import com.norconex.importer.parser.IDocumentParser;
 import com.norconex.importer.parser.IDocumentParserFactory;
+import com.norconex.importer.parser.OCRConfig;
+import com.norconex.importer.parser.OCRScheduler;
+import com.norconex.importer.parser.ParseResultCache;
 import com.norconex.importer.parser.ParseState;
 import com.norconex.importer.response.IImporterResponseProcessor;
 import com.norconex.importer.response.ImporterResponse;
@@ -72,10 +121,34 @@ import com.norconex.importer.response.ImporterStatus;
 import com.norconex.importer.response.ImporterStatus.Status;
 
 /**
+ * <p>
  * Principal class responsible for importing documents.
+ * </p>
+ * <p>
+ * Since 3.0.0, documents can also be imported in batch, concurrently,
+ * using {@link #importDocuments(Stream)} or {@link #submit(ImporterRequest)}.
+ * Batch imports are performed by a bounded pool of threads configured
+ * with {@link ImporterConfig#setBatchThreads(int)} and
+ * related settings. Once you are done with batch imports, invoke
+ * {@link #close()} to release the threads.
+ * </p>
+ * <p>
+ * Child documents (embedded or split documents) of a document can
+ * also be imported concurrently, by setting
+ * {@link ImporterConfig#setChildThreads(int)}.  Their responses are
+ * still added to the parent response in their original order.
+ * </p>
+ * <p>
+ * Responses of child documents are handed to response processors once
+ * their parent document import is complete, just before the parent
+ * response itself. This includes children of a rejected parent, but
+ * children of a parent that failed with an error are not processed.
+ * Since children are imported as soon as they are extracted, they are
+ * imported even if their parent is later rejected or fails.
+ * </p>
  * @author Pascal Essiembre
  */
-public class Importer {
+public class Importer implements AutoCloseable {
 
 	private static final Logger LOG = LoggerFactory.getLogger(Importer.class);
 
@@ -88,6 +161,20 @@ public class Importer {
     private static final InheritableThreadLocal<Importer> INSTANCE =
             new InheritableThreadLocal<>();
 
+    // Lazily created the first time documents are imported in batch.
+    private ExecutorService batchExecutor;
+    private ScheduledExecutorService batchWatchdog;
+    private Semaphore batchPermits;
+    // Lazily created the first time child documents are imported
+    // concurrently.
+    private ExecutorService childExecutor;
+
+    // Null when metrics are disabled.
+    private final ImporterMetrics metrics;
+    // Null when content type detection caching is disabled.
+    private final ContentTypeDetectionCache detectionCache;
+    private ScheduledExecutorService metricsReporter;
+
     /**
      * Creates a new importer with default configuration.
      */
@@ -128,11 +215,82 @@ public class Importer {
                 this.importerConfig.getMaxFilePoolCacheSize(),
                 this.importerConfig.getMaxFileCacheSize(),
                 this.importerConfig.getTempDir()); // use workdir + /tmp?
+        this.importerConfig.getParserFactory().warmUp(streamFactory);
+        ContentDigestConfig digestConfig =
+                this.importerConfig.getContentDigestConfig();
+        if (digestConfig != null && digestConfig.isEnabled()) {
+            try {
+                DigestUtils.getDigest(digestConfig.getAlgorithm());
+            } catch (IllegalArgumentException e) {
+                throw new ImporterRuntimeException(
+                        "Unsupported content digest algorithm: "
+                                + digestConfig.getAlgorithm(), e);
+            }
+        }
         this.eventManager = new EventManager(eventManager);
+        this.metrics = createMetrics(this.importerConfig.getMetricsConfig());
+        if (this.importerConfig.getDetectionCacheSize() > 0) {
+            detectionCache = new ContentTypeDetectionCache(
+                    this.importerConfig.getDetectionCacheSize(),
+                    this.importerConfig.getDetectionCacheTTL(),
+                    this.importerConfig.getDetectionCacheSampleSize());
+            if (metrics != null) {
+                metrics.registerMXBean(
+                        "ContentTypeDetectionCache", detectionCache);
+            }
+        } else {
+            detectionCache = null;
+        }
+        if (metrics != null && this.importerConfig.getParserFactory()
+                instanceof GenericDocumentParserFactory) {
+            GenericDocumentParserFactory parserFactory =
+                    (GenericDocumentParserFactory)
+                            this.importerConfig.getParserFactory();
+            ParseResultCache parseCache = parserFactory.getParseResultCache();
+            if (parseCache != null) {
+                metrics.registerMXBean("ParseResultCache", parseCache);
+            }
+            OCRConfig ocrConfig = parserFactory.getParseHints().getOcrConfig();
+            if (StringUtils.isNotBlank(ocrConfig.getPath())) {
+                OCRScheduler ocrScheduler = ocrConfig.getScheduler();
+                metrics.registerMXBean("OCRScheduler", ocrScheduler);
+                metrics.addComponentMetrics(
+                        ocrScheduler.getDocumentMetrics());
+            }
+        }
 
         INSTANCE.set(this);
     }
 
+    private ImporterMetrics createMetrics(MetricsConfig metricsConfig) {
+        if (metricsConfig == null || !metricsConfig.isEnabled()) {
+            return null;
+        }
+        ImporterMetrics m = new ImporterMetrics(importerConfig);
+        if (metricsConfig.isJmx()) {
+            m.registerJMX();
+        }
+        if (metricsConfig.getReportInterval() > 0
+                && !metricsConfig.getReporters().isEmpty()) {
+            metricsReporter = Executors.newSingleThreadScheduledExecutor(
+                    newDaemonThreadFactory("importer-metrics"));
+            metricsReporter.scheduleAtFixedRate(() -> reportMetrics(m),
+                    metricsConfig.getReportInterval(),
+                    metricsConfig.getReportInterval(), TimeUnit.MILLISECONDS);
+        }
+        return m;
+    }
+    private void reportMetrics(ImporterMetrics m) {
+        for (IMetricsReporter reporter
+                : importerConfig.getMetricsConfig().getReporters()) {
+            try {
+                reporter.report(m);
+            } catch (RuntimeException e) {
+                LOG.error("Could not report metrics with: {}", reporter, e);
+            }
+        }
+    }
+
     public static Importer get() {
         return INSTANCE.get();
     }
@@ -161,6 +319,27 @@ public class Importer {
         return importerConfig;
     }
 
+    /**
+     * Gets metrics recorded by this importer for each handler and parser.
+     * @return importer metrics or <code>null</code> if metrics are disabled
+     * @see ImporterConfig#setMetricsConfig(MetricsConfig)
+     * @since 3.0.0
+     */
+    public ImporterMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the cache of detected content types shared by all documents
+     * imported with this importer.
+     * @return detection cache or <code>null</code> if caching is disabled
+     * @see ImporterConfig#setDetectionCacheSize(int)
+     * @since 3.0.0
+     */
+    public ContentTypeDetectionCache getDetectionCache() {
+        return detectionCache;
+    }
+
     /**
      * Gets the event manager.
      * @return event manager
@@ -177,8 +356,12 @@ public class Importer {
      * @since 3.0.0
      */
     public ImporterResponse importDocument(ImporterRequest req) {
+        return importDocument(req, true);
+    }
+    private ImporterResponse importDocument(
+            ImporterRequest req, boolean processResponse) {
         try {
-            return importDocument(toDocument(req));
+            return importDocument(toDocument(req), processResponse);
         } catch (ImporterException e) {
             LOG.warn("Importer request failed: {}", req, e);
             return new ImporterResponse(req.getReference(),
@@ -193,6 +376,10 @@ public class Importer {
      * @since 3.0.0
      */
     public ImporterResponse importDocument(Doc document) {
+        return importDocument(document, true);
+    }
+    private ImporterResponse importDocument(
+            Doc document, boolean processResponse) {
         // Note: Doc reference, InputStream and metadata are all null-safe.
 
         DocInfo docInfo = document.getDocInfo();
@@ -201,8 +388,13 @@ public class Importer {
         ContentType ct = docInfo.getContentType();
         if (ct == null || StringUtils.isBlank(ct.toString())) {
             try {
-                ct = ContentTypeDetector.detect(
-                        document.getInputStream(), document.getReference());
+                if (detectionCache != null) {
+                    ct = detectionCache.detect(document.getInputStream(),
+                            document.getReference());
+                } else {
+                    ct = ContentTypeDetector.detect(document.getInputStream(),
+                            document.getReference());
+                }
             } catch (IOException e) {
                 LOG.warn("Could not detect content type. Defaulting to "
                         + "\"application/octet-stream\".", e);
@@ -225,9 +417,12 @@ public class Importer {
         }
 
         //--- Document Handling ---
+        // Child documents are imported as they are handed over
+        ChildDocImporter childImporter = new ChildDocImporter();
+        boolean childrenAdded = false;
         try {
-            List<Doc> nestedDocs = new ArrayList<>();
-            ImporterStatus filterStatus = importDocument(document, nestedDocs);
+            ImporterStatus filterStatus =
+                    importDocument(document, childImporter);
             ImporterResponse response = null;
             if (filterStatus.isRejected()) {
                 response = new ImporterResponse(
@@ -235,15 +430,11 @@ public class Importer {
             } else {
                 response = new ImporterResponse(document);
             }
-            for (Doc childDoc : nestedDocs) {
-                ImporterResponse nestedResponse = importDocument(childDoc);
-                if (nestedResponse != null) {
-                    response.addNestedResponse(nestedResponse);
-                }
-            }
+            childImporter.addResponsesTo(response);
+            childrenAdded = true;
 
             //--- Response Processor ---
-            if (response.getParentResponse() == null
+            if (processResponse && response.getParentResponse() == null
                     && !importerConfig.getResponseProcessors().isEmpty()) {
                 processResponse(response);
             }
@@ -253,9 +444,392 @@ public class Importer {
             return new ImporterResponse(document.getReference(),
                     new ImporterStatus(new ImporterException(
                             "Could not import document: " + document, e)));
+        } finally {
+            if (!childrenAdded) {
+                childImporter.discard();
+            }
         }
     }
 
+    private ImporterResponse importChildDocument(Doc childDoc) {
+        Importer previous = INSTANCE.get();
+        INSTANCE.set(this);
+        try {
+            return importDocument(childDoc, false);
+        } finally {
+            if (previous == null) {
+                INSTANCE.remove();
+            } else {
+                INSTANCE.set(previous);
+            }
+        }
+    }
+    private synchronized ExecutorService ensureChildExecutor() {
+        if (childExecutor == null) {
+            int threads = importerConfig.getChildThreads();
+            childExecutor = Executors.newFixedThreadPool(
+                    threads, newDaemonThreadFactory("importer-child"));
+            LOG.debug("Importer child pool started with {} threads.",
+                    threads);
+        }
+        return childExecutor;
+    }
+
+    /**
+     * Submits a document for asynchronous import. The document will be
+     * imported by one of the batch threads as soon as one is available.
+     * If too many documents are already waiting to be imported
+     * (see {@link ImporterConfig#getBatchQueueSize()}), this method blocks
+     * until there is room for more. Response processors are invoked
+     * on the importing thread, so they may be invoked concurrently
+     * for different documents and must be thread-safe.
+     * @param req request instructions for importing
+     * @return future importer response
+     * @since 3.0.0
+     */
+    public Future<ImporterResponse> submit(ImporterRequest req) {
+        return submitBatchRequest(req, true);
+    }
+
+    /**
+     * Imports documents concurrently according to the importer
+     * configuration, blocking until all documents are imported.
+     * Responses are handed to configured response processors only, after
+     * which their documents are disposed of.
+     * @param requests request instructions for each document to import
+     * @since 3.0.0
+     * @see #importDocuments(Stream, Consumer)
+     */
+    public void importDocuments(Stream<ImporterRequest> requests) {
+        importDocuments(requests, null);
+    }
+    /**
+     * Imports documents concurrently according to the importer
+     * configuration, blocking until all documents are imported.
+     * Requests are pulled from the stream only as fast as they can be
+     * processed (see {@link ImporterConfig#getBatchQueueSize()}).
+     * Responses are handed to configured response processors, then to the
+     * supplied consumer, on the calling thread.  They are handed in
+     * submission order if {@link ImporterConfig#isBatchOrderedResponses()}
+     * is <code>true</code>, or as soon as they are ready otherwise.
+     * When the consumer is <code>null</code>, documents are disposed of
+     * once response processors have been invoked.
+     * @param requests request instructions for each document to import
+     * @param responseConsumer consumer of importer responses
+     * @since 3.0.0
+     */
+    public void importDocuments(Stream<ImporterRequest> requests,
+            Consumer<ImporterResponse> responseConsumer) {
+        Objects.requireNonNull(requests, "'requests' must not be null.");
+        Consumer<ImporterResponse> consumer = responseConsumer;
+        if (consumer == null) {
+            consumer = Importer::disposeResponse;
+        }
+        int maxInFlight = resolveBatchQueueSize();
+        Iterator<ImporterRequest> it = requests.iterator();
+        if (importerConfig.isBatchOrderedResponses()) {
+            Deque<CompletableFuture<ImporterResponse>> pending =
+                    new ArrayDeque<>();
+            while (it.hasNext()) {
+                while (pending.size() >= maxInFlight) {
+                    deliverResponse(pending.poll().join(), consumer);
+                }
+                pending.add(submitBatchRequest(it.next(), false));
+                while (!pending.isEmpty() && pending.peek().isDone()) {
+                    deliverResponse(pending.poll().join(), consumer);
+                }
+            }
+            while (!pending.isEmpty()) {
+                deliverResponse(pending.poll().join(), consumer);
+            }
+        } else {
+            BlockingQueue<ImporterResponse> done = new LinkedBlockingQueue<>();
+            int inFlight = 0;
+            while (it.hasNext()) {
+                while (inFlight >= maxInFlight) {
+                    deliverResponse(takeResponse(done), consumer);
+                    inFlight--;
+                }
+                submitBatchRequest(it.next(), false).thenAccept(done::add);
+                inFlight++;
+                ImporterResponse response;
+                while ((response = done.poll()) != null) {
+                    deliverResponse(response, consumer);
+                    inFlight--;
+                }
+            }
+            while (inFlight > 0) {
+                deliverResponse(takeResponse(done), consumer);
+                inFlight--;
+            }
+        }
+    }
+
+    /**
+     * Shuts down threads used for batch imports and concurrent
+     * imports of child documents, if any were started.
+     * Documents already submitted are still imported: this method waits
+     * for them, and their child documents, to be imported before
+     * returning.
+     * Pre- and post-parse handlers, and parsers obtained from the parser
+     * factory (see {@link IDocumentParserFactory#close()}), implementing
+     * {@link AutoCloseable} are then closed (e.g., to stop external
+     * worker processes). They can still be used afterwards (e.g., when
+     * shared with other importers), starting new processes as needed.
+     * When metrics are enabled, they are reported one last time and
+     * unregistered from JMX.
+     * This importer can still be used after being closed, in which case
+     * new threads will be created if needed. Metrics are then still
+     * recorded and available from {@link #getMetrics()}, but they are
+     * no longer exposed through JMX nor periodically reported.
+     * @since 3.0.0
+     */
+    @Override
+    public void close() {
+        // Not waiting while holding the lock, as documents being
+        // imported may need it to import their children.
+        ExecutorService batch;
+        ScheduledExecutorService watchdog;
+        synchronized (this) {
+            batch = batchExecutor;
+            watchdog = batchWatchdog;
+            batchExecutor = null;
+            batchWatchdog = null;
+            batchPermits = null;
+        }
+        if (batch != null) {
+            batch.shutdown();
+            // timeouts of documents being imported are still enforced
+            awaitTermination(batch);
+            watchdog.shutdown();
+        }
+        // Only once batch imports are done, as they could still
+        // be using child threads.
+        ExecutorService children;
+        synchronized (this) {
+            children = childExecutor;
+            childExecutor = null;
+        }
+        if (children != null) {
+            children.shutdown();
+            awaitTermination(children);
+        }
+        synchronized (this) {
+            if (metrics != null) {
+                if (metricsReporter != null) {
+                    metricsReporter.shutdownNow();
+                    metricsReporter = null;
+                }
+                reportMetrics(metrics);
+                metrics.unregisterJMX();
+            }
+        }
+        closeHandlers(importerConfig.getPreParseHandlers());
+        closeHandlers(importerConfig.getPostParseHandlers());
+        IDocumentParserFactory parserFactory =
+                importerConfig.getParserFactory();
+        if (parserFactory != null) {
+            parserFactory.close();
+        }
+    }
+    private static void awaitTermination(ExecutorService executor) {
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOG.info("Waiting for documents being imported...");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.warn("Interrupted while waiting for documents being "
+                    + "imported. Closing anyway.");
+        }
+    }
+    private void closeHandlers(List<IImporterHandler> handlers) {
+        for (IImporterHandler handler : handlers) {
+            if (handler instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) handler).close();
+                } catch (Exception e) {
+                    LOG.warn("Could not close handler: {}", handler, e);
+                }
+            }
+        }
+    }
+
+    private CompletableFuture<ImporterResponse> submitBatchRequest(
+            ImporterRequest req, boolean processResponse) {
+        Objects.requireNonNull(req, "'req' must not be null.");
+        ExecutorService executor;
+        ScheduledExecutorService watchdog;
+        Semaphore permits;
+        synchronized (this) {
+            ensureBatchExecutor();
+            executor = batchExecutor;
+            watchdog = batchWatchdog;
+            permits = batchPermits;
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImporterRuntimeException(
+                    "Interrupted while waiting to submit: " + req, e);
+        }
+
+        CompletableFuture<ImporterResponse> future = new CompletableFuture<>();
+        // whoever claims the response first (import or timeout) completes it
+        AtomicBoolean claimed = new AtomicBoolean();
+        AtomicReference<Future<?>> task = new AtomicReference<>();
+        long timeout = importerConfig.getBatchDocumentTimeout();
+        Runnable onTimeout = () -> {
+            if (claimed.compareAndSet(false, true)) {
+                LOG.warn("Document import timed out after {}ms: {}",
+                        timeout, req);
+                future.complete(new ImporterResponse(req.getReference(),
+                        new ImporterStatus(new ImporterException(
+                                "Document import timed out after "
+                                        + timeout + "ms: " + req))));
+                Future<?> f = task.get();
+                if (f != null) {
+                    f.cancel(true);
+                }
+            }
+        };
+        try {
+            task.set(executor.submit(() -> {
+                // time spent waiting for a thread does not count
+                ScheduledFuture<?> timer =
+                        scheduleTimeout(watchdog, onTimeout, timeout);
+                INSTANCE.set(this);
+                try {
+                    ImporterResponse response = importDocument(req, false);
+                    if (claimed.compareAndSet(false, true)) {
+                        if (processResponse) {
+                            processBatchResponse(response);
+                        }
+                        future.complete(response);
+                    } else {
+                        disposeResponse(response);
+                    }
+                } catch (RuntimeException | Error e) {
+                    LOG.error("Could not import document: {}", req, e);
+                    if (claimed.compareAndSet(false, true)) {
+                        future.complete(new ImporterResponse(
+                                req.getReference(), new ImporterStatus(
+                                        new ImporterException(
+                                        "Could not import document: "
+                                                + req, e))));
+                    }
+                } finally {
+                    if (timer != null) {
+                        timer.cancel(false);
+                    }
+                    INSTANCE.remove();
+                    permits.release();
+                }
+            }));
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        return future;
+    }
+
+    // Returns null if there is no timeout or the importer was closed.
+    private static ScheduledFuture<?> scheduleTimeout(
+            ScheduledExecutorService watchdog, Runnable onTimeout,
+            long timeout) {
+        if (timeout <= 0) {
+            return null;
+        }
+        try {
+            return watchdog.schedule(
+                    onTimeout, timeout, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            LOG.debug("Importer closed, document import timeout not "
+                    + "enforced.");
+            return null;
+        }
+    }
+
+    private void ensureBatchExecutor() {
+        if (batchExecutor != null) {
+            return;
+        }
+        int threads = resolveBatchThreads();
+        batchExecutor = Executors.newFixedThreadPool(
+                threads, newDaemonThreadFactory("importer-batch"));
+        ScheduledThreadPoolExecutor watchdog = new ScheduledThreadPoolExecutor(
+                1, newDaemonThreadFactory("importer-batch-watchdog"));
+        watchdog.setRemoveOnCancelPolicy(true);
+        batchWatchdog = watchdog;
+        batchPermits = new Semaphore(resolveBatchQueueSize());
+        LOG.debug("Importer batch pool started with {} threads.", threads);
+    }
+
+    private static ThreadFactory newDaemonThreadFactory(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private int resolveBatchThreads() {
+        int threads = importerConfig.getBatchThreads();
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        return threads;
+    }
+    private int resolveBatchQueueSize() {
+        int size = importerConfig.getBatchQueueSize();
+        if (size <= 0) {
+            size = resolveBatchThreads() * 2;
+        }
+        return size;
+    }
+
+    private void deliverResponse(ImporterResponse response,
+            Consumer<ImporterResponse> consumer) {
+        processBatchResponse(response);
+        consumer.accept(response);
+    }
+    // Responses in error are never handed to response processors,
+    // consistent with single-document imports.
+    private void processBatchResponse(ImporterResponse response) {
+        if (!response.getImporterStatus().isError()
+                && !importerConfig.getResponseProcessors().isEmpty()) {
+            processResponse(response);
+        }
+    }
+
+    private static ImporterResponse takeResponse(
+            BlockingQueue<ImporterResponse> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImporterRuntimeException(
+                    "Interrupted while waiting for importer responses.", e);
+        }
+    }
+
+    // Also used by ImporterLauncher
+    static void disposeResponse(ImporterResponse response) {
+        Doc doc = response.getDocument();
+        if (doc != null) {
+            try {
+                doc.dispose();
+            } catch (IOException e) {
+                LOG.debug("Could not dispose of document: {}",
+                        doc.getReference(), e);
+            }
+        }
+        for (ImporterResponse nested : response.getNestedResponses()) {
+            disposeResponse(nested);
+        }
+    }
 
     // We deal with stream, but since only one of stream or file can be set,
     // convert file to stream only if set.
@@ -294,12 +868,15 @@ public class Importer {
     }
 
     private ImporterStatus importDocument(
-            Doc document, List<Doc> nestedDocs)
+            Doc document, ChildDocImporter childImporter)
                     throws ImporterException, IOException {
         ImporterStatus filterStatus = null;
 
+        //--- Content digest ---
+        ContentDigest digest = digestContent(document);
+
         //--- Pre-handlers ---
-        filterStatus = executeHandlers(document, nestedDocs,
+        filterStatus = executeHandlers(document, childImporter,
                 importerConfig.getPreParseHandlers(), ParseState.PRE);
         if (!filterStatus.isSuccess()) {
             return filterStatus;
@@ -307,9 +884,9 @@ public class Importer {
         //--- Parse ---
         //TODO make parse just another handler in the chain?  Eliminating
         //the need for pre and post handlers?
-        parseDocument(document, nestedDocs);
+        parseDocument(document, childImporter, digest);
         //--- Post-handlers ---
-        filterStatus = executeHandlers(document, nestedDocs,
+        filterStatus = executeHandlers(document, childImporter,
                 importerConfig.getPostParseHandlers(), ParseState.POST);
         if (!filterStatus.isSuccess()) {
             return filterStatus;
@@ -318,7 +895,15 @@ public class Importer {
     }
 
 
+    // Nested responses are processed first, and only if their parent
+    // import succeeded.
     private void processResponse(ImporterResponse response) {
+        // children of a failed parent may be incomplete
+        if (!response.getImporterStatus().isError()) {
+            for (ImporterResponse nested : response.getNestedResponses()) {
+                processResponse(nested);
+            }
+        }
         for (IImporterResponseProcessor proc
                 : importerConfig.getResponseProcessors()) {
             proc.processImporterResponse(response);
@@ -326,7 +911,7 @@ public class Importer {
     }
 
     private ImporterStatus executeHandlers(
-            Doc doc, List<Doc> childDocsHolder,
+            Doc doc, ChildDocImporter childImporter,
             List<IImporterHandler> handlers, ParseState parseState)
                     throws ImporterException {
         if (handlers == null) {
@@ -336,13 +921,40 @@ public class Importer {
         IncludeMatchResolver includeResolver = new IncludeMatchResolver();
         HandlerDoc hdoc = new HandlerDoc(doc);
         MutableObject<CachedInputStream> input = new MutableObject<>();
-        for (IImporterHandler h : handlers) {
+        int handlerIndex = 0;
+        while (handlerIndex < handlers.size()) {
+            // Consecutive DOM handlers share the same parsed DOM
+            if (!(handlers.get(handlerIndex) instanceof IDOMHandler)) {
+                releaseDOM(hdoc);
+            }
+            List<IStringSectionHandler> fused = nextFusedStringHandlers(
+                    handlers, handlerIndex, parseState);
+            if (fused.size() > 1) {
+                handlerIndex += fused.size();
+                ImporterStatus status = executeFusedStringHandlers(
+                        doc, hdoc, fused, parseState, includeResolver);
+                if (status != null) {
+                    return status;
+                }
+                continue;
+            }
+            IImporterHandler h = handlers.get(handlerIndex++);
             eventManager.fire(
                     new ImporterEvent.Builder(IMPORTER_HANDLER_BEGIN, doc)
                         .subject(h)
                         .parseState(parseState)
                         .build());
             input.setValue(doc.getInputStream());
+            ComponentMetrics hm = null;
+            long startNanos = 0;
+            long bytesIn = 0;
+            if (metrics != null) {
+                hm = metrics.getHandlerMetrics(h);
+                bytesIn = input.getValue().length();
+                startNanos = System.nanoTime();
+            }
+            boolean rejected = false;
+            boolean failed = false;
             try {
                 if (h instanceof IDocumentTagger) {
                     tagDocument(hdoc, input.getValue(),
@@ -352,13 +964,14 @@ public class Importer {
                             hdoc, input, (IDocumentTransformer) h, parseState);
                     doc.setInputStream(input.getValue());
                 } else if (h instanceof IDocumentSplitter) {
-                    childDocsHolder.addAll(splitDocument(
-                            hdoc, input, (IDocumentSplitter) h, parseState));
+                    splitDocument(hdoc, input, (IDocumentSplitter) h,
+                            parseState, childImporter);
                     doc.setInputStream(input.getValue());
                 } else if (h instanceof IDocumentFilter) {
                     IDocumentFilter filter = (IDocumentFilter) h;
                     boolean accepted = acceptDocument(
                             hdoc, input.getValue(), filter, parseState);
+                    rejected = !accepted;
                     if (isMatchIncludeFilter(filter)) {
                         includeResolver.hasIncludes = true;
                         if (accepted) {
@@ -374,6 +987,7 @@ public class Importer {
                     LOG.error("Unsupported Import Handler: {}", h);
                 }
             } catch (ImporterException e) {
+                failed = true;
                 eventManager.fire(
                         new ImporterEvent.Builder(IMPORTER_HANDLER_ERROR, doc)
                             .subject(h)
@@ -382,6 +996,7 @@ public class Importer {
                             .build());
                 throw e;
             } catch (IOException | RuntimeException e) {
+                failed = true;
                 eventManager.fire(
                         new ImporterEvent.Builder(IMPORTER_HANDLER_ERROR, doc)
                             .subject(h)
@@ -390,6 +1005,11 @@ public class Importer {
                             .build());
                 throw new ImporterException(
                         "Importer failure for handler: " + h, e);
+            } finally {
+                if (hm != null) {
+                    recordHandlerMetrics(hm, h, doc,
+                            startNanos, bytesIn, rejected, failed);
+                }
             }
             eventManager.fire(
                     new ImporterEvent.Builder(IMPORTER_HANDLER_END, doc)
@@ -397,6 +1017,7 @@ public class Importer {
                         .parseState(parseState)
                         .build());
         }
+        releaseDOM(hdoc);
 
         if (!includeResolver.passes()) {
             return new ImporterStatus(Status.REJECTED,
@@ -406,6 +1027,289 @@ public class Importer {
         return PASSING_FILTER_STATUS;
     }
 
+    private void releaseDOM(HandlerDoc hdoc) throws ImporterException {
+        try {
+            hdoc.releaseDOM();
+        } catch (IOException e) {
+            throw new ImporterException(
+                    "Could not write DOM of: " + hdoc.getReference(), e);
+        }
+    }
+
+    private void recordHandlerMetrics(ComponentMetrics hm,
+            IImporterHandler h, Doc doc, long startNanos, long bytesIn,
+            boolean rejected, boolean failed) {
+        long nanos = System.nanoTime() - startNanos;
+        if (failed) {
+            hm.recordError(nanos);
+            return;
+        }
+        // only transformers and splitters produce content
+        long bytesOut = -1;
+        if (h instanceof IDocumentTransformer
+                || h instanceof IDocumentSplitter) {
+            bytesOut = doc.getInputStream().length();
+        }
+        hm.record(nanos, bytesIn, bytesOut, rejected);
+    }
+
+    // Returns the handlers that can be fused together starting at the
+    // given index (at least two), or an empty list.
+    private List<IStringSectionHandler> nextFusedStringHandlers(
+            List<IImporterHandler> handlers, int fromIndex,
+            ParseState parseState) {
+        List<IStringSectionHandler> fused = new ArrayList<>();
+        if (!importerConfig.isFuseStringHandlers() || !parseState.isPost()) {
+            return fused;
+        }
+        for (int i = fromIndex; i < handlers.size(); i++) {
+            IImporterHandler h = handlers.get(i);
+            if (!(h instanceof IStringSectionHandler)) {
+                break;
+            }
+            IStringSectionHandler sh = (IStringSectionHandler) h;
+            if (!sh.isSectionFusable()) {
+                break;
+            }
+            // Applicability is resolved before the first handler runs,
+            // so handlers after it cannot depend on metadata it may set.
+            if (!fused.isEmpty()
+                    && (fused.get(0).getMaxReadSize() != sh.getMaxReadSize()
+                            || sh.isSectionHandlingRestricted())) {
+                break;
+            }
+            fused.add(sh);
+            // a filter may reject the document, so none run after it
+            if (sh instanceof IDocumentFilter) {
+                break;
+            }
+        }
+        return fused;
+    }
+
+    // Reads and decodes content once, invoking every handler on each section.
+    // Returns a rejection status, or null if the document was not rejected.
+    private ImporterStatus executeFusedStringHandlers(
+            Doc doc, HandlerDoc hdoc, List<IStringSectionHandler> fused,
+            ParseState parseState, IncludeMatchResolver includeResolver)
+                    throws ImporterException {
+        for (IStringSectionHandler h : fused) {
+            eventManager.fire(
+                    new ImporterEvent.Builder(IMPORTER_HANDLER_BEGIN, doc)
+                        .subject(h)
+                        .parseState(parseState)
+                        .build());
+        }
+
+        FusedStringHandlers run = new FusedStringHandlers(fused);
+        long bytesIn = metrics != null ? doc.getInputStream().length() : 0;
+        try {
+            run.execute(doc, hdoc, parseState);
+        } catch (ImporterException e) {
+            run.recordMetrics(bytesIn, -1);
+            eventManager.fire(
+                    new ImporterEvent.Builder(IMPORTER_HANDLER_ERROR, doc)
+                        .subject(run.current)
+                        .parseState(parseState)
+                        .exception(e)
+                        .build());
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            run.recordMetrics(bytesIn, -1);
+            eventManager.fire(
+                    new ImporterEvent.Builder(IMPORTER_HANDLER_ERROR, doc)
+                        .subject(run.current)
+                        .parseState(parseState)
+                        .exception(e)
+                        .build());
+            throw new ImporterException(
+                    "Importer failure for handler: " + run.current, e);
+        }
+
+        run.recordMetrics(bytesIn, metrics != null
+                ? doc.getInputStream().length() : 0);
+
+        ImporterStatus rejection = null;
+        for (int i = 0; i < fused.size(); i++) {
+            IStringSectionHandler h = fused.get(i);
+            if (rejection == null && h instanceof IDocumentFilter) {
+                IDocumentFilter filter = (IDocumentFilter) h;
+                boolean accepted = run.isAccepted(i);
+                if (!accepted) {
+                    LOG.debug("Document import rejected. Filter: {}", filter);
+                }
+                if (isMatchIncludeFilter(filter)) {
+                    includeResolver.hasIncludes = true;
+                    if (accepted) {
+                        includeResolver.atLeastOneIncludeMatch = true;
+                    }
+                } else if (!accepted) {
+                    rejection = new ImporterStatus(filter);
+                }
+            }
+            eventManager.fire(
+                    new ImporterEvent.Builder(IMPORTER_HANDLER_END, doc)
+                        .subject(h)
+                        .parseState(parseState)
+                        .build());
+        }
+        return rejection;
+    }
+
+    // Holds the state of consecutive string handlers invoked together.
+    private class FusedStringHandlers {
+        private final List<IStringSectionHandler> handlers;
+        private final boolean[] applicable;
+        private final boolean[] matched;
+        // only used when metrics are enabled
+        private final long[] nanos;
+        private IStringSectionHandler current;
+        public FusedStringHandlers(List<IStringSectionHandler> handlers) {
+            this.handlers = handlers;
+            this.applicable = new boolean[handlers.size()];
+            this.matched = new boolean[handlers.size()];
+            this.nanos = metrics != null ? new long[handlers.size()] : null;
+        }
+        private void execute(Doc doc, HandlerDoc hdoc, ParseState parseState)
+                throws ImporterHandlerException, IOException {
+            // only the first handler can depend on metadata, which
+            // is not yet modified by the others
+            for (int i = 0; i < handlers.size(); i++) {
+                current = handlers.get(i);
+                applicable[i] = current.isSectionHandlingApplicable(
+                        hdoc, parseState);
+            }
+            current = null;
+
+            CachedInputStream in = doc.getInputStream();
+            // only transformers can change content
+            CachedOutputStream out = null;
+            Writer writer = null;
+            if (handlers.stream().anyMatch(
+                    h -> h instanceof IDocumentTransformer)) {
+                out = streamFactory.newOuputStream();
+                writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            }
+            boolean modified = false;
+            int sectionIndex = 0;
+            StringBuilder b = new StringBuilder();
+            String text = null;
+            try (TextReader reader = new TextReader(new InputStreamReader(
+                    in, StandardCharsets.UTF_8),
+                    handlers.get(0).getMaxReadSize())) {
+                while ((text = reader.readText()) != null) {
+                    b.append(text);
+                    handleSection(hdoc, b, parseState, sectionIndex);
+                    if (isRejected()) {
+                        // content no longer matters
+                        modified = false;
+                        break;
+                    }
+                    if (writer != null) {
+                        modified = modified || !text.contentEquals(b);
+                        writer.append(b);
+                    }
+                    sectionIndex++;
+                    b.setLength(0);
+                }
+                // If no content, go at least once in it like each
+                // handler would do on its own.
+                if (sectionIndex == 0) {
+                    handleSection(hdoc, b, parseState, 0);
+                }
+                if (writer != null) {
+                    writer.flush();
+                }
+            } catch (IOException | RuntimeException
+                    | ImporterHandlerException e) {
+                IOUtil.closeQuietly(out);
+                throw e;
+            }
+
+            if (out == null) {
+                return;
+            }
+            if (!modified) {
+                LOG.debug("Fused string handlers did not modify content "
+                        + "of: {}", hdoc.getReference());
+                out.getInputStream().dispose();
+                IOUtil.closeQuietly(out);
+                return;
+            }
+            in.dispose();
+            try {
+                doc.setInputStream(out.getInputStream());
+            } finally {
+                IOUtil.closeQuietly(out);
+            }
+        }
+        private void handleSection(HandlerDoc hdoc, StringBuilder b,
+                ParseState parseState, int sectionIndex)
+                        throws ImporterHandlerException {
+            for (int i = 0; i < handlers.size(); i++) {
+                // filters stop reading once they matched
+                if (!applicable[i] || matched[i]) {
+                    continue;
+                }
+                current = handlers.get(i);
+                long startNanos = nanos != null ? System.nanoTime() : 0;
+                boolean handled = current.handleStringSection(
+                        hdoc, b, parseState, sectionIndex);
+                if (nanos != null) {
+                    nanos[i] += System.nanoTime() - startNanos;
+                }
+                if (current instanceof IDocumentFilter) {
+                    matched[i] = handled;
+                }
+            }
+            current = null;
+        }
+        // Whether a filter already rejected the document, regardless
+        // of sections not yet read (filters are always last).
+        private boolean isRejected() {
+            int last = handlers.size() - 1;
+            return handlers.get(last) instanceof IDocumentFilter
+                    && matched[last] && !isAccepted(last);
+        }
+        // Content is read once for all, so every handler is given the
+        // same bytes in, and transformers the final bytes out.
+        private void recordMetrics(long bytesIn, long bytesOut) {
+            if (metrics == null) {
+                return;
+            }
+            for (int i = 0; i < handlers.size(); i++) {
+                IStringSectionHandler h = handlers.get(i);
+                ComponentMetrics hm = metrics.getHandlerMetrics(h);
+                if (bytesOut < 0 && h == current) {
+                    hm.recordError(nanos[i]);
+                } else {
+                    hm.record(nanos[i], bytesIn,
+                            h instanceof IDocumentTransformer ? bytesOut : -1,
+                            h instanceof IDocumentFilter && !isAccepted(i));
+                }
+            }
+        }
+        // Same logic as AbstractOnMatchFilter/AbstractDocumentFilter
+        private boolean isAccepted(int index) {
+            if (!applicable[index]) {
+                return true;
+            }
+            IImporterHandler h = handlers.get(index);
+            OnMatch onMatch = h instanceof IOnMatchFilter
+                    ? ((IOnMatchFilter) h).getOnMatch() : null;
+            return matched[index] == (OnMatch.EXCLUDE != onMatch);
+        }
+    }
+
+    private static class ContentDigest {
+        private final CachedInputStream content;
+        private final String value;
+        public ContentDigest(CachedInputStream content, String value) {
+            this.content = content;
+            this.value = value;
+        }
+    }
+
     private static class IncludeMatchResolver {
         private boolean hasIncludes = false;
         private boolean atLeastOneIncludeMatch = false;
@@ -420,9 +1324,29 @@ public class Importer {
                 && OnMatch.INCLUDE == ((IOnMatchFilter) filter).getOnMatch();
     }
 
-    private void parseDocument(
-            final Doc doc, final List<Doc> embeddedDocs)
-            throws IOException, ImporterException {
+    private ContentDigest digestContent(Doc doc) throws IOException {
+        ContentDigestConfig cfg = importerConfig.getContentDigestConfig();
+        if (cfg == null || !cfg.isEnabled()) {
+            return null;
+        }
+        // For documents created from requests, this is when their
+        // content is first read and cached.
+        CachedInputStream content = doc.getInputStream();
+        String value = digest(content);
+        doc.getMetadata().set(DocMetadata.CONTENT_DIGEST, value);
+        return new ContentDigest(content, value);
+    }
+    private String digest(CachedInputStream content) throws IOException {
+        MessageDigest md = DigestUtils.getDigest(
+                importerConfig.getContentDigestConfig().getAlgorithm());
+        DigestUtils.updateDigest(md, content);
+        content.rewind();
+        return Hex.encodeHexString(md.digest());
+    }
+
+    private void parseDocument(final Doc doc,
+            final ChildDocImporter childImporter, ContentDigest digest)
+                    throws IOException, ImporterException {
 
         IDocumentParserFactory factory = importerConfig.getParserFactory();
         IDocumentParser parser = factory.getParser(
@@ -440,6 +1364,24 @@ public class Importer {
             return;
         }
 
+        // Reuse the result of parsing identical content, if stored
+        IParsedContentStore store = digest != null
+                ? importerConfig.getContentDigestConfig().getStore() : null;
+        String contentDigest = null;
+        String storeKey = null;
+        Properties metaBeforeParse = null;
+        if (store != null) {
+            contentDigest = currentDigest(doc, digest);
+            storeKey = CachingDocumentParser.toKey(contentDigest, parser,
+                    parseHintsHash(), doc.getDocInfo().getContentType());
+            ParsedContent parsed = store.get(storeKey);
+            if (parsed != null) {
+                replayParsedContent(doc, parser, parsed, childImporter);
+                return;
+            }
+            metaBeforeParse = ParsedContent.snapshot(doc.getMetadata());
+        }
+
         eventManager.fire(
                 new ImporterEvent.Builder(IMPORTER_PARSER_BEGIN, doc)
                     .subject(parser)
@@ -450,36 +1392,41 @@ public class Importer {
         OutputStreamWriter output = new OutputStreamWriter(
                 out, StandardCharsets.UTF_8);
 
+        ComponentMetrics pm = null;
+        long startNanos = 0;
+        long bytesIn = 0;
+        boolean hasEmbedded = false;
+        if (metrics != null) {
+            pm = metrics.getParserMetrics(parser);
+            bytesIn = doc.getInputStream().length();
+            startNanos = System.nanoTime();
+        }
         try {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Parser \"{}\" about to parse \"{}\".",
                         parser.getClass().getCanonicalName(),
                         doc.getReference());
             }
-            List<Doc> nestedDocs =
-                    parser.parseDocument(doc, output);
-            output.flush();
-            if (doc.getDocInfo().getContentType() == null) {
-                String ct = doc.getMetadata().getString(
-                                DocMetadata.CONTENT_TYPE);
-                if (StringUtils.isNotBlank(ct)) {
-                    doc.getDocInfo().setContentType(ContentType.valueOf(ct));
+            ChildDocSource embeddedDocs =
+                    childImporter.newSource(doc.getReference());
+            if (parser instanceof CachingDocumentParser
+                    && isSha256(digest)) {
+                // spare the parse cache from digesting content again
+                if (contentDigest == null) {
+                    contentDigest = currentDigest(doc, digest);
                 }
+                ((CachingDocumentParser) parser).parseDocument(
+                        doc, output, embeddedDocs, contentDigest);
+            } else {
+                parser.parseDocument(doc, output, embeddedDocs);
             }
-            if (StringUtils.isBlank(doc.getDocInfo().getContentEncoding())) {
-                doc.getDocInfo().setContentEncoding(doc.getMetadata().getString(
-                        DocMetadata.CONTENT_ENCODING));
-            }
-            if (nestedDocs != null) {
-                for (int i = 0; i < nestedDocs.size() ; i++) {
-                    Properties meta = nestedDocs.get(i).getMetadata();
-                    meta.add(DocMetadata.EMBEDDED_INDEX, i);
-                    meta.add(DocMetadata.EMBEDDED_PARENT_REFERENCES,
-                            doc.getReference());
-                }
-                embeddedDocs.addAll(nestedDocs);
-            }
+            output.flush();
+            updateDocInfo(doc);
+            hasEmbedded = embeddedDocs.count > 0;
         } catch (DocumentParserException e) {
+            if (pm != null) {
+                pm.recordError(System.nanoTime() - startNanos);
+            }
             eventManager.fire(
                     new ImporterEvent.Builder(IMPORTER_PARSER_ERROR, doc)
                         .subject(parser)
@@ -518,6 +1465,109 @@ public class Importer {
 
             doc.setInputStream(newInputStream);
         }
+        if (pm != null) {
+            pm.record(System.nanoTime() - startNanos, bytesIn,
+                    doc.getInputStream().length(), false);
+        }
+        // Parsing results with embedded documents are not stored since
+        // embedded documents could not be replayed.
+        if (store != null && !hasEmbedded) {
+            storeParsedContent(doc, store, storeKey, metaBeforeParse);
+        }
+    }
+
+    private void updateDocInfo(Doc doc) {
+        if (doc.getDocInfo().getContentType() == null) {
+            String ct = doc.getMetadata().getString(
+                            DocMetadata.CONTENT_TYPE);
+            if (StringUtils.isNotBlank(ct)) {
+                doc.getDocInfo().setContentType(ContentType.valueOf(ct));
+            }
+        }
+        if (StringUtils.isBlank(doc.getDocInfo().getContentEncoding())) {
+            doc.getDocInfo().setContentEncoding(doc.getMetadata().getString(
+                    DocMetadata.CONTENT_ENCODING));
+        }
+    }
+
+    private String currentDigest(Doc doc, ContentDigest digest)
+            throws IOException {
+        // Pre-parse handlers may have replaced the content
+        return doc.getInputStream() == digest.content
+                ? digest.value : digest(doc.getInputStream());
+    }
+    private boolean isSha256(ContentDigest digest) {
+        return digest != null && MessageDigestAlgorithms.SHA_256
+                .equalsIgnoreCase(importerConfig
+                        .getContentDigestConfig().getAlgorithm());
+    }
+    private int parseHintsHash() {
+        IDocumentParserFactory factory = importerConfig.getParserFactory();
+        if (factory instanceof GenericDocumentParserFactory) {
+            return Objects.hashCode(((GenericDocumentParserFactory)
+                    factory).getParseHints());
+        }
+        return 0;
+    }
+    // Replaying counts as parsing for events and metrics, with events
+    // flagged as replayed. Embedded documents are only found in results
+    // stored by a parse result cache used as store.
+    private void replayParsedContent(Doc doc, IDocumentParser parser,
+            ParsedContent parsed, ChildDocImporter childImporter) {
+        LOG.debug("Reusing parsed content of identical document for: {}",
+                doc.getReference());
+        eventManager.fire(
+                new ImporterEvent.Builder(IMPORTER_PARSER_BEGIN, doc)
+                    .subject(parser)
+                    .parseState(ParseState.PRE)
+                    .replayed(true)
+                    .build());
+        ComponentMetrics pm = null;
+        long startNanos = 0;
+        long bytesIn = 0;
+        if (metrics != null) {
+            pm = metrics.getParserMetrics(parser);
+            bytesIn = doc.getInputStream().length();
+            startNanos = System.nanoTime();
+        }
+        Properties meta = doc.getMetadata();
+        for (Entry<String, List<String>> en
+                : parsed.getMetadata(doc.getReference()).entrySet()) {
+            meta.setList(en.getKey(), en.getValue());
+        }
+        doc.setInputStream(streamFactory.newInputStream(
+                new ByteArrayInputStream(parsed.getContent())));
+        updateDocInfo(doc);
+        List<Doc> embeddedDocs =
+                parsed.newEmbeddedDocs(doc.getReference(), streamFactory);
+        if (embeddedDocs != null) {
+            embeddedDocs.forEach(
+                    childImporter.newSource(doc.getReference()));
+        }
+        eventManager.fire(
+                new ImporterEvent.Builder(IMPORTER_PARSER_END, doc)
+                    .subject(parser)
+                    .parseState(ParseState.POST)
+                    .replayed(true)
+                    .build());
+        if (pm != null) {
+            pm.record(System.nanoTime() - startNanos, bytesIn,
+                    doc.getInputStream().length(), false);
+        }
+    }
+    private void storeParsedContent(Doc doc, IParsedContentStore store,
+            String key, Properties metaBeforeParse) throws IOException {
+        CachedInputStream content = doc.getInputStream();
+        if (content.length() > importerConfig.getContentDigestConfig()
+                .getMaxContentSize()) {
+            LOG.debug("Parsed content too large to be stored for: {}",
+                    doc.getReference());
+            return;
+        }
+        byte[] bytes = IOUtils.toByteArray(content);
+        content.rewind();
+        store.put(key, ParsedContent.of(bytes, ParsedContent.changes(
+                metaBeforeParse, doc.getMetadata()), doc.getReference()));
     }
 
     private void saveParseError(Doc doc, Exception e) {
@@ -629,15 +1679,17 @@ public class Importer {
         input.setValue(newInputStream);
     }
 
-    private List<Doc> splitDocument(HandlerDoc doc,
+    private void splitDocument(HandlerDoc doc,
             MutableObject<CachedInputStream> input,
-            IDocumentSplitter h, ParseState parseState)
+            IDocumentSplitter h, ParseState parseState,
+            ChildDocImporter childImporter)
                     throws ImporterHandlerException, IOException {
 
         CachedInputStream in = input.getValue();
         CachedOutputStream out = streamFactory.newOuputStream();
 
-        List<Doc> childDocs = h.splitDocument(doc, in, out, parseState);
+        h.splitDocument(doc, in, out, parseState,
+                childImporter.newSource(doc.getReference()));
         try {
             // If writing was performed, get new content
             if (!out.isCacheEmpty()) {
@@ -647,18 +1699,119 @@ public class Importer {
         } finally {
             IOUtil.closeQuietly(out);
         }
+    }
+
+    // Sets the embedded index and parent of each child document handed
+    // over by a single splitter or parser before it gets imported.
+    private static class ChildDocSource implements Consumer<Doc> {
+        private final String parentReference;
+        private final Consumer<Doc> target;
+        private int count;
+        public ChildDocSource(String parentReference, Consumer<Doc> target) {
+            this.parentReference = parentReference;
+            this.target = target;
+        }
+        @Override
+        public void accept(Doc childDoc) {
+            Properties meta = childDoc.getMetadata();
+            meta.add(DocMetadata.EMBEDDED_INDEX, count++);
+            meta.add(DocMetadata.EMBEDDED_PARENT_REFERENCES, parentReference);
+            target.accept(childDoc);
+        }
+    }
+
+    // Imports child documents of a single parent as they are handed over
+    // by splitters and parsers, so they do not all have to be held
+    // before being imported. When child threads are configured, up to
+    // "maxChildrenInFlight" children are imported concurrently (handing
+    // over more waits for the oldest one). A child not yet picked up by
+    // a pool thread when its turn comes is imported by the parent
+    // thread, which keeps nested children from waiting on a saturated
+    // pool. Responses are kept in the order children were handed over.
+    private class ChildDocImporter implements Consumer<Doc> {
+        private final ExecutorService executor;
+        private final int maxInFlight;
+        private final Deque<FutureTask<ImporterResponse>> inFlight =
+                new ArrayDeque<>();
+        private final List<ImporterResponse> responses = new ArrayList<>();
+
+        public ChildDocImporter() {
+            int threads = importerConfig.getChildThreads();
+            if (threads > 0) {
+                executor = ensureChildExecutor();
+                int max = importerConfig.getMaxChildrenInFlight();
+                maxInFlight = max > 0 ? max : threads * 2;
+            } else {
+                executor = null;
+                maxInFlight = 0;
+            }
+        }
 
-        if (childDocs == null) {
-            return new ArrayList<>();
+        ChildDocSource newSource(String parentReference) {
+            return new ChildDocSource(parentReference, this);
         }
 
-        for (int i = 0; i < childDocs.size(); i++) {
-            Properties meta = childDocs.get(i).getMetadata();
-            meta.add(DocMetadata.EMBEDDED_INDEX, i);
-            meta.add(DocMetadata.EMBEDDED_PARENT_REFERENCES,
-                    doc.getReference());
+        @Override
+        public void accept(Doc childDoc) {
+            if (executor == null) {
+                addResponse(importDocument(childDoc, false));
+                return;
+            }
+            while (inFlight.size() >= maxInFlight) {
+                completeOldest();
+            }
+            FutureTask<ImporterResponse> task =
+                    new FutureTask<>(() -> importChildDocument(childDoc));
+            inFlight.add(task);
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // pool was shut down: imported here instead
+                LOG.trace("Child import rejected by pool.", e);
+            }
+        }
+
+        void addResponsesTo(ImporterResponse response) {
+            while (!inFlight.isEmpty()) {
+                completeOldest();
+            }
+            responses.forEach(response::addNestedResponse);
+            responses.clear();
+        }
+
+        void discard() {
+            inFlight.forEach(t -> t.cancel(true));
+            inFlight.clear();
+            responses.forEach(Importer::disposeResponse);
+            responses.clear();
+        }
+
+        private void completeOldest() {
+            FutureTask<ImporterResponse> task = inFlight.poll();
+            task.run();
+            try {
+                addResponse(task.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ImporterRuntimeException(
+                        "Interrupted while importing child documents.", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new ImporterRuntimeException(
+                        "Could not import child document.", e.getCause());
+            }
+        }
+
+        private void addResponse(ImporterResponse response) {
+            if (response != null) {
+                responses.add(response);
+            }
         }
-        return childDocs;
     }
 
     //--- Deprecated -----------------------------------------------------------
@@ -30,7 +30,10 @@ import com.norconex.commons.lang.collection.CollectionUtil;
 import com.norconex.commons.lang.unit.DataUnit;
 import com.norconex.commons.lang.xml.IXMLConfigurable;
 import com.norconex.commons.lang.xml.XML;
+import com.norconex.importer.digest.ContentDigestConfig;
+import com.norconex.importer.doc.ContentTypeDetectionCache;
 import com.norconex.importer.handler.IImporterHandler;
+import com.norconex.importer.metrics.MetricsConfig;
 import com.norconex.importer.parser.GenericDocumentParserFactory;
 import com.norconex.importer.parser.IDocumentParserFactory;
 import com.norconex.importer.response.IImporterResponseProcessor;
@@ -61,6 +64,22 @@ public class ImporterConfig implements IXMLConfigurable {
     private int maxFilePoolCacheSize = DEFAULT_MAX_MEM_POOL;
     private Path parseErrorsSaveDir;
 
+    private int batchThreads;
+    private int batchQueueSize;
+    private long batchDocumentTimeout;
+    private boolean batchOrderedResponses;
+    private int childThreads;
+    private int maxChildrenInFlight;
+    private boolean fuseStringHandlers;
+    private MetricsConfig metricsConfig = new MetricsConfig();
+    private ContentDigestConfig contentDigestConfig =
+            new ContentDigestConfig();
+
+    private int detectionCacheSize;
+    private long detectionCacheTTL;
+    private int detectionCacheSampleSize =
+            ContentTypeDetectionCache.DEFAULT_SAMPLE_SIZE;
+
 //    private int maxMemoryPool;
 //    private int maxMemoryInstance;
 
@@ -129,6 +148,270 @@ public class ImporterConfig implements IXMLConfigurable {
     public void setMaxFilePoolCacheSize(int maxFilePoolCacheSize) {
         this.maxFilePoolCacheSize = maxFilePoolCacheSize;
     }
+
+    /**
+     * Gets the number of threads used when importing documents in batch
+     * (e.g., with {@link Importer#importDocuments(java.util.stream.Stream)}).
+     * Default is zero, meaning as many threads as available processors.
+     * @return number of batch threads
+     * @since 3.0.0
+     */
+    public int getBatchThreads() {
+        return batchThreads;
+    }
+    /**
+     * Sets the number of threads used when importing documents in batch.
+     * Zero or less means as many threads as available processors.
+     * @param batchThreads number of batch threads
+     * @since 3.0.0
+     */
+    public void setBatchThreads(int batchThreads) {
+        this.batchThreads = batchThreads;
+    }
+
+    /**
+     * Gets the maximum number of documents submitted for batch import
+     * that can be "in flight" at once (being imported or waiting to be).
+     * Submitting more documents blocks until one completes.
+     * Default is zero, meaning twice the number of batch threads.
+     * @return maximum number of in-flight batch documents
+     * @since 3.0.0
+     */
+    public int getBatchQueueSize() {
+        return batchQueueSize;
+    }
+    /**
+     * Sets the maximum number of documents submitted for batch import
+     * that can be "in flight" at once (being imported or waiting to be).
+     * Zero or less means twice the number of batch threads.
+     * @param batchQueueSize maximum number of in-flight batch documents
+     * @since 3.0.0
+     */
+    public void setBatchQueueSize(int batchQueueSize) {
+        this.batchQueueSize = batchQueueSize;
+    }
+
+    /**
+     * Gets the maximum amount of time in milliseconds a single document
+     * imported in batch can take before its import is interrupted and
+     * an error response is returned for it.
+     * Time spent waiting for a batch thread to be available is not
+     * counted.
+     * Default is zero (no timeout).
+     * @return document timeout in milliseconds
+     * @since 3.0.0
+     */
+    public long getBatchDocumentTimeout() {
+        return batchDocumentTimeout;
+    }
+    /**
+     * Sets the maximum amount of time in milliseconds a single document
+     * imported in batch can take before its import is interrupted and
+     * an error response is returned for it.
+     * Time spent waiting for a batch thread to be available is not
+     * counted.
+     * Zero or less means no timeout.
+     * @param batchDocumentTimeout document timeout in milliseconds
+     * @since 3.0.0
+     */
+    public void setBatchDocumentTimeout(long batchDocumentTimeout) {
+        this.batchDocumentTimeout = batchDocumentTimeout;
+    }
+
+    /**
+     * Gets whether responses of documents imported in batch are
+     * handed to response processors (and response consumers) in the same
+     * order the documents were submitted.  Default is <code>false</code>
+     * (responses are handed over as soon as ready).
+     * @return <code>true</code> if responses are ordered
+     * @since 3.0.0
+     */
+    public boolean isBatchOrderedResponses() {
+        return batchOrderedResponses;
+    }
+    /**
+     * Sets whether responses of documents imported in batch are
+     * handed to response processors (and response consumers) in the same
+     * order the documents were submitted.
+     * @param batchOrderedResponses <code>true</code> to order responses
+     * @since 3.0.0
+     */
+    public void setBatchOrderedResponses(boolean batchOrderedResponses) {
+        this.batchOrderedResponses = batchOrderedResponses;
+    }
+
+    /**
+     * Gets the number of threads used to import child documents
+     * (embedded or split documents) concurrently.  Default is zero,
+     * meaning child documents are imported one after the other by
+     * the thread importing their parent.
+     * Responses for child documents are always added to their parent
+     * response in the same order as their embedded index.
+     * @return number of child threads
+     * @since 3.0.0
+     */
+    public int getChildThreads() {
+        return childThreads;
+    }
+    /**
+     * Sets the number of threads used to import child documents
+     * (embedded or split documents) concurrently.
+     * Zero or less imports child documents sequentially.
+     * @param childThreads number of child threads
+     * @since 3.0.0
+     */
+    public void setChildThreads(int childThreads) {
+        this.childThreads = childThreads;
+    }
+
+    /**
+     * Gets the maximum number of child documents of a single parent
+     * being imported or waiting to be at once, when child documents are
+     * imported concurrently.  Limits memory used by documents with
+     * many children.
+     * Default is zero, meaning twice the number of child threads.
+     * @return maximum number of in-flight children per parent
+     * @since 3.0.0
+     */
+    public int getMaxChildrenInFlight() {
+        return maxChildrenInFlight;
+    }
+    /**
+     * Sets the maximum number of child documents of a single parent
+     * being imported or waiting to be at once, when child documents are
+     * imported concurrently.
+     * Zero or less means twice the number of child threads.
+     * @param maxChildrenInFlight maximum number of in-flight children
+     *        per parent
+     * @since 3.0.0
+     */
+    public void setMaxChildrenInFlight(int maxChildrenInFlight) {
+        this.maxChildrenInFlight = maxChildrenInFlight;
+    }
+
+    /**
+     * Gets whether consecutive post-parse handlers processing text
+     * one section at a time (e.g., most string-based taggers, filters,
+     * and transformers) are executed together, reading and decoding
+     * the content only once for all of them.  A new content stream is only
+     * created when a transformer actually modifies the content.
+     * Default is <code>false</code>.
+     * @return <code>true</code> if string handlers are fused
+     * @since 3.0.0
+     */
+    public boolean isFuseStringHandlers() {
+        return fuseStringHandlers;
+    }
+    /**
+     * Sets whether consecutive post-parse handlers processing text
+     * one section at a time are executed together, reading and decoding
+     * the content only once for all of them.
+     * @param fuseStringHandlers <code>true</code> to fuse string handlers
+     * @since 3.0.0
+     */
+    public void setFuseStringHandlers(boolean fuseStringHandlers) {
+        this.fuseStringHandlers = fuseStringHandlers;
+    }
+
+    /**
+     * Gets the configuration of metrics recorded for each handler and
+     * parser (disabled by default).
+     * @return metrics configuration
+     * @since 3.0.0
+     */
+    public MetricsConfig getMetricsConfig() {
+        return metricsConfig;
+    }
+    /**
+     * Sets the configuration of metrics recorded for each handler and
+     * parser.
+     * @param metricsConfig metrics configuration
+     * @since 3.0.0
+     */
+    public void setMetricsConfig(MetricsConfig metricsConfig) {
+        this.metricsConfig = metricsConfig;
+    }
+
+    /**
+     * Gets the configuration of content digests and the reuse of parsing
+     * results for identical content (disabled by default).
+     * @return content digest configuration
+     * @since 3.0.0
+     */
+    public ContentDigestConfig getContentDigestConfig() {
+        return contentDigestConfig;
+    }
+    /**
+     * Sets the configuration of content digests and the reuse of parsing
+     * results for identical content.
+     * @param contentDigestConfig content digest configuration
+     * @since 3.0.0
+     */
+    public void setContentDigestConfig(
+            ContentDigestConfig contentDigestConfig) {
+        this.contentDigestConfig = contentDigestConfig;
+    }
+
+    /**
+     * Gets the maximum number of detected content types to cache, for
+     * documents imported without a content type.
+     * Default is 0 (no caching).
+     * @return detection cache size
+     * @see ContentTypeDetectionCache
+     * @since 3.0.0
+     */
+    public int getDetectionCacheSize() {
+        return detectionCacheSize;
+    }
+    /**
+     * Sets the maximum number of detected content types to cache, for
+     * documents imported without a content type.
+     * @param detectionCacheSize detection cache size (0 disables caching)
+     * @since 3.0.0
+     */
+    public void setDetectionCacheSize(int detectionCacheSize) {
+        this.detectionCacheSize = detectionCacheSize;
+    }
+
+    /**
+     * Gets the number of milliseconds a cached content type detection
+     * remains valid. Default is 0 (never expires).
+     * @return detection cache time-to-live
+     * @since 3.0.0
+     */
+    public long getDetectionCacheTTL() {
+        return detectionCacheTTL;
+    }
+    /**
+     * Sets the number of milliseconds a cached content type detection
+     * remains valid.
+     * @param detectionCacheTTL detection cache time-to-live
+     * @since 3.0.0
+     */
+    public void setDetectionCacheTTL(long detectionCacheTTL) {
+        this.detectionCacheTTL = detectionCacheTTL;
+    }
+
+    /**
+     * Gets the maximum number of bytes read from the beginning of a document
+     * to identify it in the content type detection cache.
+     * Default is {@value ContentTypeDetectionCache#DEFAULT_SAMPLE_SIZE}.
+     * @return detection cache sample size
+     * @since 3.0.0
+     */
+    public int getDetectionCacheSampleSize() {
+        return detectionCacheSampleSize;
+    }
+    /**
+     * Sets the maximum number of bytes read from the beginning of a document
+     * to identify it in the content type detection cache.
+     * @param detectionCacheSampleSize detection cache sample size
+     * @since 3.0.0
+     */
+    public void setDetectionCacheSampleSize(int detectionCacheSampleSize) {
+        this.detectionCacheSampleSize = detectionCacheSampleSize;
+    }
+
     @Override
     public void loadFromXML(XML xml) {
         setTempDir(xml.getPath("tempDir", tempDir));
@@ -138,6 +421,31 @@ public class ImporterConfig implements IXMLConfigurable {
                 xml.getInteger("maxFileCacheSize", maxFileCacheSize));
         setMaxFilePoolCacheSize(
                 xml.getInteger("maxFilePoolCacheSize", maxFilePoolCacheSize));
+        setBatchThreads(xml.getInteger("batchThreads", batchThreads));
+        setBatchQueueSize(xml.getInteger("batchQueueSize", batchQueueSize));
+        setBatchDocumentTimeout(
+                xml.getLong("batchDocumentTimeout", batchDocumentTimeout));
+        setBatchOrderedResponses(xml.getBoolean(
+                "batchOrderedResponses", batchOrderedResponses));
+        setChildThreads(xml.getInteger("childThreads", childThreads));
+        setMaxChildrenInFlight(xml.getInteger(
+                "maxChildrenInFlight", maxChildrenInFlight));
+        setFuseStringHandlers(xml.getBoolean(
+                "fuseStringHandlers", fuseStringHandlers));
+        setDetectionCacheSize(
+                xml.getInteger("detectionCacheSize", detectionCacheSize));
+        setDetectionCacheTTL(
+                xml.getLong("detectionCacheTTL", detectionCacheTTL));
+        setDetectionCacheSampleSize(xml.getInteger(
+                "detectionCacheSampleSize", detectionCacheSampleSize));
+        XML metricsXML = xml.getXML("metrics");
+        if (metricsXML != null) {
+            metricsConfig.loadFromXML(metricsXML);
+        }
+        XML contentDigestXML = xml.getXML("contentDigest");
+        if (contentDigestXML != null) {
+            contentDigestConfig.loadFromXML(contentDigestXML);
+        }
         setPreParseHandlers(xml.getObjectListImpl(
                 IImporterHandler.class, "preParseHandlers/*", preParseHandlers));
         setParserFactory(xml.getObjectImpl(IDocumentParserFactory.class,
@@ -155,6 +463,22 @@ public class ImporterConfig implements IXMLConfigurable {
         xml.addElement("parseErrorsSaveDir", parseErrorsSaveDir);
         xml.addElement("maxFileCacheSize", maxFileCacheSize);
         xml.addElement("maxFilePoolCacheSize", maxFilePoolCacheSize);
+        xml.addElement("batchThreads", batchThreads);
+        xml.addElement("batchQueueSize", batchQueueSize);
+        xml.addElement("batchDocumentTimeout", batchDocumentTimeout);
+        xml.addElement("batchOrderedResponses", batchOrderedResponses);
+        xml.addElement("childThreads", childThreads);
+        xml.addElement("maxChildrenInFlight", maxChildrenInFlight);
+        xml.addElement("fuseStringHandlers", fuseStringHandlers);
+        xml.addElement("detectionCacheSize", detectionCacheSize);
+        xml.addElement("detectionCacheTTL", detectionCacheTTL);
+        xml.addElement("detectionCacheSampleSize", detectionCacheSampleSize);
+        if (metricsConfig != null) {
+            metricsConfig.saveToXML(xml.addElement("metrics"));
+        }
+        if (contentDigestConfig != null) {
+            contentDigestConfig.saveToXML(xml.addElement("contentDigest"));
+        }
         xml.addElementList("preParseHandlers", "handler", preParseHandlers);
         xml.addElement("documentParserFactory", documentParserFactory);
         xml.addElementList("postParseHandlers", "handler", postParseHandlers);
@@ -41,11 +41,13 @@ public class ImporterEvent extends Event {
 
     private final ParseState parseState;
     private final transient Object subject;
+    private final boolean replayed;
 
     public static class Builder extends Event.Builder<Builder> {
 
         private ParseState parseState;
         private Object subject;
+        private boolean replayed;
 
         public Builder(String name, Doc source) {
             super(name, source);
@@ -59,6 +61,10 @@ public class ImporterEvent extends Event {
             this.subject = subject;
             return this;
         }
+        public Builder replayed(boolean replayed) {
+            this.replayed = replayed;
+            return this;
+        }
 
         @Override
         public ImporterEvent build() {
@@ -74,6 +80,7 @@ public class ImporterEvent extends Event {
         super(b);
         this.parseState = b.parseState;
         this.subject = b.subject;
+        this.replayed = b.replayed;
     }
 
     @Override
@@ -90,6 +97,15 @@ public class ImporterEvent extends Event {
     public Object getSubject() {
         return subject;
     }
+    /**
+     * Gets whether this parser event is about a parsing result
+     * obtained from a store of previously parsed content instead of
+     * an actual parsing.
+     * @return <code>true</code> if the parsing result was replayed
+     */
+    public boolean isReplayed() {
+        return replayed;
+    }
 
     @Override
     public boolean equals(final Object other) {
@@ -14,12 +14,19 @@
  */
 package com.norconex.importer;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
+import java.util.stream.Stream;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -30,6 +37,7 @@ import org.apache.commons.cli.ParseException;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 
 import com.norconex.commons.lang.config.ConfigurationLoader;
 import com.norconex.commons.lang.file.ContentType;
@@ -38,16 +46,31 @@ import com.norconex.commons.lang.map.Properties;
 import com.norconex.commons.lang.xml.XMLValidationException;
 import com.norconex.importer.doc.Doc;
 import com.norconex.importer.response.ImporterResponse;
+import com.norconex.importer.response.ImporterStatus;
 
 /**
+ * <p>
  * Command line launcher of the Importer application.  Invoked by the
  * {@link Importer#main(String[])} method.
+ * </p>
+ * <p>
+ * Since 3.0.0, the launcher can import many files in a single invocation
+ * when the input file is a directory (optionally filtered with a
+ * "glob" pattern) or when a manifest listing files to import
+ * (one per line) is supplied.  In such case, a single {@link Importer}
+ * instance is shared across all files, which are imported concurrently.
+ * Imported files are written under the output directory and a summary is
+ * printed at the end.
+ * </p>
  * @author Pascal Essiembre
  * @since 2.0.0
  */
 public final class ImporterLauncher {
 
     private static final String ARG_INPUTFILE = "inputFile";
+    private static final String ARG_MANIFEST = "manifest";
+    private static final String ARG_GLOB = "glob";
+    private static final String ARG_THREADS = "threads";
     private static final String ARG_OUTPUTFILE = "outputFile";
     private static final String ARG_CONTENTTYPE = "contentType";
     private static final String ARG_OUTMETAFORMAT = "outputMetaFormat";
@@ -96,6 +119,11 @@ public final class ImporterLauncher {
         }
 
 
+        if (isBatchMode(cmd)) {
+            launchBatch(cmd, loadCommandLineConfig(cmd, configFile, varFile));
+            return;
+        }
+
         // Proceed
         ContentType contentType =
                 ContentType.valueOf(cmd.getOptionValue(ARG_CONTENTTYPE));
@@ -126,6 +154,183 @@ public final class ImporterLauncher {
         }
     }
 
+    private static boolean isBatchMode(CommandLine cmd) {
+        return cmd.hasOption(ARG_MANIFEST) || (cmd.hasOption(ARG_INPUTFILE)
+                && Files.isDirectory(
+                        Paths.get(cmd.getOptionValue(ARG_INPUTFILE))));
+    }
+
+    private static void launchBatch(CommandLine cmd, ImporterConfig cfg) {
+        ImporterConfig config = cfg;
+        if (config == null) {
+            config = new ImporterConfig();
+        }
+        if (cmd.hasOption(ARG_THREADS)) {
+            config.setBatchThreads(
+                    Integer.parseInt(cmd.getOptionValue(ARG_THREADS)));
+        }
+
+        Path inputDir = null;
+        if (cmd.hasOption(ARG_INPUTFILE)) {
+            inputDir = Paths.get(cmd.getOptionValue(ARG_INPUTFILE));
+        }
+        Path outputDir;
+        if (cmd.hasOption(ARG_OUTPUTFILE)) {
+            outputDir = Paths.get(cmd.getOptionValue(ARG_OUTPUTFILE));
+        } else if (inputDir != null) {
+            outputDir = Paths.get(inputDir.toString() + "-imported");
+        } else {
+            outputDir = Paths.get("imported");
+        }
+        String outputFormat = cmd.getOptionValue(ARG_OUTMETAFORMAT);
+        ContentType contentType =
+                ContentType.valueOf(cmd.getOptionValue(ARG_CONTENTTYPE));
+        String contentEncoding = cmd.getOptionValue(ARG_CONTENTENCODING);
+
+        BatchSummary summary = new BatchSummary();
+        Path baseDir = inputDir;
+        try (Importer importer = new Importer(config);
+                Stream<Path> files = batchInputFiles(cmd, inputDir)) {
+            Files.createDirectories(outputDir);
+            importer.importDocuments(files.map(f -> new ImporterRequest(f)
+                    .setReference(f.toString())
+                    .setContentType(contentType)
+                    .setContentEncoding(contentEncoding)
+                    .setMetadata(new Properties())), response -> {
+                summary.count(response);
+                // e.g., missing file: nothing to write
+                if (response.getReference() == null
+                        || response.getDocument() == null) {
+                    printStatus(response);
+                    Importer.disposeResponse(response);
+                    return;
+                }
+                Path out = outputDir.resolve(
+                        batchOutputName(baseDir, response.getReference()));
+                try {
+                    Files.createDirectories(out.getParent());
+                    if (!writeResponse(response,
+                            out.toString() + "-imported.txt",
+                            outputFormat, 0, 0)) {
+                        summary.writeErrors++;
+                    }
+                } catch (IOException e) {
+                    summary.writeErrors++;
+                    System.err.println(
+                            "Could not write: " + response.getReference());
+                    e.printStackTrace(System.err);
+                } finally {
+                    Importer.disposeResponse(response);
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("A problem occured while importing files.");
+            e.printStackTrace(System.err);
+            System.exit(-1);
+        }
+        summary.print(outputDir);
+        if (summary.errors > 0 || summary.writeErrors > 0) {
+            System.exit(-1);
+        }
+    }
+
+    private static Stream<Path> batchInputFiles(
+            CommandLine cmd, Path inputDir) throws IOException {
+        Stream<Path> files;
+        if (cmd.hasOption(ARG_MANIFEST)) {
+            String manifest = cmd.getOptionValue(ARG_MANIFEST);
+            BufferedReader reader;
+            if ("-".equals(manifest)) {
+                reader = new BufferedReader(new InputStreamReader(
+                        System.in, StandardCharsets.UTF_8));
+            } else {
+                reader = Files.newBufferedReader(
+                        Paths.get(manifest), StandardCharsets.UTF_8);
+            }
+            files = reader.lines()
+                    .map(StringUtils::trimToNull)
+                    .filter(line -> line != null && !line.startsWith("#"))
+                    .map(Paths::get)
+                    .onClose(() -> {
+                        try {
+                            reader.close();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } else {
+            files = Files.walk(inputDir).filter(Files::isRegularFile);
+        }
+        if (cmd.hasOption(ARG_GLOB)) {
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher(
+                    "glob:" + cmd.getOptionValue(ARG_GLOB));
+            files = files.filter(f -> matcher.matches(f)
+                    || matcher.matches(f.getFileName()));
+        }
+        return files;
+    }
+
+    // Mirrors the input file path under the output directory.
+    private static Path batchOutputName(Path baseDir, String reference) {
+        Path ref = Paths.get(reference).toAbsolutePath().normalize();
+        if (baseDir != null) {
+            Path base = baseDir.toAbsolutePath().normalize();
+            if (ref.startsWith(base)) {
+                return base.relativize(ref);
+            }
+        }
+        if (ref.getRoot() != null) {
+            return ref.getRoot().relativize(ref);
+        }
+        return ref;
+    }
+
+    private static class BatchSummary {
+        private final long startTime = System.currentTimeMillis();
+        private int total;
+        private int imported;
+        private int nested;
+        private int rejected;
+        private int errors;
+        private int writeErrors;
+
+        private void count(ImporterResponse response) {
+            total++;
+            ImporterStatus status = response.getImporterStatus();
+            if (status.isSuccess()) {
+                imported++;
+            } else if (status.isRejected()) {
+                rejected++;
+            } else {
+                errors++;
+            }
+            nested += countNested(response);
+        }
+        private int countNested(ImporterResponse response) {
+            int count = 0;
+            for (ImporterResponse r : response.getNestedResponses()) {
+                count += 1 + countNested(r);
+            }
+            return count;
+        }
+        private void print(Path outputDir) {
+            long elapsed = Math.max(1, System.currentTimeMillis() - startTime);
+            System.out.println();
+            System.out.println("Output directory: "
+                    + outputDir.toAbsolutePath());
+            System.out.println("           Files: " + total);
+            System.out.println("        Imported: " + imported);
+            System.out.println("        Rejected: " + rejected);
+            System.out.println("          Errors: " + errors);
+            System.out.println("    Write errors: " + writeErrors);
+            System.out.println("  Embedded/split: " + nested);
+            System.out.println("    Elapsed time: " + elapsed + "ms");
+            System.out.println(String.format(
+                    "      Throughput: %.2f files/second",
+                    total * 1000d / elapsed));
+        }
+    }
+
     private static ImporterConfig loadCommandLineConfig(
             CommandLine cmd, Path configFile, Path varFile) {
         if (configFile == null) {
@@ -158,16 +363,22 @@ public final class ImporterLauncher {
         }
     }
 
-    private static void writeResponse(ImporterResponse response,
-            String outputPath, String outputFormat, int depth, int index)
-                    throws IOException {
+    private static void printStatus(ImporterResponse response) {
+        String statusLabel = "REJECTED: ";
+        if (response.getImporterStatus().isError()) {
+            statusLabel = "   ERROR: ";
+        }
+        System.out.println(statusLabel + response.getReference() + " ("
+                + response.getImporterStatus().getDescription() + ")");
+    }
+
+    // Returns false if the response or one of its nested responses
+    // could not be written.
+    private static boolean writeResponse(ImporterResponse response,
+            String outputPath, String outputFormat, int depth, int index) {
+        boolean written = true;
         if (!response.isSuccess()) {
-            String statusLabel = "REJECTED: ";
-            if (response.getImporterStatus().isError()) {
-                statusLabel = "   ERROR: ";
-            }
-            System.out.println(statusLabel + response.getReference() + " ("
-                    + response.getImporterStatus().getDescription() + ")");
+            printStatus(response);
         } else {
             Doc doc = response.getDocument();
             StringBuilder path = new StringBuilder(outputPath);
@@ -183,13 +394,11 @@ public final class ImporterLauncher {
             File docfile = new File(path.toString());
 
             // Write document file
-            FileOutputStream docOutStream = new FileOutputStream(docfile);
             CachedInputStream docInStream = doc.getInputStream();
 
-            FileOutputStream metaOut = null;
-            try {
+            try (FileOutputStream docOutStream =
+                    new FileOutputStream(docfile)) {
                 IOUtils.copy(docInStream, docOutStream);
-                try { docOutStream.close(); } catch (IOException ie){ /*NOOP*/ }
                 try { docInStream.close(); } catch (IOException ie) { /*NOOP*/ }
 
                 // Write metadata file
@@ -217,30 +426,42 @@ public final class ImporterLauncher {
 
                 System.out.println("IMPORTED: " + response.getReference());
             } catch (IOException e) {
+                written = false;
                 System.err.println(
                         "Could not write: " + doc.getReference());
                 e.printStackTrace(System.err);
                 System.err.println();
                 System.err.flush();
-            } finally {
-                try { metaOut.close(); } catch (IOException ie) { /*NOOP*/ }
             }
         }
 
         ImporterResponse[] nextedResponses = response.getNestedResponses();
         for (int i = 0; i < nextedResponses.length; i++) {
             ImporterResponse nextedResponse = nextedResponses[i];
-            writeResponse(nextedResponse, outputPath,
+            written &= writeResponse(nextedResponse, outputPath,
                     outputFormat, depth + 1, i + 1);
         }
+        return written;
     }
 
     private static CommandLine parseCommandLineArguments(String[] args) {
         Options options = new Options();
         options.addOption("i", ARG_INPUTFILE, true,
-                "File to be imported (required unless \"checkcfg\" is used).");
+                "File to be imported (required unless \"checkcfg\" or "
+              + "\"manifest\" is used). When a directory, all files "
+              + "it contains are imported.");
+        options.addOption("m", ARG_MANIFEST, true,
+                "Optional: File listing files to be imported, one per line "
+              + "(\"-\" to read from standard input).");
+        options.addOption("g", ARG_GLOB, true,
+                "Optional: Glob pattern matching files to import from "
+              + "a directory or manifest (e.g. \"**.pdf\").");
+        options.addOption("n", ARG_THREADS, true,
+                "Optional: Number of threads to use when importing many "
+              + "files (default is number of available processors).");
         options.addOption("o", ARG_OUTPUTFILE, true,
-                "Optional: File where the imported content will be stored.");
+                "Optional: File where the imported content will be stored "
+              + "(directory when importing many files).");
         options.addOption("f", ARG_OUTMETAFORMAT, true,
                 "Optional: File format for extracted metadata fields. "
               + "One of \"properties\" (default), \"json\", or \"xml\"");
@@ -266,12 +487,22 @@ public final class ImporterLauncher {
         try {
             cmd = parser.parse(options, args);
             if(!cmd.hasOption(ARG_INPUTFILE)
+                    && !cmd.hasOption(ARG_MANIFEST)
                     && !(cmd.hasOption(ARG_CHECKCFG)
                             && cmd.hasOption(ARG_CONFIG))) {
                 HelpFormatter formatter = new HelpFormatter();
                 formatter.printHelp( "importer[.bat|.sh]", options );
                 System.exit(-1);
             }
+            if (cmd.hasOption(ARG_THREADS) && NumberUtils.toInt(
+                    cmd.getOptionValue(ARG_THREADS)) < 1) {
+                System.err.println("Invalid number of threads (must be "
+                        + "a positive integer): "
+                        + cmd.getOptionValue(ARG_THREADS));
+                HelpFormatter formatter = new HelpFormatter();
+                formatter.printHelp( "importer[.bat|.sh]", options );
+                System.exit(-1);
+            }
         } catch (ParseException e) {
             System.err.println("A problem occured while parsing arguments.");
             e.printStackTrace(System.err);
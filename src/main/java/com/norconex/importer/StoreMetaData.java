@@ -4,15 +4,31 @@
 
 package com.norconex.importer;
 
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.norconex.importer.StoreMetaDataFactory;
 import com.norconex.importer.doc.Doc;
 
 public class StoreMetaData {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(StoreMetaData.class);
+
     public void storeOutput(Doc doc, StringBuilder path, String outputFormat) {
         StoreMetaDataFactory factory = new StoreMetaDataFactory();
         MetaDataOutput output = factory.getOutputType(outputFormat);
         output.setFile(path);
         output.setOutStream();
         output.storeFile(doc);
+        if (output.metaOut != null) {
+            try {
+                output.metaOut.close();
+            } catch (IOException e) {
+                LOG.error("Could not close: {}", output.metaFile, e);
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,181 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.digest;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import com.norconex.commons.lang.xml.IXMLConfigurable;
+import com.norconex.commons.lang.xml.XML;
+import com.norconex.importer.doc.DocMetadata;
+
+/**
+ * <p>
+ * Content digest configuration. When enabled, the importer computes
+ * a digest of each document content before pre-parse handlers are
+ * invoked and stores it as a hexadecimal string in the
+ * {@value DocMetadata#CONTENT_DIGEST} metadata field. For documents
+ * created from an {@link com.norconex.importer.ImporterRequest}, the
+ * digest is computed while their content is first read and cached.
+ * </p>
+ * <p>
+ * When a parsed content store is also configured, the digest
+ * of content about to be parsed (along with its content type) is
+ * looked up in that store. If found, parsing is skipped and the
+ * previously extracted text and metadata are "replayed" on the
+ * document instead. Otherwise, the document is parsed and the result
+ * stored for next time, provided the parser did not produce embedded
+ * documents and the extracted text does not exceed the maximum
+ * content size.
+ * </p>
+ * <p>
+ * The store is keyed on the content digest, the parser class, the parse
+ * hints and the content type. Make sure to clear persistent stores when
+ * changing other parser settings (e.g., a parser's own configuration).
+ * </p>
+ *
+ * {@nx.xml.usage
+ * <contentDigest enabled="[false|true]"
+ *     algorithm="(digest algorithm, default is SHA-256)"
+ *     maxContentSize="(max extracted text size in bytes to be stored)">
+ *   <store class="(IParsedContentStore implementation)"/>
+ * </contentDigest>
+ * }
+ *
+ * {@nx.xml.example
+ * <contentDigest enabled="true">
+ *   <store class="com.norconex.importer.digest.MemoryParsedContentStore"
+ *       maxEntries="5000"/>
+ * </contentDigest>
+ * }
+ * <p>
+ * The above example keeps the parsing results of the last 5000 distinct
+ * documents in memory.
+ * </p>
+ *
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ * @see MemoryParsedContentStore
+ * @see DiskParsedContentStore
+ */
+@SuppressWarnings("javadoc")
+public class ContentDigestConfig implements IXMLConfigurable {
+
+    public static final String DEFAULT_ALGORITHM = "SHA-256";
+    public static final long DEFAULT_MAX_CONTENT_SIZE = 10L * 1024 * 1024;
+
+    private boolean enabled;
+    private String algorithm = DEFAULT_ALGORITHM;
+    private long maxContentSize = DEFAULT_MAX_CONTENT_SIZE;
+    private IParsedContentStore store;
+
+    /**
+     * Gets whether content digests are computed.
+     * Default is <code>false</code>.
+     * @return <code>true</code> if enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+    /**
+     * Sets whether content digests are computed.
+     * @param enabled <code>true</code> if enabled
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Gets the digest algorithm (as supported by
+     * {@link java.security.MessageDigest}). Default is
+     * {@value #DEFAULT_ALGORITHM}.
+     * @return digest algorithm
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+    /**
+     * Sets the digest algorithm (as supported by
+     * {@link java.security.MessageDigest}).
+     * @param algorithm digest algorithm
+     */
+    public void setAlgorithm(String algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Gets the maximum size in bytes of extracted text for a parsing
+     * result to be stored. Default is 10 MB.
+     * @return maximum content size
+     */
+    public long getMaxContentSize() {
+        return maxContentSize;
+    }
+    /**
+     * Sets the maximum size in bytes of extracted text for a parsing
+     * result to be stored.
+     * @param maxContentSize maximum content size
+     */
+    public void setMaxContentSize(long maxContentSize) {
+        this.maxContentSize = maxContentSize;
+    }
+
+    /**
+     * Gets the store of parsing results.
+     * Default is <code>null</code> (parsing results are not stored).
+     * @return parsed content store
+     */
+    public IParsedContentStore getStore() {
+        return store;
+    }
+    /**
+     * Sets the store of parsing results.
+     * @param store parsed content store
+     */
+    public void setStore(IParsedContentStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public void loadFromXML(XML xml) {
+        setEnabled(xml.getBoolean("@enabled", enabled));
+        setAlgorithm(xml.getString("@algorithm", algorithm));
+        setMaxContentSize(xml.getLong("@maxContentSize", maxContentSize));
+        setStore(xml.getObjectImpl(IParsedContentStore.class, "store", store));
+    }
+    @Override
+    public void saveToXML(XML xml) {
+        xml.setAttribute("enabled", enabled);
+        xml.setAttribute("algorithm", algorithm);
+        xml.setAttribute("maxContentSize", maxContentSize);
+        xml.addElement("store", store);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        return EqualsBuilder.reflectionEquals(this, other);
+    }
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this);
+    }
+    @Override
+    public String toString() {
+        return new ReflectionToStringBuilder(
+                this, ToStringStyle.SHORT_PREFIX_STYLE).toString();
+    }
+}
@@ -0,0 +1,134 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.digest;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.norconex.commons.lang.xml.IXMLConfigurable;
+import com.norconex.commons.lang.xml.XML;
+
+/**
+ * <p>
+ * Keeps parsing results on disk, so they survive JVM restarts
+ * (e.g., to avoid parsing unchanged documents again on the next crawl).
+ * Each result is written in a compact binary format to its own file
+ * under the configured directory, named after a hash of its key.
+ * Files are written to a temporary file first and moved in place,
+ * so concurrent importers can share the same directory.
+ * Entries are never evicted: delete the directory to clear the store.
+ * </p>
+ *
+ * {@nx.xml.usage
+ * <store class="com.norconex.importer.digest.DiskParsedContentStore">
+ *   <directory>(path to where parsing results are stored)</directory>
+ * </store>
+ * }
+ *
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ * @see ContentDigestConfig
+ */
+@SuppressWarnings("javadoc")
+public class DiskParsedContentStore
+        implements IParsedContentStore, IXMLConfigurable {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(DiskParsedContentStore.class);
+
+    public static final String DEFAULT_DIRECTORY = "./parsed-content";
+
+    private static final String EXTENSION = ".bin";
+
+    private Path directory = Paths.get(DEFAULT_DIRECTORY);
+
+    /**
+     * Gets the directory where parsing results are stored.
+     * Default is {@value #DEFAULT_DIRECTORY}.
+     * @return store directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+    /**
+     * Sets the directory where parsing results are stored.
+     * @param directory store directory
+     */
+    public void setDirectory(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public ParsedContent get(String key) {
+        Path file = toFile(key);
+        try {
+            return ParsedContent.readFrom(file, key);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LOG.warn("Could not read parsed content from: {}", file, e);
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String key, ParsedContent content) {
+        Path file = toFile(key);
+        try {
+            content.writeTo(file, key);
+        } catch (IOException e) {
+            LOG.warn("Could not store parsed content to: {}", file, e);
+        }
+    }
+
+    private Path toFile(String key) {
+        String hash = DigestUtils.sha1Hex(key);
+        return directory.resolve(hash.substring(0, 2))
+                .resolve(hash + EXTENSION);
+    }
+
+    @Override
+    public void loadFromXML(XML xml) {
+        setDirectory(xml.getPath("directory", directory));
+    }
+    @Override
+    public void saveToXML(XML xml) {
+        xml.addElement("directory", directory);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        return EqualsBuilder.reflectionEquals(this, other);
+    }
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this);
+    }
+    @Override
+    public String toString() {
+        return new ReflectionToStringBuilder(
+                this, ToStringStyle.SHORT_PREFIX_STYLE).toString();
+    }
+}
@@ -0,0 +1,40 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.digest;
+
+/**
+ * Stores the results of parsing documents (extracted text and metadata),
+ * so they can be reused for documents having the same content.
+ * Implementations must be thread-safe.
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ * @see ContentDigestConfig
+ */
+public interface IParsedContentStore {
+
+    /**
+     * Gets a previously stored parsing result.
+     * @param key key made of the parsed content digest and content type
+     * @return parsed content or <code>null</code> if not found
+     */
+    ParsedContent get(String key);
+
+    /**
+     * Stores a parsing result.
+     * @param key key made of the parsed content digest and content type
+     * @param content parsed content
+     */
+    void put(String key, ParsedContent content);
+}
@@ -0,0 +1,123 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.digest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import com.norconex.commons.lang.xml.IXMLConfigurable;
+import com.norconex.commons.lang.xml.XML;
+
+/**
+ * <p>
+ * Keeps parsing results in memory. Least recently used entries are
+ * evicted when the maximum number of entries is reached. Entries are lost
+ * when the JVM ends.
+ * This class is thread-safe.
+ * </p>
+ *
+ * {@nx.xml.usage
+ * <store class="com.norconex.importer.digest.MemoryParsedContentStore"
+ *     maxEntries="(maximum number of parsing results kept)"/>
+ * }
+ *
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ * @see ContentDigestConfig
+ */
+@SuppressWarnings("javadoc")
+public class MemoryParsedContentStore
+        implements IParsedContentStore, IXMLConfigurable {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+    private final transient Map<String, ParsedContent> entries =
+            new LinkedHashMap<String, ParsedContent>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+        @Override
+        protected boolean removeEldestEntry(
+                Map.Entry<String, ParsedContent> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    /**
+     * Gets the maximum number of parsing results kept.
+     * Default is {@value #DEFAULT_MAX_ENTRIES}.
+     * @return maximum number of entries
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+    /**
+     * Sets the maximum number of parsing results kept.
+     * @param maxEntries maximum number of entries
+     */
+    public synchronized void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public synchronized ParsedContent get(String key) {
+        return entries.get(key);
+    }
+    @Override
+    public synchronized void put(String key, ParsedContent content) {
+        entries.put(key, content);
+    }
+
+    /**
+     * Gets the number of parsing results currently kept.
+     * @return number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+    /**
+     * Removes all parsing results.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public void loadFromXML(XML xml) {
+        setMaxEntries(xml.getInteger("@maxEntries", maxEntries));
+    }
+    @Override
+    public void saveToXML(XML xml) {
+        xml.setAttribute("maxEntries", maxEntries);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        return EqualsBuilder.reflectionEquals(this, other);
+    }
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this);
+    }
+    @Override
+    public String toString() {
+        return new ReflectionToStringBuilder(
+                this, ToStringStyle.SHORT_PREFIX_STYLE).toString();
+    }
+}
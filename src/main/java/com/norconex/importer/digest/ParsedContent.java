@@ -0,0 +1,524 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.digest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.tika.metadata.TikaMetadataKeys;
+
+import com.norconex.commons.lang.file.ContentType;
+import com.norconex.commons.lang.io.CachedInputStream;
+import com.norconex.commons.lang.io.CachedStreamFactory;
+import com.norconex.commons.lang.map.Properties;
+import com.norconex.importer.doc.Doc;
+import com.norconex.importer.doc.DocInfo;
+import com.norconex.importer.doc.DocMetadata;
+
+/**
+ * The result of parsing a document: its extracted text (UTF-8),
+ * the metadata fields added or modified by parsing and, optionally,
+ * its embedded documents.
+ * Values of metadata fields derived from the parsed document reference
+ * (see {@link #REFERENCE_FIELDS}) can be stored relative to that
+ * reference, so they are resolved against the reference of the document
+ * receiving them.
+ * Instances are immutable.
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+public final class ParsedContent {
+
+    // Version 1 had no embedded documents
+    private static final int FORMAT_VERSION = 2;
+    private static final String REFERENCE_PLACEHOLDER = "\u0000ref\u0000";
+    // Separates an embedded document name from its parent reference.
+    private static final String EMBEDDED_SEPARATOR = "!";
+
+    /**
+     * Metadata fields holding values derived from the parsed document
+     * reference: the reference itself, the resource name and references
+     * of parent documents.
+     */
+    public static final Set<String> REFERENCE_FIELDS =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+                    DocMetadata.REFERENCE,
+                    DocMetadata.EMBEDDED_PARENT_REFERENCES,
+                    TikaMetadataKeys.RESOURCE_NAME_KEY)));
+
+    private final byte[] content;
+    private final Properties metadata;
+    private final List<Embedded> embedded;
+
+    /**
+     * Creates a parsed content.
+     * @param content extracted text, UTF-8 encoded
+     * @param metadata metadata fields added or modified by parsing
+     */
+    public ParsedContent(byte[] content, Properties metadata) {
+        this(content, metadata, null);
+    }
+    private ParsedContent(
+            byte[] content, Properties metadata, List<Embedded> embedded) {
+        this.content = Objects.requireNonNull(
+                content, "'content' must not be null.");
+        this.metadata = copy(metadata);
+        this.embedded = embedded == null
+                ? null : Collections.unmodifiableList(embedded);
+    }
+
+    /**
+     * Creates a parsed content with values of
+     * {@link #REFERENCE_FIELDS} made relative to the parsed document
+     * reference (see {@link #relativize(String, String)}).
+     * @param content extracted text, UTF-8 encoded
+     * @param metadata metadata fields added or modified by parsing
+     * @param reference parsed document reference
+     * @return parsed content
+     */
+    public static ParsedContent of(
+            byte[] content, Properties metadata, String reference) {
+        return of(content, metadata, reference, null);
+    }
+    /**
+     * Creates a parsed content with values of
+     * {@link #REFERENCE_FIELDS} made relative to the parsed document
+     * reference (see {@link #relativize(String, String)}), along with
+     * the embedded documents extracted while parsing.
+     * @param content extracted text, UTF-8 encoded
+     * @param metadata metadata fields added or modified by parsing
+     * @param reference parsed document reference
+     * @param embedded embedded documents (may be <code>null</code>)
+     * @return parsed content
+     * @see Embedded#of(Doc, String)
+     */
+    public static ParsedContent of(byte[] content, Properties metadata,
+            String reference, List<Embedded> embedded) {
+        Properties meta = copy(metadata);
+        for (Entry<String, List<String>> en : meta.entrySet()) {
+            if (REFERENCE_FIELDS.contains(en.getKey())) {
+                en.getValue().replaceAll(v -> relativize(v, reference));
+            }
+        }
+        return new ParsedContent(content, meta,
+                embedded == null ? null : new ArrayList<>(embedded));
+    }
+
+    /**
+     * Takes a copy of document metadata before parsing, to later obtain
+     * the fields parsing added or modified with
+     * {@link #changes(Properties, Properties)}.
+     * @param metadata document metadata
+     * @return metadata copy
+     */
+    public static Properties snapshot(Properties metadata) {
+        return copy(metadata);
+    }
+    /**
+     * Gets the metadata fields added or modified since a snapshot
+     * was taken.
+     * @param snapshot metadata before parsing
+     * @param metadata metadata after parsing
+     * @return added or modified fields
+     * @see #snapshot(Properties)
+     */
+    public static Properties changes(
+            Properties snapshot, Properties metadata) {
+        Properties changes = new Properties();
+        for (Entry<String, List<String>> en : metadata.entrySet()) {
+            if (!Objects.equals(en.getValue(), snapshot.get(en.getKey()))) {
+                changes.setList(en.getKey(), en.getValue());
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Gets the extracted text, UTF-8 encoded. The returned array must not
+     * be modified.
+     * @return content bytes
+     */
+    public byte[] getContent() {
+        return content;
+    }
+    /**
+     * Gets a copy of metadata fields added or modified by parsing.
+     * @return metadata
+     */
+    public Properties getMetadata() {
+        return copy(metadata);
+    }
+
+    /**
+     * Gets a copy of metadata fields added or modified by parsing, with
+     * relative values resolved against the given document reference.
+     * @param reference reference of the document receiving the metadata
+     * @return metadata
+     */
+    public Properties getMetadata(String reference) {
+        Properties meta = copy(metadata);
+        for (List<String> values : meta.values()) {
+            values.replaceAll(v -> resolve(v, reference));
+        }
+        return meta;
+    }
+
+    /**
+     * Gets whether embedded documents were kept with this parsed content.
+     * @return <code>true</code> if there are embedded documents
+     */
+    public boolean hasEmbedded() {
+        return embedded != null && !embedded.isEmpty();
+    }
+    /**
+     * Creates new embedded documents for the given parent document
+     * reference, or returns <code>null</code> if there are none.
+     * @param reference parent document reference
+     * @param streamFactory factory used to hold embedded document content
+     * @return embedded documents or <code>null</code>
+     */
+    public List<Doc> newEmbeddedDocs(
+            String reference, CachedStreamFactory streamFactory) {
+        if (!hasEmbedded()) {
+            return null;
+        }
+        List<Doc> docs = new ArrayList<>(embedded.size());
+        for (Embedded emb : embedded) {
+            docs.add(emb.newDoc(reference, streamFactory));
+        }
+        return docs;
+    }
+
+    /**
+     * Gets the approximate size in bytes of this parsed content,
+     * including its embedded documents.
+     * @return size in bytes
+     */
+    public long getSize() {
+        long size = content.length;
+        if (embedded != null) {
+            for (Embedded emb : embedded) {
+                size += emb.parsed.getSize();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Makes a reference relative to a document reference when it is
+     * that document reference, or the reference of a document embedded
+     * in it (i.e., the document reference followed by "!" and the
+     * embedded document name). Other values are returned unchanged.
+     * @param value the value
+     * @param reference document reference
+     * @return relative value, or the value unchanged
+     */
+    public static String relativize(String value, String reference) {
+        if (value == null || reference == null || reference.isEmpty()) {
+            return value;
+        }
+        if (value.equals(reference)) {
+            return REFERENCE_PLACEHOLDER;
+        }
+        if (value.startsWith(reference + EMBEDDED_SEPARATOR)) {
+            return REFERENCE_PLACEHOLDER
+                    + value.substring(reference.length());
+        }
+        return value;
+    }
+    /**
+     * Resolves a value made relative with
+     * {@link #relativize(String, String)} against a document reference.
+     * @param value the value
+     * @param reference document reference
+     * @return resolved value, or the value unchanged if not relative
+     */
+    public static String resolve(String value, String reference) {
+        if (value != null && value.startsWith(REFERENCE_PLACEHOLDER)) {
+            return Objects.toString(reference, "")
+                    + value.substring(REFERENCE_PLACEHOLDER.length());
+        }
+        return value;
+    }
+
+    private static Properties copy(Properties source) {
+        Properties copy = new Properties();
+        if (source != null) {
+            for (Entry<String, List<String>> en : source.entrySet()) {
+                copy.put(en.getKey(), new ArrayList<>(en.getValue()));
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Writes this parsed content to the given stream, in a compact
+     * binary format.
+     * @param out output stream
+     * @throws IOException could not write
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(FORMAT_VERSION);
+        data.writeInt(metadata.size());
+        for (Entry<String, List<String>> en : metadata.entrySet()) {
+            writeString(data, en.getKey());
+            List<String> values = en.getValue();
+            data.writeInt(values.size());
+            for (String value : values) {
+                writeString(data, value);
+            }
+        }
+        data.writeInt(content.length);
+        data.write(content);
+        if (embedded == null) {
+            data.writeInt(-1);
+        } else {
+            data.writeInt(embedded.size());
+            for (Embedded emb : embedded) {
+                emb.write(data);
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * Reads a parsed content previously written with
+     * {@link #write(OutputStream)}.
+     * @param in input stream
+     * @return parsed content
+     * @throws IOException could not read or unsupported format
+     */
+    public static ParsedContent read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        int version = data.readInt();
+        if (version < 1 || version > FORMAT_VERSION) {
+            throw new IOException(
+                    "Unsupported parsed content format version: " + version);
+        }
+        Properties meta = new Properties();
+        int fieldCount = data.readInt();
+        for (int i = 0; i < fieldCount; i++) {
+            String key = readString(data);
+            int valueCount = data.readInt();
+            List<String> values = new ArrayList<>(valueCount);
+            for (int j = 0; j < valueCount; j++) {
+                values.add(readString(data));
+            }
+            meta.setList(key, values);
+        }
+        byte[] content = new byte[data.readInt()];
+        data.readFully(content);
+        List<Embedded> embedded = null;
+        int embeddedCount = version > 1 ? data.readInt() : -1;
+        if (embeddedCount >= 0) {
+            embedded = new ArrayList<>(embeddedCount);
+            for (int i = 0; i < embeddedCount; i++) {
+                embedded.add(Embedded.read(data));
+            }
+        }
+        return new ParsedContent(content, meta, embedded);
+    }
+
+    /**
+     * Writes this parsed content to a file, preceded by the key it is
+     * stored under. It is written to a temporary file in the same
+     * directory first, then moved in place, so a file is never read
+     * while partially written (e.g., by another importer).
+     * @param file target file
+     * @param key key the parsed content is stored under
+     * @return size of the written file, in bytes
+     * @throws IOException could not write
+     */
+    public long writeTo(Path file, String key) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tempFile = Files.createTempFile(dir, null, null);
+        try {
+            try (OutputStream out = new BufferedOutputStream(
+                    Files.newOutputStream(tempFile))) {
+                new DataOutputStream(out).writeUTF(key);
+                write(out);
+            }
+            long size = Files.size(tempFile);
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            return size;
+        } finally {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException e) {
+                //NOOP
+            }
+        }
+    }
+    /**
+     * Reads a parsed content previously written with
+     * {@link #writeTo(Path, String)}.
+     * @param file source file
+     * @param key key the parsed content is expected to be stored under
+     * @return parsed content, or <code>null</code> if the file holds
+     *         parsed content stored under another key (hash collision)
+     * @throws NoSuchFileException if the file does not exist
+     * @throws IOException could not read or unsupported format
+     */
+    public static ParsedContent readFrom(Path file, String key)
+            throws IOException {
+        try (InputStream in = new BufferedInputStream(
+                Files.newInputStream(file))) {
+            if (!key.equals(new DataInputStream(in).readUTF())) {
+                return null;
+            }
+            return read(in);
+        }
+    }
+
+    // Unlike DataOutput#writeUTF, not limited to 64K.
+    private static void writeString(DataOutputStream data, String str)
+            throws IOException {
+        if (str == null) {
+            data.writeInt(-1);
+            return;
+        }
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+    private static String readString(DataInputStream data) throws IOException {
+        int length = data.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        data.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return "ParsedContent[contentLength=" + content.length
+                + ", metadata=" + metadata.keySet() + ", embeddedCount="
+                + (embedded == null ? 0 : embedded.size()) + "]";
+    }
+
+    /**
+     * An embedded document extracted while parsing, kept with the
+     * parsed content of its parent. Its reference and parent
+     * references are kept relative to the parent reference.
+     * Instances are immutable.
+     */
+    public static final class Embedded {
+        private final String reference;
+        private final String contentType;
+        private final String contentEncoding;
+        private final List<String> parentRefs;
+        private final ParsedContent parsed;
+
+        private Embedded(String reference, String contentType,
+                String contentEncoding, List<String> parentRefs,
+                ParsedContent parsed) {
+            this.reference = reference;
+            this.contentType = contentType;
+            this.contentEncoding = contentEncoding;
+            this.parentRefs = Collections.unmodifiableList(parentRefs);
+            this.parsed = parsed;
+        }
+
+        /**
+         * Creates an embedded document copy. Its content is read
+         * entirely, then rewound so the document can still be used.
+         * @param doc embedded document
+         * @param reference parent document reference
+         * @return embedded document copy
+         * @throws IOException could not read embedded document content
+         */
+        public static Embedded of(Doc doc, String reference)
+                throws IOException {
+            DocInfo info = doc.getDocInfo();
+            CachedInputStream content = doc.getInputStream();
+            byte[] bytes = IOUtils.toByteArray(content);
+            content.rewind();
+            List<String> parentRefs = new ArrayList<>();
+            for (String parentRef : info.getEmbeddedParentReferences()) {
+                parentRefs.add(relativize(parentRef, reference));
+            }
+            return new Embedded(
+                    relativize(info.getReference(), reference),
+                    Objects.toString(info.getContentType(), null),
+                    info.getContentEncoding(),
+                    parentRefs,
+                    ParsedContent.of(bytes, doc.getMetadata(), reference));
+        }
+
+        private Doc newDoc(
+                String reference, CachedStreamFactory streamFactory) {
+            DocInfo info = new DocInfo(resolve(this.reference, reference));
+            if (contentType != null) {
+                info.setContentType(ContentType.valueOf(contentType));
+            }
+            info.setContentEncoding(contentEncoding);
+            for (String parentRef : parentRefs) {
+                info.addEmbeddedParentReference(resolve(parentRef, reference));
+            }
+            return new Doc(info, streamFactory.newInputStream(
+                    new ByteArrayInputStream(parsed.getContent())),
+                    parsed.getMetadata(reference));
+        }
+
+        private void write(DataOutputStream data) throws IOException {
+            writeString(data, reference);
+            writeString(data, contentType);
+            writeString(data, contentEncoding);
+            data.writeInt(parentRefs.size());
+            for (String parentRef : parentRefs) {
+                writeString(data, parentRef);
+            }
+            parsed.write(data);
+        }
+        private static Embedded read(DataInputStream data)
+                throws IOException {
+            String reference = readString(data);
+            String contentType = readString(data);
+            String contentEncoding = readString(data);
+            int parentCount = data.readInt();
+            List<String> parentRefs = new ArrayList<>(parentCount);
+            for (int i = 0; i < parentCount; i++) {
+                parentRefs.add(readString(data));
+            }
+            return new Embedded(reference, contentType, contentEncoding,
+                    parentRefs, ParsedContent.read(data));
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.doc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.norconex.commons.lang.file.ContentType;
+import com.norconex.commons.lang.io.CachedInputStream;
+
+/**
+ * <p>
+ * Caches content types detected by {@link ContentTypeDetector}, so
+ * that content seen before is not detected again.  Entries are keyed by
+ * a digest of the first bytes of content (up to the configured
+ * sample size) combined with the file extension of the document
+ * reference.  Content sharing the same beginning and extension is thus
+ * considered the same.
+ * </p>
+ * <p>
+ * The cache is bounded: least recently used entries are evicted when the
+ * maximum size is reached.  Entries can also be given a time-to-live.
+ * This class is thread-safe.
+ * </p>
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+public class ContentTypeDetectionCache
+        implements ContentTypeDetectionCacheMXBean {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(ContentTypeDetectionCache.class);
+
+    public static final int DEFAULT_SAMPLE_SIZE = 64 * 1024;
+
+    private final int maxSize;
+    private final long ttl;
+    private final int sampleSize;
+    private final Map<String, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a detection cache.
+     * @param maxSize maximum number of entries
+     * @param ttl milliseconds before an entry expires (0 for no expiry)
+     * @param sampleSize maximum number of bytes read from the beginning of
+     *        content to create cache keys (0 for default)
+     */
+    public ContentTypeDetectionCache(int maxSize, long ttl, int sampleSize) {
+        super();
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException(
+                    "Cache 'maxSize' must be greater than zero.");
+        }
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.sampleSize = sampleSize > 0 ? sampleSize : DEFAULT_SAMPLE_SIZE;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, Entry> eldest) {
+                if (size() > ContentTypeDetectionCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Gets the content type from cache, or detect it and cache it if not
+     * already cached.  The stream is rewound before returning.
+     * @param content the content on which to detect content type
+     * @param fileName a file name which can help influence detection
+     * @return the detected content type
+     * @throws IOException problem detecting content type
+     */
+    public ContentType detect(CachedInputStream content, String fileName)
+            throws IOException {
+        String key = key(content, fileName);
+        content.rewind();
+
+        ContentType ct = get(key);
+        if (ct != null) {
+            hits.increment();
+            LOG.debug("Content type \"{}\" obtained from cache for: {}",
+                    ct, fileName);
+            return ct;
+        }
+        misses.increment();
+        ct = ContentTypeDetector.detect(content, fileName);
+        content.rewind();
+        put(key, ct);
+        return ct;
+    }
+
+    private String key(InputStream content, String fileName)
+            throws IOException {
+        byte[] sample = new byte[sampleSize];
+        int length = IOUtils.read(content, sample);
+        MessageDigest digest = DigestUtils.getSha1Digest();
+        digest.update(sample, 0, length);
+        return Hex.encodeHexString(digest.digest()) + ':' + length
+                + ':' + ContentTypeDetector.extension(fileName);
+    }
+
+    private synchronized ContentType get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            entries.remove(key);
+            evictions.increment();
+            return null;
+        }
+        return entry.contentType;
+    }
+    private synchronized void put(String key, ContentType contentType) {
+        long now = System.currentTimeMillis();
+        if (ttl > 0 && entries.size() >= maxSize) {
+            // make room from expired entries first, if any
+            Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                if (it.next().isExpired(now)) {
+                    it.remove();
+                    evictions.increment();
+                }
+            }
+        }
+        entries.put(key, new Entry(
+                contentType, ttl > 0 ? now + ttl : Long.MAX_VALUE));
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+    public long getTTL() {
+        return ttl;
+    }
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.sum();
+    }
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+    @Override
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+    @Override
+    public double getHitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+    @Override
+    public synchronized int getSize() {
+        return entries.size();
+    }
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "ContentTypeDetectionCache[size=" + getSize()
+                + ", hits=" + getHitCount() + ", misses=" + getMissCount()
+                + ", evictions=" + getEvictionCount() + "]";
+    }
+
+    private static class Entry {
+        private final ContentType contentType;
+        private final long expiry;
+        public Entry(ContentType contentType, long expiry) {
+            this.contentType = contentType;
+            this.expiry = expiry;
+        }
+        private boolean isExpired(long now) {
+            return now > expiry;
+        }
+    }
+}
@@ -104,8 +104,7 @@ public final class ContentTypeDetector {
             InputStream is, String fileName) throws IOException {
         try (TikaInputStream tikaStream = TikaInputStream.get(is)) {
             Metadata meta = new Metadata();
-            String extension = EXTENSION_PATTERN.matcher(
-                    fileName).replaceFirst("$1");
+            String extension = extension(fileName);
             meta.set(Metadata.RESOURCE_NAME_KEY, "file:///detect" + extension);
             MediaType media = TIKA.getDetector().detect(tikaStream, meta);
 
@@ -116,4 +115,9 @@ public final class ContentTypeDetector {
             return ContentType.valueOf(media.toString());
         }
     }
+
+    static String extension(String fileName) {
+        return EXTENSION_PATTERN.matcher(
+                StringUtils.trimToEmpty(fileName)).replaceFirst("$1");
+    }
 }
@@ -39,6 +39,11 @@ public final class DocMetadata {
     public static final String CONTENT_TYPE = PREFIX + "contentType";
     /** Document character encoding. */
     public static final String CONTENT_ENCODING = PREFIX + "contentEncoding";
+    /**
+     * Digest of the document content, before it was parsed
+     * (see {@link com.norconex.importer.digest.ContentDigestConfig}).
+     */
+    public static final String CONTENT_DIGEST = PREFIX + "contentDigest";
     /** Document content family (general categorization of content types). */
     public static final String CONTENT_FAMILY = PREFIX + "contentFamily";
     /** Document language. */
@@ -49,6 +54,13 @@ public final class DocMetadata {
     public static final String GENERATED_TITLE = PREFIX + "generatedTitle";
     /** Date processed by the Importer. */
     public static final String IMPORTED_DATE = PREFIX + "importedDate";
+    /**
+     * Whether content extraction stopped before the end of the document
+     * (see {@link com.norconex.importer.parser.ExtractionBudgetConfig}).
+     */
+    public static final String TRUNCATED = PREFIX + "truncated";
+    /** Name of the extraction limit that caused truncation. */
+    public static final String TRUNCATED_REASON = PREFIX + "truncatedReason";
 
     static final String EMBEDDED_PREFIX = PREFIX + "embedded.";
     /** All references to parents of an embedded document (first is top-one). */
@@ -14,11 +14,16 @@
  */
 package com.norconex.importer.handler;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.Reader;
+import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -42,6 +47,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.norconex.commons.lang.EqualsUtil;
+import com.norconex.commons.lang.config.ConfigurationException;
 import com.norconex.commons.lang.exec.SystemCommand;
 import com.norconex.commons.lang.exec.SystemCommandException;
 import com.norconex.commons.lang.io.ICachedStream;
@@ -211,6 +217,52 @@ import com.norconex.importer.parser.impl.ExternalParser;
  * defined for the current process.
  * </p>
  *
+ * <h3>Long-lived workers:</h3>
+ *
+ * <p>
+ * Since 3.0.0, instead of launching a new process for each document,
+ * you can enable a pool of long-lived "worker" processes
+ * (see {@link ExternalWorkerConfig}). This avoids paying the process
+ * start-up cost for every document (e.g., for scripts relying on
+ * interpreters or loading large models). Workers are launched with the
+ * configured command, which must not contain any of the above tokens.
+ * The command is split on white spaces (double quotes can be used to
+ * group arguments) and executed directly, not through a shell.
+ * </p>
+ * <p>
+ * Workers receive documents on their standard input (STDIN) and send
+ * back results on their standard output (STDOUT), one document at a
+ * time. Anything written to the standard error stream (STDERR) is logged.
+ * Each document is a sequence of values, each sent as one or more
+ * chunks: a 4-byte length (big-endian signed integer) followed by that
+ * many bytes. A value ends with a zero-length chunk. For each document,
+ * workers receive the following values, in order:
+ * </p>
+ * <ol>
+ *   <li>Document reference (UTF-8).</li>
+ *   <li>Document metadata, in the configured metadata input
+ *       format.</li>
+ *   <li>Document content.</li>
+ * </ol>
+ * <p>
+ * Workers must then answer with the following values, in order:
+ * </p>
+ * <ol>
+ *   <li>Resulting content (ignored by handlers not producing
+ *       content).</li>
+ *   <li>New metadata, in the configured metadata output format
+ *       or parsed with extraction patterns when no format is set.
+ *       Can be empty.</li>
+ *   <li>Error message (UTF-8) if the document could not be handled.
+ *       Empty on success.</li>
+ * </ol>
+ * <p>
+ * Workers are sent an empty document (empty reference, metadata, and
+ * content) as a health check when they were idle for a while, and must
+ * answer it like any other document. Workers should exit when their
+ * standard input is closed.
+ * </p>
+ *
  * <p>
  * To extract raw text from files, it is recommended to use an
  * {@link com.norconex.importer.parser.impl.ExternalParser} instead.
@@ -243,6 +295,15 @@ import com.norconex.importer.parser.impl.ExternalParser;
  *   (Optional directory where to store temporary files used
  *    by this class.)
  * </tempDir>
+ *
+ * <workers
+ *     enabled="[false|true]"
+ *     poolSize="(maximum number of worker processes)"
+ *     timeout="(milliseconds a worker can take per document)"
+ *     maxDocumentsPerWorker="(documents handled before a worker
+ *         is replaced)"
+ *     healthCheckInterval="(milliseconds a worker can be idle
+ *         before being checked)"/>
  * }
  * <p>Consuming classes implementing {@link IXMLConfigurable} can use
  * the XML save/load methods of this class to inherit the above
@@ -255,7 +316,7 @@ import com.norconex.importer.parser.impl.ExternalParser;
  * @since 3.0.0
  */
 @SuppressWarnings("javadoc")
-public class ExternalHandler {
+public class ExternalHandler implements AutoCloseable {
 
     private static final Logger LOG =
             LoggerFactory.getLogger(ExternalHandler.class);
@@ -280,6 +341,11 @@ public class ExternalHandler {
     private String metadataOutputFormat = META_FORMAT_JSON;
     private Path tempDir;
     private PropertySetter onSet;
+    private final ExternalWorkerConfig workerConfig =
+            new ExternalWorkerConfig();
+
+    // Started the first time needed.
+    private transient ExternalWorkerPool workerPool;
 
     /**
      * Gets the command to execute.
@@ -484,6 +550,37 @@ public class ExternalHandler {
         this.onSet = onSet;
     }
 
+    /**
+     * Gets the long-lived worker processes configuration (never
+     * <code>null</code>).
+     * @return worker configuration
+     * @since 3.0.0
+     */
+    public ExternalWorkerConfig getWorkerConfig() {
+        return workerConfig;
+    }
+
+    /**
+     * Stops long-lived worker processes, if any were started. Workers
+     * busy handling a document are stopped once done. New workers
+     * are started if documents are handled after this call.
+     * @since 3.0.0
+     */
+    public synchronized void closeWorkers() {
+        if (workerPool != null) {
+            workerPool.close();
+            workerPool = null;
+        }
+    }
+    /**
+     * Same as {@link #closeWorkers()}.
+     * @since 3.0.0
+     */
+    @Override
+    public void close() {
+        closeWorkers();
+    }
+
     /**
      * Invoke the external application on a document.
      * @param doc document
@@ -499,6 +596,10 @@ public class ExternalHandler {
         //TODO eliminate output an set it back on doc???
 
         validate();
+        if (workerConfig.isEnabled()) {
+            handleDocumentWithWorker(doc, input, output);
+            return;
+        }
         String cmd = command;
         final ArgFiles files = new ArgFiles();
         Properties externalMeta = new Properties();
@@ -524,16 +625,7 @@ public class ExternalHandler {
                 if (files.hasOutputMetaFile()) {
                     try (Reader outputMetaReader = Files.newBufferedReader(
                             files.outputMetaFile)) {
-                        String format = getMetadataOutputFormat();
-                        if (META_FORMAT_PROPERTIES.equalsIgnoreCase(format)) {
-                            externalMeta.loadFromProperties(outputMetaReader);
-                        } else if (META_FORMAT_XML.equals(format)) {
-                            externalMeta.loadFromXML(outputMetaReader);
-                        } else if (META_FORMAT_JSON.equals(format)) {
-                            externalMeta.loadFromJSON(outputMetaReader);
-                        } else {
-                            extractMetaFromFile(outputMetaReader, externalMeta);
-                        }
+                        readOutputMetadata(outputMetaReader, externalMeta);
                     }
                 }
             } catch (IOException e) {
@@ -550,6 +642,108 @@ public class ExternalHandler {
         }
     }
 
+    private void handleDocumentWithWorker(
+            HandlerDoc doc, InputStream input, OutputStream output)
+                    throws ImporterHandlerException {
+        Properties externalMeta = new Properties();
+        try {
+            StringWriter metaInput = new StringWriter();
+            writeInputMetadata(metaInput, doc.getMetadata());
+            byte[] metaBytes =
+                    metaInput.toString().getBytes(StandardCharsets.UTF_8);
+            ByteArrayOutputStream metaOutput = new ByteArrayOutputStream();
+            // the pool can be closed concurrently (e.g., by an importer
+            // sharing this handler), in which case a new one is started
+            while (!getWorkerPool().handle(doc.getReference(),
+                    metaBytes, input, output, metaOutput)) {
+                LOG.debug("External worker pool closed, using a new one.");
+            }
+            if (output != null) {
+                output.flush();
+            }
+            if (metaOutput.size() > 0) {
+                readOutputMetadata(new InputStreamReader(
+                        new ByteArrayInputStream(metaOutput.toByteArray()),
+                        StandardCharsets.UTF_8), externalMeta);
+            }
+        } catch (IOException e) {
+            throw new ImporterHandlerException(
+                    "Could not exchange metadata with external worker. "
+                            + "Command: " + command, e);
+        }
+        externalMeta.forEach((k, v) -> {
+            PropertySetter.orAppend(onSet).apply(doc.getMetadata(), k, v);
+        });
+    }
+
+    private synchronized ExternalWorkerPool getWorkerPool() {
+        List<String> cmd = splitCommand(command);
+        if (workerPool == null || !workerPool.isFor(
+                cmd, environmentVariables, workerConfig)) {
+            if (workerPool != null) {
+                workerPool.close();
+            }
+            workerPool = new ExternalWorkerPool(
+                    cmd, environmentVariables, workerConfig);
+        }
+        return workerPool;
+    }
+
+    // Split on white spaces, except within double quotes.
+    static List<String> splitCommand(String command) {
+        List<String> args = new ArrayList<>();
+        StringBuilder arg = new StringBuilder();
+        boolean quoted = false;
+        boolean hasArg = false;
+        for (int i = 0; i < command.length(); i++) {
+            char ch = command.charAt(i);
+            if (ch == '"') {
+                quoted = !quoted;
+                hasArg = true;
+            } else if (!quoted && Character.isWhitespace(ch)) {
+                if (hasArg) {
+                    args.add(arg.toString());
+                    arg.setLength(0);
+                    hasArg = false;
+                }
+            } else {
+                arg.append(ch);
+                hasArg = true;
+            }
+        }
+        if (hasArg) {
+            args.add(arg.toString());
+        }
+        return args;
+    }
+
+    private void writeInputMetadata(Writer writer, Properties meta)
+            throws IOException {
+        String format = getMetadataInputFormat();
+        if (META_FORMAT_PROPERTIES.equalsIgnoreCase(format)) {
+            meta.storeToProperties(writer);
+        } else if (META_FORMAT_XML.equals(format)) {
+            meta.storeToXML(writer);
+        } else {
+            meta.storeToJSON(writer);
+        }
+        writer.flush();
+    }
+
+    private void readOutputMetadata(Reader reader, Properties externalMeta)
+            throws IOException {
+        String format = getMetadataOutputFormat();
+        if (META_FORMAT_PROPERTIES.equalsIgnoreCase(format)) {
+            externalMeta.loadFromProperties(reader);
+        } else if (META_FORMAT_XML.equals(format)) {
+            externalMeta.loadFromXML(reader);
+        } else if (META_FORMAT_JSON.equals(format)) {
+            externalMeta.loadFromJSON(reader);
+        } else {
+            extractMetaFromFile(reader, externalMeta);
+        }
+    }
+
     private int executeCommand(
             final String cmd,
             final ArgFiles files,
@@ -676,15 +870,7 @@ public class ExternalHandler {
         newCmd = StringUtils.replace(newCmd, TOKEN_INPUT_META,
                 files.inputMetaFile.toAbsolutePath().toString());
         try (Writer fw = Files.newBufferedWriter(files.inputMetaFile)) {
-            String format = getMetadataInputFormat();
-            if (META_FORMAT_PROPERTIES.equalsIgnoreCase(format)) {
-                meta.storeToProperties(fw);
-            } else if (META_FORMAT_XML.equals(format)) {
-                meta.storeToXML(fw);
-            } else {
-                meta.storeToJSON(fw);
-            }
-            fw.flush();
+            writeInputMetadata(fw, meta);
             return newCmd;
         } catch (IOException e) {
             ArgFiles.delete(files.inputMetaFile);
@@ -732,6 +918,24 @@ public class ExternalHandler {
         if (StringUtils.isBlank(command)) {
             throw new ImporterHandlerException("External command missing.");
         }
+        String token = getUnsupportedWorkerToken();
+        if (token != null) {
+            throw new ImporterHandlerException("Command tokens are not "
+                    + "supported by external workers: " + token);
+        }
+    }
+    // First command token found when workers are enabled, if any.
+    private String getUnsupportedWorkerToken() {
+        if (!workerConfig.isEnabled() || command == null) {
+            return null;
+        }
+        for (String token : new String[] {TOKEN_INPUT, TOKEN_INPUT_META,
+                TOKEN_OUTPUT, TOKEN_OUTPUT_META, TOKEN_REFERENCE}) {
+            if (command.contains(token)) {
+                return token;
+            }
+        }
+        return null;
     }
 
 
@@ -760,6 +964,24 @@ public class ExternalHandler {
             }
             setEnvironmentVariables(vars);
         }
+
+        XML workersXML = xml.getXML("workers");
+        if (workersXML != null) {
+            ExternalWorkerConfig cfg = getWorkerConfig();
+            cfg.setEnabled(workersXML.getBoolean("@enabled", cfg.isEnabled()));
+            cfg.setPoolSize(
+                    workersXML.getInteger("@poolSize", cfg.getPoolSize()));
+            cfg.setTimeout(workersXML.getLong("@timeout", cfg.getTimeout()));
+            cfg.setMaxDocumentsPerWorker(workersXML.getInteger(
+                    "@maxDocumentsPerWorker", cfg.getMaxDocumentsPerWorker()));
+            cfg.setHealthCheckInterval(workersXML.getLong(
+                    "@healthCheckInterval", cfg.getHealthCheckInterval()));
+        }
+        String token = getUnsupportedWorkerToken();
+        if (token != null) {
+            throw new ConfigurationException("Command tokens are not "
+                    + "supported by external workers: " + token);
+        }
     }
 
     public void saveHandlerToXML(XML xml) {
@@ -783,6 +1005,16 @@ public class ExternalHandler {
                         .setAttribute("name", entry.getKey());
             }
         }
+        if (!workerConfig.isEmpty()) {
+            xml.addElement("workers")
+                    .setAttribute("enabled", workerConfig.isEnabled())
+                    .setAttribute("poolSize", workerConfig.getPoolSize())
+                    .setAttribute("timeout", workerConfig.getTimeout())
+                    .setAttribute("maxDocumentsPerWorker",
+                            workerConfig.getMaxDocumentsPerWorker())
+                    .setAttribute("healthCheckInterval",
+                            workerConfig.getHealthCheckInterval());
+        }
     }
 
     @Override
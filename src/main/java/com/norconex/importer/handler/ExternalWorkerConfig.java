@@ -0,0 +1,169 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.handler;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * <p>
+ * Configuration for having an {@link ExternalHandler} send documents to
+ * a pool of long-lived external processes ("workers") instead of
+ * launching a new process for each document. Workers are started the
+ * first time they are needed and exchange documents with the importer
+ * over their standard input and output streams (see
+ * {@link ExternalHandler} for the protocol).
+ * </p>
+ * <p>
+ * A worker taking longer than the timeout to handle a document is
+ * killed and replaced. Workers idle for longer than the health check
+ * interval are sent an empty document before being reused, and are
+ * replaced if they do not respond properly. Workers are also replaced
+ * after handling a maximum number of documents, if configured.
+ * </p>
+ *
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+public class ExternalWorkerConfig {
+
+    public static final int DEFAULT_POOL_SIZE = 2;
+    public static final long DEFAULT_TIMEOUT = 60000;
+    public static final long DEFAULT_HEALTH_CHECK_INTERVAL = 30000;
+
+    private boolean enabled;
+    private int poolSize = DEFAULT_POOL_SIZE;
+    private long timeout = DEFAULT_TIMEOUT;
+    private int maxDocumentsPerWorker;
+    private long healthCheckInterval = DEFAULT_HEALTH_CHECK_INTERVAL;
+
+    /**
+     * Gets whether documents are sent to long-lived worker processes.
+     * @return <code>true</code> if enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+    /**
+     * Sets whether documents are sent to long-lived worker processes.
+     * @param enabled <code>true</code> if enabled
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Gets the maximum number of worker processes.
+     * Default is {@value #DEFAULT_POOL_SIZE}.
+     * @return pool size
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+    /**
+     * Sets the maximum number of worker processes.
+     * @param poolSize pool size
+     */
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    /**
+     * Gets the maximum time in milliseconds a worker can take to handle
+     * a document before being killed. Zero or less means no timeout.
+     * Default is {@value #DEFAULT_TIMEOUT}.
+     * @return timeout in milliseconds
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+    /**
+     * Sets the maximum time in milliseconds a worker can take to handle
+     * a document before being killed. Zero or less means no timeout.
+     * @param timeout timeout in milliseconds
+     */
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Gets the number of documents handled by a worker before it is
+     * replaced with a new one. Zero or less means unlimited (default).
+     * @return maximum documents per worker
+     */
+    public int getMaxDocumentsPerWorker() {
+        return maxDocumentsPerWorker;
+    }
+    /**
+     * Sets the number of documents handled by a worker before it is
+     * replaced with a new one. Zero or less means unlimited.
+     * @param maxDocumentsPerWorker maximum documents per worker
+     */
+    public void setMaxDocumentsPerWorker(int maxDocumentsPerWorker) {
+        this.maxDocumentsPerWorker = maxDocumentsPerWorker;
+    }
+
+    /**
+     * Gets how long in milliseconds a worker can stay idle before
+     * its health is checked prior to being reused. Zero or less only
+     * checks whether the worker process is still running.
+     * Default is {@value #DEFAULT_HEALTH_CHECK_INTERVAL}.
+     * @return health check interval in milliseconds
+     */
+    public long getHealthCheckInterval() {
+        return healthCheckInterval;
+    }
+    /**
+     * Sets how long in milliseconds a worker can stay idle before
+     * its health is checked prior to being reused. Zero or less only
+     * checks whether the worker process is still running.
+     * @param healthCheckInterval health check interval in milliseconds
+     */
+    public void setHealthCheckInterval(long healthCheckInterval) {
+        this.healthCheckInterval = healthCheckInterval;
+    }
+
+    public boolean isEmpty() {
+        return equals(new ExternalWorkerConfig());
+    }
+
+    /**
+     * Copies settings from another worker configuration.
+     * @param other the configuration to copy from
+     */
+    public void copyFrom(ExternalWorkerConfig other) {
+        enabled = other.enabled;
+        poolSize = other.poolSize;
+        timeout = other.timeout;
+        maxDocumentsPerWorker = other.maxDocumentsPerWorker;
+        healthCheckInterval = other.healthCheckInterval;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        return EqualsBuilder.reflectionEquals(this, other);
+    }
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this);
+    }
+    @Override
+    public String toString() {
+        return new ReflectionToStringBuilder(
+                this, ToStringStyle.SHORT_PREFIX_STYLE).toString();
+    }
+}
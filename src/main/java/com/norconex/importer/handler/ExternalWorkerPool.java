@@ -0,0 +1,447 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.handler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pool of long-lived external processes handling documents sent
+ * over their standard input stream and answering over their standard
+ * output stream, using length-prefixed chunks
+ * (see {@link ExternalHandler}). Worker processes are started
+ * as needed, up to the configured pool size, and reused until they
+ * time out, fail a health check, or reach their maximum number
+ * of documents. This class is thread-safe.
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+final class ExternalWorkerPool {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(ExternalWorkerPool.class);
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final long RETIRE_GRACE_PERIOD = 5000;
+    private static final byte[] EMPTY = new byte[0];
+    private static final AtomicInteger WORKER_COUNT = new AtomicInteger();
+
+    private final List<String> command;
+    private final Map<String, String> environment;
+    private final ExternalWorkerConfig config;
+
+    private final Semaphore permits;
+    private final Deque<Worker> idleWorkers = new ArrayDeque<>();
+    private final Set<Worker> workers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService ioExecutor;
+    private final ScheduledThreadPoolExecutor watchdog;
+    private final Thread shutdownHook;
+    // documents being handled, to shut down executors once all are done
+    private final AtomicInteger busy = new AtomicInteger();
+    private volatile boolean closed;
+
+    ExternalWorkerPool(List<String> command,
+            Map<String, String> environment, ExternalWorkerConfig config) {
+        this.command = new ArrayList<>(command);
+        this.environment =
+                environment == null ? null : new HashMap<>(environment);
+        this.config = new ExternalWorkerConfig();
+        this.config.copyFrom(config);
+        this.permits = new Semaphore(Math.max(1, config.getPoolSize()), true);
+        this.ioExecutor = Executors.newCachedThreadPool(
+                newDaemonThreadFactory("external-worker-io"));
+        this.watchdog = new ScheduledThreadPoolExecutor(
+                1, newDaemonThreadFactory("external-worker-watchdog"));
+        watchdog.setKeepAliveTime(1, TimeUnit.MINUTES);
+        watchdog.allowCoreThreadTimeOut(true);
+        watchdog.setRemoveOnCancelPolicy(true);
+        // Workers exit when their input stream is closed, but this
+        // makes sure they do not outlive the JVM.
+        this.shutdownHook = new Thread(() -> workers.forEach(
+                w -> w.process.destroy()), "external-worker-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Whether this pool was created for the given settings.
+     */
+    boolean isFor(List<String> command,
+            Map<String, String> environment, ExternalWorkerConfig config) {
+        return !closed
+                && this.command.equals(command)
+                && Objects.equals(this.environment, environment)
+                && this.config.equals(config);
+    }
+
+    /**
+     * Sends a document to a worker, waiting for one to be available.
+     * @param reference document reference
+     * @param metadata document metadata, already serialized
+     * @param content document content (can be <code>null</code>)
+     * @param output where to write the content returned
+     *     (can be <code>null</code>)
+     * @param metadataOutput where to write the metadata returned
+     * @return <code>false</code> if this pool was closed before the
+     *     document could be sent, in which case nothing was read from
+     *     the content and a new pool should be used instead
+     * @throws ImporterHandlerException could not handle the document
+     */
+    boolean handle(String reference, byte[] metadata, InputStream content,
+            OutputStream output, OutputStream metadataOutput)
+                    throws ImporterHandlerException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImporterHandlerException(
+                    "Interrupted while waiting for an external worker.", e);
+        }
+        busy.incrementAndGet();
+        Worker worker = null;
+        String error;
+        try {
+            // executors could already be shut down
+            if (closed) {
+                return false;
+            }
+            worker = borrow();
+            error = worker.exchange(
+                    reference, metadata, content, output, metadataOutput);
+            worker.documents++;
+            giveBack(worker);
+            worker = null;
+        } finally {
+            if (worker != null) {
+                worker.destroy();
+            }
+            permits.release();
+            if (busy.decrementAndGet() == 0 && closed) {
+                shutdownExecutors();
+            }
+        }
+        if (error != null) {
+            throw new ImporterHandlerException(
+                    "External worker could not handle document \""
+                            + reference + "\": " + error);
+        }
+        return true;
+    }
+
+    /**
+     * Stops idle workers. Busy workers are stopped once they are done,
+     * after which the pool threads are shut down.
+     * A closed pool can no longer be used.
+     */
+    void close() {
+        closed = true;
+        synchronized (idleWorkers) {
+            Worker w;
+            while ((w = idleWorkers.pollFirst()) != null) {
+                w.retire();
+            }
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // already shutting down
+        }
+        if (busy.get() == 0) {
+            shutdownExecutors();
+        }
+    }
+
+    // Retired workers are still killed after their grace period, as
+    // delayed tasks already scheduled are executed after shutdown.
+    private void shutdownExecutors() {
+        ioExecutor.shutdown();
+        watchdog.shutdown();
+    }
+
+    private Worker borrow() throws ImporterHandlerException {
+        while (true) {
+            Worker w;
+            synchronized (idleWorkers) {
+                w = idleWorkers.pollFirst();
+            }
+            if (w == null) {
+                return startWorker();
+            }
+            if (isHealthy(w)) {
+                return w;
+            }
+            w.destroy();
+        }
+    }
+
+    private void giveBack(Worker worker) {
+        if (!worker.process.isAlive()) {
+            LOG.debug("External worker {} exited after handling a document.",
+                    worker.id);
+            worker.destroy();
+            return;
+        }
+        if (closed || (config.getMaxDocumentsPerWorker() > 0
+                && worker.documents >= config.getMaxDocumentsPerWorker())) {
+            LOG.debug("Retiring external worker {} after {} documents.",
+                    worker.id, worker.documents);
+            worker.retire();
+            return;
+        }
+        worker.lastUsed = System.currentTimeMillis();
+        synchronized (idleWorkers) {
+            // most recently used first, so extra workers can be recycled
+            idleWorkers.offerFirst(worker);
+        }
+    }
+
+    private boolean isHealthy(Worker worker) {
+        if (!worker.process.isAlive()) {
+            LOG.warn("External worker {} is no longer running "
+                    + "(exit value: {}).", worker.id,
+                    worker.process.exitValue());
+            return false;
+        }
+        if (config.getHealthCheckInterval() <= 0
+                || System.currentTimeMillis() - worker.lastUsed
+                        < config.getHealthCheckInterval()) {
+            return true;
+        }
+        try {
+            String error = worker.exchange("", EMPTY, null, null, null);
+            if (error == null) {
+                return true;
+            }
+            LOG.warn("External worker {} failed health check: {}",
+                    worker.id, error);
+        } catch (ImporterHandlerException e) {
+            LOG.warn("External worker {} failed health check.",
+                    worker.id, e);
+        }
+        return false;
+    }
+
+    private Worker startWorker() throws ImporterHandlerException {
+        ProcessBuilder pb = new ProcessBuilder(command);
+        if (environment != null) {
+            pb.environment().clear();
+            pb.environment().putAll(environment);
+        }
+        try {
+            Worker w = new Worker(pb.start());
+            workers.add(w);
+            LOG.debug("Started external worker {}: {}", w.id, command);
+            return w;
+        } catch (IOException e) {
+            throw new ImporterHandlerException(
+                    "Could not start external worker: " + command, e);
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, byte[] bytes)
+            throws IOException {
+        if (bytes.length > 0) {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        out.writeInt(0);
+    }
+    private static void writeValue(DataOutputStream out, InputStream in)
+            throws IOException {
+        if (in != null) {
+            byte[] buf = new byte[CHUNK_SIZE];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                if (n > 0) {
+                    out.writeInt(n);
+                    out.write(buf, 0, n);
+                }
+            }
+        }
+        out.writeInt(0);
+    }
+    private static void readValue(DataInputStream in, OutputStream out)
+            throws IOException {
+        byte[] buf = new byte[CHUNK_SIZE];
+        int length;
+        while ((length = in.readInt()) != 0) {
+            if (length < 0) {
+                throw new IOException("Invalid chunk length: " + length);
+            }
+            while (length > 0) {
+                int n = in.read(buf, 0, Math.min(buf.length, length));
+                if (n == -1) {
+                    throw new EOFException("Incomplete chunk.");
+                }
+                out.write(buf, 0, n);
+                length -= n;
+            }
+        }
+    }
+
+    private static ThreadFactory newDaemonThreadFactory(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private class Worker {
+        private final int id = WORKER_COUNT.incrementAndGet();
+        private final Process process;
+        private final DataOutputStream stdin;
+        private final DataInputStream stdout;
+        private int documents;
+        private long lastUsed = System.currentTimeMillis();
+        private volatile boolean timedOut;
+
+        Worker(Process process) {
+            this.process = process;
+            this.stdin = new DataOutputStream(
+                    new BufferedOutputStream(process.getOutputStream()));
+            this.stdout = new DataInputStream(
+                    new BufferedInputStream(process.getInputStream()));
+            ioExecutor.execute(this::logErrors);
+        }
+
+        // Returns the error reported by the worker, if any.
+        String exchange(String reference, byte[] metadata,
+                InputStream content, OutputStream output,
+                OutputStream metadataOutput) throws ImporterHandlerException {
+            ScheduledFuture<?> killer = null;
+            if (config.getTimeout() > 0) {
+                killer = watchdog.schedule(this::timeout,
+                        config.getTimeout(), TimeUnit.MILLISECONDS);
+            }
+            // Written from another thread so a worker can start answering
+            // before it read the whole document without blocking us.
+            Future<?> writer = ioExecutor.submit(() -> {
+                writeValue(stdin, reference.getBytes(StandardCharsets.UTF_8));
+                writeValue(stdin, metadata);
+                writeValue(stdin, content);
+                stdin.flush();
+                return null;
+            });
+            try {
+                readValue(stdout, output != null
+                        ? output : NullOutputStream.NULL_OUTPUT_STREAM);
+                readValue(stdout, metadataOutput != null ? metadataOutput
+                        : NullOutputStream.NULL_OUTPUT_STREAM);
+                ByteArrayOutputStream error = new ByteArrayOutputStream();
+                readValue(stdout, error);
+                writer.get();
+                // Once cancelled, the worker can no longer be killed.
+                // If it could not be, it is being killed or was killed.
+                if (killer != null && !killer.cancel(false)) {
+                    timedOut = true;
+                }
+                if (timedOut) {
+                    throw new IOException("Timed out.");
+                }
+                return error.size() > 0
+                        ? error.toString(StandardCharsets.UTF_8.name()) : null;
+            } catch (IOException | ExecutionException e) {
+                throw failure(reference, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ImporterHandlerException(
+                        "Interrupted while waiting for external worker.", e);
+            } finally {
+                if (killer != null) {
+                    killer.cancel(false);
+                }
+                writer.cancel(true);
+            }
+        }
+
+        private ImporterHandlerException failure(
+                String reference, Exception e) {
+            if (timedOut) {
+                return new ImporterHandlerException("External worker "
+                        + id + " timed out after " + config.getTimeout()
+                        + " milliseconds on document: " + reference, e);
+            }
+            return new ImporterHandlerException("External worker " + id
+                    + " failed on document: " + reference, e);
+        }
+
+        private void timeout() {
+            timedOut = true;
+            LOG.warn("External worker {} timed out. Killing it.", id);
+            process.destroyForcibly();
+        }
+
+        private void logErrors() {
+            try (BufferedReader r = new BufferedReader(new InputStreamReader(
+                    process.getErrorStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = r.readLine()) != null) {
+                    LOG.info("[external worker {}] {}", id, line);
+                }
+            } catch (IOException e) {
+                LOG.trace("External worker {} error stream closed.", id, e);
+            }
+        }
+
+        // Lets the worker exit on its own once its input is closed.
+        void retire() {
+            workers.remove(this);
+            IOUtils.closeQuietly(stdin);
+            watchdog.schedule(() -> process.destroy(),
+                    RETIRE_GRACE_PERIOD, TimeUnit.MILLISECONDS);
+        }
+
+        void destroy() {
+            workers.remove(this);
+            IOUtils.closeQuietly(stdin);
+            process.destroyForcibly();
+        }
+    }
+}
@@ -14,18 +14,26 @@
  */
 package com.norconex.importer.handler;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Objects;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 import org.apache.commons.lang3.builder.ToStringSummary;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
 
+import com.norconex.commons.lang.io.CachedInputStream;
+import com.norconex.commons.lang.io.CachedOutputStream;
 import com.norconex.commons.lang.io.CachedStreamFactory;
 import com.norconex.commons.lang.map.Properties;
 import com.norconex.importer.doc.Doc;
 import com.norconex.importer.doc.DocInfo;
+import com.norconex.importer.util.DOMUtil;
 
 /**
  * Lighter version of {@link Doc} which leaves content out to let each
@@ -37,6 +45,7 @@ public class HandlerDoc {
 
     @ToStringSummary
     private final Doc doc;
+    private transient DOMCache domCache;
 
     public HandlerDoc(Doc doc) {
         this.doc = Objects.requireNonNull(doc, "'doc' must not be null.");
@@ -55,6 +64,89 @@ public class HandlerDoc {
         return doc.getStreamFactory();
     }
 
+    /**
+     * <p>
+     * Gets the document content parsed into a DOM. When the supplied input
+     * is the current document content, the DOM is cached and returned
+     * as is to the next {@link IDOMHandler} asking for it with the same
+     * charset and parser, until the document content changes.
+     * Handlers modifying the returned DOM must do so only
+     * through {@link #setDOMModified(Document)}.
+     * </p>
+     * <p>
+     * Otherwise (e.g., when the input is not the document content),
+     * a new DOM is parsed every time.
+     * </p>
+     * @param input the document content being handled
+     * @param charset the content character encoding
+     * @param parser "html" or "xml"
+     * @return JSoup document
+     * @throws IOException problem parsing the content
+     * @see DOMUtil#toJSoupParser(String)
+     */
+    public Document getDOM(InputStream input, String charset, String parser)
+            throws IOException {
+        if (domCache != null && domCache.content == input) {
+            if (domCache.isSameParsing(charset, parser)) {
+                return domCache.dom;
+            }
+            // Parsing differently content we have not written yet,
+            // as if it was written.
+            if (domCache.modified) {
+                return Jsoup.parse(domCache.dom.toString(),
+                        getReference(), DOMUtil.toJSoupParser(parser));
+            }
+        }
+        Document dom = Jsoup.parse(input, charset,
+                getReference(), DOMUtil.toJSoupParser(parser));
+        if (input == doc.getInputStream()) {
+            domCache = new DOMCache(input, charset, parser, dom);
+        }
+        return dom;
+    }
+
+    /**
+     * Flags a DOM obtained from {@link #getDOM(InputStream, String, String)}
+     * as modified so it gets written back as the document content
+     * once DOM handlers are done with it.
+     * @param dom the modified DOM
+     * @return <code>true</code> if the DOM will be written back.
+     *     When <code>false</code>, the DOM is not cached and it is up to
+     *     the caller to write it.
+     */
+    public boolean setDOMModified(Document dom) {
+        if (domCache != null && domCache.dom == dom) {
+            domCache.modified = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Writes back a modified cached DOM (if any) as the document content,
+     * and clears the DOM cache. Invoked by the importer once consecutive
+     * DOM handlers have been executed.
+     * @throws IOException problem writing the DOM
+     */
+    public void releaseDOM() throws IOException {
+        if (domCache == null) {
+            return;
+        }
+        DOMCache cache = domCache;
+        domCache = null;
+        // Only if content was not replaced in the meantime
+        if (!cache.modified || cache.content != doc.getInputStream()) {
+            return;
+        }
+        CachedInputStream newContent = null;
+        try (CachedOutputStream out =
+                doc.getStreamFactory().newOuputStream()) {
+            IOUtils.write(cache.dom.toString(), out, cache.charset);
+            newContent = out.getInputStream();
+        }
+        doc.setInputStream(newContent);
+    }
+
     @Override
     public boolean equals(final Object other) {
         return EqualsBuilder.reflectionEquals(this, other);
@@ -71,4 +163,27 @@ public class HandlerDoc {
         return b.toString();
 
     }
+
+    private static class DOMCache {
+        private final InputStream content;
+        private final String charset;
+        private final String parser;
+        private final Document dom;
+        private boolean modified;
+        public DOMCache(InputStream content, String charset,
+                String parser, Document dom) {
+            super();
+            this.content = content;
+            this.charset = charset;
+            this.parser = parser;
+            this.dom = dom;
+        }
+        private boolean isSameParsing(String charset, String parser) {
+            return Objects.equals(this.charset, charset)
+                    && isXML(this.parser) == isXML(parser);
+        }
+        private boolean isXML(String parser) {
+            return DOMUtil.PARSER_XML.equalsIgnoreCase(parser);
+        }
+    }
 }
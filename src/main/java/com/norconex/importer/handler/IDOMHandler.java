@@ -0,0 +1,29 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.handler;
+
+/**
+ * <p>
+ * A handler obtaining the document DOM from
+ * {@link HandlerDoc#getDOM(java.io.InputStream, String, String)}.
+ * Consecutive handlers of this type share the same parsed DOM for a
+ * document, which is only written back as the document content
+ * (if modified) once they have all been invoked.
+ * </p>
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+public interface IDOMHandler extends IImporterHandler {
+}
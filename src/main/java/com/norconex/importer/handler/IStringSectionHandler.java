@@ -0,0 +1,96 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.handler;
+
+import com.norconex.importer.ImporterConfig;
+import com.norconex.importer.handler.filter.AbstractStringFilter;
+import com.norconex.importer.handler.tagger.AbstractStringTagger;
+import com.norconex.importer.handler.transformer.AbstractStringTransformer;
+import com.norconex.importer.parser.ParseState;
+
+/**
+ * <p>
+ * A handler dealing with text content one section at a time, loaded
+ * in a {@link StringBuilder}. This is the case of
+ * {@link AbstractStringTagger}, {@link AbstractStringFilter}, and
+ * {@link AbstractStringTransformer} implementations.
+ * </p>
+ * <p>
+ * When {@link ImporterConfig#isFuseStringHandlers()} is <code>true</code>,
+ * consecutive post-parse handlers of this type sharing the same maximum
+ * read size are invoked together for each section, so the content is
+ * read and decoded only once for all of them. Only the first of them
+ * can be restricted to documents matching metadata conditions (as
+ * metadata can be modified by the handlers before it), and none
+ * are invoked after a filter.
+ * </p>
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+public interface IStringSectionHandler extends IImporterHandler {
+
+    /**
+     * Gets the maximum number of characters making up a section.
+     * @return maximum read size
+     */
+    int getMaxReadSize();
+
+    /**
+     * Whether this handler can be invoked together with other
+     * handlers of this type on each section (i.e., "fused").
+     * Default implementation returns <code>true</code>.
+     * @return <code>true</code> if this handler can be fused
+     */
+    default boolean isSectionFusable() {
+        return true;
+    }
+
+    /**
+     * Whether this handler should be invoked for the given document.
+     * @param doc the document
+     * @param parseState whether the document has been parsed already or not
+     * @return <code>true</code> if this handler applies to the document
+     */
+    boolean isSectionHandlingApplicable(HandlerDoc doc, ParseState parseState);
+
+    /**
+     * Whether {@link #isSectionHandlingApplicable(HandlerDoc, ParseState)}
+     * depends on the document metadata (e.g., "restrictTo" conditions).
+     * Such a handler is only fused with the handlers following it.
+     * Default implementation returns <code>true</code>.
+     * @return <code>true</code> if this handler applicability depends
+     *         on document metadata
+     */
+    default boolean isSectionHandlingRestricted() {
+        return true;
+    }
+
+    /**
+     * Handles a section of text. Taggers and transformers always return
+     * <code>true</code>.  Filters return whether the section matched,
+     * in which case they are not invoked again for the same document.
+     * Modifications made to the supplied content by transformers
+     * are passed to the next handler and become the new document content.
+     * @param doc the document
+     * @param content section content
+     * @param parseState whether the document has been parsed already or not
+     * @param sectionIndex index of the section being handled (zero-based)
+     * @return <code>true</code> if handled or matched
+     * @throws ImporterHandlerException problem handling the section
+     */
+    boolean handleStringSection(HandlerDoc doc, StringBuilder content,
+            ParseState parseState, int sectionIndex)
+                    throws ImporterHandlerException;
+}
@@ -27,6 +27,7 @@ import com.norconex.commons.lang.io.TextReader;
 import com.norconex.commons.lang.xml.IXMLConfigurable;
 import com.norconex.commons.lang.xml.XML;
 import com.norconex.importer.handler.HandlerDoc;
+import com.norconex.importer.handler.IStringSectionHandler;
 import com.norconex.importer.handler.ImporterHandlerException;
 import com.norconex.importer.parser.ParseState;
 
@@ -77,7 +78,8 @@ import com.norconex.importer.parser.ParseState;
  */
 @SuppressWarnings("javadoc")
 public abstract class AbstractStringFilter
-            extends AbstractCharStreamFilter {
+            extends AbstractCharStreamFilter
+            implements IStringSectionHandler {
 
     private int maxReadSize = TextReader.DEFAULT_MAX_READ_SIZE;
 
@@ -132,6 +134,23 @@ public abstract class AbstractStringFilter
         this.maxReadSize = maxReadSize;
     }
 
+    @Override
+    public final boolean isSectionHandlingApplicable(
+            HandlerDoc doc, ParseState parseState) {
+        return isApplicable(doc, parseState);
+    }
+    @Override
+    public final boolean isSectionHandlingRestricted() {
+        return !getRestrictions().isEmpty();
+    }
+    @Override
+    public final boolean handleStringSection(HandlerDoc doc,
+            StringBuilder content, ParseState parseState, int sectionIndex)
+                    throws ImporterHandlerException {
+        return isStringContentMatching(
+                doc, content, parseState, sectionIndex);
+    }
+
     protected abstract boolean isStringContentMatching(
             HandlerDoc doc, StringBuilder content,
             ParseState parseState, int sectionIndex)
@@ -21,7 +21,6 @@ import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
@@ -32,6 +31,7 @@ import com.norconex.commons.lang.xml.XML;
 import com.norconex.importer.doc.DocMetadata;
 import com.norconex.importer.handler.CommonRestrictions;
 import com.norconex.importer.handler.HandlerDoc;
+import com.norconex.importer.handler.IDOMHandler;
 import com.norconex.importer.handler.ImporterHandlerException;
 import com.norconex.importer.handler.filter.AbstractDocumentFilter;
 import com.norconex.importer.handler.filter.OnMatch;
@@ -158,7 +158,8 @@ import com.norconex.importer.util.DOMUtil;
  */
 @Deprecated
 @SuppressWarnings("javadoc")
-public class DOMContentFilter extends AbstractDocumentFilter {
+public class DOMContentFilter extends AbstractDocumentFilter
+        implements IDOMHandler {
 
     private final TextMatcher valueMatcher = new TextMatcher();
     private String selector;
@@ -333,8 +334,7 @@ public class DOMContentFilter extends AbstractDocumentFilter {
         String inputCharset = detectCharsetIfBlank(
                 doc, input, sourceCharset, parseState);
         try {
-            Document jdoc = Jsoup.parse(input, inputCharset,
-                    doc.getReference(), DOMUtil.toJSoupParser(getParser()));
+            Document jdoc = doc.getDOM(input, inputCharset, getParser());
             Elements elms = jdoc.select(selector);
             // no elements matching
             if (elms.isEmpty()) {
@@ -31,6 +31,7 @@ import com.norconex.commons.lang.xml.XML;
 import com.norconex.importer.doc.DocMetadata;
 import com.norconex.importer.handler.CommonRestrictions;
 import com.norconex.importer.handler.HandlerDoc;
+import com.norconex.importer.handler.IDOMHandler;
 import com.norconex.importer.handler.ImporterHandlerException;
 import com.norconex.importer.handler.filter.AbstractDocumentFilter;
 import com.norconex.importer.handler.filter.OnMatch;
@@ -140,7 +141,8 @@ import com.norconex.importer.util.DOMUtil;
  * @since 3.0.0
  */
 @SuppressWarnings("javadoc")
-public class DOMFilter extends AbstractDocumentFilter {
+public class DOMFilter extends AbstractDocumentFilter
+        implements IDOMHandler {
 
     private final TextMatcher fieldMatcher = new TextMatcher();
     private final TextMatcher valueMatcher = new TextMatcher();
@@ -261,9 +263,8 @@ public class DOMFilter extends AbstractDocumentFilter {
             // Dealing with doc content
             String inputCharset = detectCharsetIfBlank(
                     doc, input, sourceCharset, parseState);
-            return isDocumentMatched(Jsoup.parse(
-                    input, inputCharset, doc.getReference(),
-                    DOMUtil.toJSoupParser(getParser())));
+            return isDocumentMatched(
+                    doc.getDOM(input, inputCharset, getParser()));
         } catch (IOException e) {
             throw new ImporterHandlerException(
                     "Cannot parse document into a DOM-tree.", e);
@@ -18,6 +18,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.norconex.commons.lang.xml.IXMLConfigurable;
 import com.norconex.importer.doc.Doc;
@@ -55,8 +56,50 @@ public abstract class AbstractDocumentSplitter extends AbstractImporterHandler
                 doc, docInput, docOutput, parseState);
     }
 
+    @Override
+    public final void splitDocument(
+            HandlerDoc doc,
+            InputStream docInput,
+            OutputStream docOutput,
+            ParseState parseState,
+            Consumer<Doc> childDocConsumer)
+                    throws ImporterHandlerException {
+
+        if (!isApplicable(doc, parseState)) {
+            return;
+        }
+        splitApplicableDocument(
+                doc, docInput, docOutput, parseState, childDocConsumer);
+    }
+
     protected abstract List<Doc> splitApplicableDocument(
             HandlerDoc doc, InputStream input, OutputStream output,
             ParseState parseState)
                     throws ImporterHandlerException;
+
+    /**
+     * Splits an applicable document, handing child documents to the
+     * supplied consumer. The default implementation invokes
+     * {@link #splitApplicableDocument(HandlerDoc, InputStream,
+     * OutputStream, ParseState)} and hands over each returned document
+     * afterwards. Override to hand over child documents as they are
+     * created.
+     * @param doc document to split
+     * @param input document content
+     * @param output document modified content (if any)
+     * @param parseState whether the document has been parsed already or not
+     * @param childDocConsumer receives child documents
+     * @throws ImporterHandlerException problem splitting the document
+     * @since 3.0.0
+     */
+    protected void splitApplicableDocument(
+            HandlerDoc doc, InputStream input, OutputStream output,
+            ParseState parseState, Consumer<Doc> childDocConsumer)
+                    throws ImporterHandlerException {
+        List<Doc> childDocs =
+                splitApplicableDocument(doc, input, output, parseState);
+        if (childDocs != null) {
+            childDocs.forEach(childDocConsumer);
+        }
+    }
 }
\ No newline at end of file
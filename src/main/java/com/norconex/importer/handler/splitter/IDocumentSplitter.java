@@ -17,6 +17,7 @@ package com.norconex.importer.handler.splitter;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.apache.xmlbeans.impl.xb.xsdschema.ImportDocument;
 
@@ -48,6 +49,12 @@ import com.norconex.importer.parser.ParseState;
  * this interface is
  * to break a records-type document into a single document per record. For
  * example, to break some entities from XML data files into separate documents.
+ * <br><br>
+ * Since 3.0.0, child documents can also be handed over one at a time
+ * as they are created (see
+ * {@link #splitDocument(HandlerDoc, InputStream, OutputStream, ParseState,
+ * Consumer)}), so they are processed without having to hold all of them
+ * at once.
  *
  * @author Pascal Essiembre
  * @since 2.0.0
@@ -60,4 +67,33 @@ public interface IDocumentSplitter extends IImporterHandler {
             OutputStream docOutput,
             ParseState parseState)
                     throws ImporterHandlerException;
+
+    /**
+     * Splits a document, handing child documents to the supplied consumer
+     * as they are created. The default implementation invokes
+     * {@link #splitDocument(HandlerDoc, InputStream, OutputStream,
+     * ParseState)} and hands over each returned document afterwards.
+     * Implementations able to create child documents one at a time
+     * should override it.
+     * @param doc document to split
+     * @param docInput document content
+     * @param docOutput document modified content (if any)
+     * @param parseState whether the document has been parsed already or not
+     * @param childDocConsumer receives child documents
+     * @throws ImporterHandlerException problem splitting the document
+     * @since 3.0.0
+     */
+    default void splitDocument(
+            HandlerDoc doc,
+            InputStream docInput,
+            OutputStream docOutput,
+            ParseState parseState,
+            Consumer<Doc> childDocConsumer)
+                    throws ImporterHandlerException {
+        List<Doc> childDocs =
+                splitDocument(doc, docInput, docOutput, parseState);
+        if (childDocs != null) {
+            childDocs.forEach(childDocConsumer);
+        }
+    }
 }
@@ -18,12 +18,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -56,6 +58,21 @@ import au.com.bytecode.opencsv.CSVReader;
  * <p>Can be used both as a pre-parse (text documents) or post-parse handler
  * documents.</p>
  *
+ * <h3>Large files</h3>
+ * <p>
+ * Rows are handed over as they are read, without waiting for the
+ * whole file to be read.
+ * Since 3.0.0, you can also set <code>fastTokenizer</code> to
+ * <code>true</code> to read values with a faster tokenizer, which only
+ * creates values for columns actually used. Its quoting and escaping
+ * rules are the usual ones: quoted values can hold separators,
+ * line breaks, and quotes when doubled or preceded by the escape
+ * character.
+ * To further limit what is created for each row, you can specify which
+ * columns to store as metadata with <code>metadataColumns</code>
+ * (all columns are stored by default).
+ * </p>
+ *
  * {@nx.xml.usage
  * <handler class="com.norconex.importer.handler.splitter.impl.CsvSplitter"
  *          separatorCharacter=""
@@ -64,7 +81,10 @@ import au.com.bytecode.opencsv.CSVReader;
  *          useFirstRowAsFields="(false|true)"
  *          linesToSkip="(integer)"
  *          referenceColumn="(column name or position from 1)"
- *          contentColumns="(csv list of column/position to use as content)" >
+ *          contentColumns="(csv list of column/position to use as content)"
+ *          metadataColumns="(csv list of column/position to store as
+ *                            metadata, default is all)"
+ *          fastTokenizer="(false|true)" >
  *   {@nx.include com.norconex.importer.handler.AbstractImporterHandler#restrictTo}
  * </handler>
  * }
@@ -122,99 +142,190 @@ public class CsvSplitter extends AbstractDocumentSplitter
     // These can be either column names or position, starting at 1
     private String referenceColumn;
     private final List<String> contentColumns = new ArrayList<>();
+    private final List<String> metadataColumns = new ArrayList<>();
+    private boolean fastTokenizer;
 
     @Override
     protected List<Doc> splitApplicableDocument(
             HandlerDoc doc, InputStream input,
             OutputStream output, ParseState parseState)
                     throws ImporterHandlerException {
+        List<Doc> rows = new ArrayList<>();
+        splitApplicableDocument(doc, input, output, parseState, rows::add);
+        return rows;
+    }
+
+    // Each row is handed over as soon as it is read.
+    @Override
+    protected void splitApplicableDocument(
+            HandlerDoc doc, InputStream input, OutputStream output,
+            ParseState parseState, Consumer<Doc> childDocConsumer)
+                    throws ImporterHandlerException {
         try {
-            return doSplitApplicableDocument(doc, input);
+            doSplitApplicableDocument(doc, input, childDocConsumer);
         } catch (IOException e) {
             throw new ImporterHandlerException(
                     "Could not split document: " + doc.getReference(), e);
         }
     }
 
-    private List<Doc> doSplitApplicableDocument(
-            HandlerDoc doc, InputStream input) throws IOException {
+    private void doSplitApplicableDocument(HandlerDoc doc, InputStream input,
+            Consumer<Doc> childDocConsumer) throws IOException {
 
-        List<Doc> rows = new ArrayList<>();
+        RowSplitter rowSplitter = new RowSplitter(doc, childDocConsumer);
+        Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+
+        if (fastTokenizer) {
+            try (CsvTokenizer tokenizer = new CsvTokenizer(reader,
+                    separatorCharacter, quoteCharacter, escapeCharacter)) {
+                tokenizer.skipLines(linesToSkip);
+                while (tokenizer.nextRow()) {
+                    rowSplitter.split(tokenizer);
+                }
+            }
+            return;
+        }
 
         //TODO by default (or as an option), try to detect the format of the
         // file (read first few lines and count number of tabs vs coma,
         // quotes per line, etc.
-        try (CSVReader cvsreader = new CSVReader(
-                new InputStreamReader(input, StandardCharsets.UTF_8),
+        try (CSVReader cvsreader = new CSVReader(reader,
                     separatorCharacter, quoteCharacter,
                     escapeCharacter, linesToSkip)) {
+            ArrayRow row = new ArrayRow();
+            while ((row.cols = cvsreader.readNext()) != null) {
+                rowSplitter.split(row);
+            }
+        }
+    }
 
-            String [] cols;
-            String[] colNames = null;
-            int count = 0;
-            StringBuilder contentStr = new StringBuilder();
-            while ((cols = cvsreader.readNext()) != null) {
-                count++;
-                Properties childMeta = new Properties();
-                childMeta.loadFromMap(doc.getMetadata());
-                String childEmbedRef = "row-" + count;
-                if (count == 1 && useFirstRowAsFields) {
-                    colNames = cols;
-                } else {
-                    for (int i = 0; i < cols.length; i++) {
-                        int colPos = i + 1;
-                        String colName = null;
-                        if (colNames == null || i >= colNames.length) {
-                            colName = "column" + colPos;
-                        } else {
-                            colName = colNames[i];
-                        }
-                        String colValue = cols[i];
-
-                        // If a reference column, set reference value
-                        if (isColumnMatching(colName, colPos,
-                                Arrays.asList(referenceColumn))) {
-                            childEmbedRef = colValue;
-                        }
-                        // If a content column, add it to content
-                        if (isColumnMatching(colName, colPos, contentColumns)) {
-                            if (contentStr.length() > 0) {
-                                contentStr.append(" ");
-                            }
-                            contentStr.append(colValue);
-                        }
-                        childMeta.set(colName, colValue);
-                    }
-                    String childDocRef =
-                            doc.getReference() + "!" + childEmbedRef;
-                    CachedInputStream content = null;
+    // Creates a child document for each row, only reading values
+    // of columns used as reference, content or metadata.
+    private class RowSplitter {
+        private static final int ROLE_RESOLVED = 1;
+        private static final int ROLE_REFERENCE = 2;
+        private static final int ROLE_CONTENT = 4;
+        private static final int ROLE_METADATA = 8;
+
+        private final HandlerDoc doc;
+        private final Consumer<Doc> childDocConsumer;
+        private final StringBuilder contentStr = new StringBuilder();
+        private String[] colNames;
+        private int[] roles = new int[0];
+        private String[] roleNames = new String[0];
+        private int count;
+
+        public RowSplitter(HandlerDoc doc, Consumer<Doc> childDocConsumer) {
+            this.doc = doc;
+            this.childDocConsumer = childDocConsumer;
+        }
+
+        void split(Row row) {
+            count++;
+            if (count == 1 && useFirstRowAsFields) {
+                colNames = new String[row.getFieldCount()];
+                for (int i = 0; i < colNames.length; i++) {
+                    colNames[i] = row.getField(i);
+                }
+                return;
+            }
+            Properties childMeta = new Properties();
+            childMeta.loadFromMap(doc.getMetadata());
+            String childEmbedRef = "row-" + count;
+            for (int i = 0; i < row.getFieldCount(); i++) {
+                int role = role(i);
+                String colValue = null;
+                // If a reference column, set reference value
+                if ((role & ROLE_REFERENCE) != 0) {
+                    colValue = row.getField(i);
+                    childEmbedRef = colValue;
+                }
+                // If a content column, add it to content
+                if ((role & ROLE_CONTENT) != 0) {
                     if (contentStr.length() > 0) {
-                        content = doc.getStreamFactory().newInputStream(
-                                contentStr.toString());
-                        contentStr.setLength(0);
-                    } else {
-                        content = doc.getStreamFactory().newInputStream();
+                        contentStr.append(" ");
+                    }
+                    row.appendField(i, contentStr);
+                }
+                if ((role & ROLE_METADATA) != 0) {
+                    if (colValue == null) {
+                        colValue = row.getField(i);
                     }
-                    Doc childDoc = new Doc(
-                            childDocRef, content, childMeta);
-                    DocInfo childInfo = childDoc.getDocInfo();
-                    childInfo.setReference(childDocRef);
-                    childInfo.addEmbeddedParentReference(doc.getReference());
-
-                    childMeta.set(
-                            DocMetadata.EMBEDDED_REFERENCE, childEmbedRef);
-
-//                    childInfo.setEmbeddedReference(childEmbedRef);
-
-//                    childMeta.setReference(childDocRef);
-//                    childMeta.setEmbeddedReference(childEmbedRef);
-//                    childMeta.setEmbeddedParentReference(doc.getReference());
-//                    childMeta.setEmbeddedParentRootReference(doc.getReference());
-                    rows.add(childDoc);
+                    childMeta.set(roleNames[i], colValue);
                 }
             }
+            String childDocRef = doc.getReference() + "!" + childEmbedRef;
+            CachedInputStream content = null;
+            if (contentStr.length() > 0) {
+                content = doc.getStreamFactory().newInputStream(
+                        contentStr.toString());
+                contentStr.setLength(0);
+            } else {
+                content = doc.getStreamFactory().newInputStream();
+            }
+            Doc childDoc = new Doc(childDocRef, content, childMeta);
+            DocInfo childInfo = childDoc.getDocInfo();
+            childInfo.setReference(childDocRef);
+            childInfo.addEmbeddedParentReference(doc.getReference());
+            childMeta.set(DocMetadata.EMBEDDED_REFERENCE, childEmbedRef);
+            childDocConsumer.accept(childDoc);
+        }
+
+        // Roles only depend on column name and position so are
+        // resolved once per column.
+        private int role(int index) {
+            if (index >= roles.length) {
+                int length = Math.max(index + 1, roles.length * 2);
+                roles = Arrays.copyOf(roles, length);
+                roleNames = Arrays.copyOf(roleNames, length);
+            }
+            if (roles[index] == 0) {
+                int colPos = index + 1;
+                String colName = null;
+                if (colNames == null || index >= colNames.length) {
+                    colName = "column" + colPos;
+                } else {
+                    colName = colNames[index];
+                }
+                int role = ROLE_RESOLVED;
+                if (isColumnMatching(colName, colPos,
+                        Arrays.asList(referenceColumn))) {
+                    role |= ROLE_REFERENCE;
+                }
+                if (isColumnMatching(colName, colPos, contentColumns)) {
+                    role |= ROLE_CONTENT;
+                }
+                if (metadataColumns.isEmpty() || isColumnMatching(
+                        colName, colPos, metadataColumns)) {
+                    role |= ROLE_METADATA;
+                }
+                roles[index] = role;
+                roleNames[index] = colName;
+            }
+            return roles[index];
+        }
+    }
+
+    // A row of values.
+    interface Row {
+        int getFieldCount();
+        String getField(int index);
+        void appendField(int index, StringBuilder b);
+    }
+    private static class ArrayRow implements Row {
+        private String[] cols;
+        @Override
+        public int getFieldCount() {
+            return cols.length;
+        }
+        @Override
+        public String getField(int index) {
+            return cols[index];
+        }
+        @Override
+        public void appendField(int index, StringBuilder b) {
+            b.append(cols[index]);
         }
-        return rows;
     }
 
     private boolean isColumnMatching(
@@ -336,6 +447,50 @@ public class CsvSplitter extends AbstractDocumentSplitter
         CollectionUtil.setAll(this.contentColumns, contentColumns);
     }
 
+    /**
+     * Gets the columns (names or positions from 1) to store as metadata.
+     * Empty (default) stores all columns.
+     * @return metadata columns
+     * @since 3.0.0
+     */
+    public List<String> getMetadataColumns() {
+        return Collections.unmodifiableList(metadataColumns);
+    }
+    /**
+     * Sets the columns (names or positions from 1) to store as metadata.
+     * @param metadataColumns metadata columns
+     * @since 3.0.0
+     */
+    public void setMetadataColumns(String... metadataColumns) {
+        setMetadataColumns(Arrays.asList(metadataColumns));
+    }
+    /**
+     * Sets the columns (names or positions from 1) to store as metadata.
+     * @param metadataColumns metadata columns
+     * @since 3.0.0
+     */
+    public void setMetadataColumns(List<String> metadataColumns) {
+        CollectionUtil.setAll(this.metadataColumns, metadataColumns);
+    }
+
+    /**
+     * Gets whether to read values with the fast tokenizer.
+     * Default is <code>false</code>.
+     * @return <code>true</code> if using the fast tokenizer
+     * @since 3.0.0
+     */
+    public boolean isFastTokenizer() {
+        return fastTokenizer;
+    }
+    /**
+     * Sets whether to read values with the fast tokenizer.
+     * @param fastTokenizer <code>true</code> to use the fast tokenizer
+     * @since 3.0.0
+     */
+    public void setFastTokenizer(boolean fastTokenizer) {
+        this.fastTokenizer = fastTokenizer;
+    }
+
     @Override
     protected void loadHandlerFromXML(XML xml) {
         setSeparatorCharacter(loadCharacter(
@@ -352,6 +507,9 @@ public class CsvSplitter extends AbstractDocumentSplitter
 
         setContentColumns(
                 xml.getDelimitedStringList("@contentColumns", contentColumns));
+        setMetadataColumns(xml.getDelimitedStringList(
+                "@metadataColumns", metadataColumns));
+        setFastTokenizer(xml.getBoolean("@fastTokenizer", fastTokenizer));
     }
 
     @Override
@@ -363,6 +521,8 @@ public class CsvSplitter extends AbstractDocumentSplitter
         xml.setAttribute("linesToSkip", linesToSkip);
         xml.setAttribute("referenceColumn", referenceColumn);
         xml.setDelimitedAttributeList("contentColumns", contentColumns);
+        xml.setDelimitedAttributeList("metadataColumns", metadataColumns);
+        xml.setAttribute("fastTokenizer", fastTokenizer);
     }
 
     private char loadCharacter(
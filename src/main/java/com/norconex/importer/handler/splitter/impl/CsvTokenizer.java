@@ -0,0 +1,304 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.handler.splitter.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Fast CSV tokenizer reading rows from a character stream one at a time.
+ * Values are not copied out of the read buffer until asked for
+ * (see {@link #getField(int)} and {@link #appendField(int, StringBuilder)}),
+ * so values never used cost nothing more than finding their boundaries.
+ * Only values having escaped characters are unescaped in a separate
+ * buffer.
+ * Quoted values can hold separators, line breaks and quotes (either
+ * doubled or escaped with the escape character). A <code>'\0'</code>
+ * quote or escape character disables quoting or escaping.
+ * Not thread-safe.
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+final class CsvTokenizer implements CsvSplitter.Row, Closeable {
+
+    static final char NO_CHAR = '\0';
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private final char separator;
+    private final char quote;
+    private final char escape;
+
+    private char[] buf;
+    private int limit;
+    private int pos;
+    private boolean eof;
+
+    // start of the row being read, everything before can be discarded
+    private int rowStart;
+    // start of the not yet recorded part of the value being read
+    private int segmentStart;
+
+    // value boundaries, in "buf" or in "scratch" for unescaped values
+    private int fieldCount;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private boolean[] unescaped = new boolean[16];
+    private char[] scratch = new char[256];
+    private int scratchLength;
+
+    CsvTokenizer(Reader reader, char separator, char quote, char escape) {
+        this(reader, separator, quote, escape, DEFAULT_BUFFER_SIZE);
+    }
+    CsvTokenizer(Reader reader, char separator, char quote, char escape,
+            int bufferSize) {
+        this.reader = reader;
+        this.separator = separator;
+        this.quote = quote;
+        this.escape = escape;
+        this.buf = new char[Math.max(bufferSize, 2)];
+    }
+
+    /**
+     * Skips lines, regardless of quotes.
+     * @param count how many lines to skip
+     * @throws IOException could not read
+     */
+    void skipLines(int count) throws IOException {
+        fieldCount = 0;
+        for (int i = 0; i < count; i++) {
+            rowStart = pos;
+            int ch;
+            while ((ch = peek(0)) != -1) {
+                pos++;
+                if (ch == '\n') {
+                    break;
+                }
+                if (ch == '\r') {
+                    if (peek(0) == '\n') {
+                        pos++;
+                    }
+                    break;
+                }
+            }
+            if (ch == -1) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads the next row.
+     * @return <code>false</code> if there are no more rows
+     * @throws IOException could not read
+     */
+    boolean nextRow() throws IOException {
+        fieldCount = 0;
+        scratchLength = 0;
+        rowStart = pos;
+        if (peek(0) == -1) {
+            return false;
+        }
+        while (readField()) {
+            // keep reading fields until end of row
+        }
+        return true;
+    }
+
+    @Override
+    public int getFieldCount() {
+        return fieldCount;
+    }
+    @Override
+    public String getField(int index) {
+        char[] src = unescaped[index] ? scratch : buf;
+        return new String(src, starts[index], ends[index] - starts[index]);
+    }
+    @Override
+    public void appendField(int index, StringBuilder b) {
+        char[] src = unescaped[index] ? scratch : buf;
+        b.append(src, starts[index], ends[index] - starts[index]);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // Returns true if followed by another field on the same row.
+    private boolean readField() throws IOException {
+        int scratchStart = scratchLength;
+        boolean copied = false;
+        boolean quoted = false;
+        if (quote != NO_CHAR && peek(0) == quote) {
+            quoted = true;
+            pos++;
+        }
+        segmentStart = pos;
+        int ch;
+        while ((ch = peek(0)) != -1) {
+            if (quoted) {
+                if (ch == quote) {
+                    int next = peek(1);
+                    if (next == quote) {
+                        // doubled quote
+                        copied = copySegment(quote, 2);
+                        continue;
+                    }
+                    if (next == -1 || next == separator
+                            || next == '\r' || next == '\n') {
+                        // closing quote
+                        endField(pos, copied, scratchStart);
+                        pos++;
+                        return endOfField();
+                    }
+                    // text after closing quote is kept as is
+                    copied = copySegment(NO_CHAR, 1);
+                    quoted = false;
+                    continue;
+                }
+                if (isEscaping(ch)) {
+                    copied = copySegment(buf[pos + 1], 2);
+                    continue;
+                }
+            } else {
+                if (ch == separator || ch == '\r' || ch == '\n') {
+                    endField(pos, copied, scratchStart);
+                    return endOfField();
+                }
+                if (isEscaping(ch)) {
+                    copied = copySegment(buf[pos + 1], 2);
+                    continue;
+                }
+            }
+            pos++;
+        }
+        // end of stream
+        endField(pos, copied, scratchStart);
+        return false;
+    }
+
+    private boolean isEscaping(int ch) throws IOException {
+        if (ch != escape || escape == NO_CHAR || escape == quote) {
+            return false;
+        }
+        int next = peek(1);
+        return next != -1 && (next == quote || next == escape);
+    }
+
+    // Consumes the separator or line break following a field.
+    private boolean endOfField() throws IOException {
+        int ch = peek(0);
+        if (ch == -1) {
+            return false;
+        }
+        pos++;
+        if (ch == separator) {
+            return true;
+        }
+        if (ch == '\r' && peek(0) == '\n') {
+            pos++;
+        }
+        return false;
+    }
+
+    // Moves the current segment to the scratch buffer, followed by the
+    // given character (unless NO_CHAR), then skips "skip" characters
+    // (already read).
+    private boolean copySegment(char ch, int skip) {
+        appendScratch(buf, segmentStart, pos - segmentStart);
+        if (ch != NO_CHAR) {
+            if (scratchLength == scratch.length) {
+                scratch = Arrays.copyOf(scratch, scratch.length * 2);
+            }
+            scratch[scratchLength++] = ch;
+        }
+        pos += skip;
+        segmentStart = pos;
+        return true;
+    }
+
+    private void endField(int end, boolean copied, int scratchStart) {
+        if (fieldCount == starts.length) {
+            int newLength = fieldCount * 2;
+            starts = Arrays.copyOf(starts, newLength);
+            ends = Arrays.copyOf(ends, newLength);
+            unescaped = Arrays.copyOf(unescaped, newLength);
+        }
+        if (copied) {
+            appendScratch(buf, segmentStart, end - segmentStart);
+            starts[fieldCount] = scratchStart;
+            ends[fieldCount] = scratchLength;
+        } else {
+            starts[fieldCount] = segmentStart;
+            ends[fieldCount] = end;
+        }
+        unescaped[fieldCount] = copied;
+        fieldCount++;
+    }
+
+    private void appendScratch(char[] src, int offset, int length) {
+        if (scratchLength + length > scratch.length) {
+            scratch = Arrays.copyOf(scratch,
+                    Math.max(scratch.length * 2, scratchLength + length));
+        }
+        System.arraycopy(src, offset, scratch, scratchLength, length);
+        scratchLength += length;
+    }
+
+    // Character at the given offset from the current position,
+    // or -1 if the end of the stream is reached.
+    private int peek(int offset) throws IOException {
+        while (pos + offset >= limit) {
+            if (!fill()) {
+                return -1;
+            }
+        }
+        return buf[pos + offset];
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        if (rowStart > 0) {
+            // discard what was read before the current row
+            int shift = rowStart;
+            System.arraycopy(buf, shift, buf, 0, limit - shift);
+            limit -= shift;
+            pos -= shift;
+            segmentStart -= shift;
+            rowStart = 0;
+            for (int i = 0; i < fieldCount; i++) {
+                if (!unescaped[i]) {
+                    starts[i] -= shift;
+                    ends[i] -= shift;
+                }
+            }
+        } else if (limit == buf.length) {
+            // row larger than the buffer
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+        int read = reader.read(buf, limit, buf.length - limit);
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+}
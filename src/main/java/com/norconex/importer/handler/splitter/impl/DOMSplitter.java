@@ -24,7 +24,6 @@ import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
@@ -38,6 +37,7 @@ import com.norconex.importer.doc.DocInfo;
 import com.norconex.importer.doc.DocMetadata;
 import com.norconex.importer.handler.CommonRestrictions;
 import com.norconex.importer.handler.HandlerDoc;
+import com.norconex.importer.handler.IDOMHandler;
 import com.norconex.importer.handler.ImporterHandlerException;
 import com.norconex.importer.handler.splitter.AbstractDocumentSplitter;
 import com.norconex.importer.parser.ParseState;
@@ -113,7 +113,7 @@ import com.norconex.importer.util.DOMUtil;
  */
 @SuppressWarnings("javadoc")
 public class DOMSplitter extends AbstractDocumentSplitter
-        implements IXMLConfigurable {
+        implements IXMLConfigurable, IDOMHandler {
 
     private String selector;
     private String sourceCharset = null;
@@ -175,8 +175,8 @@ public class DOMSplitter extends AbstractDocumentSplitter
 
         List<Doc> docs = new ArrayList<>();
         try {
-            Document soupDoc = Jsoup.parse(input, inputCharset,
-                    doc.getReference(), DOMUtil.toJSoupParser(getParser()));
+            Document soupDoc =
+                    doc.getDOM(input, inputCharset, getParser());
             Elements elms = soupDoc.select(selector);
 
             // if there only 1 element matched, make sure it is not the same as
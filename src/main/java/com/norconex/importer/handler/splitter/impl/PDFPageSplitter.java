@@ -19,15 +19,18 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
-import org.apache.commons.io.output.ByteArrayOutputStream;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.multipdf.Splitter;
 import org.apache.pdfbox.pdmodel.PDDocument;
 
+import com.norconex.commons.lang.io.CachedInputStream;
+import com.norconex.commons.lang.io.CachedOutputStream;
 import com.norconex.commons.lang.map.Properties;
 import com.norconex.commons.lang.map.PropertyMatcher;
 import com.norconex.commons.lang.text.TextMatcher;
@@ -69,6 +72,17 @@ import com.norconex.importer.parser.ParseState;
  *
  * <p>Should be used as a pre-parse handler.</p>
  *
+ * <p>
+ * Since 3.0.0, split documents are created, saved and handed over
+ * one at a time, so only one is held in memory at any given time.
+ * They can be made of more than one page, in which case their references
+ * end with a page range (e.g., "#1-10") and the last page number is stored
+ * in <code>document.pdf.lastPageNumber</code>.
+ * For very large PDFs, you can also limit how much of the original PDF
+ * is held in memory by setting a maximum, after which temporary files
+ * are used.
+ * </p>
+ *
  * {@nx.xml.usage
  *  <handler class="com.norconex.importer.handler.splitter.impl.PDFPageSplitter">
  *    {@nx.include com.norconex.importer.handler.AbstractImporterHandler#restrictTo}
@@ -77,6 +91,14 @@ import com.norconex.importer.parser.ParseState;
  *      (String to put before the page number is appended to the document
  *      reference. Default is "#".)
  *    </referencePagePrefix>
+ *    <pagesPerDocument>
+ *      (Number of pages making up each split document. Default is 1.)
+ *    </pagesPerDocument>
+ *    <maxMainMemory>
+ *      (Maximum bytes of the PDF held in memory while splitting, after
+ *      which temporary files are used. 0 means temporary files only.
+ *      Default is -1, for no limit.)
+ *    </maxMainMemory>
  *
  *  </handler>
  * }
@@ -99,10 +121,18 @@ public class PDFPageSplitter extends AbstractDocumentSplitter
     public static final String DOC_PDF_PAGE_NO = "document.pdf.pageNumber";
     public static final String DOC_PDF_TOTAL_PAGES =
             "document.pdf.numberOfPages";
+    /**
+     * Last page number of a document made of more than one page.
+     * @since 3.0.0
+     */
+    public static final String DOC_PDF_LAST_PAGE_NO =
+            "document.pdf.lastPageNumber";
 
     public static final String DEFAULT_REFERENCE_PAGE_PREFIX = "#";
 
     private String referencePagePrefix = DEFAULT_REFERENCE_PAGE_PREFIX;
+    private int pagesPerDocument = 1;
+    private long maxMainMemory = -1;
 
     public PDFPageSplitter() {
         super();
@@ -118,87 +148,180 @@ public class PDFPageSplitter extends AbstractDocumentSplitter
         this.referencePagePrefix = referencePagePrefix;
     }
 
+    /**
+     * Gets the number of pages making up each split document.
+     * Default is 1.
+     * @return number of pages per document
+     * @since 3.0.0
+     */
+    public int getPagesPerDocument() {
+        return pagesPerDocument;
+    }
+    /**
+     * Sets the number of pages making up each split document.
+     * @param pagesPerDocument number of pages per document
+     * @since 3.0.0
+     */
+    public void setPagesPerDocument(int pagesPerDocument) {
+        this.pagesPerDocument = pagesPerDocument;
+    }
+
+    /**
+     * Gets the maximum number of bytes of the PDF being split that can be
+     * held in memory, after which temporary files are used.
+     * Zero means always using temporary files. A negative value means
+     * no limit (default).
+     * @return maximum main memory, in bytes
+     * @since 3.0.0
+     */
+    public long getMaxMainMemory() {
+        return maxMainMemory;
+    }
+    /**
+     * Sets the maximum number of bytes of the PDF being split that can be
+     * held in memory, after which temporary files are used.
+     * Zero means always using temporary files. A negative value means
+     * no limit.
+     * @param maxMainMemory maximum main memory, in bytes
+     * @since 3.0.0
+     */
+    public void setMaxMainMemory(long maxMainMemory) {
+        this.maxMainMemory = maxMainMemory;
+    }
+
     @Override
     protected List<Doc> splitApplicableDocument(
             HandlerDoc doc, InputStream input, OutputStream output,
             ParseState parseState) throws ImporterHandlerException {
-
         List<Doc> pageDocs = new ArrayList<>();
+        splitApplicableDocument(
+                doc, input, output, parseState, pageDocs::add);
+        return pageDocs;
+    }
+
+    // Each page (or range of pages) is handed over as soon as it is saved.
+    @Override
+    protected void splitApplicableDocument(
+            HandlerDoc doc, InputStream input, OutputStream output,
+            ParseState parseState, Consumer<Doc> pageDocConsumer)
+                    throws ImporterHandlerException {
 
         // Make sure we are not splitting a page that was already split
         if (doc.getMetadata().getInteger(DOC_PDF_PAGE_NO, 0) > 0) {
-            return pageDocs;
+            return;
         }
 
-        try (PDDocument document = PDDocument.load(input)) {
+        try (PDDocument document =
+                PDDocument.load(input, toMemoryUsageSetting())) {
 
-            // Make sure we are not splitting single pages.
-            if (document.getNumberOfPages() <= 1) {
+            // Make sure we are not splitting single pages (or ranges).
+            int totalPages = document.getNumberOfPages();
+            if (totalPages <= Math.max(1, pagesPerDocument)) {
                 doc.getMetadata().set(DOC_PDF_PAGE_NO, 1);
-                doc.getMetadata().set(DOC_PDF_TOTAL_PAGES, 1);
-                return pageDocs;
+                doc.getMetadata().set(DOC_PDF_TOTAL_PAGES, totalPages);
+                return;
             }
 
-            Splitter splitter = new Splitter();
-            List<PDDocument> splittedDocuments = splitter.split(document);
-            int pageNo = 0;
-            for (PDDocument page : splittedDocuments) {
-                pageNo++;
-
-                String pageRef =
-                        doc.getReference() + referencePagePrefix + pageNo;
-
-                // metadata
-                Properties pageMeta = new Properties();
-                pageMeta.loadFromMap(doc.getMetadata());
-
-                DocInfo pageInfo = new DocInfo(pageRef);
-
-//                pageInfo.setEmbeddedReference(Integer.toString(pageNo));
-                pageMeta.set(DocMetadata.EMBEDDED_REFERENCE,
-                        Integer.toString(pageNo));
-
-
-                pageInfo.addEmbeddedParentReference(doc.getReference());
-
-//                pageMeta.setReference(pageRef);
-//                pageMeta.setEmbeddedReference(Integer.toString(pageNo));
-//                pageMeta.setEmbeddedParentReference(doc.getReference());
-//                pageMeta.setEmbeddedParentRootReference(doc.getReference());
-
-                pageMeta.set(DOC_PDF_PAGE_NO, pageNo);
-                pageMeta.set(DOC_PDF_TOTAL_PAGES, document.getNumberOfPages());
-
-                // a single page should not be too big to store in memory
-                ByteArrayOutputStream os = new ByteArrayOutputStream();
-                try {
-                    page.save(os);
-                } finally {
-                    page.close();
-                }
-                Doc pageDoc = new Doc(
-                        pageInfo,
-                        doc.getStreamFactory().newInputStream(
-                                os.toInputStream()),
-                        pageMeta);
-                pageDocs.add(pageDoc);
-            }
+            PageSplitter splitter =
+                    new PageSplitter(doc, totalPages, pageDocConsumer);
+            splitter.setSplitAtPage(Math.max(1, pagesPerDocument));
+            List<PDDocument> pageDocs = splitter.split(document);
+            // last one is still open
+            splitter.emit(pageDocs.get(pageDocs.size() - 1));
         } catch (IOException e) {
             throw new ImporterHandlerException(
                     "Could not split PDF: " + doc.getReference(), e);
         }
-        return pageDocs;
+    }
+
+    private MemoryUsageSetting toMemoryUsageSetting() {
+        if (maxMainMemory < 0) {
+            return MemoryUsageSetting.setupMainMemoryOnly();
+        }
+        if (maxMainMemory == 0) {
+            return MemoryUsageSetting.setupTempFileOnly();
+        }
+        return MemoryUsageSetting.setupMixed(maxMainMemory);
+    }
+
+    // Saves and closes each split document before the next one is
+    // created so only one is held in memory at any given time.
+    private class PageSplitter extends Splitter {
+        private final HandlerDoc doc;
+        private final int totalPages;
+        private final Consumer<Doc> pageDocConsumer;
+        private int firstPageNo = 1;
+
+        public PageSplitter(HandlerDoc doc, int totalPages,
+                Consumer<Doc> pageDocConsumer) {
+            this.doc = doc;
+            this.totalPages = totalPages;
+            this.pageDocConsumer = pageDocConsumer;
+        }
+
+        // Invoked when about to add the first page of the next document.
+        @Override
+        protected PDDocument createNewDocument() throws IOException {
+            if (getDestinationDocument() != null) {
+                emit(getDestinationDocument());
+            }
+            return super.createNewDocument();
+        }
+
+        private void emit(PDDocument pageDoc) throws IOException {
+            int pageNo = firstPageNo;
+            int lastPageNo = pageNo + pageDoc.getNumberOfPages() - 1;
+            firstPageNo = lastPageNo + 1;
+
+            String embedRef = Integer.toString(pageNo);
+            if (lastPageNo > pageNo) {
+                embedRef += "-" + lastPageNo;
+            }
+            String pageRef =
+                    doc.getReference() + referencePagePrefix + embedRef;
+
+            // metadata
+            Properties pageMeta = new Properties();
+            pageMeta.loadFromMap(doc.getMetadata());
+
+            DocInfo pageInfo = new DocInfo(pageRef);
+
+            pageMeta.set(DocMetadata.EMBEDDED_REFERENCE, embedRef);
+
+            pageInfo.addEmbeddedParentReference(doc.getReference());
+
+            pageMeta.set(DOC_PDF_PAGE_NO, pageNo);
+            if (lastPageNo > pageNo) {
+                pageMeta.set(DOC_PDF_LAST_PAGE_NO, lastPageNo);
+            }
+            pageMeta.set(DOC_PDF_TOTAL_PAGES, totalPages);
+
+            CachedOutputStream os = doc.getStreamFactory().newOuputStream();
+            try {
+                pageDoc.save(os);
+            } finally {
+                pageDoc.close();
+            }
+            CachedInputStream is = os.getInputStream();
+            os.close();
+            pageDocConsumer.accept(new Doc(pageInfo, is, pageMeta));
+        }
     }
 
     @Override
     protected void loadHandlerFromXML(XML xml) {
         setReferencePagePrefix(
                 xml.getString("referencePagePrefix", referencePagePrefix));
+        setPagesPerDocument(
+                xml.getInteger("pagesPerDocument", pagesPerDocument));
+        setMaxMainMemory(xml.getLong("maxMainMemory", maxMainMemory));
     }
 
     @Override
     protected void saveHandlerToXML(XML xml) {
         xml.addElement("referencePagePrefix", referencePagePrefix);
+        xml.addElement("pagesPerDocument", pagesPerDocument);
+        xml.addElement("maxMainMemory", maxMainMemory);
     }
 
     @Override
@@ -210,6 +333,8 @@ public class PDFPageSplitter extends AbstractDocumentSplitter
         return new EqualsBuilder()
                 .appendSuper(super.equals(castOther))
                 .append(referencePagePrefix, castOther.referencePagePrefix)
+                .append(pagesPerDocument, castOther.pagesPerDocument)
+                .append(maxMainMemory, castOther.maxMainMemory)
                 .isEquals();
     }
     @Override
@@ -217,6 +342,8 @@ public class PDFPageSplitter extends AbstractDocumentSplitter
         return new HashCodeBuilder()
                 .appendSuper(super.hashCode())
                 .append(referencePagePrefix)
+                .append(pagesPerDocument)
+                .append(maxMainMemory)
                 .toHashCode();
     }
     @Override
@@ -224,6 +351,8 @@ public class PDFPageSplitter extends AbstractDocumentSplitter
         return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
                 .appendSuper(super.toString())
                 .append("referencePagePrefix", referencePagePrefix)
+                .append("pagesPerDocument", pagesPerDocument)
+                .append("maxMainMemory", maxMainMemory)
                 .toString();
     }
 }
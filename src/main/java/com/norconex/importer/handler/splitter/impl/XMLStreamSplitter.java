@@ -21,6 +21,7 @@ import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -149,18 +150,26 @@ public class XMLStreamSplitter extends AbstractDocumentSplitter
     protected List<Doc> splitApplicableDocument(
             HandlerDoc doc, InputStream input, OutputStream output,
             ParseState parseState) throws ImporterHandlerException {
-
         List<Doc> splitDocs = new ArrayList<>();
+        splitApplicableDocument(
+                doc, input, output, parseState, splitDocs::add);
+        return splitDocs;
+    }
 
+    // Each matching element is handed over as soon as it is closed.
+    @Override
+    protected void splitApplicableDocument(
+            HandlerDoc doc, InputStream input, OutputStream output,
+            ParseState parseState, Consumer<Doc> childDocConsumer)
+                    throws ImporterHandlerException {
         try {
-            XmlHandler h = new XmlHandler(doc,
-                    Arrays.asList(StringUtils.split(path, '/')), splitDocs);
+            XmlHandler h = new XmlHandler(doc, Arrays.asList(
+                    StringUtils.split(path, '/')), childDocConsumer);
             XMLUtil.createSaxParserFactory().newSAXParser().parse(input, h);
         } catch (SAXException | IOException | ParserConfigurationException e) {
             throw new ImporterHandlerException(
                     "Could not split XML document: " + doc.getReference(), e);
         }
-        return splitDocs;
     }
 
     @Override
@@ -190,19 +199,20 @@ public class XMLStreamSplitter extends AbstractDocumentSplitter
     class XmlHandler extends DefaultHandler {
 
         private final List<String> splitPath;
-        private final List<Doc> splitDocs;
+        private final Consumer<Doc> childDocConsumer;
         private final HandlerDoc xmlDoc;
         private final List<String> currentPath = new ArrayList<>();
         private PrintWriter w;
         private CachedOutputStream out;
+        private int splitCount;
 
         public XmlHandler(
                 HandlerDoc xmlDoc,
                 List<String> splitPath,
-                List<Doc> splitDocs) {
+                Consumer<Doc> childDocConsumer) {
             super();
             this.xmlDoc = xmlDoc;
-            this.splitDocs = splitDocs;
+            this.childDocConsumer = childDocConsumer;
             this.splitPath = splitPath;
         }
 
@@ -248,7 +258,7 @@ public class XMLStreamSplitter extends AbstractDocumentSplitter
                         w.flush();
                         Properties childMeta = new Properties();
                         childMeta.loadFromMap(xmlDoc.getMetadata());
-                        String embedRef = Integer.toString(splitDocs.size());
+                        String embedRef = Integer.toString(splitCount++);
                         Doc childDoc = new Doc(
                                 xmlDoc.getReference() + "!" + embedRef,
                                 out.getInputStream(),
@@ -261,7 +271,7 @@ public class XMLStreamSplitter extends AbstractDocumentSplitter
                                 xmlDoc.getReference());
                         childMeta.set(
                                 DocMetadata.EMBEDDED_REFERENCE, embedRef);
-                        splitDocs.add(childDoc);
+                        childDocConsumer.accept(childDoc);
                     }
                 }
             } catch (IOException e) {
@@ -26,6 +26,7 @@ import com.norconex.commons.lang.io.TextReader;
 import com.norconex.commons.lang.xml.IXMLConfigurable;
 import com.norconex.commons.lang.xml.XML;
 import com.norconex.importer.handler.HandlerDoc;
+import com.norconex.importer.handler.IStringSectionHandler;
 import com.norconex.importer.handler.ImporterHandlerException;
 import com.norconex.importer.parser.ParseState;
 
@@ -67,7 +68,8 @@ import com.norconex.importer.parser.ParseState;
  */
 @SuppressWarnings("javadoc")
 public abstract class AbstractStringTagger
-            extends AbstractCharStreamTagger {
+            extends AbstractCharStreamTagger
+            implements IStringSectionHandler {
 
     private int maxReadSize = TextReader.DEFAULT_MAX_READ_SIZE;
 
@@ -119,6 +121,23 @@ public abstract class AbstractStringTagger
         this.maxReadSize = maxReadSize;
     }
 
+    @Override
+    public final boolean isSectionHandlingApplicable(
+            HandlerDoc doc, ParseState parseState) {
+        return isApplicable(doc, parseState);
+    }
+    @Override
+    public final boolean isSectionHandlingRestricted() {
+        return !getRestrictions().isEmpty();
+    }
+    @Override
+    public final boolean handleStringSection(HandlerDoc doc,
+            StringBuilder content, ParseState parseState, int sectionIndex)
+                    throws ImporterHandlerException {
+        tagStringContent(doc, content, parseState, sectionIndex);
+        return true;
+    }
+
     protected abstract void tagStringContent(
            HandlerDoc doc, StringBuilder content, ParseState parseState,
            int sectionIndex) throws ImporterHandlerException;
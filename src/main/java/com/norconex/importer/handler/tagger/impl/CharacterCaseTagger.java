@@ -110,6 +110,12 @@ public class CharacterCaseTagger extends AbstractDocumentTagger {
     private static final Logger LOG =
             LoggerFactory.getLogger(CharacterCaseTagger.class);
 
+    private static final Pattern PATTERN_FIRST_ALPHANUM = Pattern.compile(
+            "^(.*?)([\\p{IsAlphabetic}\\p{IsDigit}])");
+    private static final Pattern PATTERN_SENTENCE = Pattern.compile(
+            "[^.!?\\s][^.!?]*(?:[.!?](?!['\"]?\\s|$)[^.!?]*)*"
+          + "[.!?]?['\"]?(?=\\s|$)", Pattern.MULTILINE);
+
     public static final String CASE_WORDS = "words";
     public static final String CASE_WORDS_FULLY = "wordsFully";
     public static final String CASE_UPPER = "upper";
@@ -329,8 +335,7 @@ public class CharacterCaseTagger extends AbstractDocumentTagger {
 
     private String capitalizeString(String value) {
         if (StringUtils.isNotBlank(value)) {
-            Matcher m = Pattern.compile(
-                    "^(.*?)([\\p{IsAlphabetic}\\p{IsDigit}])").matcher(value);
+            Matcher m = PATTERN_FIRST_ALPHANUM.matcher(value);
             if (m.find()) {
                 String firstChar =
                         StringUtils.upperCase(m.group(2), Locale.ENGLISH);
@@ -345,11 +350,7 @@ public class CharacterCaseTagger extends AbstractDocumentTagger {
     private String capitalizeSentences(String value) {
         if (StringUtils.isNotBlank(value)) {
             StringBuffer b = new StringBuffer();
-            Pattern re = Pattern.compile(
-                    "[^.!?\\s][^.!?]*(?:[.!?](?!['\"]?\\s|$)[^.!?]*)*"
-                  + "[.!?]?['\"]?(?=\\s|$)",
-                    Pattern.MULTILINE);
-            Matcher m = re.matcher(value);
+            Matcher m = PATTERN_SENTENCE.matcher(value);
             while (m.find()) {
                 m.appendReplacement(b, capitalizeString(m.group()));
             }
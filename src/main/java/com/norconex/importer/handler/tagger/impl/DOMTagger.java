@@ -39,6 +39,7 @@ import com.norconex.commons.lang.xml.XML;
 import com.norconex.importer.doc.DocMetadata;
 import com.norconex.importer.handler.CommonRestrictions;
 import com.norconex.importer.handler.HandlerDoc;
+import com.norconex.importer.handler.IDOMHandler;
 import com.norconex.importer.handler.ImporterHandlerException;
 import com.norconex.importer.handler.tagger.AbstractDocumentTagger;
 import com.norconex.importer.handler.transformer.impl.DOMDeleteTransformer;
@@ -204,7 +205,8 @@ import com.norconex.importer.util.DOMUtil;
  * @see DOMDeleteTransformer
  */
 @SuppressWarnings("javadoc")
-public class DOMTagger extends AbstractDocumentTagger {
+public class DOMTagger extends AbstractDocumentTagger
+        implements IDOMHandler {
 
     private static final Logger LOG = LoggerFactory.getLogger(DOMTagger.class);
 
@@ -293,8 +295,10 @@ public class DOMTagger extends AbstractDocumentTagger {
                 for (int i = 0; i < fromValues.size(); i++) {
                     String fromValue = fromValues.get(i);
                     if (StringUtils.isNotBlank(fromValue)) {
-                        fromValues.set(i, handle(Jsoup.parse(fromValue, ref,
-                                DOMUtil.toJSoupParser(getParser())), meta));
+                        Document jsoupDoc = Jsoup.parse(fromValue, ref,
+                                DOMUtil.toJSoupParser(getParser()));
+                        handle(jsoupDoc, meta);
+                        fromValues.set(i, jsoupDoc.toString());
                     }
                 }
                 meta.setList(getFromField(), fromValues);
@@ -302,8 +306,14 @@ public class DOMTagger extends AbstractDocumentTagger {
             } else {
                 String inputCharset = detectCharsetIfBlank(
                         doc, document, sourceCharset, parseState);
-                handle(Jsoup.parse(document, inputCharset, ref,
-                        DOMUtil.toJSoupParser(getParser())), meta);
+                Document jsoupDoc =
+                        doc.getDOM(document, inputCharset, getParser());
+                // Deletions only apply to this tagger extractions, so we
+                // do not modify the DOM shared with other handlers.
+                if (extractions.stream().anyMatch(d -> d.delete)) {
+                    jsoupDoc = jsoupDoc.clone();
+                }
+                handle(jsoupDoc, meta);
             }
         } catch (IOException e) {
             throw new ImporterHandlerException(
@@ -312,7 +322,7 @@ public class DOMTagger extends AbstractDocumentTagger {
     }
 
 
-    private String handle(Document jsoupDoc, Properties metadata) {
+    private void handle(Document jsoupDoc, Properties metadata) {
         for (DOMExtractDetails details : extractions) {
             List<String> extractedValues = new ArrayList<>();
             domExtractDoc(extractedValues, jsoupDoc, details);
@@ -321,8 +331,6 @@ public class DOMTagger extends AbstractDocumentTagger {
                         metadata, details.toField, extractedValues);
             }
         }
-
-        return jsoupDoc.toString();
     }
 
     private void domExtractDoc(List<String> extractedValues,
@@ -34,6 +34,7 @@ import com.norconex.importer.handler.HandlerDoc;
 import com.norconex.importer.handler.ImporterHandlerException;
 import com.norconex.importer.handler.tagger.AbstractDocumentTagger;
 import com.norconex.importer.parser.ParseState;
+import com.norconex.importer.util.PatternCache;
 
 /**
  * <p>Given a separator, split a field string into multiple segments
@@ -123,9 +124,9 @@ public class HierarchyTagger extends AbstractDocumentTagger {
 
         Pattern delim;
         if (details.regex) {
-            delim = Pattern.compile(details.fromSeparator);
+            delim = PatternCache.get(details.fromSeparator);
         } else {
-            delim = Pattern.compile(Pattern.quote(details.fromSeparator));
+            delim = PatternCache.getLiteral(details.fromSeparator, 0);
         }
 
         List<String> paths = new ArrayList<>();
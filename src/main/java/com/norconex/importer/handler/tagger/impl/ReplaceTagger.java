@@ -16,10 +16,12 @@ package com.norconex.importer.handler.tagger.impl;
 
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.EqualsBuilder;
@@ -36,6 +38,7 @@ import com.norconex.importer.handler.HandlerDoc;
 import com.norconex.importer.handler.ImporterHandlerException;
 import com.norconex.importer.handler.tagger.AbstractDocumentTagger;
 import com.norconex.importer.parser.ParseState;
+import com.norconex.importer.util.MultiLiteralReplacer;
 
 /**
  * <p>Replaces an existing metadata value with another one. The "toField"
@@ -58,6 +61,15 @@ import com.norconex.importer.parser.ParseState;
  * Can be used both as a pre-parse or post-parse handler.
  * </p>
  * <p>
+ * <b>Since 3.0.0</b>, when {@value MultiLiteralReplacer#MIN_GROUP_SIZE} or
+ * more consecutive replacements apply to the same fields without a
+ * "toField" or "discardUnchanged", their literal values (non-regular
+ * expressions) are all replaced in a single pass over each field value
+ * (see {@link MultiLiteralReplacer}). Replacements are compiled for this
+ * the first time they are used. Replacements modified afterwards
+ * are not guaranteed to be taken into account.
+ * </p>
+ * <p>
  * You can specify whether matches should be made
  * against the whole field value or not (default). You can also specify whether
  * replacement should be attempted on first match only (default) or all
@@ -106,19 +118,95 @@ import com.norconex.importer.parser.ParseState;
 public class ReplaceTagger extends AbstractDocumentTagger {
 
     private final List<Replacement> replacements = new ArrayList<>();
+    private transient volatile CompiledReplacements compiled;
 
     @Override
     public void tagApplicableDocument(
             HandlerDoc doc, InputStream document, ParseState parseState)
                     throws ImporterHandlerException {
 
-        // match the keys dealing with values later
-        for (Replacement repl : replacements) {
+        CompiledReplacements c = compile();
+        Properties meta = doc.getMetadata();
+        int i = 0;
+        while (i < c.replacements.length) {
+            Replacement repl = c.replacements[i];
+            MultiLiteralReplacer multi = c.multiReplacers[i];
+            // match the keys dealing with values later
             for (Entry<String, List<String>> en :
-                    doc.getMetadata().matchKeys(repl.fieldMatcher).entrySet()) {
-                replaceMeta(
-                        doc.getMetadata(), repl, en.getKey(), en.getValue());
+                    meta.matchKeys(repl.fieldMatcher).entrySet()) {
+                if (multi != null) {
+                    PropertySetter.REPLACE.apply(meta, en.getKey(),
+                            en.getValue().stream().map(multi::replace)
+                                    .collect(Collectors.toList()));
+                } else {
+                    replaceMeta(meta, repl, en.getKey(), en.getValue());
+                }
+            }
+            i += multi != null ? c.runLengths[i] : 1;
+        }
+    }
+
+    private CompiledReplacements compile() {
+        Replacement[] current = replacements.toArray(new Replacement[] {});
+        CompiledReplacements c = compiled;
+        if (c == null || !c.isFor(current)) {
+            c = new CompiledReplacements(current);
+            compiled = c;
+        }
+        return c;
+    }
+
+    // Finds runs of consecutive replacements that can be applied
+    // together on the same field values.
+    private static class CompiledReplacements {
+        private final Replacement[] replacements;
+        private final MultiLiteralReplacer[] multiReplacers;
+        private final int[] runLengths;
+        private CompiledReplacements(Replacement[] replacements) {
+            this.replacements = replacements;
+            this.multiReplacers =
+                    new MultiLiteralReplacer[replacements.length];
+            this.runLengths = new int[replacements.length];
+            int i = 0;
+            while (i < replacements.length) {
+                int end = i + 1;
+                if (isRunnable(replacements[i])) {
+                    while (end < replacements.length
+                            && isRunnable(replacements[end])
+                            && replacements[i].fieldMatcher.equals(
+                                    replacements[end].fieldMatcher)) {
+                        end++;
+                    }
+                }
+                if (end - i >= MultiLiteralReplacer.MIN_GROUP_SIZE) {
+                    List<Replacement> run =
+                            Arrays.asList(replacements).subList(i, end);
+                    MultiLiteralReplacer multi = MultiLiteralReplacer.create(
+                            run.stream().map(r -> r.valueMatcher)
+                                    .collect(Collectors.toList()),
+                            run.stream().map(r -> r.toValue)
+                                    .collect(Collectors.toList()));
+                    if (multi.hasGroups()) {
+                        multiReplacers[i] = multi;
+                        runLengths[i] = end - i;
+                    }
+                }
+                i = multiReplacers[i] != null ? end : i + 1;
+            }
+        }
+        private boolean isFor(Replacement[] current) {
+            if (current.length != replacements.length) {
+                return false;
+            }
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] != replacements[i]) {
+                    return false;
+                }
             }
+            return true;
+        }
+        private static boolean isRunnable(Replacement r) {
+            return StringUtils.isBlank(r.toField) && !r.discardUnchanged;
         }
     }
 
@@ -0,0 +1,378 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.handler.tagger.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.text.BreakIterator;
+import java.text.CharacterIterator;
+import java.util.Arrays;
+
+import com.norconex.commons.lang.map.Properties;
+
+/**
+ * <p>
+ * Computes text statistics in a single pass over characters, as they
+ * are appended. Text is broken into lines the same way as
+ * {@link java.io.BufferedReader#readLine()} does, and each non-blank
+ * line is a paragraph (trimmed). Words are the same as those matched by
+ * the <code>\w+\-{0,1}\w*</code> regular expression (Unicode character
+ * classes). Sentences are obtained from a sentence {@link BreakIterator}
+ * reused for every paragraph, without creating strings.
+ * </p>
+ * <p>
+ * Not thread-safe. Use one instance per text to analyze.
+ * </p>
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+final class TextStatistics {
+
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private static final int WORD_TYPES =
+            1 << Character.NON_SPACING_MARK
+          | 1 << Character.ENCLOSING_MARK
+          | 1 << Character.COMBINING_SPACING_MARK
+          | 1 << Character.DECIMAL_DIGIT_NUMBER
+          | 1 << Character.CONNECTOR_PUNCTUATION;
+
+    // Word states
+    private static final int NO_WORD = 0;
+    private static final int WORD = 1;
+    private static final int WORD_AFTER_HYPHEN = 2;
+
+    private long charCount;
+    private long wordCharCount;
+    private long wordCount;
+    private long sentenceCount;
+    private long sentenceCharCount;
+    private long paragraphCount;
+
+    // Current line, reused for all lines
+    private char[] line = new char[256];
+    private int lineLength;
+    private int trimStart = -1;
+    private int trimEnd;
+    private boolean blank = true;
+    private boolean controlChars;
+    private boolean skipLF;
+
+    private int wordState = NO_WORD;
+    private int wordLength;
+    private char highSurrogate;
+
+    private final BreakIterator sentences =
+            BreakIterator.getSentenceInstance();
+    private final ArrayCharIterator lineIterator = new ArrayCharIterator();
+
+    /**
+     * Appends all characters from the given reader and ends the text.
+     * @param reader text to analyze
+     * @return this instance
+     * @throws IOException could not read text
+     */
+    TextStatistics read(Reader reader) throws IOException {
+        char[] buf = new char[READ_BUFFER_SIZE];
+        int n;
+        while ((n = reader.read(buf)) != -1) {
+            append(buf, 0, n);
+        }
+        end();
+        return this;
+    }
+
+    /**
+     * Appends characters to the text being analyzed.
+     * @param chars characters
+     * @param offset offset of the first character
+     * @param length number of characters
+     */
+    void append(char[] chars, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            append(chars[i]);
+        }
+    }
+    /**
+     * Appends characters to the text being analyzed.
+     * @param chars characters
+     */
+    void append(CharSequence chars) {
+        for (int i = 0; i < chars.length(); i++) {
+            append(chars.charAt(i));
+        }
+    }
+
+    private void append(char ch) {
+        if (skipLF) {
+            skipLF = false;
+            if (ch == '\n') {
+                return;
+            }
+        }
+        if (ch == '\n' || ch == '\r') {
+            skipLF = ch == '\r';
+            endLine();
+            return;
+        }
+
+        // Line (and paragraph)
+        if (lineLength == line.length) {
+            line = Arrays.copyOf(line, lineLength * 2);
+        }
+        if (ch > ' ') {
+            if (trimStart == -1) {
+                trimStart = lineLength;
+            }
+            trimEnd = lineLength + 1;
+        }
+        if (blank && !Character.isWhitespace(ch)) {
+            if (ch > ' ') {
+                blank = false;
+            } else {
+                // only counts if not trimmed, known at the end of line
+                controlChars = true;
+            }
+        }
+        line[lineLength++] = ch;
+
+        // Word
+        if (highSurrogate != 0) {
+            char high = highSurrogate;
+            highSurrogate = 0;
+            if (Character.isLowSurrogate(ch)) {
+                word(Character.toCodePoint(high, ch), 2);
+                return;
+            }
+            word(high, 1);
+        }
+        if (Character.isHighSurrogate(ch)) {
+            highSurrogate = ch;
+        } else {
+            word(ch, 1);
+        }
+    }
+
+    private void word(int codePoint, int charLength) {
+        boolean wordChar = isWordChar(codePoint);
+        if (wordState == WORD) {
+            if (wordChar || codePoint == '-') {
+                wordLength += charLength;
+                if (!wordChar) {
+                    wordState = WORD_AFTER_HYPHEN;
+                }
+                return;
+            }
+            endWord();
+        } else if (wordState == WORD_AFTER_HYPHEN) {
+            if (wordChar) {
+                wordLength += charLength;
+                return;
+            }
+            endWord();
+        }
+        if (wordChar) {
+            wordState = WORD;
+            wordLength = charLength;
+        }
+    }
+
+    private void endWord() {
+        if (wordState != NO_WORD) {
+            wordCount++;
+            wordCharCount += wordLength;
+            wordState = NO_WORD;
+            wordLength = 0;
+        }
+    }
+
+    private void endLine() {
+        if (highSurrogate != 0) {
+            word(highSurrogate, 1);
+            highSurrogate = 0;
+        }
+        endWord();
+        if (blank && controlChars && trimStart != -1) {
+            blank = isBlank(line, trimStart, trimEnd);
+        }
+        if (!blank) {
+            paragraphCount++;
+            charCount += trimEnd - trimStart;
+            lineIterator.reset(line, trimStart, trimEnd);
+            sentences.setText(lineIterator);
+            int start = sentences.first();
+            for (int end = sentences.next(); end != BreakIterator.DONE;
+                    start = end, end = sentences.next()) {
+                sentenceCharCount += end - start;
+                sentenceCount++;
+            }
+        }
+        lineLength = 0;
+        trimStart = -1;
+        trimEnd = 0;
+        blank = true;
+        controlChars = false;
+    }
+
+    private static boolean isBlank(char[] chars, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(chars[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ends the text being analyzed. Must be called before obtaining
+     * statistics.
+     */
+    void end() {
+        skipLF = false;
+        if (lineLength > 0) {
+            endLine();
+        }
+    }
+
+    // Same as "\w" with Pattern.UNICODE_CHARACTER_CLASS.
+    private static boolean isWordChar(int codePoint) {
+        return Character.isAlphabetic(codePoint)
+                || ((WORD_TYPES >> Character.getType(codePoint)) & 1) != 0
+                || codePoint == 0x200C || codePoint == 0x200D;
+    }
+
+    long getCharCount() {
+        return charCount;
+    }
+    long getWordCount() {
+        return wordCount;
+    }
+    long getWordCharCount() {
+        return wordCharCount;
+    }
+    long getSentenceCount() {
+        return sentenceCount;
+    }
+    long getSentenceCharCount() {
+        return sentenceCharCount;
+    }
+    long getParagraphCount() {
+        return paragraphCount;
+    }
+
+    /**
+     * Adds statistics to metadata, with field names starting with
+     * the given prefix.
+     * @param metadata metadata to add statistics to
+     * @param prefix field name prefix
+     */
+    void addTo(Properties metadata, String prefix) {
+        metadata.add(prefix + "characterCount", charCount);
+        metadata.add(prefix + "wordCount", wordCount);
+        metadata.add(prefix + "sentenceCount", sentenceCount);
+        metadata.add(prefix + "paragraphCount", paragraphCount);
+        metadata.add(prefix + "averageWordCharacterCount",
+                divide(wordCharCount, wordCount));
+        metadata.add(prefix + "averageSentenceCharacterCount",
+                divide(sentenceCharCount, sentenceCount));
+        metadata.add(prefix + "averageSentenceWordCount",
+                divide(wordCount, sentenceCount));
+        metadata.add(prefix + "averageParagraphCharacterCount",
+                divide(charCount, paragraphCount));
+        metadata.add(prefix + "averageParagraphSentenceCount",
+                divide(sentenceCount, paragraphCount));
+        metadata.add(prefix + "averageParagraphWordCount",
+                divide(wordCount, paragraphCount));
+    }
+
+    private static String divide(long value, long divisor) {
+        return BigDecimal.valueOf(value).divide(
+                BigDecimal.valueOf(divisor), 1,
+                        BigDecimal.ROUND_HALF_UP).toString();
+    }
+
+    // Lets the break iterator read a portion of the line buffer.
+    private static class ArrayCharIterator implements CharacterIterator {
+        private char[] array;
+        private int begin;
+        private int end;
+        private int index;
+        void reset(char[] array, int begin, int end) {
+            this.array = array;
+            this.begin = begin;
+            this.end = end;
+            this.index = begin;
+        }
+        @Override
+        public char first() {
+            index = begin;
+            return current();
+        }
+        @Override
+        public char last() {
+            index = end > begin ? end - 1 : end;
+            return current();
+        }
+        @Override
+        public char current() {
+            return index >= begin && index < end ? array[index] : DONE;
+        }
+        @Override
+        public char next() {
+            if (index < end) {
+                index++;
+            }
+            return current();
+        }
+        @Override
+        public char previous() {
+            if (index <= begin) {
+                return DONE;
+            }
+            index--;
+            return current();
+        }
+        @Override
+        public char setIndex(int position) {
+            if (position < begin || position > end) {
+                throw new IllegalArgumentException(
+                        "Invalid index: " + position);
+            }
+            index = position;
+            return current();
+        }
+        @Override
+        public int getBeginIndex() {
+            return begin;
+        }
+        @Override
+        public int getEndIndex() {
+            return end;
+        }
+        @Override
+        public int getIndex() {
+            return index;
+        }
+        @Override
+        public Object clone() {
+            try {
+                return super.clone();
+            } catch (CloneNotSupportedException e) {
+                throw new InternalError(e);
+            }
+        }
+    }
+}
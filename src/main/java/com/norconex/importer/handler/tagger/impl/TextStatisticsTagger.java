@@ -14,17 +14,14 @@
  */
 package com.norconex.importer.handler.tagger.impl;
 
+import java.io.IOException;
 import java.io.Reader;
-import java.io.StringReader;
-import java.math.BigDecimal;
-import java.text.BreakIterator;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map.Entry;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.LineIterator;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
@@ -35,6 +32,7 @@ import com.norconex.commons.lang.map.Properties;
 import com.norconex.commons.lang.text.TextMatcher;
 import com.norconex.commons.lang.xml.IXMLConfigurable;
 import com.norconex.commons.lang.xml.XML;
+import com.norconex.importer.ImporterRuntimeException;
 import com.norconex.importer.handler.HandlerDoc;
 import com.norconex.importer.handler.ImporterHandlerException;
 import com.norconex.importer.handler.tagger.AbstractCharStreamTagger;
@@ -103,11 +101,24 @@ import com.norconex.importer.parser.ParseState;
  * names, right after "document.stat.". E.g.:
  * <code>document.stat.myfield.characterCount</code></p>
  *
+ * <p>When multiple fields are matched, you can have their statistics
+ * computed concurrently by setting "concurrentFields" to
+ * <code>true</code>. Fields are then analyzed by the JVM common
+ * fork/join pool (see {@link java.util.concurrent.ForkJoinPool#commonPool()}),
+ * shared with other tasks of the JVM relying on it, such as parallel
+ * streams. Its size can be set with the
+ * "java.util.concurrent.ForkJoinPool.common.parallelism" system
+ * property.</p>
+ *
+ * <p>Since 3.0.0, statistics are computed in a single pass over
+ * the text, as it is read.</p>
+ *
  * <p>Can be used both as a pre-parse (text-only) or post-parse handler.</p>
  *
  * {@nx.xml.usage
  * <handler class="com.norconex.importer.handler.tagger.impl.TextStatisticsTagger"
- *     {@nx.include com.norconex.importer.handler.tagger.AbstractCharStreamTagger#attributes}>
+ *     {@nx.include com.norconex.importer.handler.tagger.AbstractCharStreamTagger#attributes}
+ *     concurrentFields="[false|true]">
  *
  *   {@nx.include com.norconex.importer.handler.AbstractImporterHandler#restrictTo}
  *
@@ -134,10 +145,8 @@ import com.norconex.importer.parser.ParseState;
 public class TextStatisticsTagger extends AbstractCharStreamTagger
         implements IXMLConfigurable {
 
-    private static final Pattern PATTERN_WORD = Pattern.compile(
-            "\\w+\\-{0,1}\\w*", Pattern.UNICODE_CHARACTER_CLASS);
-
     private final TextMatcher fieldMatcher = new TextMatcher();
+    private boolean concurrentFields;
 
     @Override
     protected void tagTextDocument(
@@ -145,84 +154,54 @@ public class TextStatisticsTagger extends AbstractCharStreamTagger
                     throws ImporterHandlerException {
         if (fieldMatcher.getPattern() == null) {
             analyze(input, doc.getMetadata(), null);
-        } else {
-            for (Entry<String, List<String>> en :
-                    doc.getMetadata().matchKeys(fieldMatcher).entrySet()) {
-                analyze(new StringReader(StringUtils.join(
-                       en.getValue(), "\n\n")), doc.getMetadata(), en.getKey());
-            }
+            return;
+        }
+        List<Entry<String, List<String>>> fields = new ArrayList<>(
+                doc.getMetadata().matchKeys(fieldMatcher).entrySet());
+        Stream<Entry<String, List<String>>> stream = concurrentFields
+                ? fields.parallelStream() : fields.stream();
+        // Metadata is only modified once all fields are analyzed.
+        List<TextStatistics> stats = stream
+                .map(en -> analyze(en.getValue()))
+                .collect(Collectors.toList());
+        for (int i = 0; i < fields.size(); i++) {
+            stats.get(i).addTo(doc.getMetadata(),
+                    fieldPrefix(fields.get(i).getKey()));
         }
     }
 
     protected void analyze(Reader input, Properties metadata, String field) {
-        long charCount = 0;
-        long wordCharCount = 0;
-        long wordCount = 0;
-        long sentenceCount = 0;
-        long sentenceCharCount = 0;
-        long paragraphCount = 0;
-
-        //TODO make this more efficient, by doing all this in one pass.
-        LineIterator it = IOUtils.lineIterator(input);
-        while (it.hasNext()) {
-            String line = it.nextLine().trim();
-            if (StringUtils.isBlank(line)) {
-                continue;
-            }
-
-            // Paragraph
-            paragraphCount++;
-
-            // Character
-            charCount += line.length();
+        try {
+            new TextStatistics().read(input).addTo(
+                    metadata, fieldPrefix(field));
+        } catch (IOException e) {
+            throw new ImporterRuntimeException(
+                    "Could not compute text statistics.", e);
+        }
+    }
 
-            // Word
-            Matcher matcher = PATTERN_WORD.matcher(line);
-            while (matcher.find()) {
-                int wordLength = matcher.end() - matcher.start();
-                wordCount++;
-                wordCharCount += wordLength;
+    // Field values are analyzed as paragraphs of the same text.
+    private TextStatistics analyze(List<String> values) {
+        TextStatistics stats = new TextStatistics();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                stats.append("\n\n");
             }
-
-            // Sentence
-            BreakIterator boundary = BreakIterator.getSentenceInstance();
-            boundary.setText(line);
-            int start = boundary.first();
-            for (int end = boundary.next(); end != BreakIterator.DONE;
-                    start = end, end = boundary.next()) {
-                sentenceCharCount += (end - start);
-                sentenceCount++;
+            String value = values.get(i);
+            if (value != null) {
+                stats.append(value);
             }
         }
+        stats.end();
+        return stats;
+    }
 
-        //--- Add fields ---
+    private String fieldPrefix(String field) {
         String prefix = "document.stat.";
         if (StringUtils.isNotBlank(field)) {
             prefix += field.trim() + ".";
         }
-        metadata.add(prefix + "characterCount", charCount);
-        metadata.add(prefix + "wordCount", wordCount);
-        metadata.add(prefix + "sentenceCount", sentenceCount);
-        metadata.add(prefix + "paragraphCount", paragraphCount);
-        metadata.add(prefix + "averageWordCharacterCount",
-                divide(wordCharCount, wordCount));
-        metadata.add(prefix + "averageSentenceCharacterCount",
-                divide(sentenceCharCount, sentenceCount));
-        metadata.add(prefix + "averageSentenceWordCount",
-                divide(wordCount, sentenceCount));
-        metadata.add(prefix + "averageParagraphCharacterCount",
-                divide(charCount, paragraphCount));
-        metadata.add(prefix + "averageParagraphSentenceCount",
-                divide(sentenceCount, paragraphCount));
-        metadata.add(prefix + "averageParagraphWordCount",
-                divide(wordCount, paragraphCount));
-
-    }
-
-    private String divide(long value, long divisor) {
-        return BigDecimal.valueOf(value).divide(
-                BigDecimal.valueOf(divisor), 1,
-                        BigDecimal.ROUND_HALF_UP).toString();
+        return prefix;
     }
 
     /**
@@ -261,14 +240,37 @@ public class TextStatisticsTagger extends AbstractCharStreamTagger
     }
 
 
+    /**
+     * Gets whether statistics of multiple matching fields are computed
+     * concurrently.
+     * @return <code>true</code> if computed concurrently
+     * @since 3.0.0
+     */
+    public boolean isConcurrentFields() {
+        return concurrentFields;
+    }
+    /**
+     * Sets whether statistics of multiple matching fields are computed
+     * concurrently, using the JVM common fork/join pool. Has no effect
+     * when analyzing the document content.
+     * @param concurrentFields <code>true</code> to compute concurrently
+     * @since 3.0.0
+     */
+    public void setConcurrentFields(boolean concurrentFields) {
+        this.concurrentFields = concurrentFields;
+    }
+
     @Override
     protected void loadCharStreamTaggerFromXML(XML xml) {
         xml.checkDeprecated("@fieldName", "fieldMatcher", true);
+        setConcurrentFields(
+                xml.getBoolean("@concurrentFields", concurrentFields));
         fieldMatcher.loadFromXML(xml.getXML("fieldMatcher"));
     }
 
     @Override
     protected void saveCharStreamTaggerToXML(XML xml) {
+        xml.setAttribute("concurrentFields", concurrentFields);
         fieldMatcher.saveToXML(xml.addElement("fieldMatcher"));
     }
 
@@ -332,14 +332,20 @@ public class TitleGeneratorTagger
         if (index.sentences.isEmpty()) {
             return StringUtils.EMPTY;
         }
+        // compile term patterns once, not once per sentence
+        List<Pattern> termPatterns = new ArrayList<>(index.terms.size());
+        for (TermOccurence to : index.terms) {
+            termPatterns.add(Pattern.compile(
+                    "\\b" + Pattern.quote(to.term) + "\\b"));
+        }
         long topScore = 0;
         String topSentence = index.sentences.get(0);
         for (String  sentence : index.sentences) {
             long score = 0;
             long densityFactor = 500 - sentence.length();
-            for (TermOccurence to : index.terms) {
-                Matcher m = Pattern.compile(
-                        "\\b\\Q" + to.term + "\\E\\b").matcher(sentence);
+            for (int i = 0; i < index.terms.size(); i++) {
+                TermOccurence to = index.terms.get(i);
+                Matcher m = termPatterns.get(i).matcher(sentence);
                 int count = 0;
                 while (m.find()) {
                     count++;
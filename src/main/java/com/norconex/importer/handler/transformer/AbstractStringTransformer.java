@@ -17,7 +17,9 @@ package com.norconex.importer.handler.transformer;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
+import java.util.List;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
@@ -27,8 +29,11 @@ import com.norconex.commons.lang.io.TextReader;
 import com.norconex.commons.lang.xml.IXMLConfigurable;
 import com.norconex.commons.lang.xml.XML;
 import com.norconex.importer.handler.HandlerDoc;
+import com.norconex.importer.handler.IStringSectionHandler;
 import com.norconex.importer.handler.ImporterHandlerException;
 import com.norconex.importer.parser.ParseState;
+import com.norconex.importer.util.TextStreamReader;
+import com.norconex.importer.util.TextStreamScanner;
 
 /**
  * <p>Base class to facilitate creating transformers on text content, loading
@@ -55,8 +60,25 @@ import com.norconex.importer.parser.ParseState;
  * builder.
  * </p>
  *
+ * <h3>Streaming</h3>
+ * <p>
+ * <b>Since 3.0.0</b>, implementations supporting it can be set to stream
+ * content instead (see {@link #setStreaming(boolean)}). Content is then
+ * scanned through a window of "maxReadSize" characters that slides
+ * over the text, so that matches spanning what would otherwise be two
+ * sections are properly transformed, with constant memory no matter how
+ * large the document is. A single match is limited to "maxMatchSize"
+ * characters (default is
+ * {@value com.norconex.importer.util.TextStreamScanner#DEFAULT_MAX_MATCH_SIZE}).
+ * Implementations not supporting streaming ignore this flag.
+ * Streaming transformers are never fused with other handlers
+ * (see {@link com.norconex.importer.ImporterConfig#isFuseStringHandlers()}).
+ * </p>
+ *
  * {@nx.xml.usage #attributes
  *   maxReadSize="(max characters to read at once)"
+ *   streaming="[false|true]"
+ *   maxMatchSize="(max characters a match can span when streaming)"
  *   {@nx.include com.norconex.importer.handler.transformer.AbstractCharStreamTransformer#attributes}
  * }
  *
@@ -72,6 +94,8 @@ import com.norconex.importer.parser.ParseState;
  * <pre>
  *  &lt;!-- parent tag has these attribute:
  *      maxReadSize="(max characters to read at once)"
+ *      streaming="[false|true]"
+ *      maxMatchSize="(max characters a match can span when streaming)"
  *      sourceCharset="(character encoding)"
  *    --&gt;
  *  &lt;restrictTo caseSensitive="[false|true]"
@@ -84,9 +108,12 @@ import com.norconex.importer.parser.ParseState;
  */
 @SuppressWarnings("javadoc")
 public abstract class AbstractStringTransformer
-            extends AbstractCharStreamTransformer {
+            extends AbstractCharStreamTransformer
+            implements IStringSectionHandler {
 
     private int maxReadSize = TextReader.DEFAULT_MAX_READ_SIZE;
+    private boolean streaming;
+    private int maxMatchSize = TextStreamScanner.DEFAULT_MAX_MATCH_SIZE;
 
     @Override
     protected final void transformTextDocument(
@@ -94,6 +121,15 @@ public abstract class AbstractStringTransformer
             final Writer output, final ParseState parseState)
                     throws ImporterHandlerException {
 
+        if (streaming) {
+            List<TextStreamReader.Step> steps =
+                    createStreamingSteps(doc, parseState);
+            if (steps != null) {
+                streamTextDocument(input, output, steps);
+                return;
+            }
+        }
+
         int sectionIndex = 0;
         StringBuilder b = new StringBuilder();
         String text = null;
@@ -120,6 +156,38 @@ public abstract class AbstractStringTransformer
         b = null;
     }
 
+    private void streamTextDocument(Reader input, Writer output,
+            List<TextStreamReader.Step> steps)
+                    throws ImporterHandlerException {
+        Reader reader = input;
+        for (TextStreamReader.Step step : steps) {
+            reader = new TextStreamReader(new TextStreamScanner(
+                    reader, maxReadSize, maxMatchSize), step);
+        }
+        try {
+            IOUtils.copy(reader, output);
+        } catch (IOException e) {
+            throw new ImporterHandlerException(
+                    "Cannot stream text document.", e);
+        }
+    }
+
+    /**
+     * Creates the steps making up the streaming version of this
+     * transformer, one per transformation to be applied in sequence.
+     * Invoked once per document when streaming is enabled.
+     * Default implementation returns <code>null</code>, meaning streaming
+     * is not supported and content is transformed one section at a time.
+     * @param doc the document
+     * @param parseState whether the document has been parsed already or not
+     * @return streaming steps or <code>null</code>
+     * @since 3.0.0
+     */
+    protected List<TextStreamReader.Step> createStreamingSteps(
+            HandlerDoc doc, ParseState parseState) {
+        return null;
+    }
+
     /**
      * Gets the maximum number of characters to read and transform
      * at once. Default is {@link TextReader#DEFAULT_MAX_READ_SIZE}.
@@ -137,6 +205,67 @@ public abstract class AbstractStringTransformer
         this.maxReadSize = maxReadSize;
     }
 
+    /**
+     * Gets whether to stream content instead of transforming it one
+     * section at a time, when supported by the implementation.
+     * Default is <code>false</code>.
+     * @return <code>true</code> if streaming
+     * @since 3.0.0
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
+    /**
+     * Sets whether to stream content instead of transforming it one
+     * section at a time, when supported by the implementation.
+     * @param streaming <code>true</code> to stream
+     * @since 3.0.0
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    /**
+     * Gets the maximum number of characters a single match can span
+     * when streaming.
+     * Default is {@link TextStreamScanner#DEFAULT_MAX_MATCH_SIZE}.
+     * @return maximum match size
+     * @since 3.0.0
+     */
+    public int getMaxMatchSize() {
+        return maxMatchSize;
+    }
+    /**
+     * Sets the maximum number of characters a single match can span
+     * when streaming.
+     * @param maxMatchSize maximum match size
+     * @since 3.0.0
+     */
+    public void setMaxMatchSize(int maxMatchSize) {
+        this.maxMatchSize = maxMatchSize;
+    }
+
+    @Override
+    public boolean isSectionFusable() {
+        return !streaming;
+    }
+    @Override
+    public final boolean isSectionHandlingApplicable(
+            HandlerDoc doc, ParseState parseState) {
+        return isApplicable(doc, parseState);
+    }
+    @Override
+    public final boolean isSectionHandlingRestricted() {
+        return !getRestrictions().isEmpty();
+    }
+    @Override
+    public final boolean handleStringSection(HandlerDoc doc,
+            StringBuilder content, ParseState parseState, int sectionIndex)
+                    throws ImporterHandlerException {
+        transformStringContent(doc, content, parseState, sectionIndex);
+        return true;
+    }
+
     protected abstract void transformStringContent(
             HandlerDoc doc, StringBuilder content,
             ParseState parseState, int sectionIndex)
@@ -145,6 +274,8 @@ public abstract class AbstractStringTransformer
     @Override
     protected final void saveCharStreamTransformerToXML(final XML xml) {
         xml.setAttribute("maxReadSize", maxReadSize);
+        xml.setAttribute("streaming", streaming);
+        xml.setAttribute("maxMatchSize", maxMatchSize);
         saveStringTransformerToXML(xml);
     }
     /**
@@ -159,6 +290,8 @@ public abstract class AbstractStringTransformer
     @Override
     protected final void loadCharStreamTransformerFromXML(final XML xml) {
         setMaxReadSize(xml.getInteger("@maxReadSize", maxReadSize));
+        setStreaming(xml.getBoolean("@streaming", streaming));
+        setMaxMatchSize(xml.getInteger("@maxMatchSize", maxMatchSize));
         loadStringTransformerFromXML(xml);
     }
     /**
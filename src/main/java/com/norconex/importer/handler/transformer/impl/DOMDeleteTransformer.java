@@ -27,7 +27,6 @@ import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
@@ -37,6 +36,7 @@ import com.norconex.commons.lang.xml.XML;
 import com.norconex.importer.doc.DocMetadata;
 import com.norconex.importer.handler.CommonRestrictions;
 import com.norconex.importer.handler.HandlerDoc;
+import com.norconex.importer.handler.IDOMHandler;
 import com.norconex.importer.handler.ImporterHandlerException;
 import com.norconex.importer.handler.tagger.impl.DOMTagger;
 import com.norconex.importer.handler.transformer.AbstractDocumentTransformer;
@@ -125,7 +125,8 @@ import com.norconex.importer.util.DOMUtil;
  * @see DOMTagger
  */
 @SuppressWarnings("javadoc")
-public class DOMDeleteTransformer extends AbstractDocumentTransformer {
+public class DOMDeleteTransformer extends AbstractDocumentTransformer
+        implements IDOMHandler {
 
     private List<String> selectors = new ArrayList<>();
     private String sourceCharset = null;
@@ -177,25 +178,32 @@ public class DOMDeleteTransformer extends AbstractDocumentTransformer {
         try {
             String inputCharset = detectCharsetIfBlank(
                     doc, document, sourceCharset, parseState);
-            IOUtils.write(handle(Jsoup.parse(document, inputCharset,
-                    doc.getReference(), DOMUtil.toJSoupParser(getParser()))),
-                    output, inputCharset);
+            Document jsoupDoc =
+                    doc.getDOM(document, inputCharset, getParser());
+            // Unless shared, write the DOM right away. Unmodified content
+            // is left as is.
+            if (handle(jsoupDoc) && !doc.setDOMModified(jsoupDoc)) {
+                IOUtils.write(jsoupDoc.toString(), output, inputCharset);
+            }
         } catch (IOException e) {
             throw new ImporterHandlerException(
                     "Cannot process DOM element(s) from DOM-tree.", e);
         }
     }
 
-    private String handle(Document jsoupDoc) {
+    // Returns whether the DOM was modified
+    private boolean handle(Document jsoupDoc) {
+        boolean modified = false;
         for (String selector : selectors) {
             Elements elms = jsoupDoc.select(StringUtils.trim(selector));
             if (!elms.isEmpty()) {
                 for (Element elm : elms) {
                     elm.remove();
                 }
+                modified = true;
             }
         }
-        return jsoupDoc.toString();
+        return modified;
     }
 
     public List<String> getSelectors() {
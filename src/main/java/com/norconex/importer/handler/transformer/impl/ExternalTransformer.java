@@ -29,6 +29,7 @@ import com.norconex.commons.lang.map.PropertySetter;
 import com.norconex.commons.lang.text.RegexFieldValueExtractor;
 import com.norconex.commons.lang.xml.XML;
 import com.norconex.importer.handler.ExternalHandler;
+import com.norconex.importer.handler.ExternalWorkerConfig;
 import com.norconex.importer.handler.HandlerDoc;
 import com.norconex.importer.handler.ImporterHandlerException;
 import com.norconex.importer.handler.transformer.AbstractDocumentTransformer;
@@ -80,6 +81,15 @@ import com.norconex.importer.parser.impl.ExternalParser;
  *      for transformation.)
  *   </tempDir>
  *
+ *   <workers
+ *       enabled="[false|true]"
+ *       poolSize="(maximum number of worker processes)"
+ *       timeout="(milliseconds a worker can take per document)"
+ *       maxDocumentsPerWorker="(documents handled before a worker
+ *           is replaced)"
+ *       healthCheckInterval="(milliseconds a worker can be idle
+ *           before being checked)"/>
+ *
  * </handler>
  * }
  *
@@ -103,7 +113,8 @@ import com.norconex.importer.parser.impl.ExternalParser;
  * @since 2.7.0
  */
 @SuppressWarnings("javadoc")
-public class ExternalTransformer extends AbstractDocumentTransformer {
+public class ExternalTransformer extends AbstractDocumentTransformer
+        implements AutoCloseable {
 
     private final ExternalHandler h = new ExternalHandler();
 
@@ -289,6 +300,33 @@ public class ExternalTransformer extends AbstractDocumentTransformer {
         h.setTempDir(tempDir);
     }
 
+    /**
+     * Gets the long-lived worker processes configuration (never
+     * <code>null</code>). See {@link ExternalHandler}.
+     * @return worker configuration
+     * @since 3.0.0
+     */
+    public ExternalWorkerConfig getWorkerConfig() {
+        return h.getWorkerConfig();
+    }
+    /**
+     * Stops long-lived worker processes, if any were started.
+     * @since 3.0.0
+     */
+    public void closeWorkers() {
+        h.closeWorkers();
+    }
+    /**
+     * Same as {@link #closeWorkers()}.
+     * Invoked when the {@link com.norconex.importer.Importer} using this
+     * handler is closed.
+     * @since 3.0.0
+     */
+    @Override
+    public void close() {
+        closeWorkers();
+    }
+
     @Override
     protected void transformApplicableDocument(
             HandlerDoc doc, final InputStream input, final OutputStream output,
@@ -14,9 +14,11 @@
  */
 package com.norconex.importer.handler.transformer.impl;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
@@ -29,6 +31,9 @@ import com.norconex.commons.lang.xml.XML;
 import com.norconex.importer.handler.HandlerDoc;
 import com.norconex.importer.handler.transformer.AbstractStringTransformer;
 import com.norconex.importer.parser.ParseState;
+import com.norconex.importer.util.PatternCache;
+import com.norconex.importer.util.TextStreamReader;
+import com.norconex.importer.util.TextStreamScanner;
 
 /**
  * <p>Reduces specified consecutive characters or strings to only one
@@ -75,6 +80,11 @@ import com.norconex.importer.parser.ParseState;
  * <p>
  * The above example reduces multiple spaces into a single one.
  * </p>
+ * <p>
+ * <b>Since 3.0.0</b>, this transformer supports streaming
+ * (see {@link AbstractStringTransformer}), in which case consecutive
+ * instances spanning two sections are reduced as well.
+ * </p>
  *
  * @author Pascal Essiembre
  * @since 1.2.0
@@ -91,19 +101,72 @@ public class ReduceConsecutivesTransformer extends AbstractStringTransformer {
             final StringBuilder content, final ParseState parseState,
             final int sectionIndex) {
 
-        String text = content.toString();
-        content.setLength(0);
-        Pattern pattern;
         for (String reduction : reductions) {
-            String regex = "(" + escapeRegex(reduction) + ")+";
-            if (ignoreCase) {
-                pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+            if (reduction != null && !reduction.isEmpty()) {
+                reduce(content, reduction);
+            }
+        }
+    }
+
+    // Reduces consecutive instances in place, without regular expressions.
+    // Like the regular expression used when streaming, the last instance
+    // of a run is kept (only matters when ignoring case), and case
+    // is ignored for ASCII characters only.
+    private void reduce(StringBuilder b, String reduction) {
+        int len = reduction.length();
+        int n = b.length();
+        int w = 0;
+        int i = 0;
+        while (i < n) {
+            if (i + len <= n && regionMatches(b, i, reduction)) {
+                int last = i;
+                i += len;
+                while (i + len <= n && regionMatches(b, i, reduction)) {
+                    last = i;
+                    i += len;
+                }
+                for (int j = 0; j < len; j++) {
+                    b.setCharAt(w++, b.charAt(last + j));
+                }
             } else {
-                pattern = Pattern.compile(regex);
+                b.setCharAt(w++, b.charAt(i++));
+            }
+        }
+        b.setLength(w);
+    }
+    private boolean regionMatches(StringBuilder b, int offset, String str) {
+        for (int j = 0; j < str.length(); j++) {
+            char c1 = b.charAt(offset + j);
+            char c2 = str.charAt(j);
+            if (c1 != c2 && (!ignoreCase
+                    || toLowerAscii(c1) != toLowerAscii(c2))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    private static char toLowerAscii(char ch) {
+        if (ch >= 'A' && ch <= 'Z') {
+            return (char) (ch + ('a' - 'A'));
+        }
+        return ch;
+    }
+
+    @Override
+    protected List<TextStreamReader.Step> createStreamingSteps(
+            HandlerDoc doc, ParseState parseState) {
+        List<TextStreamReader.Step> steps = new ArrayList<>();
+        for (String reduction : reductions) {
+            if (reduction != null && !reduction.isEmpty()) {
+                steps.add(new ReduceStep(toPattern(reduction)));
             }
-            text = pattern.matcher(text).replaceAll("$1");
         }
-        content.append(text);
+        return steps;
+    }
+
+    private Pattern toPattern(String reduction) {
+        return PatternCache.get("(" + Pattern.quote(reduction) + ")+",
+                ignoreCase ? Pattern.CASE_INSENSITIVE : 0);
     }
 
     public List<String> getReductions() {
@@ -153,11 +216,6 @@ public class ReduceConsecutivesTransformer extends AbstractStringTransformer {
         this.ignoreCase = ignoreCase;
     }
 
-    private String escapeRegex(final String text) {
-        return text.replaceAll(
-                "([\\\\\\.\\[\\{\\(\\*\\+\\?\\^\\$\\|])", "\\\\$1");
-    }
-
     @Override
     protected void loadStringTransformerFromXML(final XML xml) {
         xml.checkDeprecated("@caseSensitive", "ignoreCase", true);
@@ -167,10 +225,10 @@ public class ReduceConsecutivesTransformer extends AbstractStringTransformer {
         List<XML> nodes = xml.getXMLList("reduce");
         for (XML node : nodes) {
             String text = node.getString(".");
-            text = text.replaceAll("\\\\s", " ");
-            text = text.replaceAll("\\\\t", "\t");
-            text = text.replaceAll("\\\\n", "\n");
-            text = text.replaceAll("\\\\r", "\r");
+            text = text.replace("\\s", " ");
+            text = text.replace("\\t", "\t");
+            text = text.replace("\\n", "\n");
+            text = text.replace("\\r", "\r");
             addReductions(text);
         }
     }
@@ -181,10 +239,10 @@ public class ReduceConsecutivesTransformer extends AbstractStringTransformer {
         for (String reduction : reductions) {
             if (reduction != null) {
                 String text = reduction;
-                text = text.replaceAll(" ", "\\\\s");
-                text = text.replaceAll("\t", "\\\\t");
-                text = text.replaceAll("\n", "\\\\n");
-                text = text.replaceAll("\r", "\\\\r");
+                text = text.replace(" ", "\\s");
+                text = text.replace("\t", "\\t");
+                text = text.replace("\n", "\\n");
+                text = text.replace("\r", "\\r");
                 xml.addElement("reduce", text);
             }
         }
@@ -203,4 +261,30 @@ public class ReduceConsecutivesTransformer extends AbstractStringTransformer {
         return new ReflectionToStringBuilder(
                 this, ToStringStyle.SHORT_PREFIX_STYLE).toString();
     }
+
+    // Reduces consecutive occurrences as text is streamed.
+    private static class ReduceStep implements TextStreamReader.Step {
+        private final Pattern pattern;
+        private boolean lastWasMatch;
+        private ReduceStep(Pattern pattern) {
+            this.pattern = pattern;
+        }
+        @Override
+        public void advance(TextStreamScanner scanner, StringBuilder out)
+                throws IOException {
+            int length = out.length();
+            Matcher m = scanner.next(pattern, out);
+            boolean skipped = out.length() > length;
+            if (m != null) {
+                // a run longer than the maximum match size is returned
+                // in more than one match: keep only the first one
+                if (!lastWasMatch || skipped) {
+                    out.append(m.group(1));
+                }
+                lastWasMatch = true;
+            } else if (skipped) {
+                lastWasMatch = false;
+            }
+        }
+    }
 }
@@ -14,9 +14,15 @@
  */
 package com.norconex.importer.handler.transformer.impl;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
@@ -24,11 +30,15 @@ import org.apache.commons.lang3.builder.ToStringStyle;
 
 import com.norconex.commons.lang.collection.CollectionUtil;
 import com.norconex.commons.lang.text.TextMatcher;
+import com.norconex.commons.lang.text.TextMatcher.Method;
 import com.norconex.commons.lang.xml.IXMLConfigurable;
 import com.norconex.commons.lang.xml.XML;
 import com.norconex.importer.handler.HandlerDoc;
 import com.norconex.importer.handler.transformer.AbstractStringTransformer;
 import com.norconex.importer.parser.ParseState;
+import com.norconex.importer.util.MultiLiteralReplacer;
+import com.norconex.importer.util.TextStreamReader;
+import com.norconex.importer.util.TextStreamScanner;
 
 /**
  * <p>Replaces every occurrences of the given replacements
@@ -65,6 +75,24 @@ import com.norconex.importer.parser.ParseState;
  * <p>
  * The above example reduces all occurrences of "junk food" with "healthy food".
  * </p>
+ * <p>
+ * <b>Since 3.0.0</b>, when there are
+ * {@value MultiLiteralReplacer#MIN_GROUP_SIZE} or more replacements,
+ * consecutive ones with literal values (non-regular expressions) are all
+ * replaced in a single pass over the text
+ * (see {@link MultiLiteralReplacer}). Replacements are compiled for this
+ * the first time they are used. Replacements modified afterwards
+ * are not guaranteed to be taken into account.
+ * </p>
+ * <p>
+ * <b>Since 3.0.0</b>, this transformer supports streaming
+ * (see {@link AbstractStringTransformer}). When streaming, a value
+ * spanning two sections is replaced like any other, and a
+ * replacement without <code>replaceAll="true"</code> only affects the
+ * first occurrence in the entire document instead of the first occurrence
+ * of each section. Streaming is ignored when a replacement value matcher is
+ * not partial.
+ * </p>
  *
  * @author Pascal Essiembre
  * @since 1.2.0
@@ -74,6 +102,7 @@ public class ReplaceTransformer extends AbstractStringTransformer
         implements IXMLConfigurable {
 
     private List<Replacement> replacements = new ArrayList<>();
+    private transient volatile CompiledReplacements compiled;
 
     @Override
     protected void transformStringContent(HandlerDoc doc,
@@ -82,12 +111,71 @@ public class ReplaceTransformer extends AbstractStringTransformer
 
         String text = content.toString();
         content.setLength(0);
-        for (Replacement repl : replacements) {
-            text = repl.valueMatcher.replace(text, repl.toValue);
+        MultiLiteralReplacer multi = compile().multiReplacer;
+        if (multi != null) {
+            text = multi.replace(text);
+        } else {
+            for (Replacement repl : replacements) {
+                text = repl.valueMatcher.replace(text, repl.toValue);
+            }
         }
         content.append(text);
     }
 
+    private CompiledReplacements compile() {
+        Replacement[] current = replacements.toArray(new Replacement[] {});
+        CompiledReplacements c = compiled;
+        if (c == null || !c.isFor(current)) {
+            c = new CompiledReplacements(current);
+            compiled = c;
+        }
+        return c;
+    }
+
+    // Holds a multi-literal replacer when it can speed up replacements.
+    private static class CompiledReplacements {
+        private final Replacement[] replacements;
+        private final MultiLiteralReplacer multiReplacer;
+        private CompiledReplacements(Replacement[] replacements) {
+            this.replacements = replacements;
+            MultiLiteralReplacer multi = null;
+            if (replacements.length >= MultiLiteralReplacer.MIN_GROUP_SIZE) {
+                multi = MultiLiteralReplacer.create(
+                        Arrays.stream(replacements).map(r -> r.valueMatcher)
+                                .collect(Collectors.toList()),
+                        Arrays.stream(replacements).map(r -> r.toValue)
+                                .collect(Collectors.toList()));
+            }
+            this.multiReplacer = multi != null && multi.hasGroups()
+                    ? multi : null;
+        }
+        private boolean isFor(Replacement[] current) {
+            if (current.length != replacements.length) {
+                return false;
+            }
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] != replacements[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    @Override
+    protected List<TextStreamReader.Step> createStreamingSteps(
+            HandlerDoc doc, ParseState parseState) {
+        List<TextStreamReader.Step> steps = new ArrayList<>();
+        for (Replacement repl : replacements) {
+            // Whole value matches only make sense per section
+            if (!repl.valueMatcher.isPartial()) {
+                return null;
+            }
+            steps.add(new ReplaceStep(repl));
+        }
+        return steps;
+    }
+
     public List<Replacement> getReplacements() {
         return replacements;
     }
@@ -152,6 +240,38 @@ public class ReplaceTransformer extends AbstractStringTransformer
                 this, ToStringStyle.SHORT_PREFIX_STYLE).toString();
     }
 
+    // Replaces matches of a single replacement as text is streamed.
+    private static class ReplaceStep implements TextStreamReader.Step {
+        private final Pattern pattern;
+        private final String toValue;
+        private final boolean regex;
+        private final boolean replaceAll;
+        private boolean replaced;
+        private ReplaceStep(Replacement repl) {
+            this.pattern = repl.valueMatcher.toRegexMatcher("").pattern();
+            this.toValue = StringUtils.defaultString(repl.toValue);
+            this.regex = Method.REGEX == repl.valueMatcher.getMethod();
+            this.replaceAll = repl.valueMatcher.isReplaceAll();
+        }
+        @Override
+        public void advance(TextStreamScanner scanner, StringBuilder out)
+                throws IOException {
+            if (replaced && !replaceAll) {
+                scanner.next(null, out);
+                return;
+            }
+            Matcher m = scanner.next(pattern, out);
+            if (m != null) {
+                if (regex) {
+                    TextStreamScanner.appendReplacement(m, toValue, out);
+                } else {
+                    out.append(toValue);
+                }
+                replaced = true;
+            }
+        }
+    }
+
     /**
      * @since 3.0.0
      */
@@ -14,9 +14,16 @@
  */
 package com.norconex.importer.handler.transformer.impl;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.EqualsBuilder;
@@ -25,12 +32,17 @@ import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 import org.apache.commons.lang3.tuple.Pair;
 
+import com.norconex.commons.lang.io.CachedInputStream;
+import com.norconex.commons.lang.io.CachedOutputStream;
+import com.norconex.commons.lang.io.CachedStreamFactory;
 import com.norconex.commons.lang.text.TextMatcher;
 import com.norconex.commons.lang.xml.IXMLConfigurable;
 import com.norconex.commons.lang.xml.XML;
 import com.norconex.importer.handler.HandlerDoc;
 import com.norconex.importer.handler.transformer.AbstractStringTransformer;
 import com.norconex.importer.parser.ParseState;
+import com.norconex.importer.util.TextStreamReader;
+import com.norconex.importer.util.TextStreamScanner;
 
 /**
  * <p>Strips any content found between a matching start and end strings.  The
@@ -73,6 +85,14 @@ import com.norconex.importer.parser.ParseState;
  * <code>&lt;!-- SIDENAV_START --&gt;</code> and
  * <code>&lt;!-- SIDENAV_END --&gt;</code>.
  * </p>
+ * <p>
+ * <b>Since 3.0.0</b>, this transformer supports streaming
+ * (see {@link AbstractStringTransformer}). When streaming, start and end
+ * matches can be found in different sections and the text between them
+ * can be of any length. Until an end match is found, that text is
+ * cached (in memory or on disk, as configured on the Importer), so it
+ * can be kept as is if the document ends without an end match.
+ * </p>
  *
  * @author Pascal Essiembre
  */
@@ -105,6 +125,16 @@ public class StripBetweenTransformer extends AbstractStringTransformer
         }
     }
 
+    @Override
+    protected List<TextStreamReader.Step> createStreamingSteps(
+            HandlerDoc doc, ParseState parseState) {
+        List<TextStreamReader.Step> steps = new ArrayList<>();
+        for (StripBetweenDetails between : betweens) {
+            steps.add(new StripBetweenStep(between, doc.getStreamFactory()));
+        }
+        return steps;
+    }
+
     /**
      * Adds strip between instructions.
      * @param details "strip between" details
@@ -229,6 +259,75 @@ public class StripBetweenTransformer extends AbstractStringTransformer
                 this, ToStringStyle.SHORT_PREFIX_STYLE).toString();
     }
 
+    // Strips text between start and end matches as text is streamed.
+    private static class StripBetweenStep implements TextStreamReader.Step {
+        private final Pattern startPattern;
+        private final Pattern endPattern;
+        private final boolean inclusive;
+        private final CachedStreamFactory streamFactory;
+        private final char[] chunk = new char[8192];
+        private String startText;
+        private CachedOutputStream pendingOut;
+        private Writer pending;
+        private CachedInputStream replayIn;
+        private Reader replay;
+        private StripBetweenStep(StripBetweenDetails between,
+                CachedStreamFactory streamFactory) {
+            this.startPattern =
+                    between.startMatcher.toRegexMatcher("").pattern();
+            this.endPattern = between.endMatcher.toRegexMatcher("").pattern();
+            this.inclusive = between.inclusive;
+            this.streamFactory = streamFactory;
+        }
+        @Override
+        public void advance(TextStreamScanner scanner, StringBuilder out)
+                throws IOException {
+            if (replay != null) {
+                int num = replay.read(chunk);
+                if (num == -1) {
+                    replay.close();
+                    replayIn.dispose();
+                    replay = null;
+                } else {
+                    out.append(chunk, 0, num);
+                }
+                return;
+            }
+            if (startText == null) {
+                Matcher m = scanner.next(startPattern, out);
+                if (m != null) {
+                    startText = m.group();
+                    if (!inclusive) {
+                        out.append(startText);
+                    }
+                    pendingOut = streamFactory.newOuputStream();
+                    pending = new OutputStreamWriter(
+                            pendingOut, StandardCharsets.UTF_8);
+                }
+                return;
+            }
+            Matcher m = scanner.next(endPattern, pending);
+            if (m != null) {
+                pending.flush();
+                pendingOut.getInputStream().dispose();
+                if (!inclusive) {
+                    out.append(m.group());
+                }
+                startText = null;
+            } else if (scanner.isFinished()) {
+                // no end match: keep the text as is
+                if (inclusive) {
+                    out.append(startText);
+                }
+                startText = null;
+                pending.flush();
+                replayIn = pendingOut.getInputStream();
+                replay = new InputStreamReader(
+                        replayIn, StandardCharsets.UTF_8);
+            }
+        }
+    }
+
     /**
      * @since 3.0.0
      */
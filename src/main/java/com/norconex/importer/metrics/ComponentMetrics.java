@@ -0,0 +1,227 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * <p>
+ * Metrics gathered for a single importer component (handler or parser).
+ * Recording is lock-free and safe to invoke from multiple threads.
+ * </p>
+ * <p>
+ * Percentiles are computed from a histogram of logarithmic buckets, each
+ * power of two being divided in four. Reported percentile values are
+ * thus approximations (within 25%) of the actual ones.
+ * </p>
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+public class ComponentMetrics implements ComponentMetricsMXBean {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 64 << SUB_BUCKET_BITS;
+    private static final double NANOS_PER_MILLI =
+            TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final String name;
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder rejects = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Creates metrics for the named component.
+     * @param name component name
+     */
+    public ComponentMetrics(String name) {
+        super();
+        this.name = name;
+    }
+
+    /**
+     * Records a successful invocation.
+     * @param nanos time spent, in nanoseconds
+     * @param bytesIn bytes received by the component or -1 if unknown
+     * @param bytesOut bytes produced by the component or -1 if unknown
+     * @param rejected whether the component rejected the document
+     */
+    public void record(
+            long nanos, long bytesIn, long bytesOut, boolean rejected) {
+        recordTime(nanos);
+        if (bytesIn > 0) {
+            this.bytesIn.add(bytesIn);
+        }
+        if (bytesOut > 0) {
+            this.bytesOut.add(bytesOut);
+        }
+        if (rejected) {
+            rejects.increment();
+        }
+    }
+    /**
+     * Records an invocation that ended with an error.
+     * @param nanos time spent, in nanoseconds
+     */
+    public void recordError(long nanos) {
+        recordTime(nanos);
+        errors.increment();
+    }
+    private void recordTime(long nanos) {
+        long safeNanos = Math.max(0, nanos);
+        invocations.increment();
+        totalNanos.add(safeNanos);
+        histogram.incrementAndGet(bucketIndex(safeNanos));
+        maxNanos.accumulateAndGet(safeNanos, Math::max);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+    @Override
+    public long getInvocations() {
+        return invocations.sum();
+    }
+    @Override
+    public long getRejects() {
+        return rejects.sum();
+    }
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+    @Override
+    public double getTotalTime() {
+        return totalNanos.sum() / NANOS_PER_MILLI;
+    }
+    @Override
+    public double getMeanTime() {
+        long count = invocations.sum();
+        if (count == 0) {
+            return 0;
+        }
+        return totalNanos.sum() / NANOS_PER_MILLI / count;
+    }
+    @Override
+    public double getMaxTime() {
+        return maxNanos.get() / NANOS_PER_MILLI;
+    }
+    @Override
+    public double get50thPercentileTime() {
+        return getPercentileTime(0.50);
+    }
+    @Override
+    public double get95thPercentileTime() {
+        return getPercentileTime(0.95);
+    }
+    @Override
+    public double get99thPercentileTime() {
+        return getPercentileTime(0.99);
+    }
+    /**
+     * Gets the approximate invocation time under which the given
+     * fraction of invocations fall.
+     * @param percentile a value between 0 and 1
+     * @return percentile time in milliseconds
+     */
+    public double getPercentileTime(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = histogram.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), maxNanos.get())
+                        / NANOS_PER_MILLI;
+            }
+        }
+        return getMaxTime();
+    }
+    @Override
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+    @Override
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    @Override
+    public void reset() {
+        invocations.reset();
+        rejects.reset();
+        errors.reset();
+        totalNanos.reset();
+        bytesIn.reset();
+        bytesOut.reset();
+        maxNanos.set(0);
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram.set(i, 0);
+        }
+    }
+
+    static int bucketIndex(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(nanos);
+        int shift = msb - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS)
+                + (int) ((nanos >>> shift) & (SUB_BUCKETS - 1));
+    }
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index >> SUB_BUCKET_BITS) - 1;
+        long lower = (long) (SUB_BUCKETS + (index & (SUB_BUCKETS - 1)))
+                << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("name", name)
+                .append("invocations", getInvocations())
+                .append("rejects", getRejects())
+                .append("errors", getErrors())
+                .append("totalTime", getTotalTime())
+                .append("maxTime", getMaxTime())
+                .append("bytesIn", getBytesIn())
+                .append("bytesOut", getBytesOut())
+                .toString();
+    }
+}
@@ -0,0 +1,95 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.metrics;
+
+/**
+ * JMX view of the metrics gathered for a single importer component
+ * (handler or parser).  Times are in milliseconds.
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+public interface ComponentMetricsMXBean {
+
+    /**
+     * Gets the component name, unique within an importer.
+     * @return component name
+     */
+    String getName();
+
+    /**
+     * Gets how many times the component was invoked.
+     * @return invocation count
+     */
+    long getInvocations();
+    /**
+     * Gets how many documents were rejected by the component (filters only).
+     * @return reject count
+     */
+    long getRejects();
+    /**
+     * Gets how many invocations ended with an error.
+     * @return error count
+     */
+    long getErrors();
+
+    /**
+     * Gets the total time spent in the component.
+     * @return total time
+     */
+    double getTotalTime();
+    /**
+     * Gets the average time spent in the component per invocation.
+     * @return mean time
+     */
+    double getMeanTime();
+    /**
+     * Gets the longest time spent in the component for one invocation.
+     * @return maximum time
+     */
+    double getMaxTime();
+    /**
+     * Gets the median invocation time.
+     * @return 50th percentile time
+     */
+    double get50thPercentileTime();
+    /**
+     * Gets the 95th percentile invocation time.
+     * @return 95th percentile time
+     */
+    double get95thPercentileTime();
+    /**
+     * Gets the 99th percentile invocation time.
+     * @return 99th percentile time
+     */
+    double get99thPercentileTime();
+
+    /**
+     * Gets the total number of content bytes received by the component,
+     * when known.
+     * @return bytes in
+     */
+    long getBytesIn();
+    /**
+     * Gets the total number of content bytes the component produced,
+     * when known.
+     * @return bytes out
+     */
+    long getBytesOut();
+
+    /**
+     * Resets all metrics for this component.
+     */
+    void reset();
+}
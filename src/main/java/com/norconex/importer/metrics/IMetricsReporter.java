@@ -0,0 +1,33 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.metrics;
+
+/**
+ * Reports importer metrics, either at regular intervals
+ * (see {@link MetricsConfig#setReportInterval(long)}) or when the importer
+ * is closed.  Implementations can optionally implement
+ * {@link com.norconex.commons.lang.xml.IXMLConfigurable}.
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+@FunctionalInterface
+public interface IMetricsReporter {
+
+    /**
+     * Reports the current state of importer metrics.
+     * @param metrics importer metrics
+     */
+    void report(ImporterMetrics metrics);
+}
@@ -0,0 +1,256 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.norconex.importer.ImporterConfig;
+import com.norconex.importer.handler.IImporterHandler;
+import com.norconex.importer.parser.CachingDocumentParser;
+import com.norconex.importer.parser.IDocumentParser;
+import com.norconex.importer.parser.PooledDocumentParser;
+
+/**
+ * <p>
+ * Registry of metrics for every handler and parser used by an importer.
+ * Handlers are identified by their position in the configuration
+ * (e.g., <code>postParse.3.ReplaceTransformer</code>), while parsers are
+ * identified by their class (e.g., <code>parser.DefaultParser</code>).
+ * </p>
+ * <p>
+ * When JMX is enabled, each component metrics is registered as an MXBean
+ * named <code>com.norconex.importer:type=ImporterMetrics,importer=(id),
+ * name=(component name)</code>.
+ * </p>
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+public class ImporterMetrics {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(ImporterMetrics.class);
+
+    public static final String JMX_DOMAIN = "com.norconex.importer";
+
+    private static final AtomicInteger INSTANCE_COUNT = new AtomicInteger();
+
+    private final String id;
+    // Built once, read-only afterwards, hence thread-safe.
+    private final Map<IImporterHandler, ComponentMetrics> configuredHandlers =
+            new IdentityHashMap<>();
+    private final Map<String, ComponentMetrics> byName =
+            new ConcurrentHashMap<>();
+    private final List<ComponentMetrics> components =
+            new CopyOnWriteArrayList<>();
+    private final List<ObjectName> registeredNames = new ArrayList<>();
+    private boolean jmx;
+
+    /**
+     * Creates metrics for handlers configured in the given importer
+     * configuration.
+     * @param config importer configuration
+     */
+    public ImporterMetrics(ImporterConfig config) {
+        super();
+        this.id = "importer-" + INSTANCE_COUNT.incrementAndGet();
+        addConfiguredHandlers("preParse", config.getPreParseHandlers());
+        addConfiguredHandlers("postParse", config.getPostParseHandlers());
+    }
+    private void addConfiguredHandlers(
+            String prefix, List<IImporterHandler> handlers) {
+        for (int i = 0; i < handlers.size(); i++) {
+            IImporterHandler h = handlers.get(i);
+            configuredHandlers.put(h, component(prefix + "." + i + "."
+                    + h.getClass().getSimpleName()));
+        }
+    }
+
+    /**
+     * Gets this importer metrics identifier, used in JMX object names.
+     * @return identifier
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gets the metrics for the given handler.
+     * @param handler importer handler
+     * @return component metrics
+     */
+    public ComponentMetrics getHandlerMetrics(IImporterHandler handler) {
+        ComponentMetrics m = configuredHandlers.get(handler);
+        if (m == null) {
+            // handler added after the importer was created
+            m = component("handler." + handler.getClass().getSimpleName());
+        }
+        return m;
+    }
+    /**
+     * Gets the metrics for the given parser.
+     * @param parser document parser
+     * @return component metrics
+     */
+    public ComponentMetrics getParserMetrics(IDocumentParser parser) {
+        IDocumentParser p = parser;
+        while (true) {
+            if (p instanceof PooledDocumentParser) {
+                p = ((PooledDocumentParser) p).getPrototype();
+            } else if (p instanceof CachingDocumentParser) {
+                p = ((CachingDocumentParser) p).getParser();
+            } else {
+                break;
+            }
+        }
+        return component("parser." + p.getClass().getSimpleName());
+    }
+
+    /**
+     * Gets the metrics of a component by its name.
+     * @param name component name
+     * @return component metrics or <code>null</code> if no such component
+     */
+    public ComponentMetrics getComponentMetrics(String name) {
+        return byName.get(name);
+    }
+    /**
+     * Gets the metrics of all known components, in the order they
+     * were first encountered.
+     * @return component metrics
+     */
+    public List<ComponentMetrics> getComponentMetrics() {
+        return Collections.unmodifiableList(components);
+    }
+
+    /**
+     * Resets metrics of all components.
+     */
+    public void reset() {
+        components.forEach(ComponentMetrics::reset);
+    }
+
+    /**
+     * Adds metrics of a component created and updated elsewhere
+     * (e.g., shared by all parsers). Ignored if metrics with the same
+     * name already exist.
+     * @param componentMetrics component metrics
+     */
+    public synchronized void addComponentMetrics(
+            ComponentMetrics componentMetrics) {
+        if (byName.containsKey(componentMetrics.getName())) {
+            return;
+        }
+        components.add(componentMetrics);
+        if (jmx) {
+            register(componentMetrics);
+        }
+        byName.put(componentMetrics.getName(), componentMetrics);
+    }
+
+    private ComponentMetrics component(String name) {
+        ComponentMetrics m = byName.get(name);
+        if (m != null) {
+            return m;
+        }
+        synchronized (this) {
+            m = byName.get(name);
+            if (m == null) {
+                m = new ComponentMetrics(name);
+                components.add(m);
+                if (jmx) {
+                    register(m);
+                }
+                byName.put(name, m);
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Registers all component metrics (current and future ones) with the
+     * platform MBean server.
+     */
+    public synchronized void registerJMX() {
+        jmx = true;
+        components.forEach(this::register);
+    }
+    /**
+     * Unregisters all component metrics from the platform MBean server.
+     */
+    public synchronized void unregisterJMX() {
+        jmx = false;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registeredNames) {
+            try {
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+            } catch (JMException e) {
+                LOG.warn("Could not unregister metrics MBean: {}", name, e);
+            }
+        }
+        registeredNames.clear();
+    }
+    /**
+     * Registers an additional MXBean related to this importer (e.g.,
+     * a cache), if JMX is enabled. It will be unregistered along with
+     * component metrics.
+     * @param type JMX type
+     * @param mxBean the MXBean to register
+     */
+    public synchronized void registerMXBean(String type, Object mxBean) {
+        if (!jmx) {
+            return;
+        }
+        try {
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":type="
+                    + ObjectName.quote(type)
+                    + ",importer=" + ObjectName.quote(id));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(
+                    mxBean, name);
+            registeredNames.add(name);
+        } catch (JMException e) {
+            LOG.warn("Could not register MBean of type: {}", type, e);
+        }
+    }
+
+    private void register(ComponentMetrics m) {
+        try {
+            ObjectName name = new ObjectName(JMX_DOMAIN
+                    + ":type=ImporterMetrics,importer=" + ObjectName.quote(id)
+                    + ",name=" + ObjectName.quote(m.getName()));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(m, name);
+            registeredNames.add(name);
+        } catch (JMException e) {
+            LOG.warn("Could not register metrics MBean for: {}",
+                    m.getName(), e);
+        }
+    }
+}
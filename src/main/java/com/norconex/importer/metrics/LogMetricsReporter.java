@@ -0,0 +1,102 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.metrics;
+
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import com.norconex.commons.lang.SLF4JUtil;
+import com.norconex.commons.lang.xml.IXMLConfigurable;
+import com.norconex.commons.lang.xml.XML;
+
+/**
+ * <p>
+ * Logs metrics of every importer component that was invoked at least once,
+ * one line per component.  Times are in milliseconds. Default log level
+ * is INFO.
+ * </p>
+ *
+ * {@nx.xml.usage
+ * <reporter class="com.norconex.importer.metrics.LogMetricsReporter"
+ *     logLevel="[ERROR|WARN|INFO|DEBUG|TRACE]"/>
+ * }
+ *
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+@SuppressWarnings("javadoc")
+public class LogMetricsReporter implements IMetricsReporter, IXMLConfigurable {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(LogMetricsReporter.class);
+
+    private String logLevel;
+
+    @Override
+    public void report(ImporterMetrics metrics) {
+        Level level = Level.valueOf(
+                ObjectUtils.defaultIfNull(logLevel, "info").toUpperCase());
+        for (ComponentMetrics m : metrics.getComponentMetrics()) {
+            if (m.getInvocations() == 0) {
+                continue;
+            }
+            SLF4JUtil.log(LOG, level, String.format(
+                    "%s: invocations=%d rejects=%d errors=%d total=%.1f "
+                  + "mean=%.3f p50=%.3f p95=%.3f p99=%.3f max=%.3f "
+                  + "bytesIn=%d bytesOut=%d",
+                    m.getName(), m.getInvocations(), m.getRejects(),
+                    m.getErrors(), m.getTotalTime(), m.getMeanTime(),
+                    m.get50thPercentileTime(), m.get95thPercentileTime(),
+                    m.get99thPercentileTime(), m.getMaxTime(),
+                    m.getBytesIn(), m.getBytesOut()));
+        }
+    }
+
+    public String getLogLevel() {
+        return logLevel;
+    }
+    public void setLogLevel(String logLevel) {
+        this.logLevel = logLevel;
+    }
+
+    @Override
+    public void loadFromXML(XML xml) {
+        setLogLevel(xml.getString("@logLevel", logLevel));
+    }
+    @Override
+    public void saveToXML(XML xml) {
+        xml.setAttribute("logLevel", logLevel);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        return EqualsBuilder.reflectionEquals(this, other);
+    }
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this);
+    }
+    @Override
+    public String toString() {
+        return new ReflectionToStringBuilder(
+                this, ToStringStyle.SHORT_PREFIX_STYLE).toString();
+    }
+}
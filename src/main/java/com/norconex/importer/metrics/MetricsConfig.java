@@ -0,0 +1,153 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import com.norconex.commons.lang.collection.CollectionUtil;
+import com.norconex.commons.lang.xml.IXMLConfigurable;
+import com.norconex.commons.lang.xml.XML;
+
+/**
+ * <p>
+ * Importer metrics configuration.  When enabled, the importer records
+ * the time spent in each handler and parser, along with invocation,
+ * reject and error counts and content bytes going in and out.
+ * Metrics are exposed through JMX (unless disabled) and handed to
+ * configured reporters at a regular interval and when the importer is
+ * closed. When disabled (the default), no metrics are recorded.
+ * </p>
+ *
+ * {@nx.xml.usage
+ * <metrics enabled="[false|true]" jmx="[true|false]"
+ *     reportInterval="(milliseconds between reports, 0 reports on close only)">
+ *   <!-- multiple "reporter" tags allowed -->
+ *   <reporter class="(IMetricsReporter implementation)"/>
+ * </metrics>
+ * }
+ *
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+@SuppressWarnings("javadoc")
+public class MetricsConfig implements IXMLConfigurable {
+
+    private boolean enabled;
+    private boolean jmx = true;
+    private long reportInterval;
+    private final List<IMetricsReporter> reporters = new ArrayList<>();
+
+    /**
+     * Gets whether metrics are recorded. Default is <code>false</code>.
+     * @return <code>true</code> if enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+    /**
+     * Sets whether metrics are recorded.
+     * @param enabled <code>true</code> if enabled
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Gets whether metrics are registered as JMX MBeans when enabled.
+     * Default is <code>true</code>.
+     * @return <code>true</code> if exposed through JMX
+     */
+    public boolean isJmx() {
+        return jmx;
+    }
+    /**
+     * Sets whether metrics are registered as JMX MBeans when enabled.
+     * @param jmx <code>true</code> if exposed through JMX
+     */
+    public void setJmx(boolean jmx) {
+        this.jmx = jmx;
+    }
+
+    /**
+     * Gets the number of milliseconds between each report.
+     * Default is 0, meaning metrics are only reported when the
+     * importer is closed.
+     * @return report interval
+     */
+    public long getReportInterval() {
+        return reportInterval;
+    }
+    /**
+     * Sets the number of milliseconds between each report.
+     * @param reportInterval report interval
+     */
+    public void setReportInterval(long reportInterval) {
+        this.reportInterval = reportInterval;
+    }
+
+    /**
+     * Gets metrics reporters.
+     * @return reporters (never <code>null</code>)
+     */
+    public List<IMetricsReporter> getReporters() {
+        return Collections.unmodifiableList(reporters);
+    }
+    /**
+     * Sets metrics reporters.
+     * @param reporters metrics reporters
+     */
+    public void setReporters(List<IMetricsReporter> reporters) {
+        CollectionUtil.setAll(this.reporters, reporters);
+    }
+
+    @Override
+    public void loadFromXML(XML xml) {
+        setEnabled(xml.getBoolean("@enabled", enabled));
+        setJmx(xml.getBoolean("@jmx", jmx));
+        setReportInterval(xml.getLong("@reportInterval", reportInterval));
+        setReporters(xml.getObjectListImpl(
+                IMetricsReporter.class, "reporter", reporters));
+    }
+    @Override
+    public void saveToXML(XML xml) {
+        xml.setAttribute("enabled", enabled);
+        xml.setAttribute("jmx", jmx);
+        xml.setAttribute("reportInterval", reportInterval);
+        for (IMetricsReporter reporter : reporters) {
+            xml.addElement("reporter", reporter);
+        }
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        return EqualsBuilder.reflectionEquals(this, other);
+    }
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this);
+    }
+    @Override
+    public String toString() {
+        return new ReflectionToStringBuilder(
+                this, ToStringStyle.SHORT_PREFIX_STYLE).toString();
+    }
+}
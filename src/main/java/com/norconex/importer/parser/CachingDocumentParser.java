@@ -0,0 +1,324 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.norconex.commons.lang.file.ContentType;
+import com.norconex.commons.lang.io.CachedInputStream;
+import com.norconex.commons.lang.map.Properties;
+import com.norconex.importer.digest.ParsedContent;
+import com.norconex.importer.doc.Doc;
+
+/**
+ * <p>
+ * Wraps a parser so its parsing results are obtained from a
+ * {@link ParseResultCache} when the same content was already parsed
+ * by a parser of the same class with the same parse hints.
+ * Otherwise, the document is parsed by the wrapped parser and the
+ * result is cached, along with embedded documents, whether they are
+ * returned or handed over to a consumer.
+ * </p>
+ * <p>
+ * Cache keys are made of a SHA-256 digest of the content, the wrapped
+ * parser class, a hash of the parse hints, and the content type
+ * (see {@link #toKey(String, IDocumentParser, int, ContentType)}).
+ * </p>
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+public class CachingDocumentParser
+        implements IHintsAwareParser, AutoCloseable {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(CachingDocumentParser.class);
+
+    private final IDocumentParser parser;
+    private final ParseResultCache cache;
+    private volatile int parseHintsHash;
+
+    /**
+     * Creates a caching parser.
+     * @param parser the parser to wrap
+     * @param cache the parse result cache
+     * @param parseHints parse hints the wrapped parser was initialized
+     *        with (may be <code>null</code>)
+     */
+    public CachingDocumentParser(IDocumentParser parser,
+            ParseResultCache cache, ParseHints parseHints) {
+        super();
+        this.parser = Objects.requireNonNull(
+                parser, "'parser' must not be null.");
+        this.cache = Objects.requireNonNull(
+                cache, "'cache' must not be null.");
+        this.parseHintsHash = Objects.hashCode(parseHints);
+    }
+
+    /**
+     * Builds the key identifying the result of parsing some content with
+     * a given parser. The key is made of the content digest, the class of
+     * the actual parser (caching and pooled parsers are unwrapped),
+     * a hash of the parse hints and the content type.
+     * @param contentDigest digest of the content to parse
+     * @param parser the parser
+     * @param parseHintsHash hash code of the parse hints the parser was
+     *        initialized with
+     * @param contentType the content type
+     * @return parse result key
+     */
+    public static String toKey(String contentDigest, IDocumentParser parser,
+            int parseHintsHash, ContentType contentType) {
+        IDocumentParser p = parser;
+        for (;;) {
+            if (p instanceof CachingDocumentParser) {
+                p = ((CachingDocumentParser) p).getParser();
+            } else if (p instanceof PooledDocumentParser) {
+                p = ((PooledDocumentParser) p).getPrototype();
+            } else {
+                break;
+            }
+        }
+        return contentDigest
+                + ":" + p.getClass().getName()
+                + ":" + parseHintsHash
+                + ":" + contentType;
+    }
+
+    /**
+     * Gets the wrapped parser.
+     * @return parser
+     */
+    public IDocumentParser getParser() {
+        return parser;
+    }
+
+    @Override
+    public void initialize(ParseHints parseHints) {
+        this.parseHintsHash = Objects.hashCode(parseHints);
+        if (parser instanceof IHintsAwareParser) {
+            ((IHintsAwareParser) parser).initialize(parseHints);
+        }
+    }
+
+    @Override
+    public List<Doc> parseDocument(Doc doc, Writer output)
+            throws DocumentParserException {
+        List<Doc> embeddedDocs = new ArrayList<>();
+        parseDocument(doc, output, embeddedDocs::add);
+        return embeddedDocs.isEmpty() ? null : embeddedDocs;
+    }
+
+    @Override
+    public void parseDocument(Doc doc, Writer output,
+            Consumer<Doc> embeddedDocConsumer)
+                    throws DocumentParserException {
+        parseDocument(doc, output, embeddedDocConsumer, null);
+    }
+    /**
+     * Parses a document like {@link #parseDocument(Doc, Writer, Consumer)},
+     * reusing an already computed SHA-256 digest of its content
+     * (e.g., the importer content digest) instead of computing it again.
+     * @param doc the document to parse
+     * @param output where to write the extracted text
+     * @param embeddedDocConsumer consumer of embedded documents
+     * @param contentDigest hexadecimal SHA-256 digest of the document
+     *        content, or <code>null</code> to compute it
+     * @throws DocumentParserException problem parsing the document
+     */
+    public void parseDocument(Doc doc, Writer output,
+            Consumer<Doc> embeddedDocConsumer, String contentDigest)
+                    throws DocumentParserException {
+        String digest = contentDigest;
+        if (digest == null) {
+            try {
+                CachedInputStream content = doc.getInputStream();
+                digest = DigestUtils.sha256Hex(content);
+                content.rewind();
+            } catch (IOException e) {
+                throw new DocumentParserException(
+                        "Could not compute parse cache key.", e);
+            }
+        }
+        String key = toKey(digest, parser, parseHintsHash,
+                doc.getDocInfo().getContentType());
+
+        ParsedContent result = cache.get(key);
+        if (result != null) {
+            LOG.debug("Parsing result obtained from cache for: {}",
+                    doc.getReference());
+            replay(doc, output, embeddedDocConsumer, result);
+            return;
+        }
+
+        Properties metaBeforeParse = ParsedContent.snapshot(doc.getMetadata());
+        Recorder recorder = new Recorder(
+                doc, output, embeddedDocConsumer, cache.getMaxEntrySize());
+        parser.parseDocument(doc, recorder, recorder::accept);
+        if (recorder.isComplete()) {
+            try {
+                recorder.flush();
+                cache.put(key, ParsedContent.of(
+                        recorder.text.toString().getBytes(
+                                StandardCharsets.UTF_8),
+                        ParsedContent.changes(
+                                metaBeforeParse, doc.getMetadata()),
+                        doc.getReference(),
+                        recorder.embedded));
+            } catch (IOException e) {
+                LOG.warn("Could not cache parsing result for: {}",
+                        doc.getReference(), e);
+            }
+        }
+    }
+
+    private void replay(Doc doc, Writer output,
+            Consumer<Doc> embeddedDocConsumer, ParsedContent result)
+                    throws DocumentParserException {
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(
+                result.getContent()), StandardCharsets.UTF_8)) {
+            IOUtils.copy(reader, output);
+        } catch (IOException e) {
+            throw new DocumentParserException(
+                    "Could not write cached parsing result.", e);
+        }
+        String ref = doc.getReference();
+        Properties meta = doc.getMetadata();
+        for (Entry<String, List<String>> en
+                : result.getMetadata(ref).entrySet()) {
+            meta.setList(en.getKey(), en.getValue());
+        }
+        List<Doc> embeddedDocs = result.newEmbeddedDocs(
+                ref, doc.getInputStream().getStreamFactory());
+        if (embeddedDocs != null) {
+            embeddedDocs.forEach(embeddedDocConsumer);
+        }
+    }
+
+    /**
+     * Closes the wrapped parser if it implements {@link AutoCloseable}.
+     * @throws Exception could not close the wrapped parser
+     */
+    @Override
+    public void close() throws Exception {
+        if (parser instanceof AutoCloseable) {
+            ((AutoCloseable) parser).close();
+        }
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (!(other instanceof CachingDocumentParser)) {
+            return false;
+        }
+        return Objects.equals(
+                parser, ((CachingDocumentParser) other).parser);
+    }
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(parser);
+    }
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("parser", parser)
+                .toString();
+    }
+
+    // Writes through while keeping a copy of the text, and keeps a copy
+    // of embedded documents before handing them over, until their
+    // combined size exceeds the maximum size (after which nothing more
+    // is kept and the result is not cached).
+    private static class Recorder extends Writer {
+        private final Doc doc;
+        private final Writer out;
+        private final Consumer<Doc> embeddedDocConsumer;
+        private final long maxSize;
+        private StringBuilder text = new StringBuilder();
+        private final List<ParsedContent.Embedded> embedded =
+                new ArrayList<>();
+        private long embeddedSize;
+        public Recorder(Doc doc, Writer out,
+                Consumer<Doc> embeddedDocConsumer, long maxSize) {
+            this.doc = doc;
+            this.out = out;
+            this.embeddedDocConsumer = embeddedDocConsumer;
+            this.maxSize = maxSize;
+        }
+        private boolean isComplete() {
+            return text != null;
+        }
+        private long size() {
+            return text.length() + embeddedSize;
+        }
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            out.write(cbuf, off, len);
+            if (text != null) {
+                if (size() + len > maxSize) {
+                    text = null;
+                } else {
+                    text.append(cbuf, off, len);
+                }
+            }
+        }
+        // Copies the embedded document before the consumer gets to
+        // process and dispose of it.
+        private void accept(Doc embeddedDoc) {
+            if (text != null) {
+                long length = embeddedDoc.getInputStream().length();
+                if (length < 0 || size() + length > maxSize) {
+                    text = null;
+                } else {
+                    try {
+                        embedded.add(ParsedContent.Embedded.of(
+                                embeddedDoc, doc.getReference()));
+                        embeddedSize += length;
+                    } catch (IOException e) {
+                        LOG.debug("Could not keep embedded document "
+                                + "for parse cache: {}",
+                                embeddedDoc.getReference(), e);
+                        text = null;
+                    }
+                }
+            }
+            embeddedDocConsumer.accept(embeddedDoc);
+        }
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
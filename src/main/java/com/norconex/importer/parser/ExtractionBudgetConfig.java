@@ -0,0 +1,136 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.parser;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * <p>
+ * Limits on how much is extracted from a single document. Once a limit
+ * is reached, parsing stops and what was extracted so far is kept as the
+ * document content. The document is then flagged as truncated with the
+ * {@link com.norconex.importer.doc.DocMetadata#TRUNCATED} and
+ * {@link com.norconex.importer.doc.DocMetadata#TRUNCATED_REASON} fields.
+ * This avoids extracting large amounts of text only to have it reduced
+ * later by handlers.
+ * </p>
+ * <p>
+ * Page limits rely on parsers reporting pages (e.g., PDF).
+ * When reaching the maximum number of embedded documents, the remaining
+ * ones are skipped but the container document is still parsed.
+ * The parse time is only verified as content is extracted. A parser
+ * stuck without producing any content is not interrupted. To protect
+ * against such parsers, parse them out of process and rely on
+ * {@link ForkConfig#getParseTimeout()} instead.
+ * A value of zero or less means no limit (default).
+ * Applies to Tika-based parsers only, when not parsing out of process
+ * (see {@link ForkConfig}). Limits are not enforced on documents parsed
+ * out of process.
+ * </p>
+ *
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+public class ExtractionBudgetConfig {
+
+    private long maxCharacters;
+    private int maxPages;
+    private int maxEmbeddedDocuments;
+    private long maxParseTime;
+
+    /**
+     * Gets the maximum number of characters extracted.
+     * @return maximum number of characters
+     */
+    public long getMaxCharacters() {
+        return maxCharacters;
+    }
+    /**
+     * Sets the maximum number of characters extracted.
+     * @param maxCharacters maximum number of characters
+     */
+    public void setMaxCharacters(long maxCharacters) {
+        this.maxCharacters = maxCharacters;
+    }
+
+    /**
+     * Gets the maximum number of pages extracted.
+     * @return maximum number of pages
+     */
+    public int getMaxPages() {
+        return maxPages;
+    }
+    /**
+     * Sets the maximum number of pages extracted.
+     * @param maxPages maximum number of pages
+     */
+    public void setMaxPages(int maxPages) {
+        this.maxPages = maxPages;
+    }
+
+    /**
+     * Gets the maximum number of embedded documents extracted.
+     * @return maximum number of embedded documents
+     */
+    public int getMaxEmbeddedDocuments() {
+        return maxEmbeddedDocuments;
+    }
+    /**
+     * Sets the maximum number of embedded documents extracted.
+     * @param maxEmbeddedDocuments maximum number of embedded documents
+     */
+    public void setMaxEmbeddedDocuments(int maxEmbeddedDocuments) {
+        this.maxEmbeddedDocuments = maxEmbeddedDocuments;
+    }
+
+    /**
+     * Gets the maximum number of milliseconds spent extracting
+     * a document.
+     * @return maximum parse time
+     */
+    public long getMaxParseTime() {
+        return maxParseTime;
+    }
+    /**
+     * Sets the maximum number of milliseconds spent extracting
+     * a document.
+     * @param maxParseTime maximum parse time
+     */
+    public void setMaxParseTime(long maxParseTime) {
+        this.maxParseTime = maxParseTime;
+    }
+
+    public boolean isEmpty() {
+        return maxCharacters <= 0 && maxPages <= 0
+                && maxEmbeddedDocuments <= 0 && maxParseTime <= 0;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        return EqualsBuilder.reflectionEquals(this, other);
+    }
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this);
+    }
+    @Override
+    public String toString() {
+        return new ReflectionToStringBuilder(
+                this, ToStringStyle.SHORT_PREFIX_STYLE).toString();
+    }
+}
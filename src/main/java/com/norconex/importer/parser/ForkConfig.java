@@ -0,0 +1,217 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * <p>
+ * Configuration for parsing documents out of process, in a pool of
+ * long-lived child Java processes ("workers"). A document crashing, hanging,
+ * or exhausting the memory of a worker only affects that worker, which
+ * gets replaced, instead of affecting the whole Importer.
+ * Extracted text is streamed back to the Importer as it is being parsed.
+ * </p>
+ * <p>
+ * Applies to Tika-based parsers only, and not to documents having their
+ * embedded documents split (embedded documents are always merged when
+ * forked, without "noExtract" restrictions).
+ * </p>
+ *
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+public class ForkConfig {
+
+    public static final int DEFAULT_POOL_SIZE = 5;
+    public static final long DEFAULT_PARSE_TIMEOUT = 60000;
+    public static final String DEFAULT_JAVA_COMMAND = "java";
+
+    private boolean enabled;
+    private String contentTypes;
+    private int poolSize = DEFAULT_POOL_SIZE;
+    private String javaCommand = DEFAULT_JAVA_COMMAND;
+    private String maxMemory;
+    private long parseTimeout = DEFAULT_PARSE_TIMEOUT;
+    private int maxDocumentsPerWorker;
+
+    /**
+     * Gets whether parsing is done in child processes.
+     * @return <code>true</code> if enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+    /**
+     * Sets whether parsing is done in child processes.
+     * @param enabled <code>true</code> if enabled
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Gets the regular expression matching content types to restrict
+     * out-of-process parsing to. Blank means all content types.
+     * @return content types
+     */
+    public String getContentTypes() {
+        return contentTypes;
+    }
+    /**
+     * Sets the regular expression matching content types to restrict
+     * out-of-process parsing to. Blank means all content types.
+     * @param contentTypes content types
+     */
+    public void setContentTypes(String contentTypes) {
+        this.contentTypes = contentTypes;
+    }
+
+    /**
+     * Gets the maximum number of worker processes per parser.
+     * Default is {@value #DEFAULT_POOL_SIZE}.
+     * @return pool size
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+    /**
+     * Sets the maximum number of worker processes per parser.
+     * @param poolSize pool size
+     */
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    /**
+     * Gets the command used to launch worker processes, with any
+     * JVM arguments (space-separated).
+     * Default is {@value #DEFAULT_JAVA_COMMAND}.
+     * @return java command
+     */
+    public String getJavaCommand() {
+        return javaCommand;
+    }
+    /**
+     * Sets the command used to launch worker processes, with any
+     * JVM arguments (space-separated).
+     * @param javaCommand java command
+     */
+    public void setJavaCommand(String javaCommand) {
+        this.javaCommand = javaCommand;
+    }
+
+    /**
+     * Gets the maximum heap memory of each worker process, in the JVM
+     * "-Xmx" format (e.g., "512m"). Default is the JVM default.
+     * @return maximum memory
+     */
+    public String getMaxMemory() {
+        return maxMemory;
+    }
+    /**
+     * Sets the maximum heap memory of each worker process, in the JVM
+     * "-Xmx" format (e.g., "512m").
+     * @param maxMemory maximum memory
+     */
+    public void setMaxMemory(String maxMemory) {
+        this.maxMemory = maxMemory;
+    }
+
+    /**
+     * Gets the maximum number of milliseconds a worker can take to parse
+     * a document before it is terminated.
+     * Default is {@value #DEFAULT_PARSE_TIMEOUT}.
+     * @return parse timeout
+     */
+    public long getParseTimeout() {
+        return parseTimeout;
+    }
+    /**
+     * Sets the maximum number of milliseconds a worker can take to parse
+     * a document before it is terminated.
+     * @param parseTimeout parse timeout
+     */
+    public void setParseTimeout(long parseTimeout) {
+        this.parseTimeout = parseTimeout;
+    }
+
+    /**
+     * Gets the number of documents a worker process parses before
+     * being replaced by a new one.  Zero or less means no limit (default).
+     * @return maximum documents per worker
+     */
+    public int getMaxDocumentsPerWorker() {
+        return maxDocumentsPerWorker;
+    }
+    /**
+     * Sets the number of documents a worker process parses before
+     * being replaced by a new one.  Zero or less means no limit.
+     * @param maxDocumentsPerWorker maximum documents per worker
+     */
+    public void setMaxDocumentsPerWorker(int maxDocumentsPerWorker) {
+        this.maxDocumentsPerWorker = maxDocumentsPerWorker;
+    }
+
+    /**
+     * Gets the full command used to launch a worker, including the
+     * maximum memory argument, if set.
+     * @return command arguments
+     */
+    public List<String> toCommand() {
+        List<String> cmd = new ArrayList<>(Arrays.asList(StringUtils.split(
+                StringUtils.defaultIfBlank(javaCommand, DEFAULT_JAVA_COMMAND))));
+        if (StringUtils.isNotBlank(maxMemory)) {
+            cmd.add("-Xmx" + maxMemory.trim());
+        }
+        return cmd;
+    }
+
+    /**
+     * Whether the given content type should be parsed out of process.
+     * @param contentType content type
+     * @return <code>true</code> if forking this content type
+     */
+    public boolean isForked(String contentType) {
+        return enabled && (StringUtils.isBlank(contentTypes)
+                || (contentType != null && contentType.matches(contentTypes)));
+    }
+
+    public boolean isEmpty() {
+        return equals(new ForkConfig());
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        return EqualsBuilder.reflectionEquals(this, other);
+    }
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this);
+    }
+    @Override
+    public String toString() {
+        return new ReflectionToStringBuilder(
+                this, ToStringStyle.SHORT_PREFIX_STYLE).toString();
+    }
+}
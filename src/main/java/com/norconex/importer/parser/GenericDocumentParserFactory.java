@@ -14,13 +14,28 @@
  */
 package com.norconex.importer.parser;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
+import org.apache.commons.io.output.NullWriter;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
@@ -34,8 +49,12 @@ import org.slf4j.LoggerFactory;
 
 import com.norconex.commons.lang.config.ConfigurationException;
 import com.norconex.commons.lang.file.ContentType;
+import com.norconex.commons.lang.io.CachedInputStream;
+import com.norconex.commons.lang.io.CachedStreamFactory;
 import com.norconex.commons.lang.xml.IXMLConfigurable;
 import com.norconex.commons.lang.xml.XML;
+import com.norconex.importer.doc.Doc;
+import com.norconex.importer.doc.DocInfo;
 import com.norconex.importer.parser.impl.FallbackParser;
 import com.norconex.importer.parser.impl.xfdl.XFDLParser;
 import com.norconex.importer.response.ImporterResponse;
@@ -105,12 +124,79 @@ import com.norconex.importer.response.ImporterResponse;
  * limit OCR to a subset of document content types, configure the corresponding
  * content-types (e.g. application/pdf, image/tiff, image/png, etc.).</p>
  *
+ * <p>Since 3.0.0, images are OCR'd through an {@link OCRScheduler} shared
+ * by all parsers of this factory. It limits how many images are OCR'd
+ * at the same time ("maxConcurrent", defaults to the number of
+ * processors), gives precedence to images of documents that started
+ * parsing first, and caches OCR results by image digest ("cacheSize",
+ * defaults to {@value OCRConfig#DEFAULT_CACHE_SIZE}) so identical
+ * images such as logos are not OCR'd again. Documents parsed in
+ * forked processes are not scheduled.</p>
+ *
+ * <h3>Concurrency:</h3>
+ * <p>Since 3.0.0, looking up a parser no longer requires locking.
+ * Parsers are shared by all threads and are expected to be thread-safe.
+ * For parsers that are not, you can mark them as "pooled", in which case
+ * each concurrent parsing will use its own instance of the configured
+ * parser (see {@link PooledDocumentParser}).</p>
+ *
+ * <h3>Warm-up:</h3>
+ * <p>The first time a document of a given format is parsed, required
+ * libraries get loaded and initialized, making it slower than subsequent
+ * ones. Since 3.0.0, you can enable a warm-up phase taking place when
+ * the Importer is created, which parses a tiny sample for each content type
+ * having an explicitly registered parser, as well as for each content type
+ * you list. By default, a minimal sample is generated for each content type
+ * (empty for binary ones). You can supply your own sample files for a
+ * more thorough warm-up. Warm-up parsing failures are logged and ignored.
+ * </p>
+ *
+ * <h3>Out-of-process parsing:</h3>
+ * <p>
+ * Since 3.0.0, Tika-based parsers can parse documents in a pool of
+ * long-lived child Java processes (workers) instead of the Importer process.
+ * A document hanging a parser past a timeout, or exhausting its memory,
+ * only terminates the worker, which is replaced. Workers can also be
+ * recycled after a number of documents to limit the effect of parser
+ * memory leaks. Extracted text is streamed back as it is produced.
+ * Documents with their embedded documents split are always parsed
+ * in process.
+ * </p>
+ *
+ * <h3>Metadata fields:</h3>
+ * <p>
+ * Since 3.0.0, you can restrict which metadata fields obtained from
+ * Tika-based parsers are added to documents, using regular expressions
+ * matching field names to include or exclude. Unwanted fields are then
+ * never created (see {@link MetadataConfig}).
+ * </p>
+ *
+ * <h3>Extraction budget:</h3>
+ * <p>
+ * Since 3.0.0, you can limit how many characters, pages or embedded
+ * documents are extracted from each document, as well as for how long.
+ * Once a limit is reached, Tika-based parsers stop and keep what was
+ * extracted so far, flagging the document as truncated
+ * (see {@link ExtractionBudgetConfig}).
+ * </p>
+ *
+ * <h3>Parse result cache:</h3>
+ * <p>
+ * Since 3.0.0, you can cache parsing results on disk so that content
+ * already parsed (e.g., the same attachment found in many
+ * documents) is not parsed again, even after a restart. Results
+ * are keyed by content digest, parser class and parse hints
+ * (see {@link ParseResultCache}).
+ * </p>
+ *
  * <h3>XML configuration usage:</h3>
  * <pre>
  *  &lt;documentParserFactory
  *         class="com.norconex.importer.parser.GenericDocumentParserFactory"&gt;
  *
- *      &lt;ocr path="(path to Tesseract OCR software executable)"&gt;
+ *      &lt;ocr path="(path to Tesseract OCR software executable)"
+ *          maxConcurrent="(max number of images OCR'd concurrently)"
+ *          cacheSize="(max number of OCR results cached)"&gt;
  *          &lt;languages&gt;
  *              (optional coma-separated list of Tesseract languages)
  *          &lt;/languages&gt;
@@ -142,17 +228,64 @@ import com.norconex.importer.response.ImporterResponse;
  *          &lt;/noExtractContainerContentTypes&gt;
  *      &lt;/embedded&gt;
  *
+ *      &lt;fork enabled="[false|true]"
+ *          poolSize="(maximum number of worker processes, default 5)"
+ *          parseTimeout="(milliseconds before a worker is killed,
+ *                         default 60000)"
+ *          maxDocumentsPerWorker="(documents before a worker is recycled,
+ *                                  default is unlimited)"
+ *          javaCommand="(command and JVM arguments, default "java")"
+ *          maxMemory="(worker maximum heap memory, e.g., 512m)"&gt;
+ *          &lt;contentTypes&gt;
+ *              (optional regex matching content types to parse
+ *               out of process)
+ *          &lt;/contentTypes&gt;
+ *      &lt;/fork&gt;
+ *
+ *      &lt;metadata&gt;
+ *          &lt;includeFields&gt;
+ *              (optional regex matching names of parser fields to keep)
+ *          &lt;/includeFields&gt;
+ *          &lt;excludeFields&gt;
+ *              (optional regex matching names of parser fields to discard)
+ *          &lt;/excludeFields&gt;
+ *      &lt;/metadata&gt;
+ *
+ *      &lt;extractionBudget
+ *          maxCharacters="(maximum number of characters extracted)"
+ *          maxPages="(maximum number of pages extracted)"
+ *          maxEmbeddedDocuments="(maximum number of embedded documents
+ *                                 extracted)"
+ *          maxParseTime="(maximum milliseconds spent extracting)" /&gt;
+ *
+ *      &lt;parseCache
+ *          maxSize="(maximum cache size in bytes, default 1 GB)"
+ *          maxEntrySize="(maximum size in bytes of a cached parsing result,
+ *                         default 10 MB)"&gt;
+ *          &lt;directory&gt;(path to cache directory)&lt;/directory&gt;
+ *      &lt;/parseCache&gt;
+ *
  *      &lt;fallbackParser
- *          class="(optionally overwrite the fallback parser)" /&gt;
+ *          class="(optionally overwrite the fallback parser)"
+ *          pooled="[false|true]" /&gt;
  *
  *      &lt;parsers&gt;
  *          &lt;!-- Optionally overwrite default parsers.
  *               You can configure many parsers. --&gt;
  *          &lt;parser
  *              contentType="(content type)"
- *              class="(IDocumentParser implementing class)" /&gt;
+ *              class="(IDocumentParser implementing class)"
+ *              pooled="[false|true]" /&gt;
  *      &lt;/parsers&gt;
  *
+ *      &lt;warmUp enabled="[false|true]"&gt;
+ *          &lt;!-- Optionally add content types to warm up.
+ *               You can configure many samples. --&gt;
+ *          &lt;sample contentType="(content type)"&gt;
+ *              (optional path to a sample file)
+ *          &lt;/sample&gt;
+ *      &lt;/warmUp&gt;
+ *
  *  &lt;/documentParserFactory&gt;
  * </pre>
  * <h4>Usage example:</h4>
@@ -181,13 +314,23 @@ public class GenericDocumentParserFactory
             LoggerFactory.getLogger(GenericDocumentParserFactory.class);
 
     private final Map<ContentType, IDocumentParser> parsers =
-            new HashMap<>();
+            new ConcurrentHashMap<>();
     private final ParseHints parseHints = new ParseHints();
     private IDocumentParser fallbackParser;
 
     private String ignoredContentTypesRegex;
+    private Pattern ignoredContentTypesPattern;
+
+    private volatile boolean parsersAreUpToDate = false;
+
+    private boolean warmUp;
+    private final Map<ContentType, Path> warmUpSamples =
+            new LinkedHashMap<>();
 
-    private boolean parsersAreUpToDate = false;
+    private ParseResultCache parseResultCache;
+    private final Map<ContentType, IDocumentParser> cachingParsers =
+            new ConcurrentHashMap<>();
+    private volatile IDocumentParser cachingFallbackParser;
 
     /**
      * Creates a new document parser factory of the given format.
@@ -253,7 +396,24 @@ public class GenericDocumentParserFactory
      */
     public void registerParser(
             ContentType contentType, IDocumentParser parser) {
+        Objects.requireNonNull(contentType, "'contentType' must not be null.");
+        Objects.requireNonNull(parser, "'parser' must not be null.");
         parsers.put(contentType, parser);
+        clearCachingParsers();
+    }
+    /**
+     * Registers a pooled parser to use for the given content type.
+     * The supplier is invoked whenever a new parser instance is needed
+     * for concurrent parsing, so it must return a new instance every time.
+     * Use this method for parsers that are not thread-safe.
+     * @param contentType content type
+     * @param parserSupplier parser supplier
+     * @see PooledDocumentParser
+     * @since 3.0.0
+     */
+    public void registerPooledParser(ContentType contentType,
+            Supplier<IDocumentParser> parserSupplier) {
+        registerParser(contentType, new PooledDocumentParser(parserSupplier));
     }
 
     /**
@@ -266,20 +426,66 @@ public class GenericDocumentParserFactory
     public final IDocumentParser getParser(
             String documentReference, ContentType contentType) {
         // If ignoring content-type, do not even return a parser
-        if (contentType != null
-                && StringUtils.isNotBlank(ignoredContentTypesRegex)
-                && contentType.toString().matches(ignoredContentTypesRegex)) {
+        if (contentType != null && ignoredContentTypesPattern != null
+                && ignoredContentTypesPattern.matcher(
+                        contentType.toString()).matches()) {
             return null;
         }
 
         ensureParseHintsState();
-        IDocumentParser parser = parsers.get(contentType);
+        IDocumentParser parser = null;
+        if (contentType != null) {
+            parser = parsers.get(contentType);
+        }
         if (parser == null) {
-            return fallbackParser;
+            parser = fallbackParser;
+            if (parseResultCache != null && parser != null) {
+                IDocumentParser p = cachingFallbackParser;
+                if (p == null) {
+                    p = newCachingParser(parser);
+                    cachingFallbackParser = p;
+                }
+                return p;
+            }
+            return parser;
+        }
+        if (parseResultCache != null) {
+            IDocumentParser p = parser;
+            return cachingParsers.computeIfAbsent(
+                    contentType, ct -> newCachingParser(p));
         }
         return parser;
     }
 
+    private IDocumentParser newCachingParser(IDocumentParser parser) {
+        return new CachingDocumentParser(
+                parser, parseResultCache, parseHints);
+    }
+
+    private void clearCachingParsers() {
+        cachingParsers.clear();
+        cachingFallbackParser = null;
+    }
+
+    /**
+     * Gets the cache of parsing results.
+     * Default is <code>null</code> (parsing results are not cached).
+     * @return parse result cache
+     * @since 3.0.0
+     */
+    public ParseResultCache getParseResultCache() {
+        return parseResultCache;
+    }
+    /**
+     * Sets the cache of parsing results.
+     * @param parseResultCache parse result cache
+     * @since 3.0.0
+     */
+    public void setParseResultCache(ParseResultCache parseResultCache) {
+        this.parseResultCache = parseResultCache;
+        clearCachingParsers();
+    }
+
     /**
      * Gets the regular expression matching content types to ignore
      * (i.e. do not perform parsing on them).
@@ -295,18 +501,170 @@ public class GenericDocumentParserFactory
      */
     public void setIgnoredContentTypesRegex(String ignoredContentTypesRegex) {
         this.ignoredContentTypesRegex = ignoredContentTypesRegex;
+        if (StringUtils.isNotBlank(ignoredContentTypesRegex)) {
+            this.ignoredContentTypesPattern =
+                    Pattern.compile(ignoredContentTypesRegex);
+        } else {
+            this.ignoredContentTypesPattern = null;
+        }
+    }
+
+    /**
+     * Gets whether to parse a sample for each content type with a
+     * registered parser or a warm-up sample when the Importer is created.
+     * Default is <code>false</code>.
+     * @return <code>true</code> if warming up parsers
+     * @since 3.0.0
+     */
+    public boolean isWarmUp() {
+        return warmUp;
+    }
+    /**
+     * Sets whether to parse a sample for each content type with a
+     * registered parser or a warm-up sample when the Importer is created.
+     * @param warmUp <code>true</code> to warm up parsers
+     * @since 3.0.0
+     */
+    public void setWarmUp(boolean warmUp) {
+        this.warmUp = warmUp;
+    }
+    /**
+     * Gets warm-up sample files, keyed by content type. A <code>null</code>
+     * file means a minimal sample is generated.
+     * @return warm-up samples (never <code>null</code>)
+     * @since 3.0.0
+     */
+    public Map<ContentType, Path> getWarmUpSamples() {
+        return Collections.unmodifiableMap(warmUpSamples);
+    }
+    /**
+     * Adds a content type to warm up, with an optional sample file.
+     * @param contentType content type
+     * @param sampleFile sample file or <code>null</code> to use a
+     *        generated minimal sample
+     * @since 3.0.0
+     */
+    public void setWarmUpSample(ContentType contentType, Path sampleFile) {
+        Objects.requireNonNull(contentType, "'contentType' must not be null.");
+        warmUpSamples.put(contentType, sampleFile);
+    }
+
+    /**
+     * Parses a tiny sample for each content type having a registered parser
+     * or a warm-up sample, if warm-up is enabled.
+     * @param streamFactory stream factory used to hold samples
+     * @since 3.0.0
+     */
+    @Override
+    public void warmUp(CachedStreamFactory streamFactory) {
+        if (!warmUp) {
+            return;
+        }
+        Set<ContentType> contentTypes = new LinkedHashSet<>(parsers.keySet());
+        contentTypes.addAll(warmUpSamples.keySet());
+        long start = System.currentTimeMillis();
+        for (ContentType contentType : contentTypes) {
+            warmUp(streamFactory, contentType, warmUpSamples.get(contentType));
+        }
+        LOG.info("Parser warm-up completed for {} content types in {} ms.",
+                contentTypes.size(), System.currentTimeMillis() - start);
+    }
+    private void warmUp(CachedStreamFactory streamFactory,
+            ContentType contentType, Path sampleFile) {
+        String ref = "warm-up:" + contentType;
+        IDocumentParser parser = getParser(ref, contentType);
+        if (parser instanceof CachingDocumentParser) {
+            // do not cache warm-up samples
+            parser = ((CachingDocumentParser) parser).getParser();
+        }
+        if (parser == null) {
+            return;
+        }
+        Doc doc = null;
+        try (InputStream sample = sampleFile != null
+                ? Files.newInputStream(sampleFile)
+                : new ByteArrayInputStream(toWarmUpSample(contentType))) {
+            DocInfo info = new DocInfo(ref);
+            info.setContentType(contentType);
+            doc = new Doc(info, streamFactory.newInputStream(sample));
+            List<Doc> embeddedDocs =
+                    parser.parseDocument(doc, NullWriter.NULL_WRITER);
+            if (embeddedDocs != null) {
+                for (Doc embeddedDoc : embeddedDocs) {
+                    embeddedDoc.dispose();
+                }
+            }
+        } catch (IOException | DocumentParserException
+                | RuntimeException e) {
+            LOG.debug("Warm-up parsing failed for \"{}\" (ignored).",
+                    contentType, e);
+        } finally {
+            if (doc != null) {
+                try {
+                    doc.dispose();
+                } catch (IOException e) {
+                    LOG.debug("Could not dispose of warm-up document.", e);
+                }
+            }
+        }
+    }
+    private byte[] toWarmUpSample(ContentType contentType) {
+        String ct = contentType.toString();
+        String text = "";
+        if (ct.contains("html")) {
+            text = "<html><head><title>Warm-up</title></head>"
+                    + "<body><p>Warm-up</p></body></html>";
+        } else if (ct.contains("xml")) {
+            text = "<?xml version=\"1.0\"?><warmUp>Warm-up</warmUp>";
+        } else if (ct.contains("json")) {
+            text = "{\"warmUp\": \"Warm-up\"}";
+        } else if (ct.startsWith("text/")) {
+            text = "Warm-up";
+        }
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Closes registered parsers implementing {@link AutoCloseable}
+     * (e.g., to stop forked or external processes they started).
+     * Parsers can still be used afterwards, in which case they start
+     * new processes as needed.
+     * @since 3.0.0
+     */
+    @Override
+    public void close() {
+        Set<IDocumentParser> toClose =
+                Collections.newSetFromMap(new IdentityHashMap<>());
+        toClose.addAll(parsers.values());
+        if (fallbackParser != null) {
+            toClose.add(fallbackParser);
+        }
+        for (IDocumentParser parser : toClose) {
+            if (parser instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) parser).close();
+                } catch (Exception e) {
+                    LOG.warn("Could not close parser: {}", parser, e);
+                }
+            }
+        }
     }
 
-    private synchronized void ensureParseHintsState() {
-        if (!parsersAreUpToDate) {
-            for (Entry<ContentType, IDocumentParser> entry :
-                parsers.entrySet()) {
-                IDocumentParser parser = entry.getValue();
-                initParseHints(parser);
+    private void ensureParseHintsState() {
+        if (parsersAreUpToDate) {
+            return;
+        }
+        synchronized (this) {
+            if (!parsersAreUpToDate) {
+                for (Entry<ContentType, IDocumentParser> entry :
+                    parsers.entrySet()) {
+                    IDocumentParser parser = entry.getValue();
+                    initParseHints(parser);
+                }
+                initParseHints(fallbackParser);
+                parsersAreUpToDate = true;
+                validateOCRInstall();
             }
-            initParseHints(fallbackParser);
-            parsersAreUpToDate = true;
-            validateOCRInstall();
         }
     }
     private void initParseHints(IDocumentParser parser) {
@@ -356,14 +714,15 @@ public class GenericDocumentParserFactory
         loadParseHintsFromXML(xml);
 
         // Fallback parser
-        fallbackParser = xml.getObjectImpl(IDocumentParser.class,
-                "fallbackParser", fallbackParser);
+        XML fallbackXML = xml.getXML("fallbackParser");
+        if (fallbackXML != null) {
+            fallbackParser = loadParserFromXML(fallbackXML);
+        }
 
         // Parsers
         List<XML> nodes = xml.getXMLList("parsers/parser");
         for (XML node : nodes) {
-            IDocumentParser parser = node.getObjectImpl(
-                    IDocumentParser.class, ".");
+            IDocumentParser parser = loadParserFromXML(node);
             String contentType = node.getString("@contentType");
             if (StringUtils.isBlank(contentType)) {
                 throw new ConfigurationException(
@@ -372,6 +731,49 @@ public class GenericDocumentParserFactory
             }
             parsers.put(ContentType.valueOf(contentType), parser);
         }
+
+        // Parse result cache
+        XML cacheXML = xml.getXML("parseCache");
+        if (cacheXML != null) {
+            ParseResultCache cache = new ParseResultCache();
+            cache.loadFromXML(cacheXML);
+            setParseResultCache(cache);
+        }
+        clearCachingParsers();
+
+        // Warm-up
+        XML warmUpXML = xml.getXML("warmUp");
+        if (warmUpXML != null) {
+            setWarmUp(warmUpXML.getBoolean("@enabled", warmUp));
+            for (XML sampleXML : warmUpXML.getXMLList("sample")) {
+                String contentType = sampleXML.getString("@contentType");
+                if (StringUtils.isBlank(contentType)) {
+                    throw new ConfigurationException(
+                            "Attribute \"contentType\" missing for "
+                          + "warm-up sample.");
+                }
+                String file = sampleXML.getString(".", null);
+                setWarmUpSample(ContentType.valueOf(contentType),
+                        StringUtils.isBlank(file) ? null : Paths.get(file));
+            }
+        }
+    }
+
+    private IDocumentParser loadParserFromXML(XML xml) {
+        if (xml.getBoolean("@pooled", false)) {
+            return new PooledDocumentParser(
+                    () -> xml.getObjectImpl(IDocumentParser.class, "."));
+        }
+        return xml.getObjectImpl(IDocumentParser.class, ".");
+    }
+    private XML saveParserToXML(
+            XML xml, String tagName, IDocumentParser parser) {
+        if (parser instanceof PooledDocumentParser) {
+            return xml.addElement(tagName,
+                    ((PooledDocumentParser) parser).getPrototype())
+                            .setAttribute("pooled", true);
+        }
+        return xml.addElement(tagName, parser);
     }
 
     private void loadParseHintsFromXML(XML xml) {
@@ -394,6 +796,57 @@ public class GenericDocumentParserFactory
             ocrCfg.setPath(ocrXml.getString("@path"));
             ocrCfg.setLanguages(ocrXml.getString("languages"));
             ocrCfg.setContentTypes(ocrXml.getString("contentTypes"));
+            ocrCfg.setMaxConcurrent(ocrXml.getInteger(
+                    "@maxConcurrent", ocrCfg.getMaxConcurrent()));
+            ocrCfg.setCacheSize(ocrXml.getInteger(
+                    "@cacheSize", ocrCfg.getCacheSize()));
+        }
+
+        // Fork Config
+        XML forkXml = xml.getXML("fork");
+        if (forkXml != null) {
+            ForkConfig forkCfg = parseHints.getForkConfig();
+            forkCfg.setEnabled(
+                    forkXml.getBoolean("@enabled", forkCfg.isEnabled()));
+            forkCfg.setPoolSize(
+                    forkXml.getInteger("@poolSize", forkCfg.getPoolSize()));
+            forkCfg.setParseTimeout(forkXml.getLong(
+                    "@parseTimeout", forkCfg.getParseTimeout()));
+            forkCfg.setMaxDocumentsPerWorker(forkXml.getInteger(
+                    "@maxDocumentsPerWorker",
+                    forkCfg.getMaxDocumentsPerWorker()));
+            forkCfg.setJavaCommand(forkXml.getString(
+                    "@javaCommand", forkCfg.getJavaCommand()));
+            forkCfg.setMaxMemory(forkXml.getString(
+                    "@maxMemory", forkCfg.getMaxMemory()));
+            forkCfg.setContentTypes(forkXml.getString(
+                    "contentTypes", forkCfg.getContentTypes()));
+        }
+
+        // Metadata Config
+        XML metaXml = xml.getXML("metadata");
+        if (metaXml != null) {
+            MetadataConfig metaCfg = parseHints.getMetadataConfig();
+            metaCfg.setIncludeFields(metaXml.getString(
+                    "includeFields", metaCfg.getIncludeFields()));
+            metaCfg.setExcludeFields(metaXml.getString(
+                    "excludeFields", metaCfg.getExcludeFields()));
+        }
+
+        // Extraction Budget Config
+        XML budgetXml = xml.getXML("extractionBudget");
+        if (budgetXml != null) {
+            ExtractionBudgetConfig budgetCfg =
+                    parseHints.getExtractionBudgetConfig();
+            budgetCfg.setMaxCharacters(budgetXml.getLong(
+                    "@maxCharacters", budgetCfg.getMaxCharacters()));
+            budgetCfg.setMaxPages(budgetXml.getInteger(
+                    "@maxPages", budgetCfg.getMaxPages()));
+            budgetCfg.setMaxEmbeddedDocuments(budgetXml.getInteger(
+                    "@maxEmbeddedDocuments",
+                    budgetCfg.getMaxEmbeddedDocuments()));
+            budgetCfg.setMaxParseTime(budgetXml.getLong(
+                    "@maxParseTime", budgetCfg.getMaxParseTime()));
         }
     }
 
@@ -406,17 +859,31 @@ public class GenericDocumentParserFactory
 
         saveParseHintsToXML(xml);
 
-        xml.addElement("fallbackParser", fallbackParser);
+        if (parseResultCache != null) {
+            parseResultCache.saveToXML(xml.addElement("parseCache"));
+        }
+
+        saveParserToXML(xml, "fallbackParser", fallbackParser);
 
         if (!parsers.isEmpty()) {
             XML parsersXML = xml.addElement("parsers");
 
             for (Entry<ContentType, IDocumentParser> entry:
                     parsers.entrySet()) {
-                parsersXML.addElement("parser", entry.getValue())
+                saveParserToXML(parsersXML, "parser", entry.getValue())
                         .setAttribute("contentType", entry.getKey().toString());
             }
         }
+
+        if (warmUp || !warmUpSamples.isEmpty()) {
+            XML warmUpXML = xml.addElement("warmUp")
+                    .setAttribute("enabled", warmUp);
+            for (Entry<ContentType, Path> entry : warmUpSamples.entrySet()) {
+                warmUpXML.addElement("sample", Objects.toString(
+                        entry.getValue(), null)).setAttribute(
+                                "contentType", entry.getKey().toString());
+            }
+        }
     }
 
     private void saveParseHintsToXML(XML xml) {
@@ -433,9 +900,38 @@ public class GenericDocumentParserFactory
         if (!ocr.isEmpty()) {
             XML ocrXML = xml.addElement("ocr");
             ocrXML.setAttribute("path", ocr.getPath());
+            ocrXML.setAttribute("maxConcurrent", ocr.getMaxConcurrent());
+            ocrXML.setAttribute("cacheSize", ocr.getCacheSize());
             ocrXML.addElement("languages", ocr.getLanguages());
             ocrXML.addElement("contentTypes", ocr.getContentTypes());
         }
+        ForkConfig fork = parseHints.getForkConfig();
+        if (!fork.isEmpty()) {
+            XML forkXML = xml.addElement("fork")
+                    .setAttribute("enabled", fork.isEnabled())
+                    .setAttribute("poolSize", fork.getPoolSize())
+                    .setAttribute("parseTimeout", fork.getParseTimeout())
+                    .setAttribute("maxDocumentsPerWorker",
+                            fork.getMaxDocumentsPerWorker())
+                    .setAttribute("javaCommand", fork.getJavaCommand())
+                    .setAttribute("maxMemory", fork.getMaxMemory());
+            forkXML.addElement("contentTypes", fork.getContentTypes());
+        }
+        MetadataConfig meta = parseHints.getMetadataConfig();
+        if (!meta.isEmpty()) {
+            XML metaXML = xml.addElement("metadata");
+            metaXML.addElement("includeFields", meta.getIncludeFields());
+            metaXML.addElement("excludeFields", meta.getExcludeFields());
+        }
+        ExtractionBudgetConfig budget = parseHints.getExtractionBudgetConfig();
+        if (!budget.isEmpty()) {
+            xml.addElement("extractionBudget")
+                    .setAttribute("maxCharacters", budget.getMaxCharacters())
+                    .setAttribute("maxPages", budget.getMaxPages())
+                    .setAttribute("maxEmbeddedDocuments",
+                            budget.getMaxEmbeddedDocuments())
+                    .setAttribute("maxParseTime", budget.getMaxParseTime());
+        }
     }
 
     @Override
@@ -453,6 +949,9 @@ public class GenericDocumentParserFactory
                 .append(parsersAreUpToDate, castOther.parsersAreUpToDate)
                 .append(parsers.size(), castOther.parsers.size())
                 .append(fallbackParser, castOther.fallbackParser)
+                .append(warmUp, castOther.warmUp)
+                .append(warmUpSamples, castOther.warmUpSamples)
+                .append(parseResultCache, castOther.parseResultCache)
                 .isEquals()) {
             return false;
         }
@@ -477,6 +976,9 @@ public class GenericDocumentParserFactory
                 .append(parseHints)
                 .append(parsersAreUpToDate)
                 .append(parsers.size())
+                .append(warmUp)
+                .append(warmUpSamples)
+                .append(parseResultCache)
                 .toHashCode();
         hash += fallbackParser.hashCode();
         for (Entry<ContentType, IDocumentParser> entry : parsers.entrySet()) {
@@ -499,6 +1001,9 @@ public class GenericDocumentParserFactory
                 .append("ignoredContentTypesRegex", ignoredContentTypesRegex)
                 .append("parseHints", parseHints)
                 .append("parsersAreUpToDate", parsersAreUpToDate)
+                .append("warmUp", warmUp)
+                .append("warmUpSamples", warmUpSamples)
+                .append("parseResultCache", parseResultCache)
                 .toString();
     }
 }
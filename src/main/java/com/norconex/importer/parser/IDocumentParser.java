@@ -16,6 +16,7 @@ package com.norconex.importer.parser;
 
 import java.io.Writer;
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.norconex.importer.doc.Doc;
 
@@ -23,6 +24,9 @@ import com.norconex.importer.doc.Doc;
  * Implementations are responsible for parsing a document to
  * extract its text and metadata, as well as any embedded documents
  * (when applicable).
+ * Embedded documents can either be returned all at once once parsing is
+ * complete, or handed over one at a time as they are extracted
+ * (see {@link #parseDocument(Doc, Writer, Consumer)}).
  * @author Pascal Essiembre
  * @see IDocumentParserFactory
  */
@@ -38,4 +42,28 @@ public interface IDocumentParser {
      */
     List<Doc> parseDocument(
             Doc doc, Writer output) throws DocumentParserException;
+
+    /**
+     * Parses a document, handing first-level embedded documents to the
+     * supplied consumer as they are extracted, so they can be processed
+     * (and released) without waiting for all of them to be extracted.
+     * The default implementation invokes
+     * {@link #parseDocument(Doc, Writer)} and hands over each returned
+     * document afterwards. Implementations able to extract embedded
+     * documents one at a time should override it.
+     * @param doc importer document to parse
+     * @param output where to store extracted or modified content of the
+     *        supplied document
+     * @param embeddedDocConsumer receives first-level embedded documents
+     * @throws DocumentParserException problem parsing document
+     * @since 3.0.0
+     */
+    default void parseDocument(Doc doc, Writer output,
+            Consumer<Doc> embeddedDocConsumer)
+                    throws DocumentParserException {
+        List<Doc> embeddedDocs = parseDocument(doc, output);
+        if (embeddedDocs != null) {
+            embeddedDocs.forEach(embeddedDocConsumer);
+        }
+    }
 }
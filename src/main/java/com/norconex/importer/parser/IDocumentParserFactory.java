@@ -15,12 +15,13 @@
 package com.norconex.importer.parser;
 
 import com.norconex.commons.lang.file.ContentType;
+import com.norconex.commons.lang.io.CachedStreamFactory;
 
 /**
  * Factory providing document parsers for documents.
  * @author Pascal Essiembre
  */
-public interface IDocumentParserFactory {
+public interface IDocumentParserFactory extends AutoCloseable {
 
     /**
      * Gets a document parser, optionally based on its reference or content
@@ -31,4 +32,27 @@ public interface IDocumentParserFactory {
      */
     IDocumentParser getParser(
             String documentReference, ContentType contentType);
+
+    /**
+     * Prepares parsers ahead of parsing actual documents (e.g., by loading
+     * and initializing parsing libraries). Invoked once when the Importer
+     * is created. Default implementation does nothing.
+     * @param streamFactory stream factory the Importer uses for content
+     * @since 3.0.0
+     */
+    default void warmUp(CachedStreamFactory streamFactory) {
+        //NOOP
+    }
+
+    /**
+     * Releases resources held by parsers (e.g., external processes).
+     * Invoked when the Importer is closed. Parsers must remain usable
+     * afterwards, as the factory could be shared with other Importer
+     * instances. Default implementation does nothing.
+     * @since 3.0.0
+     */
+    @Override
+    default void close() {
+        //NOOP
+    }
 }
@@ -0,0 +1,127 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.parser;
+
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * <p>
+ * Configuration of which metadata fields extracted by parsers
+ * are added to a document. Fields not matching the "include" regular
+ * expression (when set) or matching the "exclude" one (when set) are
+ * never created, which is cheaper than removing them afterwards
+ * with a tagger (e.g., office documents may produce hundreds of fields).
+ * </p>
+ * <p>
+ * Regular expressions must match whole field names and are
+ * case-sensitive (use <code>(?i)</code> to ignore case).
+ * Only applies to fields obtained from the parser and not to fields
+ * the document already has.
+ * Applies to Tika-based parsers only.
+ * </p>
+ *
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+public class MetadataConfig {
+
+    private String includeFields;
+    private String excludeFields;
+    private transient Pattern includePattern;
+    private transient Pattern excludePattern;
+
+    /**
+     * Gets the regular expression matching names of parser fields to keep.
+     * Blank means all fields.
+     * @return fields to include
+     */
+    public String getIncludeFields() {
+        return includeFields;
+    }
+    /**
+     * Sets the regular expression matching names of parser fields to keep.
+     * Blank means all fields.
+     * @param includeFields fields to include
+     */
+    public void setIncludeFields(String includeFields) {
+        this.includeFields = includeFields;
+        this.includePattern = toPattern(includeFields);
+    }
+
+    /**
+     * Gets the regular expression matching names of parser fields
+     * to discard. Blank means none.
+     * @return fields to exclude
+     */
+    public String getExcludeFields() {
+        return excludeFields;
+    }
+    /**
+     * Sets the regular expression matching names of parser fields
+     * to discard. Blank means none.
+     * @param excludeFields fields to exclude
+     */
+    public void setExcludeFields(String excludeFields) {
+        this.excludeFields = excludeFields;
+        this.excludePattern = toPattern(excludeFields);
+    }
+
+    /**
+     * Whether a parser field with the given name should be added
+     * to the document metadata.
+     * @param fieldName field name
+     * @return <code>true</code> if the field should be kept
+     */
+    public boolean isFieldIncluded(String fieldName) {
+        if (includePattern != null
+                && !includePattern.matcher(fieldName).matches()) {
+            return false;
+        }
+        return excludePattern == null
+                || !excludePattern.matcher(fieldName).matches();
+    }
+
+    public boolean isEmpty() {
+        return StringUtils.isBlank(includeFields)
+                && StringUtils.isBlank(excludeFields);
+    }
+
+    private static Pattern toPattern(String regex) {
+        if (StringUtils.isBlank(regex)) {
+            return null;
+        }
+        return Pattern.compile(regex);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        return EqualsBuilder.reflectionEquals(this, other);
+    }
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this);
+    }
+    @Override
+    public String toString() {
+        return new ReflectionToStringBuilder(
+                this, ToStringStyle.SHORT_PREFIX_STYLE).toString();
+    }
+}
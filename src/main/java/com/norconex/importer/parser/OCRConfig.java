@@ -30,15 +30,30 @@ import org.apache.commons.lang3.builder.ToStringStyle;
  * Since 2.10.0, it is recommended to specify the full path the
  * Tesseract executable file (as opposed to its installation directory).
  * </p>
+ * <p>
+ * Since 3.0.0, OCR executions of all parsers sharing this configuration
+ * go through the same {@link OCRScheduler}, which caps how many images
+ * are OCR'd concurrently and caches OCR results by image digest.
+ * </p>
  *
  * @author Pascal Essiembre
  * @since 2.1.0
  */
 public class OCRConfig {
 
+    /**
+     * Default maximum number of cached OCR results.
+     * @since 3.0.0
+     */
+    public static final int DEFAULT_CACHE_SIZE = 1000;
+
     private String path;
     private String languages;
     private String contentTypes;
+    private int maxConcurrent;
+    private int cacheSize = DEFAULT_CACHE_SIZE;
+
+    private transient OCRScheduler scheduler;
 
     /**
      * Constructor.
@@ -92,6 +107,62 @@ public class OCRConfig {
         this.contentTypes = contentTypes;
     }
 
+    /**
+     * Gets the maximum number of images being OCR'd at the same time,
+     * across all documents. Zero or less uses the number of
+     * available processors.
+     * @return maximum concurrent OCR executions
+     * @since 3.0.0
+     */
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+    /**
+     * Sets the maximum number of images being OCR'd at the same time,
+     * across all documents. Zero or less uses the number of
+     * available processors.
+     * @param maxConcurrent maximum concurrent OCR executions
+     * @since 3.0.0
+     */
+    public synchronized void setMaxConcurrent(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+        this.scheduler = null;
+    }
+
+    /**
+     * Gets the maximum number of OCR results cached by image digest.
+     * Default is {@value #DEFAULT_CACHE_SIZE}.
+     * @return cache size
+     * @since 3.0.0
+     */
+    public int getCacheSize() {
+        return cacheSize;
+    }
+    /**
+     * Sets the maximum number of OCR results cached by image digest.
+     * Zero or less disables caching.
+     * @param cacheSize cache size
+     * @since 3.0.0
+     */
+    public synchronized void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+        this.scheduler = null;
+    }
+
+    /**
+     * Gets the OCR scheduler shared by parsers using this configuration,
+     * creating it the first time.
+     * @return OCR scheduler (never <code>null</code>)
+     * @since 3.0.0
+     */
+    public synchronized OCRScheduler getScheduler() {
+        if (scheduler == null) {
+            scheduler = new OCRScheduler(maxConcurrent > 0 ? maxConcurrent
+                    : Runtime.getRuntime().availableProcessors(), cacheSize);
+        }
+        return scheduler;
+    }
+
     public boolean isEmpty() {
         return  StringUtils.isBlank(path)
                 && StringUtils.isBlank(languages)
@@ -109,6 +180,8 @@ public class OCRConfig {
                 .append(path, castOther.path)
                 .append(languages, castOther.languages)
                 .append(contentTypes, castOther.contentTypes)
+                .append(maxConcurrent, castOther.maxConcurrent)
+                .append(cacheSize, castOther.cacheSize)
                 .isEquals();
     }
 
@@ -118,6 +191,8 @@ public class OCRConfig {
                 .append(path)
                 .append(languages)
                 .append(contentTypes)
+                .append(maxConcurrent)
+                .append(cacheSize)
                 .toHashCode();
     }
 
@@ -127,6 +202,8 @@ public class OCRConfig {
                 .append("path", path)
                 .append("languages", languages)
                 .append("contentTypes", contentTypes)
+                .append("maxConcurrent", maxConcurrent)
+                .append("cacheSize", cacheSize)
                 .toString();
     }
 }
@@ -0,0 +1,266 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.parser;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import com.norconex.importer.metrics.ComponentMetrics;
+
+/**
+ * <p>
+ * Schedules OCR executions shared by all parsers created by a
+ * {@link GenericDocumentParserFactory}. OCR is much more CPU-intensive
+ * than regular text extraction, so the number of images being OCR'd
+ * at the same time is capped, regardless of how many documents are
+ * being imported concurrently.
+ * </p>
+ * <p>
+ * Images waiting for their turn are queued by priority: images
+ * of the document that started parsing first go first, so documents
+ * complete in a timely manner instead of all of them progressing
+ * slowly. Images with the same priority are processed in the order
+ * they were queued.
+ * </p>
+ * <p>
+ * OCR results are cached in memory, keyed by image digest, so identical
+ * images found across documents (e.g., logos, stamps, signatures)
+ * are only OCR'd once. The least recently used results are evicted
+ * when the maximum number of entries is reached.
+ * </p>
+ * <p>
+ * The total OCR time of each document is recorded in
+ * {@link #getDocumentMetrics()}. This class is thread-safe.
+ * </p>
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ * @see OCRConfig
+ */
+public class OCRScheduler implements OCRSchedulerMXBean {
+
+    /** Name of the component metrics holding OCR time per document. */
+    public static final String METRICS_NAME = "parser.ocr";
+
+    private final int maxConcurrent;
+    private final int cacheSize;
+
+    private final AtomicLong prioritySeq = new AtomicLong();
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(
+            Comparator.comparingLong((Waiter w) -> w.priority)
+                    .thenComparingLong(w -> w.seq));
+    private long waiterSeq;
+    private int active;
+
+    private final Map<String, String> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private final ComponentMetrics documentMetrics =
+            new ComponentMetrics(METRICS_NAME);
+
+    /**
+     * Creates a new OCR scheduler.
+     * @param maxConcurrent maximum number of concurrent OCR executions
+     *        (minimum 1)
+     * @param cacheSize maximum number of cached OCR results
+     *        (0 disables caching)
+     */
+    public OCRScheduler(int maxConcurrent, int cacheSize) {
+        super();
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.cacheSize = Math.max(0, cacheSize);
+        this.cache = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, String> eldest) {
+                return size() > OCRScheduler.this.cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Gets a new priority, to be used for all images of a document
+     * about to be parsed. Documents getting their priority first have
+     * their images OCR'd first.
+     * @return priority (lower values have precedence)
+     */
+    public long nextPriority() {
+        return prioritySeq.getAndIncrement();
+    }
+
+    /**
+     * Waits until an OCR execution can start. Every successful call
+     * must be followed by a call to {@link #release()}.
+     * @param priority priority obtained from {@link #nextPriority()}
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire(long priority) throws InterruptedException {
+        synchronized (this) {
+            if (active < maxConcurrent && waiters.isEmpty()) {
+                active++;
+                return;
+            }
+            Waiter waiter = new Waiter(priority, waiterSeq++);
+            waiters.add(waiter);
+            try {
+                while (!waiter.granted) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                if (waiter.granted) {
+                    // we got our turn anyway, give it to the next one
+                    release();
+                } else {
+                    waiters.remove(waiter);
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Signals an OCR execution is done, giving its place to the
+     * waiting image with the highest priority, if any.
+     */
+    public synchronized void release() {
+        Waiter next = waiters.poll();
+        if (next == null) {
+            active--;
+        } else {
+            // the active count remains the same: the place is handed over
+            next.granted = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Gets cached OCR text for the given image key.
+     * @param key image key (e.g., image digest)
+     * @return OCR text or <code>null</code> if not cached
+     */
+    public String getCachedText(String key) {
+        if (cacheSize == 0) {
+            return null;
+        }
+        String text;
+        synchronized (cache) {
+            text = cache.get(key);
+        }
+        if (text == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return text;
+    }
+    /**
+     * Caches the OCR text of an image.
+     * @param key image key (e.g., image digest)
+     * @param text OCR text
+     */
+    public void cacheText(String key, String text) {
+        if (cacheSize == 0 || text == null) {
+            return;
+        }
+        synchronized (cache) {
+            cache.put(key, text);
+        }
+    }
+
+    /**
+     * Records the total time spent OCR'ing images of a document.
+     * @param nanos OCR time in nanoseconds
+     * @param imageBytes total size of the document images
+     * @param textLength number of OCR characters extracted
+     */
+    public void recordDocument(long nanos, long imageBytes, long textLength) {
+        documentMetrics.record(nanos, imageBytes, textLength, false);
+    }
+    /**
+     * Gets the metrics of OCR time per document. Each invocation
+     * is a document having at least one image subject to OCR.
+     * Bytes in are image bytes and bytes out are OCR characters.
+     * @return document OCR metrics
+     */
+    public ComponentMetrics getDocumentMetrics() {
+        return documentMetrics;
+    }
+
+    @Override
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+    /**
+     * Gets the maximum number of cached OCR results.
+     * @return cache size
+     */
+    public int getCacheSize() {
+        return cacheSize;
+    }
+    @Override
+    public synchronized int getActiveCount() {
+        return active;
+    }
+    @Override
+    public synchronized int getQueueLength() {
+        return waiters.size();
+    }
+    @Override
+    public long getCacheHitCount() {
+        return hits.sum();
+    }
+    @Override
+    public long getCacheMissCount() {
+        return misses.sum();
+    }
+    @Override
+    public int getCacheEntryCount() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+    @Override
+    public void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("maxConcurrent", maxConcurrent)
+                .append("cacheSize", cacheSize)
+                .toString();
+    }
+
+    private static class Waiter {
+        private final long priority;
+        private final long seq;
+        private boolean granted;
+        Waiter(long priority, long seq) {
+            this.priority = priority;
+            this.seq = seq;
+        }
+    }
+}
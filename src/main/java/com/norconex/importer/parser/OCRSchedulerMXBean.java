@@ -0,0 +1,58 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.parser;
+
+/**
+ * JMX view of an {@link OCRScheduler}.
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+public interface OCRSchedulerMXBean {
+
+    /**
+     * Gets the maximum number of images being OCR'd at the same time.
+     * @return maximum concurrent OCR executions
+     */
+    int getMaxConcurrent();
+    /**
+     * Gets the number of images currently being OCR'd.
+     * @return active OCR executions
+     */
+    int getActiveCount();
+    /**
+     * Gets the number of images waiting for their turn to be OCR'd.
+     * @return queue length
+     */
+    int getQueueLength();
+    /**
+     * Gets how many OCR results were obtained from the cache.
+     * @return hit count
+     */
+    long getCacheHitCount();
+    /**
+     * Gets how many OCR results were not found in the cache.
+     * @return miss count
+     */
+    long getCacheMissCount();
+    /**
+     * Gets the number of OCR results currently in the cache.
+     * @return entry count
+     */
+    int getCacheEntryCount();
+    /**
+     * Removes all cached OCR results.
+     */
+    void clearCache();
+}
@@ -31,6 +31,10 @@ public class ParseHints {
 
     private final OCRConfig ocrConfig = new OCRConfig();
     private final EmbeddedConfig embeddedConfig = new EmbeddedConfig();
+    private final ForkConfig forkConfig = new ForkConfig();
+    private final MetadataConfig metadataConfig = new MetadataConfig();
+    private final ExtractionBudgetConfig extractionBudgetConfig =
+            new ExtractionBudgetConfig();
 
     public OCRConfig getOcrConfig() {
         return ocrConfig;
@@ -38,6 +42,30 @@ public class ParseHints {
     public EmbeddedConfig getEmbeddedConfig() {
         return embeddedConfig;
     }
+    /**
+     * Gets the out-of-process parsing configuration.
+     * @return fork configuration
+     * @since 3.0.0
+     */
+    public ForkConfig getForkConfig() {
+        return forkConfig;
+    }
+    /**
+     * Gets the configuration of which parser metadata fields are kept.
+     * @return metadata configuration
+     * @since 3.0.0
+     */
+    public MetadataConfig getMetadataConfig() {
+        return metadataConfig;
+    }
+    /**
+     * Gets the limits on how much is extracted from a document.
+     * @return extraction budget configuration
+     * @since 3.0.0
+     */
+    public ExtractionBudgetConfig getExtractionBudgetConfig() {
+        return extractionBudgetConfig;
+    }
 
     @Override
     public boolean equals(final Object other) {
@@ -48,6 +76,10 @@ public class ParseHints {
         return new EqualsBuilder()
                 .append(ocrConfig, castOther.ocrConfig)
                 .append(embeddedConfig, castOther.embeddedConfig)
+                .append(forkConfig, castOther.forkConfig)
+                .append(metadataConfig, castOther.metadataConfig)
+                .append(extractionBudgetConfig,
+                        castOther.extractionBudgetConfig)
                 .isEquals();
     }
 
@@ -56,6 +88,9 @@ public class ParseHints {
         return new HashCodeBuilder()
                 .append(ocrConfig)
                 .append(embeddedConfig)
+                .append(forkConfig)
+                .append(metadataConfig)
+                .append(extractionBudgetConfig)
                 .toHashCode();
     }
 
@@ -64,6 +99,9 @@ public class ParseHints {
         return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
                 .append("ocrConfig", ocrConfig)
                 .append("embeddedConfig", embeddedConfig)
+                .append("forkConfig", forkConfig)
+                .append("metadataConfig", metadataConfig)
+                .append("extractionBudgetConfig", extractionBudgetConfig)
                 .toString();
     }
 }
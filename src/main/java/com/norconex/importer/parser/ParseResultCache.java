@@ -0,0 +1,362 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.parser;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.norconex.commons.lang.xml.IXMLConfigurable;
+import com.norconex.commons.lang.xml.XML;
+import com.norconex.importer.digest.IParsedContentStore;
+import com.norconex.importer.digest.ParsedContent;
+
+/**
+ * <p>
+ * On-disk cache of parsing results, keyed by content digest,
+ * parser class and parse hints (see {@link CachingDocumentParser}).
+ * Each result (extracted text, metadata and embedded documents) is
+ * written to its own file under the configured directory, in the same
+ * format as {@link com.norconex.importer.digest.DiskParsedContentStore}
+ * (see {@link ParsedContent#writeTo(Path, String)}).
+ * </p>
+ * <p>
+ * The cache is bounded: least recently used entries are deleted
+ * when the maximum cache size is reached. Results larger than the
+ * maximum entry size are not cached. Existing entries are
+ * reloaded when the cache is first used, so they survive restarts.
+ * Hit, miss and eviction counts are kept and can be exposed through JMX
+ * (see {@link ParseResultCacheMXBean}).
+ * This class is thread-safe.
+ * </p>
+ * <p>
+ * Being an {@link IParsedContentStore}, it can also be used as a
+ * size-bounded store for
+ * {@link com.norconex.importer.digest.ContentDigestConfig}, which uses
+ * the same keys. There is then no need to also configure it on the
+ * parser factory.
+ * </p>
+ *
+ * {@nx.xml.usage
+ * <parseCache maxSize="(maximum cache size in bytes)"
+ *     maxEntrySize="(maximum size in bytes of a cached parsing result)">
+ *   <directory>(path to where parsing results are cached)</directory>
+ * </parseCache>
+ * }
+ *
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+@SuppressWarnings("javadoc")
+public class ParseResultCache implements
+        IParsedContentStore, ParseResultCacheMXBean, IXMLConfigurable {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(ParseResultCache.class);
+
+    public static final String DEFAULT_DIRECTORY = "./parse-cache";
+    public static final long DEFAULT_MAX_SIZE = 1024L * 1024 * 1024;
+    public static final long DEFAULT_MAX_ENTRY_SIZE = 10L * 1024 * 1024;
+
+    private static final String EXTENSION = ".bin";
+
+    private Path directory = Paths.get(DEFAULT_DIRECTORY);
+    private long maxSize = DEFAULT_MAX_SIZE;
+    private long maxEntrySize = DEFAULT_MAX_ENTRY_SIZE;
+
+    // file names and entries, in access order
+    private transient Map<String, Entry> entries;
+    private transient long cacheSize;
+
+    private final transient LongAdder hits = new LongAdder();
+    private final transient LongAdder misses = new LongAdder();
+    private final transient LongAdder evictions = new LongAdder();
+
+    /**
+     * Gets the directory where parsing results are cached.
+     * Default is {@value #DEFAULT_DIRECTORY}.
+     * @return cache directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+    /**
+     * Sets the directory where parsing results are cached.
+     * @param directory cache directory
+     */
+    public synchronized void setDirectory(Path directory) {
+        this.directory = directory;
+        this.entries = null;
+    }
+
+    /**
+     * Gets the maximum size in bytes of all cached entries.
+     * Default is 1 GB.
+     * @return maximum cache size
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+    /**
+     * Sets the maximum size in bytes of all cached entries.
+     * @param maxSize maximum cache size
+     */
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets the maximum size in bytes of a parsing result for it
+     * to be cached. Default is 10 MB.
+     * @return maximum entry size
+     */
+    public long getMaxEntrySize() {
+        return maxEntrySize;
+    }
+    /**
+     * Sets the maximum size in bytes of a parsing result for it
+     * to be cached.
+     * @param maxEntrySize maximum entry size
+     */
+    public void setMaxEntrySize(long maxEntrySize) {
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    /**
+     * Gets a cached parsing result.
+     * @param key cache key
+     * @return parsing result or <code>null</code> if not cached
+     */
+    @Override
+    public ParsedContent get(String key) {
+        String fileName = toFileName(key);
+        Entry entry;
+        synchronized (this) {
+            // get() also marks the entry as recently used
+            entry = ensureEntries().get(fileName);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+        }
+        Path file = directory.resolve(fileName);
+        try {
+            ParsedContent result = ParsedContent.readFrom(file, key);
+            if (result != null) {
+                Files.setLastModifiedTime(file,
+                        FileTime.fromMillis(System.currentTimeMillis()));
+                hits.increment();
+                return result;
+            }
+        } catch (IOException e) {
+            LOG.debug("Could not read cached parsing result: {}", file, e);
+            remove(fileName, entry);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Caches a parsing result, unless it is larger than the maximum
+     * entry size.
+     * @param key cache key
+     * @param result parsing result
+     */
+    @Override
+    public void put(String key, ParsedContent result) {
+        if (result.getSize() > maxEntrySize) {
+            return;
+        }
+        String fileName = toFileName(key);
+        Path file = directory.resolve(fileName);
+        try {
+            long size = result.writeTo(file, key);
+            synchronized (this) {
+                Entry previous =
+                        ensureEntries().put(fileName, new Entry(size));
+                cacheSize += size - (previous == null ? 0 : previous.size);
+                evict();
+            }
+        } catch (IOException e) {
+            LOG.warn("Could not cache parsing result to: {}", file, e);
+        }
+    }
+
+    private String toFileName(String key) {
+        return DigestUtils.sha1Hex(key) + EXTENSION;
+    }
+
+    // must be called while synchronized
+    private Map<String, Entry> ensureEntries() {
+        if (entries != null) {
+            return entries;
+        }
+        entries = new LinkedHashMap<>(16, 0.75f, true);
+        cacheSize = 0;
+        if (!Files.isDirectory(directory)) {
+            return entries;
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream =
+                Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            LOG.warn("Could not load parse cache entries from: {}",
+                    directory, e);
+            return entries;
+        }
+        // oldest first, like least recently used
+        files.sort(Comparator.comparingLong(ParseResultCache::lastModified));
+        for (Path file : files) {
+            try {
+                long size = Files.size(file);
+                entries.put(file.getFileName().toString(), new Entry(size));
+                cacheSize += size;
+            } catch (IOException e) {
+                LOG.debug("Could not get size of {}", file, e);
+            }
+        }
+        evict();
+        LOG.info("Parse cache loaded with {} entries ({} bytes).",
+                entries.size(), cacheSize);
+        return entries;
+    }
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    // must be called while synchronized
+    private void evict() {
+        Iterator<Map.Entry<String, Entry>> it =
+                entries.entrySet().iterator();
+        while (cacheSize > maxSize && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            it.remove();
+            cacheSize -= eldest.getValue().size;
+            evictions.increment();
+            delete(eldest.getKey());
+        }
+    }
+
+    // Only removes the entry if it was not replaced since it was read,
+    // as the file could then be a valid one just written by another thread.
+    private synchronized void remove(String fileName, Entry entry) {
+        if (ensureEntries().remove(fileName, entry)) {
+            cacheSize -= entry.size;
+            delete(fileName);
+        }
+    }
+    private void delete(String fileName) {
+        try {
+            Files.deleteIfExists(directory.resolve(fileName));
+        } catch (IOException e) {
+            LOG.debug("Could not delete cached parsing result: {}",
+                    fileName, e);
+        }
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.sum();
+    }
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+    @Override
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+    @Override
+    public double getHitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+    @Override
+    public synchronized int getEntryCount() {
+        return ensureEntries().size();
+    }
+    @Override
+    public synchronized long getCacheSize() {
+        ensureEntries();
+        return cacheSize;
+    }
+    @Override
+    public synchronized void clear() {
+        for (String fileName : ensureEntries().keySet()) {
+            delete(fileName);
+        }
+        entries.clear();
+        cacheSize = 0;
+    }
+
+    @Override
+    public void loadFromXML(XML xml) {
+        setMaxSize(xml.getLong("@maxSize", maxSize));
+        setMaxEntrySize(xml.getLong("@maxEntrySize", maxEntrySize));
+        setDirectory(xml.getPath("directory", directory));
+    }
+    @Override
+    public void saveToXML(XML xml) {
+        xml.setAttribute("maxSize", maxSize);
+        xml.setAttribute("maxEntrySize", maxEntrySize);
+        xml.addElement("directory", directory);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        return EqualsBuilder.reflectionEquals(this, other);
+    }
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this);
+    }
+    @Override
+    public String toString() {
+        return new ReflectionToStringBuilder(
+                this, ToStringStyle.SHORT_PREFIX_STYLE).toString();
+    }
+
+    // Compared by identity, to tell whether an entry was replaced.
+    private static final class Entry {
+        private final long size;
+        private Entry(long size) {
+            this.size = size;
+        }
+    }
+}
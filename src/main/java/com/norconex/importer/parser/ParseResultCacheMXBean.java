@@ -0,0 +1,60 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.parser;
+
+/**
+ * JMX view of a {@link ParseResultCache}.
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+public interface ParseResultCacheMXBean {
+
+    /**
+     * Gets how many parsing results were obtained from the cache.
+     * @return hit count
+     */
+    long getHitCount();
+    /**
+     * Gets how many parsing results were not found in the cache.
+     * @return miss count
+     */
+    long getMissCount();
+    /**
+     * Gets how many entries were removed from the cache to make room
+     * for new ones.
+     * @return eviction count
+     */
+    long getEvictionCount();
+    /**
+     * Gets the ratio of parsing results obtained from the cache
+     * (between 0 and 1).
+     * @return hit ratio
+     */
+    double getHitRatio();
+    /**
+     * Gets the number of entries currently in the cache.
+     * @return entry count
+     */
+    int getEntryCount();
+    /**
+     * Gets the total size in bytes of entries currently in the cache.
+     * @return cache size in bytes
+     */
+    long getCacheSize();
+    /**
+     * Removes all cache entries.
+     */
+    void clear();
+}
@@ -0,0 +1,191 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.parser;
+
+import java.io.Writer;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.norconex.importer.ImporterRuntimeException;
+import com.norconex.importer.doc.Doc;
+
+/**
+ * <p>
+ * Wraps a parser that is not thread-safe so that each concurrent parsing
+ * is done by its own parser instance. Instances are obtained from the
+ * supplied {@link Supplier} and kept in a lock-free pool once they are
+ * done parsing, for reuse by the next thread.  The number of instances
+ * created never exceeds the maximum number of documents parsed
+ * concurrently.
+ * </p>
+ * <p>
+ * The first instance is created right away and is used as the
+ * "prototype" representing the pooled parser (e.g., when saving to XML).
+ * Parse hints received through {@link #initialize(ParseHints)} are
+ * applied to every instance implementing {@link IHintsAwareParser}.
+ * Closing this parser closes every instance implementing
+ * {@link AutoCloseable}.
+ * </p>
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+public class PooledDocumentParser
+        implements IHintsAwareParser, AutoCloseable {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(PooledDocumentParser.class);
+
+    private final Supplier<IDocumentParser> supplier;
+    private final IDocumentParser prototype;
+    private final Deque<IDocumentParser> idle = new ConcurrentLinkedDeque<>();
+    private final Queue<IDocumentParser> instances =
+            new ConcurrentLinkedQueue<>();
+    private final AtomicInteger createdCount = new AtomicInteger();
+    private volatile ParseHints parseHints;
+
+    public PooledDocumentParser(Supplier<IDocumentParser> supplier) {
+        super();
+        this.supplier = Objects.requireNonNull(
+                supplier, "'supplier' must not be null.");
+        this.prototype = newParser();
+        idle.push(prototype);
+    }
+
+    /**
+     * Gets the first parser instance created, representing all others.
+     * @return parser
+     */
+    public IDocumentParser getPrototype() {
+        return prototype;
+    }
+    /**
+     * Gets how many parser instances were created so far.
+     * @return number of parser instances
+     */
+    public int getCreatedCount() {
+        return createdCount.get();
+    }
+    /**
+     * Gets how many parser instances are currently not in use.
+     * @return number of idle parser instances
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    @Override
+    public void initialize(ParseHints parseHints) {
+        this.parseHints = parseHints;
+        for (IDocumentParser parser : idle) {
+            initialize(parser, parseHints);
+        }
+    }
+
+    @Override
+    public List<Doc> parseDocument(Doc doc, Writer output)
+            throws DocumentParserException {
+        IDocumentParser parser = idle.pollFirst();
+        if (parser == null) {
+            parser = newParser();
+        }
+        try {
+            return parser.parseDocument(doc, output);
+        } finally {
+            idle.offerFirst(parser);
+        }
+    }
+
+    @Override
+    public void parseDocument(Doc doc, Writer output,
+            Consumer<Doc> embeddedDocConsumer)
+                    throws DocumentParserException {
+        IDocumentParser parser = idle.pollFirst();
+        if (parser == null) {
+            parser = newParser();
+        }
+        try {
+            parser.parseDocument(doc, output, embeddedDocConsumer);
+        } finally {
+            idle.offerFirst(parser);
+        }
+    }
+
+    private IDocumentParser newParser() {
+        IDocumentParser parser = supplier.get();
+        if (parser == null) {
+            throw new ImporterRuntimeException(
+                    "Parser supplier returned a null parser.");
+        }
+        createdCount.incrementAndGet();
+        instances.add(parser);
+        initialize(parser, parseHints);
+        return parser;
+    }
+
+    /**
+     * Closes every parser instance implementing {@link AutoCloseable},
+     * whether in use or not.
+     */
+    @Override
+    public void close() {
+        for (IDocumentParser parser : instances) {
+            if (parser instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) parser).close();
+                } catch (Exception e) {
+                    LOG.warn("Could not close parser: {}", parser, e);
+                }
+            }
+        }
+    }
+
+    private static void initialize(IDocumentParser parser, ParseHints hints) {
+        if (hints != null && parser instanceof IHintsAwareParser) {
+            ((IHintsAwareParser) parser).initialize(hints);
+        }
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (!(other instanceof PooledDocumentParser)) {
+            return false;
+        }
+        return Objects.equals(
+                prototype, ((PooledDocumentParser) other).prototype);
+    }
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(prototype);
+    }
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("prototype", prototype)
+                .append("createdCount", createdCount.get())
+                .toString();
+    }
+}
@@ -23,6 +23,8 @@ import java.io.Writer;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -33,6 +35,9 @@ import org.apache.commons.lang3.builder.ToStringStyle;
 import org.apache.tika.detect.Detector;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.exception.ZeroByteFileException;
+import org.apache.tika.fork.ForkParser;
+import org.apache.tika.io.TemporaryResources;
+import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaMetadataKeys;
 import org.apache.tika.mime.MediaType;
@@ -41,8 +46,10 @@ import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
 import org.apache.tika.parser.ParserDecorator;
 import org.apache.tika.parser.ocr.TesseractOCRConfig;
+import org.apache.tika.parser.ocr.TesseractOCRParser;
 import org.apache.tika.parser.pdf.PDFParserConfig;
 import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.ToTextContentHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.ContentHandler;
@@ -57,25 +64,36 @@ import com.norconex.commons.lang.io.CachedStreamFactory;
 import com.norconex.commons.lang.map.Properties;
 import com.norconex.importer.doc.Doc;
 import com.norconex.importer.doc.DocInfo;
+import com.norconex.importer.doc.DocMetadata;
 import com.norconex.importer.parser.DocumentParserException;
+import com.norconex.importer.parser.ForkConfig;
 import com.norconex.importer.parser.IHintsAwareParser;
+import com.norconex.importer.parser.MetadataConfig;
 import com.norconex.importer.parser.OCRConfig;
 import com.norconex.importer.parser.ParseHints;
 
 
 /**
  * Base class wrapping Apache Tika parser for use by the importer.
+ * When parsing out of process (see {@link ForkConfig}), closing
+ * this parser stops its worker processes. New ones are started
+ * if it is used again.
  * @author Pascal Essiembre
  */
-public class AbstractTikaParser implements IHintsAwareParser {
+public class AbstractTikaParser
+        implements IHintsAwareParser, AutoCloseable {
 
     private static final Logger LOG =
             LoggerFactory.getLogger(AbstractTikaParser.class);
 
     private final Parser parser;
     private TesseractOCRConfig ocrTesseractConfig;
+    // Image types Tesseract can OCR, resolved the first time needed.
+    private volatile Set<MediaType> ocrTypes;
     private ParseHints parseHints;
     private final ThreadSafeCacheableAutoDetectWrapper knownDetector;
+    private Parser forkedParser;
+    private ForkParser forkParser;
 
     /**
      * Creates a new Tika-based parser.
@@ -96,18 +114,39 @@ public class AbstractTikaParser implements IHintsAwareParser {
 
     @Override
     public void initialize(ParseHints parserHints) {
+        closeForkParser();
         this.parseHints = parserHints;
+        this.ocrTypes = null;
         if (parseHints == null) {
             this.parseHints = new ParseHints();
             return;
         }
         this.ocrTesseractConfig = toTesseractConfig(parseHints.getOcrConfig());
+        if (parseHints.getForkConfig().isEnabled()
+                && !parseHints.getExtractionBudgetConfig().isEmpty()) {
+            LOG.warn("Extraction budget limits are not enforced on "
+                    + "documents parsed out of process.");
+        }
     }
 
     @Override
     public final List<Doc> parseDocument(
             Doc doc, Writer output)
             throws DocumentParserException {
+        List<Doc> embeddedDocs = new ArrayList<>();
+        parseDocument(doc, output, embeddedDocs::add);
+        return embeddedDocs.isEmpty() ? null : embeddedDocs;
+    }
+
+    /**
+     * Parses a document, handing each embedded document to the supplied
+     * consumer as soon as it is extracted (when embedded documents
+     * are split).
+     */
+    @Override
+    public final void parseDocument(Doc doc, Writer output,
+            Consumer<Doc> embeddedDocConsumer)
+                    throws DocumentParserException {
 
         Metadata tikaMetadata = new Metadata();
         if (doc.getDocInfo().getContentType() == null) {
@@ -129,25 +168,48 @@ public class AbstractTikaParser implements IHintsAwareParser {
                 Long.toString(content.length()));
 
         RecursiveParser recursiveParser = null;
+        ExtractionBudget budget = ExtractionBudget.of(
+                parseHints.getExtractionBudgetConfig());
+        ScheduledOCR scheduledOCR = null;
+        // Embedded documents handed over while parsing may be parsed
+        // on this same thread, so the parent detection cache is restored
+        // when done.
+        ThreadSafeCacheableAutoDetectWrapper.Cache parentCache = null;
         try {
             if (knownDetector != null) {
-                knownDetector.initCache(doc.getReference(), contentType);
+                parentCache = knownDetector.initCache(
+                        doc.getReference(), contentType);
             }
 
             recursiveParser = createRecursiveParser(
                     doc.getReference(), contentType, output, doc.getMetadata(),
-                    content.getStreamFactory());
+                    content.getStreamFactory(), embeddedDocConsumer);
             ParseContext context = new ParseContext();
             context.set(Parser.class, recursiveParser);
 
             PDFParserConfig pdfConfig = new PDFParserConfig();
             OCRConfig ocrConfig = parseHints.getOcrConfig();
+            boolean forked = recursiveParser instanceof MergeEmbeddedParser
+                    && parseHints.getForkConfig().isForked(contentType);
+            // The parse context is serialized to worker processes
+            if (forked) {
+                budget = null;
+            } else if (budget != null) {
+                context.set(ExtractionBudget.class, budget);
+            }
             if (!ocrConfig.isEmpty()
                     && StringUtils.isNotBlank(ocrConfig.getPath())
                     && (StringUtils.isBlank(ocrConfig.getContentTypes())
                         || contentType.matches(ocrConfig.getContentTypes()))) {
                 context.set(TesseractOCRConfig.class, ocrTesseractConfig);
                 pdfConfig.setExtractInlineImages(true);
+                // Forked processes do their own OCR.
+                if (!forked && knownDetector != null) {
+                    scheduledOCR = new ScheduledOCR(ocrConfig.getScheduler(),
+                            getOCRTypes(context),
+                            ocrTesseractConfig.getLanguage());
+                    context.set(ScheduledOCR.class, scheduledOCR);
+                }
             } else {
                 pdfConfig.setOcrStrategy(PDFParserConfig.OCR_STRATEGY.NO_OCR);
             }
@@ -155,14 +217,88 @@ public class AbstractTikaParser implements IHintsAwareParser {
             context.set(PDFParserConfig.class, pdfConfig);
             modifyParseContext(context);
 
-            recursiveParser.parse(content,
-                    new BodyContentHandler(output),  tikaMetadata, context);
+            // Embedded documents being split need to be parsed in process.
+            if (forked) {
+                ForkParser fp;
+                synchronized (this) {
+                    fp = getForkParser();
+                    context.set(Parser.class, forkedParser);
+                }
+                try {
+                    fp.parse(content, newBodyContentHandler(output, budget),
+                            tikaMetadata, context);
+                } finally {
+                    addTikaMetadataToImporterMetadata(
+                            tikaMetadata, doc.getMetadata());
+                }
+            } else {
+                recursiveParser.parse(content,
+                        newBodyContentHandler(output, budget),
+                        tikaMetadata, context);
+            }
         } catch (ZeroByteFileException e) {
             LOG.warn("Document has no content: " + doc.getReference());
         } catch (Exception e) {
-            throw new DocumentParserException(e);
+            if (budget == null || !budget.isExceededBy(e)) {
+                throw new DocumentParserException(e);
+            }
+        } finally {
+            if (knownDetector != null) {
+                knownDetector.restoreCache(parentCache);
+            }
+            if (scheduledOCR != null) {
+                scheduledOCR.record();
+            }
+        }
+        if (budget != null && budget.isExceeded()) {
+            LOG.debug("Extraction budget reached ({}) for: {}",
+                    budget.getExceededLimit(), doc.getReference());
+            doc.getMetadata().set(DocMetadata.TRUNCATED, true);
+            doc.getMetadata().set(
+                    DocMetadata.TRUNCATED_REASON, budget.getExceededLimit());
+        }
+    }
+
+    private static ContentHandler newBodyContentHandler(
+            Writer writer, ExtractionBudget budget) {
+        if (budget == null) {
+            return new BodyContentHandler(writer);
+        }
+        return new BodyContentHandler(
+                budget.decorate(new ToTextContentHandler(writer)));
+    }
+
+    private Set<MediaType> getOCRTypes(ParseContext context) {
+        Set<MediaType> types = ocrTypes;
+        if (types == null) {
+            // Empty if Tesseract is not found.
+            types = new TesseractOCRParser().getSupportedTypes(context);
+            ocrTypes = types;
+        }
+        return types;
+    }
+
+    // Images subject to OCR go through the OCR scheduler, when enabled.
+    private void parseWithOCR(Parser wrappedParser, InputStream stream,
+            ContentHandler handler, Metadata tikaMeta, ParseContext context)
+                    throws IOException, SAXException, TikaException {
+        ScheduledOCR scheduledOCR = context.get(ScheduledOCR.class);
+        if (scheduledOCR == null) {
+            wrappedParser.parse(stream, handler, tikaMeta, context);
+            return;
+        }
+        TemporaryResources tmp = new TemporaryResources();
+        try {
+            TikaInputStream tis = TikaInputStream.get(stream, tmp);
+            if (scheduledOCR.isOCRType(knownDetector.detect(tis, tikaMeta))) {
+                scheduledOCR.parse(
+                        wrappedParser, tis, handler, tikaMeta, context);
+            } else {
+                wrappedParser.parse(tis, handler, tikaMeta, context);
+            }
+        } finally {
+            tmp.dispose();
         }
-        return recursiveParser.getEmbeddedDocuments();
     }
 
     /**
@@ -179,16 +315,20 @@ public class AbstractTikaParser implements IHintsAwareParser {
 
     protected void addTikaMetadataToImporterMetadata(
             Metadata tikaMeta, Properties metadata) {
+        MetadataConfig metaConfig = parseHints.getMetadataConfig();
         String[]  names = tikaMeta.names();
         for (int i = 0; i < names.length; i++) {
             String name = names[i];
-            if (TikaMetadataKeys.RESOURCE_NAME_KEY.equals(name)) {
+            if (TikaMetadataKeys.RESOURCE_NAME_KEY.equals(name)
+                    || !metaConfig.isFieldIncluded(name)) {
                 continue;
             }
-            List<String> nxValues = metadata.getStrings(name);
+            boolean ignoreSpaces = EqualsUtil.equalsAnyIgnoreCase(
+                    name, Metadata.CONTENT_TYPE, Metadata.CONTENT_ENCODING);
             String[] tikaValues = tikaMeta.getValues(name);
             for (String tikaValue : tikaValues) {
-                if (!containsSameValue(name, nxValues, tikaValue)) {
+                if (!containsSameValue(
+                        metadata.get(name), tikaValue, ignoreSpaces)) {
                     metadata.add(name, tikaValue);
                 } else {
                     metadata.set(name, tikaValue);
@@ -198,12 +338,13 @@ public class AbstractTikaParser implements IHintsAwareParser {
     }
 
     private boolean containsSameValue(
-            String name, List<String> nxValues, String tikaValue) {
-        if (EqualsUtil.equalsAnyIgnoreCase(
-                name, Metadata.CONTENT_TYPE, Metadata.CONTENT_ENCODING)) {
-            String tk = tikaValue.replaceAll("[\\s]", "");
+            List<String> nxValues, String tikaValue, boolean ignoreSpaces) {
+        if (nxValues == null) {
+            return false;
+        }
+        if (ignoreSpaces) {
             for (String nxValue : nxValues) {
-                if (nxValue.replaceAll("[\\s]", "").equalsIgnoreCase(tk)) {
+                if (equalsIgnoreCaseAndSpaces(nxValue, tikaValue)) {
                     return true;
                 }
             }
@@ -212,19 +353,108 @@ public class AbstractTikaParser implements IHintsAwareParser {
         return nxValues.contains(tikaValue);
     }
 
+    // Same as comparing values with white spaces removed, ignoring case,
+    // without creating new strings.
+    private static boolean equalsIgnoreCaseAndSpaces(String s1, String s2) {
+        if (s1 == null || s2 == null) {
+            return s1 == s2;
+        }
+        int i1 = 0;
+        int i2 = 0;
+        int len1 = s1.length();
+        int len2 = s2.length();
+        while (true) {
+            while (i1 < len1 && isRegexSpace(s1.charAt(i1))) {
+                i1++;
+            }
+            while (i2 < len2 && isRegexSpace(s2.charAt(i2))) {
+                i2++;
+            }
+            if (i1 == len1 || i2 == len2) {
+                return i1 == len1 && i2 == len2;
+            }
+            char c1 = s1.charAt(i1++);
+            char c2 = s2.charAt(i2++);
+            if (c1 != c2 && Character.toUpperCase(c1)
+                    != Character.toUpperCase(c2)
+                    && Character.toLowerCase(c1)
+                    != Character.toLowerCase(c2)) {
+                return false;
+            }
+        }
+    }
+
+    // Characters matched by the "\\s" regular expression class.
+    private static boolean isRegexSpace(char ch) {
+        return ch == ' ' || (ch >= '\t' && ch <= '\r');
+    }
+
     protected RecursiveParser createRecursiveParser(
             String reference, String contentType, Writer writer,
-            Properties metadata, CachedStreamFactory streamFactory) {
+            Properties metadata, CachedStreamFactory streamFactory,
+            Consumer<Doc> embeddedDocConsumer) {
         String splitRegex =
                 parseHints.getEmbeddedConfig().getSplitContentTypes();
         if (StringUtils.isNotBlank(splitRegex)
                 && contentType.matches(splitRegex)) {
-            return new SplitEmbbededParser(
-                    reference, this.parser, metadata, streamFactory);
+            return new SplitEmbbededParser(reference, this.parser,
+                    metadata, streamFactory, embeddedDocConsumer);
         }
         return new MergeEmbeddedParser(this.parser, writer, metadata);
     }
 
+    // Worker processes are only started the first time they are needed.
+    private synchronized ForkParser getForkParser() {
+        if (forkParser == null) {
+            ForkConfig cfg = parseHints.getForkConfig();
+            forkedParser = toForkableParser();
+            ForkParser fp = new ForkParser(
+                    AbstractTikaParser.class.getClassLoader(), forkedParser);
+            fp.setPoolSize(Math.max(1, cfg.getPoolSize()));
+            fp.setJavaCommand(cfg.toCommand());
+            fp.setServerParseTimeoutMillis(cfg.getParseTimeout());
+            fp.setMaxFilesProcessedPerServer(
+                    cfg.getMaxDocumentsPerWorker() > 0
+                            ? cfg.getMaxDocumentsPerWorker() : -1);
+            forkParser = fp;
+            LOG.info("Parsing out of process with {} for: {}",
+                    parser.getClass().getSimpleName(), cfg);
+        }
+        return forkParser;
+    }
+    /**
+     * Stops worker processes used to parse out of process, if any
+     * were started.
+     * @since 3.0.0
+     */
+    @Override
+    public void close() {
+        closeForkParser();
+    }
+    // Documents being parsed by worker processes are not affected.
+    private synchronized void closeForkParser() {
+        if (forkParser != null) {
+            forkParser.close();
+            forkParser = null;
+            forkedParser = null;
+        }
+    }
+
+    // The parser is sent to worker processes so it must be serializable.
+    // Our detector wrapper is not, so we use a copy with the original one.
+    private Parser toForkableParser() {
+        if (knownDetector == null) {
+            return parser;
+        }
+        AutoDetectParser orig = (AutoDetectParser) parser;
+        AutoDetectParser copy =
+                new AutoDetectParser(knownDetector.originalDetector);
+        copy.setMediaTypeRegistry(orig.getMediaTypeRegistry());
+        copy.setParsers(orig.getParsers());
+        copy.setFallback(orig.getFallback());
+        return copy;
+    }
+
     private TesseractOCRConfig toTesseractConfig(OCRConfig ocrConfig) {
         if (ocrConfig == null || StringUtils.isBlank(ocrConfig.getPath())) {
             return null;
@@ -296,16 +526,18 @@ public class AbstractTikaParser implements IHintsAwareParser {
         private final String reference;
         private final Properties metadata;
         private final CachedStreamFactory streamFactory;
+        private final Consumer<Doc> embeddedDocConsumer;
         private boolean isMasterDoc = true;
         private String masterType;
         private int embedCount;
-        private List<Doc> embeddedDocs;
         public SplitEmbbededParser(String reference, Parser parser,
-                Properties metadata, CachedStreamFactory streamFactory) {
+                Properties metadata, CachedStreamFactory streamFactory,
+                Consumer<Doc> embeddedDocConsumer) {
             super(parser);
             this.streamFactory = streamFactory;
             this.reference = reference;
             this.metadata = metadata;
+            this.embeddedDocConsumer = embeddedDocConsumer;
         }
         @Override
         public void parse(InputStream stream, ContentHandler handler,
@@ -318,8 +550,12 @@ public class AbstractTikaParser implements IHintsAwareParser {
                     masterType =
                             knownDetector.detect(stream, tikaMeta).toString();
                 }
-                super.parse(stream, handler, tikaMeta, context);
-                addTikaMetadataToImporterMetadata(tikaMeta, metadata);
+                try {
+                    parseWithOCR(getWrappedParser(),
+                            stream, handler, tikaMeta, context);
+                } finally {
+                    addTikaMetadataToImporterMetadata(tikaMeta, metadata);
+                }
             } else {
 
                 boolean hasNoExtractFilter = hasNoExtractCondition();
@@ -331,11 +567,12 @@ public class AbstractTikaParser implements IHintsAwareParser {
                         return;
                     }
                 }
+                ExtractionBudget budget = context.get(ExtractionBudget.class);
+                if (budget != null && !budget.acceptEmbedded()) {
+                    return;
+                }
 
                 embedCount++;
-                if (embeddedDocs == null) {
-                    embeddedDocs = new ArrayList<>();
-                }
 
                 Properties embedMeta = new Properties();
                 addTikaMetadataToImporterMetadata(tikaMeta, embedMeta);
@@ -361,15 +598,12 @@ public class AbstractTikaParser implements IHintsAwareParser {
 //                }
 //                embedMeta.setEmbeddedParentRootReference(rootRef);
 
-                embeddedDocs.add(embedDoc);
+                // Handed over right away so it can be processed
+                // before the next one is extracted.
+                embeddedDocConsumer.accept(embedDoc);
             }
         }
 
-        @Override
-        public List<Doc> getEmbeddedDocuments() {
-            return embeddedDocs;
-        }
-
         private DocInfo resolveEmbeddedResourceName(
                 Metadata tikaMeta, Properties embedMeta, int embedCount) {
 
@@ -456,7 +690,7 @@ public class AbstractTikaParser implements IHintsAwareParser {
         private final Properties metadata;
 
         private final LinkedList<String> hierarchy = new LinkedList<>();
-
+        private boolean isMasterDoc = true;
 
         public MergeEmbeddedParser(Parser parser,
                 Writer writer, Properties metadata) {
@@ -477,23 +711,28 @@ public class AbstractTikaParser implements IHintsAwareParser {
                 hierarchy.add(currentType);
                 performExtract = performExtract(parentType, currentType);
             }
+            ExtractionBudget budget = context.get(ExtractionBudget.class);
+            if (isMasterDoc) {
+                isMasterDoc = false;
+            } else if (performExtract && budget != null) {
+                performExtract = budget.acceptEmbedded();
+            }
             if (performExtract) {
-                super.parse(stream,
-                        new BodyContentHandler(writer), tikaMeta, context);
-                addTikaMetadataToImporterMetadata(tikaMeta, metadata);
+                try {
+                    parseWithOCR(getWrappedParser(), stream,
+                            newBodyContentHandler(writer, budget),
+                            tikaMeta, context);
+                } finally {
+                    addTikaMetadataToImporterMetadata(tikaMeta, metadata);
+                }
             }
             if (hasNoExtractFilter) {
                 hierarchy.pollLast();
             }
         }
-        @Override
-        public List<Doc> getEmbeddedDocuments() {
-            return null;
-        }
     }
 
     protected interface RecursiveParser extends Parser {
-        List<Doc> getEmbeddedDocuments();
     }
 
     private boolean hasNoExtractCondition() {
@@ -567,7 +806,8 @@ public class AbstractTikaParser implements IHintsAwareParser {
             super();
             this.originalDetector = originalDetector;
         }
-        void initCache(String reference, String contentType) {
+        Cache initCache(String reference, String contentType) {
+            Cache previous = threadCache.get();
             Cache cache = new Cache();
             cache.rootReference = reference;
             cache.currentReference = reference;
@@ -577,6 +817,14 @@ public class AbstractTikaParser implements IHintsAwareParser {
                         StringUtils.substringAfter(contentType, "/"));
             }
             threadCache.set(cache);
+            return previous;
+        }
+        void restoreCache(Cache previous) {
+            if (previous == null) {
+                threadCache.remove();
+            } else {
+                threadCache.set(previous);
+            }
         }
         @Override
         public MediaType detect(InputStream input, Metadata metadata)
@@ -630,6 +878,8 @@ public class AbstractTikaParser implements IHintsAwareParser {
         ocr.setContentTypes(ocrConfig.getContentTypes());
         ocr.setLanguages(ocrConfig.getLanguages());
         ocr.setPath(ocrConfig.getPath());
+        ocr.setMaxConcurrent(ocrConfig.getMaxConcurrent());
+        ocr.setCacheSize(ocrConfig.getCacheSize());
         initialize(parseHints);
     }
     /**
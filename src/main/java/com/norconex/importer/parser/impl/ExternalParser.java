@@ -29,6 +29,7 @@ import com.norconex.commons.lang.xml.IXMLConfigurable;
 import com.norconex.commons.lang.xml.XML;
 import com.norconex.importer.doc.Doc;
 import com.norconex.importer.handler.ExternalHandler;
+import com.norconex.importer.handler.ExternalWorkerConfig;
 import com.norconex.importer.handler.HandlerDoc;
 import com.norconex.importer.handler.ImporterHandlerException;
 import com.norconex.importer.handler.transformer.impl.ExternalTransformer;
@@ -80,6 +81,15 @@ import com.norconex.importer.parser.IDocumentParser;
  *     <!-- repeat variable tag as needed -->
  *   </environment>
  *
+ *   <workers
+ *       enabled="[false|true]"
+ *       poolSize="(maximum number of worker processes)"
+ *       timeout="(milliseconds a worker can take per document)"
+ *       maxDocumentsPerWorker="(documents handled before a worker
+ *           is replaced)"
+ *       healthCheckInterval="(milliseconds a worker can be idle
+ *           before being checked)"/>
+ *
  * </parser>
  * }
  *
@@ -108,7 +118,8 @@ import com.norconex.importer.parser.IDocumentParser;
  * @since 2.2.0
  */
 @SuppressWarnings("javadoc")
-public class ExternalParser implements IDocumentParser, IXMLConfigurable {
+public class ExternalParser
+        implements IDocumentParser, IXMLConfigurable, AutoCloseable {
 
     private final ExternalHandler h = new ExternalHandler();
 
@@ -146,6 +157,31 @@ public class ExternalParser implements IDocumentParser, IXMLConfigurable {
         h.setTempDir(tempDir);
     }
 
+    /**
+     * Gets the long-lived worker processes configuration (never
+     * <code>null</code>). See {@link ExternalHandler}.
+     * @return worker configuration
+     * @since 3.0.0
+     */
+    public ExternalWorkerConfig getWorkerConfig() {
+        return h.getWorkerConfig();
+    }
+    /**
+     * Stops long-lived worker processes, if any were started.
+     * @since 3.0.0
+     */
+    public void closeWorkers() {
+        h.closeWorkers();
+    }
+    /**
+     * Same as {@link #closeWorkers()}.
+     * @since 3.0.0
+     */
+    @Override
+    public void close() {
+        closeWorkers();
+    }
+
     /**
      * Gets metadata extraction patterns. See class documentation.
      * @return map of patterns and field names
@@ -0,0 +1,190 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.parser.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tika.sax.ContentHandlerDecorator;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import com.norconex.importer.parser.ExtractionBudgetConfig;
+
+/**
+ * Tracks what was extracted so far from a document against its
+ * configured limits. Limits on characters, pages and time are enforced
+ * by a content handler decorator which throws an exception to stop
+ * the parser. One instance is used per document being parsed.
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+final class ExtractionBudget {
+
+    static final String MAX_CHARACTERS = "maxCharacters";
+    static final String MAX_PAGES = "maxPages";
+    static final String MAX_EMBEDDED_DOCUMENTS = "maxEmbeddedDocuments";
+    static final String MAX_PARSE_TIME = "maxParseTime";
+
+    private final ExtractionBudgetConfig config;
+    private final long deadline;
+    private long characters;
+    private int pages;
+    private int embeddedDocuments;
+    private String exceededLimit;
+
+    private ExtractionBudget(ExtractionBudgetConfig config) {
+        this.config = config;
+        if (config.getMaxParseTime() > 0) {
+            deadline = System.nanoTime()
+                    + TimeUnit.MILLISECONDS.toNanos(config.getMaxParseTime());
+        } else {
+            deadline = 0;
+        }
+    }
+
+    /**
+     * Creates a new budget, or returns <code>null</code> if the
+     * configuration has no limits.
+     * @param config extraction budget configuration
+     * @return extraction budget or <code>null</code>
+     */
+    static ExtractionBudget of(ExtractionBudgetConfig config) {
+        if (config == null || config.isEmpty()) {
+            return null;
+        }
+        return new ExtractionBudget(config);
+    }
+
+    ContentHandler decorate(ContentHandler handler) {
+        return new BudgetContentHandler(handler);
+    }
+
+    /**
+     * Counts an embedded document about to be extracted.
+     * @return <code>false</code> if the embedded document should be
+     *     skipped for exceeding the budget
+     */
+    boolean acceptEmbedded() {
+        int max = config.getMaxEmbeddedDocuments();
+        if (max > 0 && embeddedDocuments >= max) {
+            exceeded(MAX_EMBEDDED_DOCUMENTS);
+            return false;
+        }
+        embeddedDocuments++;
+        return true;
+    }
+
+    boolean isExceeded() {
+        return exceededLimit != null;
+    }
+    /**
+     * Gets the name of the first limit reached, if any.
+     * @return limit name or <code>null</code>
+     */
+    String getExceededLimit() {
+        return exceededLimit;
+    }
+
+    /**
+     * Whether the given exception (or one of its causes) was thrown
+     * for exceeding this budget.
+     * @param e exception
+     * @return <code>true</code> if caused by exceeding this budget
+     */
+    boolean isExceededBy(Throwable e) {
+        Throwable t = e;
+        while (t != null) {
+            if (t instanceof BudgetExceededException
+                    && ((BudgetExceededException) t).budget == this) {
+                return true;
+            }
+            t = t.getCause();
+        }
+        return false;
+    }
+
+    private BudgetExceededException exceeded(String limit) {
+        if (exceededLimit == null) {
+            exceededLimit = limit;
+        }
+        return new BudgetExceededException(this, limit);
+    }
+
+    private void checkTime() throws SAXException {
+        if (deadline != 0 && System.nanoTime() - deadline > 0) {
+            throw exceeded(MAX_PARSE_TIME);
+        }
+    }
+
+    private class BudgetContentHandler extends ContentHandlerDecorator {
+        public BudgetContentHandler(ContentHandler handler) {
+            super(handler);
+        }
+        @Override
+        public void startElement(String uri, String localName, String name,
+                Attributes atts) throws SAXException {
+            checkTime();
+            if ("div".equals(localName)
+                    && "page".equals(atts.getValue("class"))) {
+                pages++;
+                if (config.getMaxPages() > 0 && pages > config.getMaxPages()) {
+                    throw exceeded(MAX_PAGES);
+                }
+            }
+            super.startElement(uri, localName, name, atts);
+        }
+        @Override
+        public void characters(char[] ch, int start, int length)
+                throws SAXException {
+            write(ch, start, length, false);
+        }
+        @Override
+        public void ignorableWhitespace(char[] ch, int start, int length)
+                throws SAXException {
+            write(ch, start, length, true);
+        }
+        // Text up to the character limit is written before stopping.
+        private void write(char[] ch, int start, int length,
+                boolean ignorable) throws SAXException {
+            checkTime();
+            long max = config.getMaxCharacters();
+            int allowed = length;
+            if (max > 0 && characters + length > max) {
+                allowed = (int) Math.max(0, max - characters);
+            }
+            characters += allowed;
+            if (allowed > 0) {
+                if (ignorable) {
+                    super.ignorableWhitespace(ch, start, allowed);
+                } else {
+                    super.characters(ch, start, allowed);
+                }
+            }
+            if (allowed < length) {
+                throw exceeded(MAX_CHARACTERS);
+            }
+        }
+    }
+
+    static class BudgetExceededException extends SAXException {
+        private static final long serialVersionUID = 1L;
+        private final transient ExtractionBudget budget;
+        BudgetExceededException(ExtractionBudget budget, String limit) {
+            super("Extraction budget exceeded: " + limit);
+            this.budget = budget;
+        }
+    }
+}
@@ -0,0 +1,488 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.parser.impl;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Calendar;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentInformation;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.tika.metadata.PDF;
+import org.apache.tika.metadata.PagedText;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.norconex.commons.lang.map.Properties;
+import com.norconex.commons.lang.xml.IXMLConfigurable;
+import com.norconex.commons.lang.xml.XML;
+import com.norconex.importer.doc.Doc;
+import com.norconex.importer.doc.DocMetadata;
+import com.norconex.importer.parser.DocumentParserException;
+import com.norconex.importer.parser.ExtractionBudgetConfig;
+import com.norconex.importer.parser.GenericDocumentParserFactory;
+import com.norconex.importer.parser.IHintsAwareParser;
+import com.norconex.importer.parser.OCRConfig;
+import com.norconex.importer.parser.ParseHints;
+
+/**
+ * <p>
+ * Extracts text from large PDFs using many threads. A PDF having at least
+ * a minimum size and number of pages is partitioned into ranges of pages which are
+ * extracted concurrently on a fork/join pool, each from its own
+ * view of the PDF. Extracted text is written in page order.
+ * Other PDFs are parsed like any other document, with
+ * {@link FallbackParser}.
+ * </p>
+ * <p>
+ * Text is extracted with PDFBox directly and may be formatted slightly
+ * differently than when parsed by Tika. Only the main document information
+ * is extracted as metadata and embedded files are not extracted.
+ * Encrypted PDFs, or PDFs subject to OCR, are always parsed with
+ * {@link FallbackParser}. Character, page and parse time limits of
+ * the extraction budget are honored.
+ * </p>
+ * <p>
+ * Threads are released when this parser is closed (e.g., when
+ * {@link GenericDocumentParserFactory} is closed).
+ * </p>
+ * <p>
+ * This parser can be made configurable via XML. See
+ * {@link GenericDocumentParserFactory} for general indications how
+ * to configure parsers.
+ * </p>
+ *
+ * {@nx.xml.usage
+ * <parser contentType="application/pdf"
+ *     class="com.norconex.importer.parser.impl.ParallelPDFParser" >
+ *   <minSize>
+ *     (Minimum size in bytes a PDF must have to be extracted
+ *     concurrently. Smaller PDFs are not loaded to count their pages.
+ *     Default is 1048576 bytes, i.e. 1 MB.)
+ *   </minSize>
+ *   <minPages>
+ *     (Minimum number of pages a PDF must have to be extracted
+ *     concurrently. Default is 50.)
+ *   </minPages>
+ *   <pagesPerTask>
+ *     (Number of pages extracted by each concurrent task. Default is 20.)
+ *   </pagesPerTask>
+ *   <threads>
+ *     (Maximum number of threads extracting pages, shared by all
+ *     documents. Default is the number of available processors.)
+ *   </threads>
+ * </parser>
+ * }
+ *
+ * {@nx.xml.example
+ * <parser contentType="application/pdf"
+ *     class="com.norconex.importer.parser.impl.ParallelPDFParser" >
+ *   <minPages>100</minPages>
+ *   <threads>4</threads>
+ * </parser>
+ * }
+ * <p>
+ * The above example extracts text from PDFs having 100 pages or more
+ * using 4 threads.
+ * </p>
+ *
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+@SuppressWarnings("javadoc")
+public class ParallelPDFParser
+        implements IHintsAwareParser, IXMLConfigurable, AutoCloseable {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(ParallelPDFParser.class);
+
+    public static final long DEFAULT_MIN_SIZE = 1024L * 1024L;
+    public static final int DEFAULT_MIN_PAGES = 50;
+    public static final int DEFAULT_PAGES_PER_TASK = 20;
+
+    private long minSize = DEFAULT_MIN_SIZE;
+    private int minPages = DEFAULT_MIN_PAGES;
+    private int pagesPerTask = DEFAULT_PAGES_PER_TASK;
+    private int threads;
+
+    private transient ParseHints parseHints = new ParseHints();
+    private transient FallbackParser sequentialParser;
+    private transient ForkJoinPool pool;
+
+    /**
+     * Gets the minimum size in bytes a PDF must have to be
+     * extracted concurrently. Smaller PDFs are parsed with
+     * {@link FallbackParser} without first being loaded to count
+     * their pages.
+     * @return minimum size in bytes
+     */
+    public long getMinSize() {
+        return minSize;
+    }
+    /**
+     * Sets the minimum size in bytes a PDF must have to be
+     * extracted concurrently. Smaller PDFs are parsed with
+     * {@link FallbackParser} without first being loaded to count
+     * their pages.
+     * @param minSize minimum size in bytes
+     */
+    public void setMinSize(long minSize) {
+        this.minSize = minSize;
+    }
+
+    /**
+     * Gets the minimum number of pages a PDF must have to be
+     * extracted concurrently.
+     * @return minimum number of pages
+     */
+    public int getMinPages() {
+        return minPages;
+    }
+    /**
+     * Sets the minimum number of pages a PDF must have to be
+     * extracted concurrently.
+     * @param minPages minimum number of pages
+     */
+    public void setMinPages(int minPages) {
+        this.minPages = minPages;
+    }
+
+    /**
+     * Gets the number of pages extracted by each concurrent task.
+     * @return number of pages per task
+     */
+    public int getPagesPerTask() {
+        return pagesPerTask;
+    }
+    /**
+     * Sets the number of pages extracted by each concurrent task.
+     * @param pagesPerTask number of pages per task
+     */
+    public void setPagesPerTask(int pagesPerTask) {
+        this.pagesPerTask = pagesPerTask;
+    }
+
+    /**
+     * Gets the maximum number of threads extracting pages, shared by all
+     * documents. Zero or less uses the number of available processors
+     * (default).
+     * @return number of threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+    /**
+     * Sets the maximum number of threads extracting pages, shared by all
+     * documents. Zero or less uses the number of available processors.
+     * @param threads number of threads
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    @Override
+    public synchronized void initialize(ParseHints parseHints) {
+        this.parseHints = parseHints == null ? new ParseHints() : parseHints;
+        if (sequentialParser != null) {
+            sequentialParser.initialize(this.parseHints);
+        }
+    }
+
+    @Override
+    public List<Doc> parseDocument(Doc doc, Writer output)
+            throws DocumentParserException {
+        int pageCount = parallelPageCount(doc);
+        if (pageCount <= 0) {
+            return getSequentialParser().parseDocument(doc, output);
+        }
+        extractConcurrently(doc, pageCount, output);
+        return null;
+    }
+    @Override
+    public void parseDocument(Doc doc, Writer output,
+            Consumer<Doc> embeddedDocConsumer)
+                    throws DocumentParserException {
+        int pageCount = parallelPageCount(doc);
+        if (pageCount <= 0) {
+            getSequentialParser().parseDocument(
+                    doc, output, embeddedDocConsumer);
+            return;
+        }
+        extractConcurrently(doc, pageCount, output);
+    }
+
+    // Returns the number of pages if the PDF should be extracted
+    // concurrently, else zero. Also extracts metadata in the former case.
+    private int parallelPageCount(Doc doc) throws DocumentParserException {
+        OCRConfig ocr = parseHints.getOcrConfig();
+        String contentType = Objects.toString(
+                doc.getDocInfo().getContentType(), "");
+        if (StringUtils.isNotBlank(ocr.getPath())
+                && (StringUtils.isBlank(ocr.getContentTypes())
+                        || contentType.matches(ocr.getContentTypes()))) {
+            return 0;
+        }
+        // Loading a PDF just to count its pages is costly, so small
+        // ones are not worth it.
+        if (doc.getInputStream().length() < minSize) {
+            return 0;
+        }
+        try (PDDocument pdf = PDDocument.load(doc.getInputStream(),
+                MemoryUsageSetting.setupTempFileOnly())) {
+            int pageCount = pdf.getNumberOfPages();
+            if (pdf.isEncrypted() || pageCount < Math.max(2, minPages)) {
+                return 0;
+            }
+            addMetadata(pdf, doc.getMetadata());
+            return pageCount;
+        } catch (IOException e) {
+            LOG.debug("Could not load PDF, parsing it with fallback parser: {}",
+                    doc.getReference(), e);
+            return 0;
+        }
+    }
+
+    private void extractConcurrently(Doc doc, int pageCount, Writer output)
+            throws DocumentParserException {
+        ExtractionBudgetConfig budget = parseHints.getExtractionBudgetConfig();
+        String truncatedReason = null;
+        int lastPage = pageCount;
+        if (budget.getMaxPages() > 0 && budget.getMaxPages() < pageCount) {
+            lastPage = budget.getMaxPages();
+            truncatedReason = ExtractionBudget.MAX_PAGES;
+        }
+        long deadline = budget.getMaxParseTime() > 0 ? System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(budget.getMaxParseTime()) : 0;
+        long charsLeft = budget.getMaxCharacters() > 0
+                ? budget.getMaxCharacters() : Long.MAX_VALUE;
+
+        ForkJoinPool fjp = getPool();
+        // Ranges are submitted ahead of the one being written, up to
+        // a limit, so extracted text does not pile up in memory.
+        int maxInFlight = fjp.getParallelism() * 2;
+        int range = Math.max(1, pagesPerTask);
+        Deque<Future<String>> inFlight = new ArrayDeque<>();
+        Path file = null;
+        try {
+            file = Files.createTempFile("importer-pdf-", ".pdf");
+            // Not closed: the document content is owned by the caller
+            Files.copy(doc.getInputStream(), file,
+                    StandardCopyOption.REPLACE_EXISTING);
+            int nextPage = 1;
+            while (nextPage <= lastPage || !inFlight.isEmpty()) {
+                while (nextPage <= lastPage && inFlight.size() < maxInFlight) {
+                    int endPage = Math.min(lastPage, nextPage + range - 1);
+                    inFlight.add(fjp.submit(
+                            newRangeTask(file, nextPage, endPage)));
+                    nextPage = endPage + 1;
+                }
+                String text = inFlight.poll().get();
+                if (deadline != 0 && System.nanoTime() - deadline > 0) {
+                    truncatedReason = ExtractionBudget.MAX_PARSE_TIME;
+                    break;
+                }
+                if (text.length() > charsLeft) {
+                    output.write(text, 0, (int) charsLeft);
+                    truncatedReason = ExtractionBudget.MAX_CHARACTERS;
+                    break;
+                }
+                output.write(text);
+                charsLeft -= text.length();
+            }
+            output.flush();
+        } catch (ExecutionException e) {
+            throw new DocumentParserException(
+                    "Could not extract PDF text: " + doc.getReference(),
+                    e.getCause());
+        } catch (IOException e) {
+            throw new DocumentParserException(
+                    "Could not extract PDF text: " + doc.getReference(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DocumentParserException(
+                    "Interrupted while extracting PDF text: "
+                            + doc.getReference(), e);
+        } finally {
+            discard(inFlight);
+            deleteQuietly(file);
+        }
+        if (truncatedReason != null) {
+            doc.getMetadata().set(DocMetadata.TRUNCATED, true);
+            doc.getMetadata().set(
+                    DocMetadata.TRUNCATED_REASON, truncatedReason);
+        }
+    }
+
+    // Each task has its own view of the PDF since PDDocument
+    // is not thread-safe.
+    private Callable<String> newRangeTask(
+            Path file, int startPage, int endPage) {
+        return () -> {
+            try (PDDocument pdf = PDDocument.load(file.toFile(),
+                    MemoryUsageSetting.setupTempFileOnly())) {
+                PDFTextStripper stripper = new PDFTextStripper();
+                stripper.setStartPage(startPage);
+                stripper.setEndPage(endPage);
+                stripper.setSuppressDuplicateOverlappingText(true);
+                return stripper.getText(pdf);
+            }
+        };
+    }
+
+    // Waits for tasks no longer needed so the temporary file
+    // can be deleted.
+    private void discard(Deque<Future<String>> inFlight) {
+        for (Future<String> future : inFlight) {
+            future.cancel(false);
+        }
+        for (Future<String> future : inFlight) {
+            try {
+                if (!future.isCancelled()) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                // already failing or no longer needed
+            }
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOG.warn("Could not delete temporary file: {}", file, e);
+        }
+    }
+
+    // Same field names as when parsed by Tika.
+    private void addMetadata(PDDocument pdf, Properties metadata) {
+        PDDocumentInformation info = pdf.getDocumentInformation();
+        addMetadata(metadata,
+                TikaCoreProperties.TITLE.getName(), info.getTitle());
+        addMetadata(metadata,
+                TikaCoreProperties.CREATOR.getName(), info.getAuthor());
+        addMetadata(metadata,
+                TikaCoreProperties.CREATOR_TOOL.getName(), info.getCreator());
+        addMetadata(metadata,
+                TikaCoreProperties.KEYWORDS.getName(), info.getKeywords());
+        addMetadata(metadata, "subject", info.getSubject());
+        addMetadata(metadata, PDF.PRODUCER.getName(), info.getProducer());
+        addMetadata(metadata,
+                TikaCoreProperties.CREATED.getName(), info.getCreationDate());
+        addMetadata(metadata, TikaCoreProperties.MODIFIED.getName(),
+                info.getModificationDate());
+        addMetadata(metadata,
+                PagedText.N_PAGES.getName(), pdf.getNumberOfPages());
+        addMetadata(metadata, PDF.PDF_VERSION.getName(), pdf.getVersion());
+    }
+    private void addMetadata(Properties metadata, String name, Object value) {
+        Object val = value;
+        if (val instanceof Calendar) {
+            val = ((Calendar) val).toInstant().toString();
+        }
+        if (val != null && StringUtils.isNotBlank(val.toString())
+                && parseHints.getMetadataConfig().isFieldIncluded(name)) {
+            metadata.set(name, val.toString());
+        }
+    }
+
+    private synchronized FallbackParser getSequentialParser() {
+        if (sequentialParser == null) {
+            sequentialParser = new FallbackParser();
+            sequentialParser.initialize(parseHints);
+        }
+        return sequentialParser;
+    }
+
+    private synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(threads > 0
+                    ? threads : Runtime.getRuntime().availableProcessors());
+        }
+        return pool;
+    }
+
+    /**
+     * Shuts down the threads extracting pages and closes the fallback
+     * parser. This parser can still be used afterwards, in which
+     * case new threads are created as needed.
+     */
+    @Override
+    public synchronized void close() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+        if (sequentialParser != null) {
+            sequentialParser.close();
+        }
+    }
+
+    @Override
+    public void loadFromXML(XML xml) {
+        setMinSize(xml.getLong("minSize", minSize));
+        setMinPages(xml.getInteger("minPages", minPages));
+        setPagesPerTask(xml.getInteger("pagesPerTask", pagesPerTask));
+        setThreads(xml.getInteger("threads", threads));
+    }
+    @Override
+    public void saveToXML(XML xml) {
+        xml.addElement("minSize", minSize);
+        xml.addElement("minPages", minPages);
+        xml.addElement("pagesPerTask", pagesPerTask);
+        xml.addElement("threads", threads);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        return EqualsBuilder.reflectionEquals(this, other);
+    }
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this);
+    }
+    @Override
+    public String toString() {
+        return new ReflectionToStringBuilder(
+                this, ToStringStyle.SHORT_PREFIX_STYLE).toString();
+    }
+}
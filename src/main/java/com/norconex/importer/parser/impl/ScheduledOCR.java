@@ -0,0 +1,142 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.parser.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.TeeContentHandler;
+import org.apache.tika.sax.XHTMLContentHandler;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import com.norconex.importer.parser.OCRScheduler;
+
+/**
+ * OCRs the images of a document through an {@link OCRScheduler}:
+ * images already OCR'd (identical digest and languages) get their text
+ * from the scheduler cache, others wait for their turn according to
+ * the document priority. Tracks the OCR time of the document.
+ * One instance is used per document being parsed.
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+final class ScheduledOCR {
+
+    private final OCRScheduler scheduler;
+    private final Set<MediaType> ocrTypes;
+    private final String keySuffix;
+    private final long priority;
+    private long nanos;
+    private long imageBytes;
+    private long textLength;
+    private int imageCount;
+
+    ScheduledOCR(OCRScheduler scheduler,
+            Set<MediaType> ocrTypes, String languages) {
+        this.scheduler = scheduler;
+        this.ocrTypes = ocrTypes;
+        this.keySuffix = "|" + StringUtils.trimToEmpty(languages);
+        this.priority = scheduler.nextPriority();
+    }
+
+    /**
+     * Whether the given content type is subject to OCR.
+     * @param type content type
+     * @return <code>true</code> if subject to OCR
+     */
+    boolean isOCRType(MediaType type) {
+        return type != null && ocrTypes.contains(type.getBaseType());
+    }
+
+    /**
+     * Parses an image subject to OCR.
+     */
+    void parse(Parser parser, TikaInputStream image, ContentHandler handler,
+            Metadata tikaMeta, ParseContext context)
+                    throws IOException, SAXException, TikaException {
+        // spools the image to a file, from which it is then read
+        Path file = image.getPath();
+        String key;
+        try (InputStream is = Files.newInputStream(file)) {
+            key = DigestUtils.sha256Hex(is) + keySuffix;
+        }
+        imageCount++;
+        imageBytes += Files.size(file);
+
+        String text = scheduler.getCachedText(key);
+        if (text != null) {
+            writeText(text, handler, tikaMeta);
+            textLength += text.length();
+            return;
+        }
+
+        try {
+            scheduler.acquire(priority);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                    "Interrupted while waiting to OCR an image.");
+        }
+        long start = System.nanoTime();
+        StringWriter ocrText = new StringWriter();
+        try {
+            parser.parse(image, new TeeContentHandler(
+                    handler, new BodyContentHandler(ocrText)),
+                    tikaMeta, context);
+        } finally {
+            scheduler.release();
+            nanos += System.nanoTime() - start;
+        }
+        // only complete results make it here to be cached
+        text = ocrText.toString();
+        scheduler.cacheText(key, text);
+        textLength += text.length();
+    }
+
+    /**
+     * Records this document OCR time, if it had images subject to OCR.
+     */
+    void record() {
+        if (imageCount > 0) {
+            scheduler.recordDocument(nanos, imageBytes, textLength);
+        }
+    }
+
+    // Same structure as what the Tesseract parser produces.
+    private void writeText(String text, ContentHandler handler,
+            Metadata tikaMeta) throws SAXException {
+        XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, tikaMeta);
+        xhtml.startDocument();
+        xhtml.startElement("div", "class", "ocr");
+        xhtml.characters(text);
+        xhtml.endElement("div");
+        xhtml.endDocument();
+    }
+}
@@ -17,6 +17,10 @@ package com.norconex.importer.response;
 /**
  * Processes an importer response to modify it or perform other actions
  * as required before it is returned.
+ * When documents are submitted with
+ * {@link com.norconex.importer.Importer#submit Importer#submit},
+ * the same processor instance is invoked concurrently from batch threads
+ * and must therefore be thread-safe.
  * @author Pascal Essiembre
  * @since 2.0.0
  */
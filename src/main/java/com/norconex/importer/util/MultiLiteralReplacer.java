@@ -0,0 +1,383 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.norconex.commons.lang.text.TextMatcher;
+
+/**
+ * <p>
+ * Applies a list of text replacements one after the other, the same
+ * as invoking {@link TextMatcher#replace(String, String)} for each of them,
+ * but scanning the text only once for consecutive replacements of literal
+ * values (Aho-Corasick algorithm), instead of once per replacement.
+ * </p>
+ * <p>
+ * Literal values are those of partial non-regular expression matchers,
+ * or partial regular expressions without special characters, matched with
+ * or without case sensitivity. A literal replacement is only scanned
+ * with others when doing so gives the exact same result as applying them
+ * one after the other (i.e., when their values cannot overlap each other
+ * or be created by previous replacements). Other replacements
+ * are applied individually, in order.
+ * </p>
+ * <p>
+ * Instances are immutable and thread-safe.
+ * </p>
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+public final class MultiLiteralReplacer {
+
+    /**
+     * Minimum number of consecutive literal replacements to be scanned
+     * together. Fewer ones are applied individually.
+     */
+    public static final int MIN_GROUP_SIZE = 4;
+
+    private static final String REGEX_SPECIAL_CHARS = "\\^$.|?*+()[]{}";
+    private static final int FOLD_NONE = 0;
+    private static final int FOLD_ASCII = 1;
+    private static final int FOLD_UNICODE = 2;
+
+    private final List<UnaryOperator<String>> stages;
+    private final int groupCount;
+
+    MultiLiteralReplacer(List<Rule> rules) {
+        List<UnaryOperator<String>> stgs = new ArrayList<>();
+        List<Rule> group = new ArrayList<>();
+        int groups = 0;
+        for (Rule rule : rules) {
+            if (rule.literal != null && canJoin(group, rule)) {
+                group.add(rule);
+                continue;
+            }
+            groups += addGroup(stgs, group);
+            group.clear();
+            if (rule.literal != null) {
+                group.add(rule);
+            } else {
+                stgs.add(rule.fallback);
+            }
+        }
+        groups += addGroup(stgs, group);
+        this.stages = Collections.unmodifiableList(stgs);
+        this.groupCount = groups;
+    }
+
+    /**
+     * Creates a replacer for the given matchers and their matching
+     * replacement values.
+     * @param matchers text matchers
+     * @param toValues replacement values (<code>null</code> are
+     *     treated as empty strings)
+     * @return multi literal replacer
+     */
+    public static MultiLiteralReplacer create(
+            List<TextMatcher> matchers, List<String> toValues) {
+        if (matchers.size() != toValues.size()) {
+            throw new IllegalArgumentException(
+                    "There must be as many matchers as replacement values.");
+        }
+        List<Rule> rules = new ArrayList<>(matchers.size());
+        for (int i = 0; i < matchers.size(); i++) {
+            TextMatcher tm = new TextMatcher();
+            tm.copyFrom(matchers.get(i));
+            String toValue = StringUtils.defaultString(toValues.get(i));
+            // Only partial matches can be found anywhere in a text
+            Pattern pattern = tm.isPartial()
+                    ? tm.toRegexMatcher("").pattern() : null;
+            rules.add(new Rule(pattern, toValue,
+                    tm.isReplaceAll(), t -> tm.replace(t, toValue)));
+        }
+        return new MultiLiteralReplacer(rules);
+    }
+
+    /**
+     * Whether at least one group of literal replacements is scanned
+     * at once.  When <code>false</code>, using this class is no faster
+     * than applying replacements individually.
+     * @return <code>true</code> if literal replacements are grouped
+     */
+    public boolean hasGroups() {
+        return groupCount > 0;
+    }
+
+    /**
+     * Applies all replacements to the given text.
+     * @param text the text to replace
+     * @return the replaced text
+     */
+    public String replace(String text) {
+        if (text == null) {
+            return null;
+        }
+        String t = text;
+        for (UnaryOperator<String> stage : stages) {
+            t = stage.apply(t);
+        }
+        return t;
+    }
+
+    // Returns 1 if a group stage was added, 0 otherwise
+    private static int addGroup(
+            List<UnaryOperator<String>> stages, List<Rule> group) {
+        if (group.size() >= MIN_GROUP_SIZE) {
+            stages.add(new Automaton(group)::replace);
+            return 1;
+        }
+        for (Rule rule : group) {
+            stages.add(rule.fallback);
+        }
+        return 0;
+    }
+
+    private static boolean canJoin(List<Rule> group, Rule rule) {
+        if (group.isEmpty()) {
+            return true;
+        }
+        if (group.get(0).fold != rule.fold) {
+            return false;
+        }
+        for (Rule r : group) {
+            // The new literal can neither overlap existing ones...
+            if (overlaps(r.literal, rule.literal)) {
+                return false;
+            }
+            // ...nor match anything created by a previous replacement.
+            if (r.foldedValue.isEmpty()
+                    ? rule.literal.length() > 1
+                    : overlaps(r.foldedValue, rule.literal)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Whether both strings can share characters when found in a text.
+    private static boolean overlaps(String a, String b) {
+        if (a.contains(b) || b.contains(a)) {
+            return true;
+        }
+        int max = Math.min(a.length(), b.length());
+        for (int len = 1; len < max; len++) {
+            if (a.regionMatches(a.length() - len, b, 0, len)
+                    || b.regionMatches(b.length() - len, a, 0, len)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static char fold(char ch, int fold) {
+        if (fold == FOLD_UNICODE) {
+            return Character.toLowerCase(Character.toUpperCase(ch));
+        }
+        if (fold == FOLD_ASCII && ch >= 'A' && ch <= 'Z') {
+            return (char) (ch + ('a' - 'A'));
+        }
+        return ch;
+    }
+    private static String fold(String s, int fold) {
+        if (fold == FOLD_NONE) {
+            return s;
+        }
+        char[] chars = s.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = fold(chars[i], fold);
+        }
+        return new String(chars);
+    }
+
+    static class Rule {
+        private final String literal;
+        private final int fold;
+        private final String value;
+        private final String foldedValue;
+        private final boolean replaceAll;
+        private final UnaryOperator<String> fallback;
+        Rule(Pattern pattern, String value, boolean replaceAll,
+                UnaryOperator<String> fallback) {
+            this.value = value;
+            this.replaceAll = replaceAll;
+            this.fallback = fallback;
+            this.fold = pattern == null ? -1 : toFold(pattern);
+            String lit = null;
+            // Replacement values could hold group references
+            if (fold >= 0 && StringUtils.containsNone(value, '$', '\\')) {
+                lit = toLiteral(pattern);
+            }
+            this.literal = lit == null ? null : fold(lit, fold);
+            this.foldedValue = fold(value, Math.max(fold, FOLD_NONE));
+        }
+        private static int toFold(Pattern pattern) {
+            // flags having no effect on literal values
+            int flags = pattern.flags() & ~(Pattern.LITERAL
+                    | Pattern.DOTALL | Pattern.MULTILINE | Pattern.UNIX_LINES);
+            if (flags == 0 || flags == Pattern.UNICODE_CASE) {
+                return FOLD_NONE;
+            }
+            if (flags == Pattern.CASE_INSENSITIVE) {
+                return FOLD_ASCII;
+            }
+            if (flags == (Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE)) {
+                return FOLD_UNICODE;
+            }
+            return -1;
+        }
+        private static String toLiteral(Pattern pattern) {
+            String p = pattern.pattern();
+            String lit = null;
+            if ((pattern.flags() & Pattern.LITERAL) != 0) {
+                lit = p;
+            } else if (p.startsWith("\\Q") && p.endsWith("\\E")
+                    && p.indexOf("\\E") == p.length() - 2) {
+                lit = p.substring(2, p.length() - 2);
+            } else if (StringUtils.containsNone(p, REGEX_SPECIAL_CHARS)) {
+                lit = p;
+            }
+            return StringUtils.isEmpty(lit) ? null : lit;
+        }
+    }
+
+    // Aho-Corasick automaton. Since literals of a group cannot overlap,
+    // a match is always the only one ending at a given position and no
+    // literal can be a prefix of another one.
+    private static class Automaton {
+        private final Rule[] rules;
+        private final int fold;
+        // per state: sorted transition characters and target states
+        private final char[][] chars;
+        private final int[][] targets;
+        private final int[] failures;
+        // rule index matched when reaching a state, or -1
+        private final int[] outputs;
+
+        private Automaton(List<Rule> group) {
+            this.rules = group.toArray(new Rule[] {});
+            this.fold = rules[0].fold;
+
+            List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+            List<Integer> outs = new ArrayList<>();
+            trie.add(new TreeMap<>());
+            outs.add(-1);
+            for (int i = 0; i < rules.length; i++) {
+                int state = 0;
+                for (char ch : rules[i].literal.toCharArray()) {
+                    Integer next = trie.get(state).get(ch);
+                    if (next == null) {
+                        next = trie.size();
+                        trie.add(new TreeMap<>());
+                        outs.add(-1);
+                        trie.get(state).put(ch, next);
+                    }
+                    state = next;
+                }
+                outs.set(state, i);
+            }
+
+            int size = trie.size();
+            chars = new char[size][];
+            targets = new int[size][];
+            outputs = new int[size];
+            for (int s = 0; s < size; s++) {
+                TreeMap<Character, Integer> map = trie.get(s);
+                chars[s] = new char[map.size()];
+                targets[s] = new int[map.size()];
+                int i = 0;
+                for (Entry<Character, Integer> en
+                        : map.entrySet()) {
+                    chars[s][i] = en.getKey();
+                    targets[s][i] = en.getValue();
+                    i++;
+                }
+                outputs[s] = outs.get(s);
+            }
+
+            // breadth-first failure links
+            failures = new int[size];
+            int[] queue = new int[size];
+            int head = 0;
+            int tail = 0;
+            for (int t : targets[0]) {
+                queue[tail++] = t;
+            }
+            while (head < tail) {
+                int s = queue[head++];
+                for (int i = 0; i < chars[s].length; i++) {
+                    int t = targets[s][i];
+                    int f = failures[s];
+                    int next;
+                    while ((next = goTo(f, chars[s][i])) < 0 && f != 0) {
+                        f = failures[f];
+                    }
+                    failures[t] = next < 0 || next == t ? 0 : next;
+                    queue[tail++] = t;
+                }
+            }
+        }
+
+        private int goTo(int state, char ch) {
+            int idx = Arrays.binarySearch(chars[state], ch);
+            return idx < 0 ? -1 : targets[state][idx];
+        }
+
+        private String replace(String text) {
+            StringBuilder b = null;
+            boolean[] replaced = new boolean[rules.length];
+            int copied = 0;
+            int state = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char ch = fold(text.charAt(i), fold);
+                int next;
+                while ((next = goTo(state, ch)) < 0 && state != 0) {
+                    state = failures[state];
+                }
+                state = next < 0 ? 0 : next;
+                int ruleIdx = outputs[state];
+                if (ruleIdx < 0) {
+                    continue;
+                }
+                Rule rule = rules[ruleIdx];
+                if (replaced[ruleIdx] && !rule.replaceAll) {
+                    continue;
+                }
+                if (b == null) {
+                    b = new StringBuilder(text.length());
+                }
+                b.append(text, copied, i + 1 - rule.literal.length());
+                b.append(rule.value);
+                copied = i + 1;
+                replaced[ruleIdx] = true;
+                state = 0;
+            }
+            if (b == null) {
+                return text;
+            }
+            b.append(text, copied, text.length());
+            return b.toString();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.util;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * Thread-safe cache of compiled regular expressions, for handlers
+ * building patterns from their configuration or from the content
+ * they process, instead of compiling the same expression
+ * over and over for each document (or each section of a document).
+ * </p>
+ * <p>
+ * The cache holds up to {@value #MAX_SIZE} patterns. When that limit
+ * is reached, it is cleared before adding new ones so the cache cannot
+ * grow indefinitely when patterns are obtained from content.
+ * </p>
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+public final class PatternCache {
+
+    /** Maximum number of patterns kept in the cache. */
+    public static final int MAX_SIZE = 1000;
+
+    private static final ConcurrentMap<Key, Pattern> CACHE =
+            new ConcurrentHashMap<>();
+
+    private PatternCache() {
+    }
+
+    /**
+     * Gets a compiled pattern for the given regular expression,
+     * compiling it only if not already cached.
+     * @param regex regular expression
+     * @return compiled pattern
+     */
+    public static Pattern get(String regex) {
+        return get(regex, 0);
+    }
+    /**
+     * Gets a compiled pattern for the given regular expression and
+     * flags, compiling it only if not already cached.
+     * @param regex regular expression
+     * @param flags pattern flags (see {@link Pattern#compile(String, int)})
+     * @return compiled pattern
+     */
+    public static Pattern get(String regex, int flags) {
+        Objects.requireNonNull(regex, "'regex' must not be null.");
+        Key key = new Key(regex, flags);
+        Pattern pattern = CACHE.get(key);
+        if (pattern == null) {
+            pattern = Pattern.compile(regex, flags);
+            if (CACHE.size() >= MAX_SIZE) {
+                CACHE.clear();
+            }
+            Pattern existing = CACHE.putIfAbsent(key, pattern);
+            if (existing != null) {
+                pattern = existing;
+            }
+        }
+        return pattern;
+    }
+
+    /**
+     * Gets a compiled pattern matching the given text literally.
+     * @param text text to match literally
+     * @param flags pattern flags (see {@link Pattern#compile(String, int)})
+     * @return compiled pattern
+     */
+    public static Pattern getLiteral(String text, int flags) {
+        return get(text, flags | Pattern.LITERAL);
+    }
+
+    static int size() {
+        return CACHE.size();
+    }
+
+    private static final class Key {
+        private final String regex;
+        private final int flags;
+        private final int hash;
+        private Key(String regex, int flags) {
+            this.regex = regex;
+            this.flags = flags;
+            this.hash = 31 * regex.hashCode() + flags;
+        }
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return flags == other.flags && regex.equals(other.regex);
+        }
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.util;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * <p>
+ * A reader transforming text on the fly as it is being read, by
+ * repeatedly invoking a {@link Step} against a {@link TextStreamScanner}.
+ * Only the text produced by the last step is held in memory, so
+ * readers can be chained to apply several transformations in a single
+ * pass with constant memory.
+ * </p>
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+public class TextStreamReader extends Reader {
+
+    /**
+     * A unit of transformation.
+     */
+    @FunctionalInterface
+    public interface Step {
+        /**
+         * Advances the scanner, appending the transformed text to the
+         * supplied output.  Each invocation must either consume text from
+         * the scanner or bring it to the end.  Implementors can append
+         * more text once the scanner is finished, in which case they will
+         * be invoked again until they stop appending text.
+         * @param scanner the text scanner
+         * @param out where to append transformed text
+         * @throws IOException problem reading the text
+         */
+        void advance(TextStreamScanner scanner, StringBuilder out)
+                throws IOException;
+    }
+
+    private final TextStreamScanner scanner;
+    private final Step step;
+    private final StringBuilder out = new StringBuilder();
+    private int outPos;
+
+    public TextStreamReader(TextStreamScanner scanner, Step step) {
+        super();
+        this.scanner = scanner;
+        this.step = step;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (outPos >= out.length()) {
+            boolean wasFinished = scanner.isFinished();
+            out.setLength(0);
+            outPos = 0;
+            step.advance(scanner, out);
+            if (wasFinished && out.length() == 0) {
+                return -1;
+            }
+        }
+        int num = Math.min(len, out.length() - outPos);
+        out.getChars(outPos, outPos + num, cbuf, off);
+        outPos += num;
+        return num;
+    }
+
+    @Override
+    public void close() throws IOException {
+        scanner.close();
+    }
+}
@@ -0,0 +1,293 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * Scans a character stream for regular expression matches using a bounded
+ * window, without ever loading the entire stream in memory.
+ * </p>
+ * <p>
+ * Text is read in chunks of up to <code>windowSize</code> characters.
+ * A match touching the end of the window is not trusted until more text
+ * is read, so matches spanning two chunks are found as if the whole
+ * text was scanned at once.  To keep memory constant, a single match
+ * cannot exceed <code>maxMatchSize</code> characters: when that many
+ * characters are buffered past the window without completing a match, the
+ * match found so far is returned as is.  The last <code>maxMatchSize</code>
+ * characters already scanned are kept as context so that look-behind
+ * constructs, word boundaries, and line anchors are evaluated properly
+ * on chunk boundaries.
+ * </p>
+ * <p>
+ * Each call to {@link #next(Pattern, Appendable)} either returns the next
+ * match, or returns <code>null</code> after passing along
+ * non-matching text.  Text located before a match, or without any match,
+ * is appended to the supplied {@link Appendable} ("skipped" text).
+ * Different patterns can be used from one call to the next, making it
+ * possible to implement simple state machines (e.g. matching a start
+ * and end marker).  Worst-case memory is about
+ * <code>windowSize + 2 * maxMatchSize</code> characters.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+public class TextStreamScanner implements Closeable {
+
+    public static final int DEFAULT_MAX_MATCH_SIZE = 4096;
+
+    private final Reader reader;
+    private final int windowSize;
+    private final int maxMatchSize;
+    private final int margin;
+    private final char[] chunk;
+    private final StringBuilder buffer = new StringBuilder();
+    private final Map<Pattern, Matcher> matchers = new IdentityHashMap<>();
+    private int pos;
+    private boolean eof;
+    private boolean finished;
+    private boolean emptyMatch;
+
+    /**
+     * Creates a new scanner.
+     * @param reader the text to scan
+     * @param windowSize number of characters to read at once
+     * @param maxMatchSize maximum number of characters a match can span
+     */
+    public TextStreamScanner(Reader reader, int windowSize, int maxMatchSize) {
+        super();
+        if (windowSize < 1) {
+            throw new IllegalArgumentException(
+                    "Window size must be greater than zero.");
+        }
+        if (maxMatchSize < 1) {
+            throw new IllegalArgumentException(
+                    "Maximum match size must be greater than zero.");
+        }
+        this.reader = reader;
+        this.windowSize = windowSize;
+        this.maxMatchSize = maxMatchSize;
+        // extra characters for end anchors before line terminators
+        this.margin = maxMatchSize + 2;
+        this.chunk = new char[Math.min(windowSize, 8192)];
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+    public int getMaxMatchSize() {
+        return maxMatchSize;
+    }
+
+    /**
+     * Whether the whole text was scanned and passed along.
+     * @return <code>true</code> if there is nothing left to scan
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Finds the next match of the given pattern, appending the text
+     * preceding it to <code>skipped</code>.  If no match is found in the
+     * current window, the text that can no longer be part of a match
+     * is appended to <code>skipped</code> and <code>null</code> is returned.
+     * Invoke {@link #isFinished()} to find out if the end was reached.
+     * When the pattern is <code>null</code>, the current window is
+     * appended as is.
+     * The returned matcher is only valid until the next invocation.
+     * @param pattern the pattern to match, or <code>null</code>
+     * @param skipped where to append non-matching text (<code>null</code>
+     *     discards it)
+     * @return the matcher positioned on the match, or <code>null</code>
+     * @throws IOException problem reading the text
+     */
+    public Matcher next(Pattern pattern, Appendable skipped)
+            throws IOException {
+        if (finished) {
+            return null;
+        }
+        if (!eof && buffer.length() - pos < windowSize) {
+            fill(windowSize);
+        }
+        if (pattern == null) {
+            return passAlong(buffer.length(), skipped);
+        }
+
+        while (true) {
+            int from = pos + (emptyMatch ? 1 : 0);
+            if (from > buffer.length()) {
+                return passAlong(buffer.length(), skipped);
+            }
+            Matcher m = matchers.computeIfAbsent(pattern, p -> p.matcher(""));
+            m.reset(buffer);
+            m.region(from, buffer.length());
+            m.useTransparentBounds(true);
+            m.useAnchoringBounds(false);
+            boolean found = m.find();
+
+            // Results near the end of what is buffered could differ
+            // with more text, so they are only trusted at the very end,
+            // or for a match exceeding the maximum size.
+            int safeEnd = buffer.length() - margin;
+            if (found && (eof || m.end() <= safeEnd
+                    || (isAtCapacity() && m.start() < safeEnd))) {
+                append(skipped, pos, m.start());
+                pos = m.end();
+                emptyMatch = m.start() == m.end();
+                return m;
+            }
+            if (!found && eof) {
+                return passAlong(buffer.length(), skipped);
+            }
+            int safeTo = found ? Math.min(m.start(), safeEnd) : safeEnd;
+            if (safeTo > pos) {
+                return passAlong(safeTo, skipped);
+            }
+            fill(windowSize + margin);
+        }
+    }
+
+    /**
+     * Appends the replacement string to the target, resolving group
+     * references (e.g., <code>$1</code> or <code>${name}</code>) and
+     * escaped characters the same way as
+     * {@link Matcher#appendReplacement(StringBuffer, String)}, minus
+     * appending the text preceding the match.
+     * @param m matcher positioned on a match
+     * @param replacement replacement string
+     * @param target where to append the replacement
+     */
+    public static void appendReplacement(
+            Matcher m, String replacement, StringBuilder target) {
+        int i = 0;
+        while (i < replacement.length()) {
+            char ch = replacement.charAt(i);
+            if (ch == '\\') {
+                i++;
+                if (i == replacement.length()) {
+                    throw new IllegalArgumentException(
+                            "Character to be escaped is missing.");
+                }
+                target.append(replacement.charAt(i));
+                i++;
+            } else if (ch == '$') {
+                i++;
+                if (i == replacement.length()) {
+                    throw new IllegalArgumentException(
+                            "Illegal group reference: group index is missing.");
+                }
+                if (replacement.charAt(i) == '{') {
+                    int end = replacement.indexOf('}', i);
+                    if (end == -1) {
+                        throw new IllegalArgumentException(
+                                "Named capturing group is missing "
+                              + "trailing '}'.");
+                    }
+                    String group = m.group(replacement.substring(i + 1, end));
+                    if (group != null) {
+                        target.append(group);
+                    }
+                    i = end + 1;
+                } else {
+                    int groupNum = replacement.charAt(i) - '0';
+                    if (groupNum < 0 || groupNum > 9) {
+                        throw new IllegalArgumentException(
+                                "Illegal group reference.");
+                    }
+                    i++;
+                    // take as many digits as they form a valid group
+                    while (i < replacement.length()) {
+                        int next = replacement.charAt(i) - '0';
+                        if (next < 0 || next > 9) {
+                            break;
+                        }
+                        int newGroupNum = groupNum * 10 + next;
+                        if (m.groupCount() < newGroupNum) {
+                            break;
+                        }
+                        groupNum = newGroupNum;
+                        i++;
+                    }
+                    String group = m.group(groupNum);
+                    if (group != null) {
+                        target.append(group);
+                    }
+                }
+            } else {
+                target.append(ch);
+                i++;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private boolean isAtCapacity() {
+        return buffer.length() - pos >= windowSize + margin;
+    }
+
+    private Matcher passAlong(int to, Appendable skipped) throws IOException {
+        if (to > pos) {
+            append(skipped, pos, to);
+            pos = to;
+            emptyMatch = false;
+        }
+        if (eof && pos >= buffer.length()) {
+            finished = true;
+        }
+        return null;
+    }
+
+    private void append(Appendable target, int start, int end)
+            throws IOException {
+        if (target != null && end > start) {
+            target.append(buffer, start, end);
+        }
+    }
+
+    // Drops what is no longer needed as context and reads until
+    // "size" characters are available past the current position.
+    private void fill(int size) throws IOException {
+        if (pos > margin) {
+            int drop = pos - margin;
+            buffer.delete(0, drop);
+            pos -= drop;
+        }
+        while (!eof && buffer.length() - pos < size) {
+            int num = reader.read(chunk, 0, Math.min(
+                    chunk.length, size - (buffer.length() - pos)));
+            if (num == -1) {
+                eof = true;
+            } else {
+                buffer.append(chunk, 0, num);
+            }
+        }
+    }
+}
@@ -14,16 +14,27 @@
  */
 package com.norconex.importer;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.lang.management.ManagementFactory;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import javax.management.ObjectName;
+
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -34,13 +45,32 @@ import org.junit.jupiter.api.Test;
 
 import com.norconex.commons.lang.file.ContentType;
 import com.norconex.commons.lang.map.Properties;
+import com.norconex.commons.lang.map.PropertyMatcher;
+import com.norconex.commons.lang.map.PropertySetter;
 import com.norconex.commons.lang.text.TextMatcher;
 import com.norconex.commons.lang.xml.XML;
+import com.norconex.importer.digest.MemoryParsedContentStore;
+import com.norconex.importer.digest.ParsedContent;
 import com.norconex.importer.doc.Doc;
+import com.norconex.importer.doc.DocMetadata;
 import com.norconex.importer.handler.ImporterHandlerException;
+import com.norconex.importer.handler.filter.IDocumentFilter;
 import com.norconex.importer.handler.filter.OnMatch;
 import com.norconex.importer.handler.filter.impl.TextFilter;
+import com.norconex.importer.handler.splitter.impl.CsvSplitter;
+import com.norconex.importer.handler.tagger.IDocumentTagger;
+import com.norconex.importer.handler.tagger.impl.DOMTagger;
+import com.norconex.importer.handler.tagger.impl.DOMTagger.DOMExtractDetails;
+import com.norconex.importer.handler.tagger.impl.TextPatternTagger;
 import com.norconex.importer.handler.transformer.IDocumentTransformer;
+import com.norconex.importer.handler.transformer.impl.DOMDeleteTransformer;
+import com.norconex.importer.handler.transformer.impl.ReplaceTransformer;
+import com.norconex.importer.handler.transformer.impl.ReplaceTransformer.Replacement;
+import com.norconex.importer.metrics.ComponentMetrics;
+import com.norconex.importer.metrics.ImporterMetrics;
+import com.norconex.importer.parser.CachingDocumentParser;
+import com.norconex.importer.parser.GenericDocumentParserFactory;
+import com.norconex.importer.response.IImporterResponseProcessor;
 import com.norconex.importer.response.ImporterResponse;
 
 public class ImporterTest {
@@ -140,6 +170,434 @@ public class ImporterTest {
                         + "status description.");
     }
 
+    @Test
+    public void testImportDocuments() throws Exception {
+        ImporterConfig config = new ImporterConfig();
+        config.setBatchThreads(4);
+        config.setBatchQueueSize(3);
+        config.setBatchOrderedResponses(true);
+        try (Importer batchImporter = new Importer(config)) {
+            List<String> refs = new ArrayList<>();
+            batchImporter.importDocuments(IntStream.range(0, 20)
+                    .mapToObj(i -> new ImporterRequest(new ByteArrayInputStream(
+                            ("Document " + i).getBytes(StandardCharsets.UTF_8)))
+                        .setContentType(ContentType.TEXT)
+                        .setReference("doc-" + i)),
+                    resp -> {
+                        Assertions.assertTrue(resp.isSuccess());
+                        refs.add(resp.getReference());
+                    });
+            Assertions.assertEquals(IntStream.range(0, 20)
+                    .mapToObj(i -> "doc-" + i)
+                    .collect(Collectors.toList()), refs);
+
+            Future<ImporterResponse> future = batchImporter.submit(
+                    new ImporterRequest(new ByteArrayInputStream(
+                            "Submitted".getBytes(StandardCharsets.UTF_8)))
+                        .setContentType(ContentType.TEXT)
+                        .setReference("submitted"));
+            ImporterResponse resp = future.get();
+            Assertions.assertEquals("submitted", resp.getReference());
+            Assertions.assertEquals("Submitted",
+                    TestUtil.getContentAsString(resp.getDocument()).trim());
+        }
+    }
+
+    @Test
+    public void testImportDocumentsTimeout() throws Exception {
+        ImporterConfig config = new ImporterConfig();
+        config.setBatchThreads(1);
+        config.setBatchQueueSize(6);
+        config.setBatchDocumentTimeout(500);
+        config.setPreParseHandlers(Arrays.asList((IDocumentTagger)
+                (doc, input, parseState) -> {
+            try {
+                Thread.sleep(doc.getReference().startsWith("slow")
+                        ? 5000 : 100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ImporterHandlerException("Interrupted.", e);
+            }
+        }));
+        try (Importer batchImporter = new Importer(config)) {
+            // queued documents wait longer than the timeout, but only
+            // the time spent importing them counts
+            List<ImporterResponse> responses = new ArrayList<>();
+            batchImporter.importDocuments(IntStream.range(0, 12)
+                    .mapToObj(i -> new ImporterRequest(new ByteArrayInputStream(
+                            ("Document " + i).getBytes(StandardCharsets.UTF_8)))
+                        .setContentType(ContentType.TEXT)
+                        .setReference((i % 4 == 0 ? "slow-" : "doc-") + i)),
+                    responses::add);
+            Assertions.assertEquals(12, responses.size());
+            for (ImporterResponse resp : responses) {
+                Assertions.assertEquals(
+                        resp.getReference().startsWith("doc-"),
+                        resp.isSuccess(), resp.getReference());
+            }
+
+            // timed out documents gave back their permits
+            Assertions.assertTrue(batchImporter.submit(
+                    new ImporterRequest(new ByteArrayInputStream(
+                            "Submitted".getBytes(StandardCharsets.UTF_8)))
+                        .setContentType(ContentType.TEXT)
+                        .setReference("submitted")).get().isSuccess());
+        }
+    }
+
+    @Test
+    public void testConcurrentChildDocuments() throws IOException {
+        CsvSplitter splitter = new CsvSplitter();
+        splitter.setUseFirstRowAsFields(true);
+        splitter.setReferenceColumn("id");
+        splitter.setContentColumns("value");
+        splitter.addRestriction(new PropertyMatcher(
+                TextMatcher.basic(DocMetadata.CONTENT_TYPE),
+                TextMatcher.basic("text/csv")));
+        ImporterConfig config = new ImporterConfig();
+        config.setPreParseHandlers(Arrays.asList(splitter));
+        config.setChildThreads(3);
+        config.setMaxChildrenInFlight(4);
+
+        StringBuilder csv = new StringBuilder("id,value\n");
+        for (int i = 0; i < 50; i++) {
+            csv.append(i).append(",value ").append(i).append('\n');
+        }
+        try (Importer childImporter = new Importer(config)) {
+            ImporterResponse response = childImporter.importDocument(
+                    new ImporterRequest(new ByteArrayInputStream(
+                            csv.toString().getBytes(StandardCharsets.UTF_8)))
+                        .setContentType(ContentType.valueOf("text/csv"))
+                        .setReference("rows.csv"));
+            ImporterResponse[] children = response.getNestedResponses();
+            Assertions.assertEquals(50, children.length);
+            for (int i = 0; i < children.length; i++) {
+                Doc child = children[i].getDocument();
+                Assertions.assertEquals("rows.csv!" + i, child.getReference());
+                Assertions.assertEquals(i, child.getMetadata().getInteger(
+                        DocMetadata.EMBEDDED_INDEX));
+                Assertions.assertEquals("value " + i,
+                        TestUtil.getContentAsString(child).trim());
+            }
+        }
+    }
+
+    @Test
+    public void testStreamedChildDocuments() throws IOException {
+        CsvSplitter splitter = new CsvSplitter();
+        splitter.addRestriction(new PropertyMatcher(
+                TextMatcher.basic(DocMetadata.CONTENT_TYPE),
+                TextMatcher.basic("text/csv")));
+        List<String> tagged = new ArrayList<>();
+        ImporterConfig config = new ImporterConfig();
+        config.setPreParseHandlers(Arrays.asList(splitter));
+        config.setPostParseHandlers(Arrays.asList((IDocumentTagger)
+                (doc, input, parseState) -> tagged.add(doc.getReference())));
+
+        ImporterResponse response = new Importer(config).importDocument(
+                new ImporterRequest(new ByteArrayInputStream(
+                        "a\nb\nc\n".getBytes(StandardCharsets.UTF_8)))
+                    .setContentType(ContentType.valueOf("text/csv"))
+                    .setReference("rows.csv"));
+
+        // children are imported as soon as they are split, before
+        // their parent is done
+        Assertions.assertEquals(Arrays.asList("rows.csv!row-1",
+                "rows.csv!row-2", "rows.csv!row-3", "rows.csv"), tagged);
+        ImporterResponse[] children = response.getNestedResponses();
+        Assertions.assertEquals(3, children.length);
+        for (int i = 0; i < children.length; i++) {
+            Assertions.assertEquals(i, children[i].getDocument()
+                    .getMetadata().getInteger(DocMetadata.EMBEDDED_INDEX));
+        }
+    }
+
+    @Test
+    public void testChildResponsesProcessedAfterParent() {
+        CsvSplitter splitter = new CsvSplitter();
+        splitter.addRestriction(new PropertyMatcher(
+                TextMatcher.basic(DocMetadata.CONTENT_TYPE),
+                TextMatcher.basic("text/csv")));
+        List<String> failed = new ArrayList<>();
+        List<String> rejected = new ArrayList<>();
+        List<String> processed = new ArrayList<>();
+        ImporterConfig config = new ImporterConfig();
+        config.setPreParseHandlers(Arrays.asList(splitter));
+        config.setPostParseHandlers(Arrays.asList((IDocumentTagger)
+                (doc, input, parseState) -> {
+            if (failed.contains(doc.getReference())) {
+                throw new ImporterHandlerException("Failed on purpose.");
+            }
+        }, (IDocumentFilter) (doc, input, parseState) ->
+                !rejected.contains(doc.getReference())));
+        config.setResponseProcessors(Arrays.asList(
+                (IImporterResponseProcessor) r -> {
+            processed.add(r.getReference());
+            return r.getImporterStatus();
+        }));
+        Importer csvImporter = new Importer(config);
+
+        // children are processed once their parent succeeded, before it
+        csvImporter.importDocument(newCsvRequest("ok.csv"));
+        Assertions.assertEquals(Arrays.asList("ok.csv!row-1",
+                "ok.csv!row-2", "ok.csv"), processed);
+
+        // children of a rejected parent are still processed
+        processed.clear();
+        rejected.add("rejected.csv");
+        ImporterResponse response =
+                csvImporter.importDocument(newCsvRequest("rejected.csv"));
+        Assertions.assertTrue(response.getImporterStatus().isRejected());
+        Assertions.assertEquals(Arrays.asList("rejected.csv!row-1",
+                "rejected.csv!row-2", "rejected.csv"), processed);
+
+        // children of a failed parent are never processed
+        processed.clear();
+        failed.add("bad.csv");
+        response = csvImporter.importDocument(newCsvRequest("bad.csv"));
+        Assertions.assertTrue(response.getImporterStatus().isError());
+        Assertions.assertTrue(processed.isEmpty());
+    }
+    private static ImporterRequest newCsvRequest(String reference) {
+        return new ImporterRequest(new ByteArrayInputStream(
+                "a\nb\n".getBytes(StandardCharsets.UTF_8)))
+            .setContentType(ContentType.valueOf("text/csv"))
+            .setReference(reference);
+    }
+
+    @Test
+    public void testFusedStringHandlers() throws IOException {
+        ReplaceTransformer transformer = new ReplaceTransformer();
+        transformer.addReplacement(new Replacement(
+                null, TextMatcher.basic("quick").setPartial(true),
+                null, "slow"));
+        TextPatternTagger tagger = new TextPatternTagger();
+        tagger.addPattern("animal", "slow \\w+ fox");
+        TextFilter includeFilter = new TextFilter(
+                TextMatcher.basic("slow").setPartial(true), OnMatch.INCLUDE);
+        TextFilter excludeFilter = new TextFilter(
+                TextMatcher.basic("quick").setPartial(true), OnMatch.EXCLUDE);
+
+        ImporterConfig config = new ImporterConfig();
+        config.setFuseStringHandlers(true);
+        config.setPostParseHandlers(Arrays.asList(
+                transformer, tagger, includeFilter, excludeFilter));
+        ImporterResponse resp = new Importer(config).importDocument(
+                new ImporterRequest(new ByteArrayInputStream(
+                        "The quick brown fox.".getBytes(
+                                StandardCharsets.UTF_8)))
+                    .setContentType(ContentType.TEXT)
+                    .setReference("fused"));
+        Assertions.assertTrue(resp.isSuccess());
+        Assertions.assertEquals("The slow brown fox.",
+                TestUtil.getContentAsString(resp.getDocument()).trim());
+        Assertions.assertEquals("slow brown fox",
+                resp.getDocument().getMetadata().getString("animal"));
+
+        // unmodified content is rejected by exclude filter
+        config.setPostParseHandlers(Arrays.asList(tagger, excludeFilter));
+        resp = new Importer(config).importDocument(
+                new ImporterRequest(new ByteArrayInputStream(
+                        "The quick brown fox.".getBytes(
+                                StandardCharsets.UTF_8)))
+                    .setContentType(ContentType.TEXT)
+                    .setReference("fused"));
+        Assertions.assertTrue(resp.getImporterStatus().isRejected());
+    }
+
+    @Test
+    public void testFusedStringHandlersRestrictions() throws IOException {
+        TextPatternTagger tagger = new TextPatternTagger();
+        tagger.addPattern("animal", "fox");
+        // restricted on metadata set by the tagger just before
+        ReplaceTransformer transformer = new ReplaceTransformer();
+        transformer.addReplacement(new Replacement(
+                null, TextMatcher.basic("quick").setPartial(true),
+                null, "slow"));
+        transformer.addRestriction(new PropertyMatcher(
+                TextMatcher.basic("animal"), TextMatcher.basic("fox")));
+        TextPatternTagger colorTagger = new TextPatternTagger();
+        colorTagger.addPattern("color", "brown");
+
+        ImporterConfig config = new ImporterConfig();
+        config.setFuseStringHandlers(true);
+        config.setPostParseHandlers(
+                Arrays.asList(tagger, transformer, colorTagger));
+        ImporterResponse resp = new Importer(config).importDocument(
+                new ImporterRequest(new ByteArrayInputStream(
+                        "The quick brown fox.".getBytes(
+                                StandardCharsets.UTF_8)))
+                    .setContentType(ContentType.TEXT)
+                    .setReference("fused"));
+        Assertions.assertTrue(resp.isSuccess());
+        Assertions.assertEquals("The slow brown fox.",
+                TestUtil.getContentAsString(resp.getDocument()).trim());
+        Properties meta = resp.getDocument().getMetadata();
+        Assertions.assertEquals("fox", meta.getString("animal"));
+        Assertions.assertEquals("brown", meta.getString("color"));
+
+        // handlers after a rejecting filter are not invoked
+        List<String> tagged = new ArrayList<>();
+        IDocumentTagger recordingTagger = (doc, input, parseState) ->
+                tagged.add(doc.getReference());
+        config.setPostParseHandlers(Arrays.asList(
+                tagger,
+                new TextFilter(TextMatcher.basic("quick").setPartial(true),
+                        OnMatch.EXCLUDE),
+                colorTagger,
+                recordingTagger));
+        resp = new Importer(config).importDocument(
+                new ImporterRequest(new ByteArrayInputStream(
+                        "The quick brown fox.".getBytes(
+                                StandardCharsets.UTF_8)))
+                    .setContentType(ContentType.TEXT)
+                    .setReference("fused"));
+        Assertions.assertTrue(resp.getImporterStatus().isRejected());
+        Assertions.assertTrue(tagged.isEmpty());
+    }
+
+    @Test
+    public void testSharedDOM() throws IOException {
+        DOMDeleteTransformer deleter = new DOMDeleteTransformer();
+        deleter.addSelector("#ad");
+
+        // deletions made by a tagger are not seen by other handlers
+        DOMTagger deletingTagger = new DOMTagger();
+        DOMExtractDetails deleting = new DOMExtractDetails(
+                "h1", "heading", PropertySetter.REPLACE);
+        deleting.setDelete(true);
+        deletingTagger.addDOMExtractDetails(deleting);
+
+        DOMTagger tagger = new DOMTagger();
+        tagger.addDOMExtractDetails(new DOMExtractDetails(
+                "h1", "title", PropertySetter.REPLACE));
+        tagger.addDOMExtractDetails(new DOMExtractDetails(
+                "#ad", "ad", PropertySetter.REPLACE));
+
+        ImporterConfig config = new ImporterConfig();
+        config.setPreParseHandlers(
+                Arrays.asList(deleter, deletingTagger, tagger));
+        ImporterResponse resp = new Importer(config).importDocument(
+                new ImporterRequest(new ByteArrayInputStream((
+                        "<html><body><h1>Title</h1><div id=\"ad\">Advert</div>"
+                      + "<p>Body text.</p></body></html>").getBytes(
+                                StandardCharsets.UTF_8)))
+                    .setContentType(ContentType.HTML)
+                    .setReference("dom"));
+        Assertions.assertTrue(resp.isSuccess());
+        Properties meta = resp.getDocument().getMetadata();
+        Assertions.assertEquals("Title", meta.getString("heading"));
+        Assertions.assertEquals("Title", meta.getString("title"));
+        Assertions.assertNull(meta.getString("ad"));
+        String content = TestUtil.getContentAsString(resp.getDocument());
+        Assertions.assertTrue(content.contains("Title"));
+        Assertions.assertTrue(content.contains("Body text."));
+        Assertions.assertFalse(content.contains("Advert"));
+    }
+
+    @Test
+    public void testContentDigestReplay() throws IOException {
+        MemoryParsedContentStore store = new MemoryParsedContentStore();
+        ImporterConfig config = new ImporterConfig();
+        config.getContentDigestConfig().setEnabled(true);
+        config.getContentDigestConfig().setStore(store);
+        config.getMetricsConfig().setEnabled(true);
+        Importer digestImporter = new Importer(config);
+
+        byte[] html = ("<html><head><title>Digest</title></head>"
+                + "<body>Same content.</body></html>").getBytes(
+                        StandardCharsets.UTF_8);
+        String digest = DigestUtils.sha256Hex(html);
+
+        // first time is parsed and stored (reference is a title prefix)
+        ImporterResponse first = digestImporter.importDocument(
+                new ImporterRequest(new ByteArrayInputStream(html))
+                    .setContentType(ContentType.HTML)
+                    .setReference("Dig"));
+        Assertions.assertTrue(first.isSuccess());
+        Properties firstMeta = first.getDocument().getMetadata();
+        Assertions.assertEquals(digest,
+                firstMeta.getString(DocMetadata.CONTENT_DIGEST));
+        Assertions.assertEquals(1, store.size());
+
+        // second time is replayed
+        ImporterResponse second = digestImporter.importDocument(
+                new ImporterRequest(new ByteArrayInputStream(html))
+                    .setContentType(ContentType.HTML)
+                    .setReference("second"));
+        Properties secondMeta = second.getDocument().getMetadata();
+        Assertions.assertEquals("second",
+                secondMeta.getString(DocMetadata.REFERENCE));
+        Assertions.assertEquals("Digest", secondMeta.getString("dc:title"));
+        Assertions.assertEquals("second", secondMeta.getString("resourceName"));
+        Assertions.assertEquals(
+                TestUtil.getContentAsString(first.getDocument()),
+                TestUtil.getContentAsString(second.getDocument()));
+        Assertions.assertEquals(1, store.size());
+
+        // a stored result is used instead of parsing
+        byte[] other = "<html><body>Other</body></html>".getBytes(
+                StandardCharsets.UTF_8);
+        Properties storedMeta = new Properties();
+        storedMeta.set("stored", "yes");
+        store.put(CachingDocumentParser.toKey(DigestUtils.sha256Hex(other),
+                config.getParserFactory().getParser("other", ContentType.HTML),
+                Objects.hashCode(((GenericDocumentParserFactory)
+                        config.getParserFactory()).getParseHints()),
+                ContentType.HTML), new ParsedContent("Stored text".getBytes(
+                        StandardCharsets.UTF_8), storedMeta));
+        ImporterResponse stored = digestImporter.importDocument(
+                new ImporterRequest(new ByteArrayInputStream(other))
+                    .setContentType(ContentType.HTML)
+                    .setReference("other"));
+        Assertions.assertEquals("Stored text",
+                TestUtil.getContentAsString(stored.getDocument()));
+        Assertions.assertEquals("yes",
+                stored.getDocument().getMetadata().getString("stored"));
+
+        // replayed results are part of parser metrics
+        Assertions.assertEquals(3, digestImporter.getMetrics()
+                .getComponentMetrics().stream()
+                .filter(m -> m.getName().startsWith("parser."))
+                .mapToLong(ComponentMetrics::getInvocations)
+                .sum());
+        digestImporter.close();
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        ImporterConfig config = new ImporterConfig();
+        config.getMetricsConfig().setEnabled(true);
+        config.setPostParseHandlers(Arrays.asList(new TextFilter(
+                TextMatcher.basic("reject me").setPartial(true),
+                OnMatch.EXCLUDE)));
+        try (Importer metricsImporter = new Importer(config)) {
+            for (String text : Arrays.asList("keep me", "reject me")) {
+                metricsImporter.importDocument(new ImporterRequest(
+                        new ByteArrayInputStream(
+                                text.getBytes(StandardCharsets.UTF_8)))
+                    .setContentType(ContentType.TEXT)
+                    .setReference(text));
+            }
+            ImporterMetrics metrics = metricsImporter.getMetrics();
+            ComponentMetrics filterMetrics =
+                    metrics.getComponentMetrics("postParse.0.TextFilter");
+            Assertions.assertEquals(2, filterMetrics.getInvocations());
+            Assertions.assertEquals(1, filterMetrics.getRejects());
+            Assertions.assertEquals(0, filterMetrics.getErrors());
+            Assertions.assertTrue(metrics.getComponentMetrics().stream()
+                    .anyMatch(m -> m.getName().startsWith("parser.")));
+            Assertions.assertTrue(ManagementFactory.getPlatformMBeanServer()
+                    .isRegistered(new ObjectName(
+                            ImporterMetrics.JMX_DOMAIN
+                          + ":type=ImporterMetrics,importer="
+                          + ObjectName.quote(metrics.getId())
+                          + ",name=" + ObjectName.quote(
+                                  "postParse.0.TextFilter"))));
+        }
+        Assertions.assertNull(new Importer().getMetrics());
+    }
+
     private void writeToFile(Doc doc, File file)
             throws IOException {
         FileOutputStream out = new FileOutputStream(file);
@@ -0,0 +1,61 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.doc;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.norconex.commons.lang.file.ContentType;
+import com.norconex.commons.lang.io.CachedInputStream;
+import com.norconex.importer.TestUtil;
+
+public class ContentTypeDetectionCacheTest {
+
+    @Test
+    public void testDetect() throws IOException {
+        ContentTypeDetectionCache cache =
+                new ContentTypeDetectionCache(1, 0, 0);
+
+        Assertions.assertEquals(ContentType.PDF, detect(cache,
+                TestUtil.getAlicePdfFile().getPath(), "alice.pdf"));
+        Assertions.assertEquals(ContentType.PDF, detect(cache,
+                TestUtil.getAlicePdfFile().getPath(), "alice.pdf"));
+        Assertions.assertEquals(1, cache.getHitCount());
+        Assertions.assertEquals(1, cache.getMissCount());
+
+        // same content but different extension is a different entry,
+        // evicting the only other one
+        detect(cache, TestUtil.getAlicePdfFile().getPath(), "alice.bin");
+        Assertions.assertEquals(2, cache.getMissCount());
+        Assertions.assertEquals(1, cache.getEvictionCount());
+        Assertions.assertEquals(1, cache.getSize());
+        Assertions.assertEquals(1d / 3d, cache.getHitRatio(), 0.0001);
+    }
+
+    private ContentType detect(ContentTypeDetectionCache cache,
+            String path, String fileName) throws IOException {
+        try (InputStream is = new FileInputStream(path);
+                CachedInputStream content = CachedInputStream.cache(is)) {
+            ContentType ct = cache.detect(content, fileName);
+            // stream must be usable again after detection
+            Assertions.assertEquals('%', content.read());
+            return ct;
+        }
+    }
+}
@@ -111,6 +111,78 @@ public class CsvSplitterTest {
                 "Could not find William Dalton by column name.");
     }
 
+    @Test
+    public void testFastTokenizerSameAsDefault()
+            throws ImporterHandlerException, IOException {
+        CsvSplitter splitter = new CsvSplitter();
+        splitter.setUseFirstRowAsFields(true);
+        splitter.setReferenceColumn("clientId");
+        splitter.setContentColumns("clientName", "3");
+        List<Doc> expected = split(splitter);
+
+        input.close();
+        setup();
+        splitter.setFastTokenizer(true);
+        List<Doc> actual = split(splitter);
+
+        Assertions.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assertions.assertEquals(expected.get(i).getReference(),
+                    actual.get(i).getReference());
+            Assertions.assertEquals(
+                    expected.get(i).getMetadata().toString(),
+                    actual.get(i).getMetadata().toString());
+            Assertions.assertEquals(
+                    IOUtils.toString(expected.get(i).getInputStream(),
+                            StandardCharsets.UTF_8),
+                    IOUtils.toString(actual.get(i).getInputStream(),
+                            StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testFastTokenizerQuotesAndEscapes()
+            throws ImporterHandlerException, IOException {
+        input.close();
+        input = IOUtils.toInputStream(
+                "skip me\n"
+              + "id,text\r\n"
+              + "1,\"multi\nline, \"\"quoted\"\"\"\n"
+              + "2,\"back\\\"slash\"\n"
+              + "3,plain\n", StandardCharsets.UTF_8);
+        CsvSplitter splitter = new CsvSplitter();
+        splitter.setFastTokenizer(true);
+        splitter.setLinesToSkip(1);
+        splitter.setUseFirstRowAsFields(true);
+        splitter.setReferenceColumn("id");
+        splitter.setContentColumns("text");
+        List<Doc> docs = split(splitter);
+
+        Assertions.assertEquals(3, docs.size());
+        Assertions.assertEquals("multi\nline, \"quoted\"", IOUtils.toString(
+                docs.get(0).getInputStream(), StandardCharsets.UTF_8));
+        Assertions.assertEquals("back\"slash", IOUtils.toString(
+                docs.get(1).getInputStream(), StandardCharsets.UTF_8));
+        Assertions.assertEquals("3", docs.get(2).getMetadata().getString(
+                DocMetadata.EMBEDDED_REFERENCE));
+    }
+
+    @Test
+    public void testMetadataColumns()
+            throws ImporterHandlerException {
+        CsvSplitter splitter = new CsvSplitter();
+        splitter.setFastTokenizer(true);
+        splitter.setUseFirstRowAsFields(true);
+        splitter.setReferenceColumn("clientId");
+        splitter.setMetadataColumns("clientName");
+        List<Doc> docs = split(splitter);
+
+        Properties meta = docs.get(2).getMetadata();
+        Assertions.assertEquals("William Dalton", meta.getString("clientName"));
+        Assertions.assertFalse(meta.containsKey("clientPhone"));
+        Assertions.assertFalse(meta.containsKey("clientId"));
+    }
+
     private List<Doc> split(CsvSplitter splitter)
             throws ImporterHandlerException {
         Properties metadata = new Properties();
@@ -132,6 +204,8 @@ public class CsvSplitterTest {
                 TextMatcher.basic("value").partial().ignoreCase()));
         splitter.setSeparatorCharacter('@');
         splitter.setUseFirstRowAsFields(true);
+        splitter.setMetadataColumns("colA", "colB");
+        splitter.setFastTokenizer(true);
         XML.assertWriteRead(splitter, "handler");
     }
 }
@@ -19,6 +19,7 @@ import java.io.InputStream;
 import java.util.List;
 
 import org.apache.commons.io.output.NullOutputStream;
+import org.apache.pdfbox.pdmodel.PDDocument;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -60,6 +61,40 @@ public class PDFPageSplitterTest {
         Assertions.assertEquals(3, getPageNo(pages.get(2)));
     }
 
+    @Test
+    public void testSplitPageRanges() throws ImporterHandlerException {
+        PDFPageSplitter s = new PDFPageSplitter();
+        s.setPagesPerDocument(2);
+        List<Doc> pages = split(s);
+
+        Assertions.assertEquals(2, pages.size(), "Invalid number of docs.");
+        Assertions.assertEquals("n/a#1-2", pages.get(0).getReference());
+        Assertions.assertEquals(1, getPageNo(pages.get(0)));
+        Assertions.assertEquals(2, (int) pages.get(0).getMetadata().getInteger(
+                PDFPageSplitter.DOC_PDF_LAST_PAGE_NO));
+        Assertions.assertEquals("n/a#3", pages.get(1).getReference());
+        Assertions.assertEquals(3, getPageNo(pages.get(1)));
+        Assertions.assertNull(pages.get(1).getMetadata().getString(
+                PDFPageSplitter.DOC_PDF_LAST_PAGE_NO));
+    }
+
+    @Test
+    public void testSplitWithTempFiles()
+            throws ImporterHandlerException, IOException {
+        PDFPageSplitter s = new PDFPageSplitter();
+        s.setMaxMainMemory(0);
+        List<Doc> pages = split(s);
+
+        Assertions.assertEquals(3, pages.size(), "Invalid number of pages.");
+        for (Doc page : pages) {
+            try (PDDocument pdf = PDDocument.load(page.getInputStream())) {
+                Assertions.assertEquals(1, pdf.getNumberOfPages());
+            }
+            Assertions.assertEquals(3, (int) page.getMetadata().getInteger(
+                    PDFPageSplitter.DOC_PDF_TOTAL_PAGES));
+        }
+    }
+
     private int getPageNo(Doc doc) {
         return doc.getMetadata().getInteger(PDFPageSplitter.DOC_PDF_PAGE_NO);
     }
@@ -68,6 +103,8 @@ public class PDFPageSplitterTest {
         public void testWriteRead() {
         PDFPageSplitter splitter = new PDFPageSplitter();
         splitter.setReferencePagePrefix("#page");
+        splitter.setPagesPerDocument(10);
+        splitter.setMaxMainMemory(1000000);
         XML.assertWriteRead(splitter, "handler");
     }
 
@@ -14,11 +14,18 @@
  */
 package com.norconex.importer.handler.tagger.impl;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
+import java.text.BreakIterator;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -85,10 +92,140 @@ public class TestStatisticsTaggerTest {
                 meta.getString("document.stat.averageParagraphWordCount"));
     }
 
+    @Test
+    public void testLineEndingsAndWords()
+            throws ImporterHandlerException, IOException {
+        String txt = "  One well-known fact. Two-by-four  \r\n"
+                + "\r\n\t \r"
+                + "Three words\u00e9t\u00e9 here!\rlast-";
+        Properties meta = tag(new TextStatisticsTagger(), txt);
+
+        Assertions.assertEquals(3,
+                (int) meta.getInteger("document.stat.paragraphCount"));
+        // "Two-by-four" is two words, like the original regex match
+        Assertions.assertEquals(9,
+                (int) meta.getInteger("document.stat.wordCount"));
+        Assertions.assertEquals(32 + 20 + 5,
+                (int) meta.getInteger("document.stat.characterCount"));
+        Assertions.assertEquals(4,
+                (int) meta.getInteger("document.stat.sentenceCount"));
+    }
+
+    @Test
+    public void testSameAsLineByLineStatistics() throws IOException {
+        // Compares with the line-by-line implementation used before 3.0.0
+        Random random = new Random(20201018L);
+        for (int i = 0; i < 5000; i++) {
+            String txt = randomText(random);
+            TextStatistics stats =
+                    new TextStatistics().read(new StringReader(txt));
+            long[] expected = lineByLineStatistics(txt);
+            Assertions.assertArrayEquals(expected, new long[] {
+                    stats.getCharCount(),
+                    stats.getWordCount(),
+                    stats.getWordCharCount(),
+                    stats.getSentenceCount(),
+                    stats.getSentenceCharCount(),
+                    stats.getParagraphCount() },
+                    () -> "Text: " + txt.replace("\r", "\\r")
+                            .replace("\n", "\\n"));
+        }
+    }
+
+    private static final String[] TOKENS = {
+            "a", "Word", "\u00e9t\u00e9", "\u00df", "42", "3.14", "_", "-",
+            "--", " ", "  ", "\t", ".", "!", "?", "'", "\"", ",", "Mr.",
+            "\n", "\r", "\r\n", "\n\n", "\u00a0", "\u0301", "\u200c",
+            "\ud835\udc00", "\u4e2d\u6587", "\u3002", "\u2028" };
+    private static String randomText(Random random) {
+        StringBuilder b = new StringBuilder();
+        int length = random.nextInt(200);
+        for (int i = 0; i < length; i++) {
+            b.append(TOKENS[random.nextInt(TOKENS.length)]);
+        }
+        return b.toString();
+    }
+    // char, word, word char, sentence, sentence char and paragraph counts
+    private static long[] lineByLineStatistics(String txt)
+            throws IOException {
+        Pattern wordPattern = Pattern.compile(
+                "\\w+\\-{0,1}\\w*", Pattern.UNICODE_CHARACTER_CLASS);
+        long[] counts = new long[6];
+        BufferedReader reader = new BufferedReader(new StringReader(txt));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (StringUtils.isBlank(line)) {
+                continue;
+            }
+            counts[5]++;
+            counts[0] += line.length();
+            Matcher matcher = wordPattern.matcher(line);
+            while (matcher.find()) {
+                counts[1]++;
+                counts[2] += matcher.end() - matcher.start();
+            }
+            BreakIterator boundary = BreakIterator.getSentenceInstance();
+            boundary.setText(line);
+            int start = boundary.first();
+            for (int end = boundary.next(); end != BreakIterator.DONE;
+                    start = end, end = boundary.next()) {
+                counts[3]++;
+                counts[4] += end - start;
+            }
+        }
+        return counts;
+    }
+
+    @Test
+    public void testConcurrentFields()
+            throws ImporterHandlerException, IOException {
+        Properties expected = tagFields(false);
+        Properties actual = tagFields(true);
+        Assertions.assertEquals("3", actual.getString(
+                "document.stat.field1.wordCount"));
+        Assertions.assertEquals("2", actual.getString(
+                "document.stat.field2.paragraphCount"));
+        Assertions.assertEquals(expected, actual);
+    }
+
+    private Properties tagFields(boolean concurrent)
+            throws ImporterHandlerException, IOException {
+        TextStatisticsTagger t = new TextStatisticsTagger();
+        t.setFieldMatcher(TextMatcher.regex("field.*"));
+        t.setConcurrentFields(concurrent);
+        Properties meta = new Properties();
+        meta.set(DocMetadata.CONTENT_TYPE, "text/html");
+        meta.add("field1", "Hello there, Alice.");
+        meta.add("field2", "First value.", "Second value! Really.");
+        for (int i = 3; i < 20; i++) {
+            meta.add("field" + i, "Field number " + i + ".");
+        }
+        try (InputStream is = IOUtils.toInputStream(
+                "content", StandardCharsets.UTF_8)) {
+            t.tagDocument(TestUtil.toHandlerDoc(
+                    "n/a", is, meta), is, ParseState.POST);
+        }
+        return meta;
+    }
+
+    private Properties tag(TextStatisticsTagger t, String txt)
+            throws ImporterHandlerException, IOException {
+        Properties meta = new Properties();
+        meta.set(DocMetadata.CONTENT_TYPE, "text/html");
+        try (InputStream is = IOUtils.toInputStream(
+                txt, StandardCharsets.UTF_8)) {
+            t.tagDocument(TestUtil.toHandlerDoc(
+                    "n/a", is, meta), is, ParseState.PRE);
+        }
+        return meta;
+    }
+
     @Test
     public void testWriteRead() {
         TextStatisticsTagger tagger = new TextStatisticsTagger();
         tagger.setFieldMatcher(new TextMatcher("afield"));
+        tagger.setConcurrentFields(true);
         XML.assertWriteRead(tagger, "handler");
     }
 }
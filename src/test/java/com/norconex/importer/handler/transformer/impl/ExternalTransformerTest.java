@@ -23,6 +23,7 @@ import java.util.Map;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import com.norconex.commons.lang.config.ConfigurationException;
 import com.norconex.commons.lang.io.ByteArrayOutputStream;
 import com.norconex.commons.lang.map.Properties;
 import com.norconex.commons.lang.map.PropertySetter;
@@ -59,9 +60,93 @@ public class ExternalTransformerTest {
         envs.put("env2", "value2");
         t.setEnvironmentVariables(envs);
 
+        t.getWorkerConfig().setEnabled(true);
+        t.getWorkerConfig().setPoolSize(3);
+        t.getWorkerConfig().setTimeout(5000);
+        t.getWorkerConfig().setMaxDocumentsPerWorker(10);
+        t.getWorkerConfig().setHealthCheckInterval(1000);
+
         XML.assertWriteRead(t, "handler");
     }
 
+    @Test
+    public void testWorkers() throws ImporterHandlerException {
+        ExternalTransformer t = new ExternalTransformer();
+        t.setCommand(ExternalApp.newCommandLine("-worker"));
+        t.setMetadataInputFormat(ExternalHandler.META_FORMAT_PROPERTIES);
+        t.setMetadataOutputFormat(ExternalHandler.META_FORMAT_PROPERTIES);
+        t.setOnSet(PropertySetter.REPLACE);
+        t.getWorkerConfig().setEnabled(true);
+        t.getWorkerConfig().setPoolSize(2);
+        t.getWorkerConfig().setMaxDocumentsPerWorker(2);
+        try {
+            // more documents than a worker can handle before being replaced
+            for (int i = 0; i < 5; i++) {
+                InputStream input = inputAsStream();
+                ByteArrayOutputStream output = outputAsStream();
+                Properties metadata = new Properties();
+                metadata.set("metaFileField1", "this is a first test");
+                metadata.set("metaFileField2",
+                        "this is a second test value1",
+                        "this is a second test value2");
+                t.transformDocument(TestUtil.toHandlerDoc(
+                        "doc" + i + ".txt", input, metadata),
+                        input, output, ParseState.PRE);
+                Assertions.assertEquals(
+                        EXPECTED_OUTPUT, output.toString().trim());
+                assertMetadataFiles(metadata);
+            }
+
+            // workers are started again if needed once closed
+            t.closeWorkers();
+            InputStream input = inputAsStream();
+            ByteArrayOutputStream output = outputAsStream();
+            t.transformDocument(TestUtil.toHandlerDoc(
+                    "again.txt", input, new Properties()),
+                    input, output, ParseState.PRE);
+            Assertions.assertEquals(EXPECTED_OUTPUT, output.toString().trim());
+        } finally {
+            t.closeWorkers();
+        }
+    }
+
+    @Test
+    public void testWorkersWithTokens() {
+        ExternalTransformer t = new ExternalTransformer();
+        t.setCommand("app ${INPUT}");
+        t.getWorkerConfig().setEnabled(true);
+        InputStream input = inputAsStream();
+        Assertions.assertThrows(ImporterHandlerException.class,
+                () -> t.transformDocument(TestUtil.toHandlerDoc(
+                        "tokens.txt", input, new Properties()),
+                        input, outputAsStream(), ParseState.PRE));
+        Assertions.assertThrows(ConfigurationException.class,
+                () -> new ExternalTransformer().loadFromXML(new XML(
+                        "<handler><command>app ${INPUT}</command>"
+                      + "<workers enabled=\"true\"/></handler>")));
+    }
+
+    @Test
+    public void testWorkerTimeout() throws ImporterHandlerException {
+        ExternalTransformer t = new ExternalTransformer();
+        t.setCommand(ExternalApp.newCommandLine("-worker"));
+        Map<String, String> envs = new HashMap<>();
+        envs.put(ExternalApp.ENV_WORKER_DELAY, "10000");
+        t.setEnvironmentVariables(envs);
+        t.getWorkerConfig().setEnabled(true);
+        t.getWorkerConfig().setPoolSize(1);
+        t.getWorkerConfig().setTimeout(500);
+        try {
+            InputStream input = inputAsStream();
+            Assertions.assertThrows(ImporterHandlerException.class,
+                    () -> t.transformDocument(TestUtil.toHandlerDoc(
+                            "slow.txt", input, new Properties()),
+                            input, outputAsStream(), ParseState.PRE));
+        } finally {
+            t.closeWorkers();
+        }
+    }
+
     @Test
     public void testInFileOutFile()
             throws ImporterHandlerException {
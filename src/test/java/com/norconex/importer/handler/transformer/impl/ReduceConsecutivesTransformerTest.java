@@ -65,6 +65,42 @@ public class ReduceConsecutivesTransformerTest {
     }
 
 
+    @Test
+    public void testStreamingAcrossSections()
+            throws ImporterHandlerException, IOException {
+        ReduceConsecutivesTransformer t = new ReduceConsecutivesTransformer();
+        t.setStreaming(true);
+        t.setMaxReadSize(3);
+        t.setIgnoreCase(true);
+        t.setReductions(" ", "ab");
+
+        try (InputStream is = IOUtils.toInputStream(
+                "x     y ABabAbab z      ", StandardCharsets.UTF_8);
+                ByteArrayOutputStream os = new ByteArrayOutputStream()) {
+            t.transformDocument(
+                    TestUtil.toHandlerDoc("dummyRef", is),
+                    is, os, ParseState.POST);
+            Assertions.assertEquals("x y AB z ", os.toString());
+        }
+    }
+
+    @Test
+    public void testRegexSpecialCharacters()
+            throws ImporterHandlerException, IOException {
+        ReduceConsecutivesTransformer t = new ReduceConsecutivesTransformer();
+        t.setIgnoreCase(true);
+        t.setReductions("(a)", "]", "", null, "ab");
+
+        try (InputStream is = IOUtils.toInputStream(
+                "x(a)(A)(a) y]]] ABabAbab z", StandardCharsets.UTF_8);
+                ByteArrayOutputStream os = new ByteArrayOutputStream()) {
+            t.transformDocument(
+                    TestUtil.toHandlerDoc("dummyRef", is),
+                    is, os, ParseState.POST);
+            Assertions.assertEquals("x(a) y] ab z", os.toString());
+        }
+    }
+
     @Test
         public void testWriteRead() throws IOException {
         ReduceConsecutivesTransformer t = new ReduceConsecutivesTransformer();
@@ -87,6 +87,25 @@ public class ReplaceTransformerTest {
                 response.toLowerCase());
     }
 
+    @Test
+    public void testStreamingAcrossSections()
+            throws ImporterHandlerException, IOException {
+        String config =
+                "<handler streaming=\"true\" maxReadSize=\"4\" "
+                + "maxMatchSize=\"32\">"
+                + "<replace><valueMatcher ignoreCase=\"true\" partial=\"true\" "
+                + "replaceAll=\"true\">candies</valueMatcher>"
+                + "<toValue>vegetables</toValue></replace>"
+                + "<replace><valueMatcher method=\"regex\" partial=\"true\" "
+                + "replaceAll=\"true\">(\\w+) and (\\w+)</valueMatcher>"
+                + "<toValue>$2 and $1</toValue></replace>"
+                + "</handler>";
+        String response = transformTextDocument(config, "N/A",
+                "I like to eat cakes and candies. Candies and cakes too.");
+        Assertions.assertEquals("I like to eat vegetables and cakes. "
+                + "cakes and vegetables too.", response);
+    }
+
     private String transformTextDocument(
             String config, String reference, String content)
             throws ImporterHandlerException, IOException {
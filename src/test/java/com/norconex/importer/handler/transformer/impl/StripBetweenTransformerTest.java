@@ -94,6 +94,31 @@ public class StripBetweenTransformerTest {
     }
 
 
+    @Test
+    public void testStreamingAcrossSections()
+            throws ImporterHandlerException, IOException {
+        StripBetweenTransformer t = new StripBetweenTransformer();
+        t.setStreaming(true);
+        t.setMaxReadSize(5);
+        t.setMaxMatchSize(20);
+        addEndPoints(t, "<\\!-- START -->", "<\\!-- END -->");
+        StripBetweenDetails d = new StripBetweenDetails(
+                TextMatcher.basic("["), TextMatcher.basic("]"));
+        t.addStripBetweenDetails(d);
+
+        String html = "<html><body>keep 1<!-- START -->strip me"
+                + "<!-- END -->keep 2 [x][y] [unterminated<!-- START -->"
+                + "also unterminated</body></html>";
+
+        ByteArrayInputStream is = new ByteArrayInputStream(html.getBytes());
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        t.transformDocument(TestUtil.toHandlerDoc("fake.html", is),
+                is, os, ParseState.POST);
+        Assertions.assertEquals("<html><body>keep 1keep 2 [][] [unterminated"
+                + "<!-- START -->also unterminated</body></html>",
+                os.toString());
+    }
+
     @Test
     public void testWriteRead() {
         StripBetweenTransformer t = new StripBetweenTransformer();
@@ -14,16 +14,32 @@
  */
 package com.norconex.importer.parser;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.norconex.commons.lang.file.ContentType;
+import com.norconex.commons.lang.io.CachedInputStream;
 import com.norconex.commons.lang.map.Properties;
 import com.norconex.commons.lang.xml.XML;
 import com.norconex.importer.Importer;
@@ -31,10 +47,15 @@ import com.norconex.importer.ImporterConfig;
 import com.norconex.importer.ImporterRequest;
 import com.norconex.importer.TestUtil;
 import com.norconex.importer.doc.Doc;
+import com.norconex.importer.doc.DocInfo;
+import com.norconex.importer.doc.DocMetadata;
 import com.norconex.importer.parser.impl.ExternalParser;
 
 public class GenericDocumentParserFactoryTest {
 
+    @TempDir
+    Path tempDir;
+
     @Test
     public void testWriteRead() {
         GenericDocumentParserFactory f = new GenericDocumentParserFactory();
@@ -53,13 +74,429 @@ public class GenericDocumentParserFactoryTest {
         ocr.setContentTypes("ocrContentTypesTest");
         ocr.setLanguages("ocrLanguages");
         ocr.setPath("ocrPath");
+        ocr.setMaxConcurrent(3);
+        ocr.setCacheSize(100);
+
+        ForkConfig fork = f.getParseHints().getForkConfig();
+        fork.setEnabled(true);
+        fork.setContentTypes("application/pdf");
+        fork.setPoolSize(3);
+        fork.setParseTimeout(30000);
+        fork.setMaxDocumentsPerWorker(100);
+        fork.setJavaCommand("java -Dtest=true");
+        fork.setMaxMemory("256m");
+
+        MetadataConfig meta = f.getParseHints().getMetadataConfig();
+        meta.setIncludeFields("(?i)dc:.*");
+        meta.setExcludeFields("dc:creator");
+
+        ExtractionBudgetConfig budget =
+                f.getParseHints().getExtractionBudgetConfig();
+        budget.setMaxCharacters(1000);
+        budget.setMaxPages(10);
+        budget.setMaxEmbeddedDocuments(5);
+        budget.setMaxParseTime(60000);
 
         ExternalParser app = new ExternalParser();
         app.setCommand("command.exe");
         f.registerParser(ContentType.BMP, app);
+
+        f.registerPooledParser(ContentType.valueOf("image/gif"), () -> {
+            ExternalParser p = new ExternalParser();
+            p.setCommand("pooled.exe");
+            return p;
+        });
+        f.setWarmUp(true);
+        f.setWarmUpSample(ContentType.valueOf("text/html"), null);
+        f.setWarmUpSample(
+                ContentType.PDF, Paths.get("/path/to/sample.pdf"));
+
+        ParseResultCache cache = new ParseResultCache();
+        cache.setDirectory(Paths.get("/path/to/parse-cache"));
+        cache.setMaxSize(5000);
+        cache.setMaxEntrySize(500);
+        f.setParseResultCache(cache);
         XML.assertWriteRead(f, "documentParserFactory");
     }
 
+    @Test
+    public void testPooledParser() throws Exception {
+        int threads = 4;
+        CountDownLatch allParsing = new CountDownLatch(threads);
+        GenericDocumentParserFactory factory =
+                new GenericDocumentParserFactory();
+        factory.registerPooledParser(ContentType.valueOf("text/x-pooled"),
+                () -> (doc, output) -> {
+                    // make sure all threads parse at the same time
+                    allParsing.countDown();
+                    try {
+                        allParsing.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return null;
+                });
+        PooledDocumentParser parser = (PooledDocumentParser)
+                factory.getParser("n/a", ContentType.valueOf("text/x-pooled"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    parser.parseDocument(null, null);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assertions.assertEquals(threads, parser.getCreatedCount());
+        Assertions.assertEquals(threads, parser.getIdleCount());
+
+        // sequential parsing reuses the same instance
+        parser.parseDocument(null, null);
+        Assertions.assertEquals(threads, parser.getCreatedCount());
+    }
+
+    @Test
+    public void testWarmUp() {
+        AtomicInteger parseCount = new AtomicInteger();
+        GenericDocumentParserFactory factory =
+                new GenericDocumentParserFactory();
+        factory.registerParser(ContentType.valueOf("text/x-warmup"),
+                (doc, output) -> {
+                    parseCount.incrementAndGet();
+                    return null;
+                });
+        ImporterConfig config = new ImporterConfig();
+        config.setParserFactory(factory);
+
+        try (Importer importer = new Importer(config)) {
+            Assertions.assertEquals(0, parseCount.get());
+        }
+
+        factory.setWarmUp(true);
+        try (Importer importer = new Importer(config)) {
+            Assertions.assertEquals(1, parseCount.get());
+        }
+    }
+
+    @Test
+    public void testForkedParsing() throws IOException {
+        GenericDocumentParserFactory factory =
+                new GenericDocumentParserFactory();
+        ForkConfig fork = factory.getParseHints().getForkConfig();
+        fork.setEnabled(true);
+        fork.setContentTypes("text/html");
+        fork.setPoolSize(1);
+        ImporterConfig config = new ImporterConfig();
+        config.setParserFactory(factory);
+
+        // worker processes are stopped when the importer is closed
+        try (Importer importer = new Importer(config)) {
+            Doc doc = importer.importDocument(new ImporterRequest(
+                    new ByteArrayInputStream(("<html><head>"
+                            + "<title>Forked</title></head><body>"
+                            + "<p>Parsed out of process.</p>"
+                            + "</body></html>").getBytes(
+                                    StandardCharsets.UTF_8)))
+                    .setContentType(ContentType.HTML)
+                    .setReference("forked.html")).getDocument();
+            Assertions.assertTrue(TestUtil.getContentAsString(doc)
+                    .contains("Parsed out of process."));
+            Assertions.assertEquals(
+                    "Forked", doc.getMetadata().getString("dc:title"));
+        }
+    }
+
+    @Test
+    public void testClose() {
+        AtomicInteger closeCount = new AtomicInteger();
+        GenericDocumentParserFactory factory =
+                new GenericDocumentParserFactory();
+        factory.registerParser(ContentType.valueOf("text/x-closeable"),
+                new CloseableParser(closeCount));
+        factory.registerPooledParser(ContentType.valueOf("text/x-pooled"),
+                () -> new CloseableParser(closeCount));
+        ImporterConfig config = new ImporterConfig();
+        config.setParserFactory(factory);
+
+        // parsers are closed with the importer
+        new Importer(config).close();
+        Assertions.assertEquals(2, closeCount.get());
+    }
+    private static class CloseableParser
+            implements IDocumentParser, AutoCloseable {
+        private final AtomicInteger closeCount;
+        public CloseableParser(AtomicInteger closeCount) {
+            this.closeCount = closeCount;
+        }
+        @Override
+        public List<Doc> parseDocument(Doc doc, Writer output) {
+            return null;
+        }
+        @Override
+        public void close() {
+            closeCount.incrementAndGet();
+        }
+    }
+
+    @Test
+    public void testParseResultCache() throws IOException {
+        AtomicInteger parseCount = new AtomicInteger();
+        GenericDocumentParserFactory factory =
+                new GenericDocumentParserFactory();
+        factory.registerParser(ContentType.valueOf("text/x-cached"),
+                (doc, output) -> {
+                    parseCount.incrementAndGet();
+                    try {
+                        output.write(IOUtils.toString(doc.getInputStream(),
+                                StandardCharsets.UTF_8).toUpperCase());
+                    } catch (IOException e) {
+                        throw new DocumentParserException(e);
+                    }
+                    doc.getMetadata().set("resourceName", doc.getReference());
+                    doc.getMetadata().set("parsedFrom", doc.getReference());
+                    return null;
+                });
+        ParseResultCache cache = new ParseResultCache();
+        cache.setDirectory(tempDir);
+        factory.setParseResultCache(cache);
+        ImporterConfig config = new ImporterConfig();
+        config.setParserFactory(factory);
+        try (Importer importer = new Importer(config)) {
+            Doc first = importDoc(importer, "first", "same content");
+            Doc second = importDoc(importer, "second", "same content");
+            Assertions.assertEquals(1, parseCount.get());
+            Assertions.assertEquals(1, cache.getHitCount());
+            Assertions.assertEquals(1, cache.getMissCount());
+            Assertions.assertEquals(1, cache.getEntryCount());
+            Assertions.assertEquals("SAME CONTENT",
+                    TestUtil.getContentAsString(first));
+            Assertions.assertEquals("SAME CONTENT",
+                    TestUtil.getContentAsString(second));
+            // only fields derived from the reference are resolved
+            Assertions.assertEquals("first",
+                    first.getMetadata().getString("resourceName"));
+            Assertions.assertEquals("second",
+                    second.getMetadata().getString("resourceName"));
+            Assertions.assertEquals("first",
+                    second.getMetadata().getString("parsedFrom"));
+
+            importDoc(importer, "third", "other content");
+            Assertions.assertEquals(2, parseCount.get());
+        }
+
+        // entries survive a new cache instance
+        ParseResultCache reloaded = new ParseResultCache();
+        reloaded.setDirectory(tempDir);
+        Assertions.assertEquals(2, reloaded.getEntryCount());
+        reloaded.clear();
+        Assertions.assertEquals(0, reloaded.getEntryCount());
+        Assertions.assertEquals(0, reloaded.getCacheSize());
+    }
+
+    @Test
+    public void testParseResultCacheAsDigestStore() throws IOException {
+        AtomicInteger parseCount = new AtomicInteger();
+        GenericDocumentParserFactory factory =
+                new GenericDocumentParserFactory();
+        factory.registerParser(ContentType.valueOf("text/x-cached"),
+                (doc, output) -> {
+                    parseCount.incrementAndGet();
+                    try {
+                        output.write(IOUtils.toString(doc.getInputStream(),
+                                StandardCharsets.UTF_8).toUpperCase());
+                    } catch (IOException e) {
+                        throw new DocumentParserException(e);
+                    }
+                    return null;
+                });
+        ParseResultCache cache = new ParseResultCache();
+        cache.setDirectory(tempDir);
+        ImporterConfig config = new ImporterConfig();
+        config.setParserFactory(factory);
+        config.getContentDigestConfig().setEnabled(true);
+        config.getContentDigestConfig().setStore(cache);
+        try (Importer importer = new Importer(config)) {
+            importDoc(importer, "first", "same content");
+            Doc second = importDoc(importer, "second", "same content");
+            Assertions.assertEquals(1, parseCount.get());
+            Assertions.assertEquals(1, cache.getHitCount());
+            Assertions.assertEquals(1, cache.getEntryCount());
+            Assertions.assertEquals("SAME CONTENT",
+                    TestUtil.getContentAsString(second));
+        }
+    }
+
+    @Test
+    public void testParseResultCacheEmbedded() throws IOException {
+        AtomicInteger parseCount = new AtomicInteger();
+        ParseResultCache cache = new ParseResultCache();
+        cache.setDirectory(tempDir);
+        CachingDocumentParser parser = new CachingDocumentParser(
+                (doc, output) -> {
+                    parseCount.incrementAndGet();
+                    DocInfo info = new DocInfo(doc.getReference() + "!child");
+                    info.addEmbeddedParentReference(doc.getReference());
+                    List<Doc> embeddedDocs = new ArrayList<>();
+                    embeddedDocs.add(new Doc(info, CachedInputStream.cache(
+                            IOUtils.toInputStream(
+                                    "child", StandardCharsets.UTF_8))));
+                    return embeddedDocs;
+                }, cache, null);
+
+        // embedded docs handed over to a consumer are cached
+        List<Doc> firstEmbedded = new ArrayList<>();
+        parser.parseDocument(newDoc("first", "parent"),
+                new StringWriter(), firstEmbedded::add);
+        List<Doc> secondEmbedded = new ArrayList<>();
+        parser.parseDocument(newDoc("second", "parent"),
+                new StringWriter(), secondEmbedded::add);
+        Assertions.assertEquals(1, parseCount.get());
+        Assertions.assertEquals(1, cache.getHitCount());
+        Assertions.assertEquals(1, firstEmbedded.size());
+        Assertions.assertEquals(1, secondEmbedded.size());
+
+        Doc child = secondEmbedded.get(0);
+        Assertions.assertEquals("second!child", child.getReference());
+        Assertions.assertEquals("second", child.getDocInfo()
+                .getEmbeddedParentReferences().get(0));
+        Assertions.assertEquals("child", TestUtil.getContentAsString(child));
+
+        // and are returned by the non-streaming method as well
+        List<Doc> thirdEmbedded = parser.parseDocument(
+                newDoc("third", "parent"), new StringWriter());
+        Assertions.assertEquals(1, parseCount.get());
+        Assertions.assertEquals("third!child",
+                thirdEmbedded.get(0).getReference());
+    }
+
+    private Doc newDoc(String ref, String content) {
+        return new Doc(ref, CachedInputStream.cache(
+                IOUtils.toInputStream(content, StandardCharsets.UTF_8)));
+    }
+
+    private Doc importDoc(Importer importer, String ref, String content) {
+        return importer.importDocument(new ImporterRequest(
+                IOUtils.toInputStream(content, StandardCharsets.UTF_8))
+                        .setContentType(ContentType.valueOf("text/x-cached"))
+                        .setReference(ref)).getDocument();
+    }
+
+    @Test
+    public void testMetadataFields() throws IOException {
+        GenericDocumentParserFactory factory =
+                new GenericDocumentParserFactory();
+        MetadataConfig metaCfg = factory.getParseHints().getMetadataConfig();
+        metaCfg.setIncludeFields("(?i)(author|keywords|title)");
+        metaCfg.setExcludeFields("keywords");
+        Properties existing = new Properties();
+        existing.set("existing", "value");
+
+        ImporterConfig config = new ImporterConfig();
+        config.setParserFactory(factory);
+        Doc doc;
+        try (Importer importer = new Importer(config)) {
+            doc = importer.importDocument(new ImporterRequest(
+                    new ByteArrayInputStream(("<html><head>"
+                        + "<title>A title</title>"
+                        + "<meta name=\"author\" content=\"An author\">"
+                        + "<meta name=\"keywords\" content=\"some, words\">"
+                        + "<meta name=\"description\" content=\"A desc\">"
+                        + "</head><body>Text</body></html>").getBytes(
+                                StandardCharsets.UTF_8)))
+                    .setContentType(ContentType.HTML)
+                    .setMetadata(existing)
+                    .setReference("n/a")).getDocument();
+        }
+
+        Properties meta = doc.getMetadata();
+        Assertions.assertEquals("An author", meta.getString("author"));
+        Assertions.assertEquals("A title", meta.getString("title"));
+        Assertions.assertFalse(meta.containsKey("keywords"));
+        Assertions.assertFalse(meta.containsKey("description"));
+        Assertions.assertFalse(meta.containsKey("X-Parsed-By"));
+        // Existing fields are not affected
+        Assertions.assertEquals("value", meta.getString("existing"));
+    }
+
+    @Test
+    public void testExtractionBudget() throws IOException {
+        String fullText = TestUtil.getContentAsString(
+                importWithBudget(new ExtractionBudgetConfig(),
+                        TestUtil.getAlicePdfFile().toPath(), ContentType.PDF));
+
+        // Characters
+        ExtractionBudgetConfig budget = new ExtractionBudgetConfig();
+        budget.setMaxCharacters(100);
+        Doc doc = importWithBudget(
+                budget, TestUtil.getAlicePdfFile().toPath(), ContentType.PDF);
+        Assertions.assertEquals(fullText.substring(0, 100),
+                TestUtil.getContentAsString(doc));
+        Assertions.assertTrue(
+                doc.getMetadata().getBoolean(DocMetadata.TRUNCATED));
+        Assertions.assertEquals("maxCharacters", doc.getMetadata().getString(
+                DocMetadata.TRUNCATED_REASON));
+
+        // Pages
+        budget = new ExtractionBudgetConfig();
+        budget.setMaxPages(1);
+        doc = importWithBudget(
+                budget, TestUtil.getAlicePdfFile().toPath(), ContentType.PDF);
+        String text = TestUtil.getContentAsString(doc);
+        Assertions.assertTrue(fullText.startsWith(text));
+        Assertions.assertTrue(text.length() < fullText.length());
+        Assertions.assertEquals("maxPages", doc.getMetadata().getString(
+                DocMetadata.TRUNCATED_REASON));
+
+        // Embedded documents
+        budget = new ExtractionBudgetConfig();
+        budget.setMaxEmbeddedDocuments(1);
+        Path zip = tempDir.resolve("embedded.zip");
+        try (InputStream is = getClass().getResourceAsStream(
+                "/parser/embedded/embedded.zip")) {
+            Files.copy(is, zip);
+        }
+        doc = importWithBudget(budget, zip, ContentType.valueOf(
+                "application/zip"));
+        Assertions.assertEquals("maxEmbeddedDocuments",
+                doc.getMetadata().getString(DocMetadata.TRUNCATED_REASON));
+
+        // Within budget
+        budget = new ExtractionBudgetConfig();
+        budget.setMaxCharacters(fullText.length() * 2L);
+        doc = importWithBudget(
+                budget, TestUtil.getAlicePdfFile().toPath(), ContentType.PDF);
+        Assertions.assertEquals(fullText, TestUtil.getContentAsString(doc));
+        Assertions.assertFalse(
+                doc.getMetadata().containsKey(DocMetadata.TRUNCATED));
+    }
+
+    private Doc importWithBudget(
+            ExtractionBudgetConfig budget, Path file, ContentType type) {
+        GenericDocumentParserFactory factory =
+                new GenericDocumentParserFactory();
+        ExtractionBudgetConfig cfg =
+                factory.getParseHints().getExtractionBudgetConfig();
+        cfg.setMaxCharacters(budget.getMaxCharacters());
+        cfg.setMaxPages(budget.getMaxPages());
+        cfg.setMaxEmbeddedDocuments(budget.getMaxEmbeddedDocuments());
+        cfg.setMaxParseTime(budget.getMaxParseTime());
+        ImporterConfig config = new ImporterConfig();
+        config.setParserFactory(factory);
+        try (Importer importer = new Importer(config)) {
+            return importer.importDocument(new ImporterRequest(file)
+                    .setContentType(type)
+                    .setReference(file.getFileName().toString()))
+                            .getDocument();
+        }
+    }
+
     @Test
     public void testIgnoringContentTypes() throws IOException {
 
@@ -0,0 +1,141 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.parser;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class OCRSchedulerTest {
+
+    @Test
+    public void testPriorityOrder() throws InterruptedException {
+        OCRScheduler scheduler = new OCRScheduler(1, 0);
+        long first = scheduler.nextPriority();
+        long second = scheduler.nextPriority();
+        long third = scheduler.nextPriority();
+
+        // occupy the only place so others have to wait
+        scheduler.acquire(first);
+
+        List<Long> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+        // queued in reverse order of priority
+        Thread t3 = startWaiter(scheduler, third, order, done);
+        waitForQueueLength(scheduler, 1);
+        Thread t2 = startWaiter(scheduler, second, order, done);
+        waitForQueueLength(scheduler, 2);
+
+        Assertions.assertEquals(1, scheduler.getActiveCount());
+        scheduler.release();
+        Assertions.assertTrue(done.await(10, TimeUnit.SECONDS));
+        t2.join();
+        t3.join();
+
+        Assertions.assertEquals(Arrays.asList(second, third), order);
+        Assertions.assertEquals(0, scheduler.getActiveCount());
+        Assertions.assertEquals(0, scheduler.getQueueLength());
+    }
+
+    @Test
+    public void testMaxConcurrent() throws InterruptedException {
+        OCRScheduler scheduler = new OCRScheduler(2, 0);
+        scheduler.acquire(scheduler.nextPriority());
+        scheduler.acquire(scheduler.nextPriority());
+        Assertions.assertEquals(2, scheduler.getActiveCount());
+
+        List<Long> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        Thread t = startWaiter(
+                scheduler, scheduler.nextPriority(), order, done);
+        waitForQueueLength(scheduler, 1);
+        Assertions.assertTrue(order.isEmpty());
+
+        scheduler.release();
+        Assertions.assertTrue(done.await(10, TimeUnit.SECONDS));
+        t.join();
+        scheduler.release();
+        Assertions.assertEquals(0, scheduler.getActiveCount());
+    }
+
+    @Test
+    public void testCache() {
+        OCRScheduler scheduler = new OCRScheduler(1, 2);
+        scheduler.cacheText("a", "text A");
+        scheduler.cacheText("b", "text B");
+        // makes "a" the most recently used
+        Assertions.assertEquals("text A", scheduler.getCachedText("a"));
+        scheduler.cacheText("c", "text C");
+
+        Assertions.assertEquals(2, scheduler.getCacheEntryCount());
+        Assertions.assertNull(scheduler.getCachedText("b"));
+        Assertions.assertEquals("text C", scheduler.getCachedText("c"));
+        Assertions.assertEquals(2, scheduler.getCacheHitCount());
+        Assertions.assertEquals(1, scheduler.getCacheMissCount());
+
+        scheduler.clearCache();
+        Assertions.assertEquals(0, scheduler.getCacheEntryCount());
+
+        OCRScheduler noCache = new OCRScheduler(1, 0);
+        noCache.cacheText("a", "text A");
+        Assertions.assertNull(noCache.getCachedText("a"));
+    }
+
+    @Test
+    public void testSharedByConfig() {
+        OCRConfig cfg = new OCRConfig();
+        cfg.setMaxConcurrent(3);
+        OCRScheduler scheduler = cfg.getScheduler();
+        Assertions.assertSame(scheduler, cfg.getScheduler());
+        Assertions.assertEquals(3, scheduler.getMaxConcurrent());
+        Assertions.assertEquals(
+                OCRConfig.DEFAULT_CACHE_SIZE, scheduler.getCacheSize());
+
+        cfg.setCacheSize(10);
+        Assertions.assertNotSame(scheduler, cfg.getScheduler());
+        Assertions.assertEquals(10, cfg.getScheduler().getCacheSize());
+    }
+
+    private Thread startWaiter(OCRScheduler scheduler, long priority,
+            List<Long> order, CountDownLatch done) {
+        Thread t = new Thread(() -> {
+            try {
+                scheduler.acquire(priority);
+                order.add(priority);
+                scheduler.release();
+                done.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        t.start();
+        return t;
+    }
+
+    private void waitForQueueLength(OCRScheduler scheduler, int length)
+            throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 10000;
+        while (scheduler.getQueueLength() < length
+                && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(length, scheduler.getQueueLength());
+    }
+}
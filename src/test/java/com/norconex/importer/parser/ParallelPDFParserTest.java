@@ -0,0 +1,171 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.parser;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.norconex.commons.lang.file.ContentType;
+import com.norconex.commons.lang.io.CachedInputStream;
+import com.norconex.commons.lang.map.Properties;
+import com.norconex.commons.lang.xml.XML;
+import com.norconex.importer.doc.Doc;
+import com.norconex.importer.doc.DocMetadata;
+import com.norconex.importer.parser.impl.ParallelPDFParser;
+
+public class ParallelPDFParserTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testParallelExtraction()
+            throws IOException, DocumentParserException {
+        try (ParallelPDFParser parser = new ParallelPDFParser()) {
+            parser.setMinSize(0);
+            parser.setMinPages(5);
+            parser.setPagesPerTask(2);
+            parser.setThreads(3);
+            parser.initialize(new ParseHints());
+
+            Doc doc = toDoc(createPdf(13));
+            String text = parse(parser, doc);
+            int prevIndex = -1;
+            for (int i = 1; i <= 13; i++) {
+                Matcher m = Pattern.compile(
+                        "Page " + i + "\\b").matcher(text);
+                int index = m.find() ? m.start() : -1;
+                Assertions.assertTrue(index > prevIndex,
+                        "Page " + i + " missing or out of order: " + text);
+                prevIndex = index;
+            }
+            Assertions.assertEquals("Parallel",
+                    doc.getMetadata().getString("dc:title"));
+            Assertions.assertEquals("13",
+                    doc.getMetadata().getString("xmpTPg:NPages"));
+        }
+    }
+
+    @Test
+    public void testParallelExtractionBudget()
+            throws IOException, DocumentParserException {
+        try (ParallelPDFParser parser = new ParallelPDFParser()) {
+            parser.setMinSize(0);
+            parser.setMinPages(5);
+            parser.setPagesPerTask(2);
+            ParseHints hints = new ParseHints();
+            hints.getExtractionBudgetConfig().setMaxPages(3);
+            parser.initialize(hints);
+
+            Doc doc = toDoc(createPdf(10));
+            String text = parse(parser, doc);
+            Assertions.assertTrue(text.contains("Page 3"));
+            Assertions.assertFalse(text.contains("Page 4"));
+            Assertions.assertEquals("maxPages", doc.getMetadata().getString(
+                    DocMetadata.TRUNCATED_REASON));
+        }
+    }
+
+    @Test
+    public void testSequentialExtraction()
+            throws IOException, DocumentParserException {
+        try (ParallelPDFParser parser = new ParallelPDFParser()) {
+            parser.setMinPages(50);
+            parser.initialize(new ParseHints());
+
+            Doc doc = toDoc(createPdf(3));
+            String text = parse(parser, doc);
+            Assertions.assertTrue(text.contains("Page 1"));
+            Assertions.assertTrue(text.contains("Page 3"));
+            // Tika-specific field
+            Assertions.assertNotNull(
+                    doc.getMetadata().getString("X-Parsed-By"));
+        }
+    }
+
+    @Test
+    public void testSequentialExtractionBelowMinSize()
+            throws IOException, DocumentParserException {
+        try (ParallelPDFParser parser = new ParallelPDFParser()) {
+            parser.setMinPages(5);
+            parser.initialize(new ParseHints());
+
+            // enough pages, but too small
+            Doc doc = toDoc(createPdf(13));
+            String text = parse(parser, doc);
+            Assertions.assertTrue(text.contains("Page 13"));
+            Assertions.assertNotNull(
+                    doc.getMetadata().getString("X-Parsed-By"));
+        }
+    }
+
+    @Test
+    public void testWriteRead() {
+        ParallelPDFParser parser = new ParallelPDFParser();
+        parser.setMinSize(2048);
+        parser.setMinPages(100);
+        parser.setPagesPerTask(10);
+        parser.setThreads(4);
+        XML.assertWriteRead(parser, "parser");
+    }
+
+    private String parse(ParallelPDFParser parser, Doc doc)
+            throws DocumentParserException {
+        StringWriter output = new StringWriter();
+        parser.parseDocument(doc, output);
+        return output.toString();
+    }
+
+    private Doc toDoc(Path file) throws IOException {
+        Doc doc = new Doc(file.getFileName().toString(),
+                CachedInputStream.cache(Files.newInputStream(file)),
+                new Properties());
+        doc.getDocInfo().setContentType(ContentType.PDF);
+        return doc;
+    }
+
+    private Path createPdf(int pages) throws IOException {
+        Path file = tempDir.resolve("pages-" + pages + ".pdf");
+        try (PDDocument pdf = new PDDocument()) {
+            for (int i = 1; i <= pages; i++) {
+                PDPage page = new PDPage();
+                pdf.addPage(page);
+                try (PDPageContentStream cs =
+                        new PDPageContentStream(pdf, page)) {
+                    cs.beginText();
+                    cs.setFont(PDType1Font.HELVETICA, 12);
+                    cs.newLineAtOffset(100, 700);
+                    cs.showText("Page " + i);
+                    cs.endText();
+                }
+            }
+            pdf.getDocumentInformation().setTitle("Parallel");
+            pdf.save(file.toFile());
+        }
+        return file;
+    }
+}
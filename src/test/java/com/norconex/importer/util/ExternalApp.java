@@ -14,6 +14,13 @@
  */
 package com.norconex.importer.util;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -22,8 +29,10 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.Reader;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
@@ -50,11 +59,15 @@ import org.apache.tools.ant.types.Path;
 
 import com.norconex.commons.lang.exec.SystemCommand;
 import com.norconex.commons.lang.map.Properties;
+import com.norconex.importer.handler.ExternalHandler;
 
 /**
  * Sample external app that reverses word order in lines and if metadata files
  * are provided, also does the same for metadata values.
  * Also prints specific environment variables to STDOUT or STDERR.
+ * When started with <code>-worker</code>, documents are instead read and
+ * written over STDIN/STDOUT using the {@link ExternalHandler} worker
+ * protocol until STDIN is closed.
  * @author Pascal Essiembre
  */
 public class ExternalApp {
@@ -64,11 +77,13 @@ public class ExternalApp {
     public static final String ARG_INFILE_META = "im";
     public static final String ARG_OUTFILE_META = "om";
     public static final String ARG_REFERENCE = "ref";
+    public static final String ARG_WORKER = "worker";
 
     public static final String ENV_STDOUT_BEFORE = "stdout_before";
     public static final String ENV_STDOUT_AFTER = "stdout_after";
     public static final String ENV_STDERR_BEFORE = "stderr_before";
     public static final String ENV_STDERR_AFTER = "stderr_after";
+    public static final String ENV_WORKER_DELAY = "worker_delay";
 
     // reverse the word order in each lines
     // if meta files are provided, reverse each values too
@@ -76,6 +91,11 @@ public class ExternalApp {
 
         CommandLine cmd = parseCommandLineArguments(args);
 
+        if (cmd.hasOption(ARG_WORKER)) {
+            runWorker();
+            return;
+        }
+
         File inFileContent = null;
         File outFileContent = null;
         File inFileMeta = null;
@@ -136,6 +156,80 @@ public class ExternalApp {
         }
     }
 
+    // Same as main but over the worker protocol: reference, metadata
+    // and content in, content, metadata and error out.
+    private static void runWorker() throws IOException {
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(System.in));
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(System.out));
+        long delay = Long.parseLong(StringUtils.defaultIfBlank(
+                System.getenv(ENV_WORKER_DELAY), "0"));
+        while (true) {
+            byte[] reference;
+            try {
+                reference = readValue(in);
+            } catch (EOFException e) {
+                return;
+            }
+            byte[] meta = readValue(in);
+            byte[] content = readValue(in);
+            if (delay > 0 && reference.length > 0) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+
+            StringBuilder b = new StringBuilder();
+            for (String line : IOUtils.readLines(new ByteArrayInputStream(
+                    content), StandardCharsets.UTF_8)) {
+                b.append(reverseWords(line)).append('\n');
+            }
+            writeValue(out, b.toString().getBytes(StandardCharsets.UTF_8));
+
+            StringWriter w = new StringWriter();
+            if (meta.length > 0) {
+                Properties p = new Properties();
+                p.loadFromProperties(new InputStreamReader(
+                        new ByteArrayInputStream(meta),
+                        StandardCharsets.UTF_8));
+                for (Entry<String, List<String>> entry : p.entrySet()) {
+                    String[] values = entry.getValue().toArray(
+                            ArrayUtils.EMPTY_STRING_ARRAY);
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = reverseWords(values[i]);
+                    }
+                    p.set(entry.getKey(), values);
+                }
+                p.storeToProperties(w);
+            }
+            writeValue(out, w.toString().getBytes(StandardCharsets.UTF_8));
+            writeValue(out, ArrayUtils.EMPTY_BYTE_ARRAY);
+            out.flush();
+        }
+    }
+    private static byte[] readValue(DataInputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int length;
+        while ((length = in.readInt()) != 0) {
+            byte[] buf = new byte[length];
+            in.readFully(buf);
+            out.write(buf);
+        }
+        return out.toByteArray();
+    }
+    private static void writeValue(DataOutputStream out, byte[] bytes)
+            throws IOException {
+        if (bytes.length > 0) {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        out.writeInt(0);
+    }
+
     private static String reverseWords(String str) {
         String[] words =  str.split(" ");
         ArrayUtils.reverse(words);
@@ -326,6 +420,8 @@ public class ExternalApp {
                 "Output metadata file (default to STDOUT/STDERR).");
         options.addOption(ARG_REFERENCE, true,
                 "Document reference.");
+        options.addOption(ARG_WORKER, false,
+                "Handle documents over STDIN/STDOUT until STDIN is closed.");
 
         CommandLineParser parser = new DefaultParser();
         CommandLine cmd = null;
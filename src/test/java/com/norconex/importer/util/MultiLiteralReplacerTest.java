@@ -0,0 +1,102 @@
+/* Copyright 2020 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.importer.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.norconex.commons.lang.text.TextMatcher;
+
+/**
+ * @author Pascal Essiembre
+ * @since 3.0.0
+ */
+public class MultiLiteralReplacerTest {
+
+    @Test
+    public void testGroupedReplacements() {
+        List<TextMatcher> matchers = new ArrayList<>();
+        for (String value : Arrays.asList("red", "green", "blue", "black")) {
+            matchers.add(literal(value, true, true));
+        }
+        MultiLiteralReplacer r = MultiLiteralReplacer.create(
+                matchers, Arrays.asList("1", "2", "3", "4"));
+        Assertions.assertTrue(r.hasGroups());
+        Assertions.assertEquals("1, 2, 3, 4, 1, 2.",
+                r.replace("Red, green, blue, BLACK, red, green."));
+    }
+
+    @Test
+    public void testDependentReplacements() {
+        // Each replacement creates the value of the next one, so they
+        // must be applied one after the other.
+        List<TextMatcher> matchers = new ArrayList<>();
+        for (String value : Arrays.asList("a", "b", "c", "d")) {
+            matchers.add(literal(value, false, true));
+        }
+        MultiLiteralReplacer r = MultiLiteralReplacer.create(
+                matchers, Arrays.asList("b", "c", "d", "e"));
+        Assertions.assertFalse(r.hasGroups());
+        Assertions.assertEquals("eeee", r.replace("abcd"));
+    }
+
+    @Test
+    public void testSameAsIndividualReplacements() {
+        Random random = new Random(1);
+        for (int n = 0; n < 5000; n++) {
+            List<TextMatcher> matchers = new ArrayList<>();
+            List<String> toValues = new ArrayList<>();
+            boolean ignoreCase = random.nextBoolean();
+            int count = 4 + random.nextInt(8);
+            for (int i = 0; i < count; i++) {
+                matchers.add(literal(random(random, "abcdefgHIJ",
+                        1 + random.nextInt(3)), ignoreCase,
+                        random.nextInt(4) != 0));
+                toValues.add(random(random,
+                        random.nextInt(5) == 0 ? "abc" : "xyz",
+                        random.nextInt(3)));
+            }
+            String text = random(random, "abcdefghijABCxyz", 40);
+
+            String expected = text;
+            for (int i = 0; i < count; i++) {
+                expected = matchers.get(i).replace(expected, toValues.get(i));
+            }
+            Assertions.assertEquals(expected, MultiLiteralReplacer.create(
+                    matchers, toValues).replace(text), "Text: " + text);
+        }
+    }
+
+    private TextMatcher literal(
+            String value, boolean ignoreCase, boolean replaceAll) {
+        return TextMatcher.basic(value)
+                .setPartial(true)
+                .setIgnoreCase(ignoreCase)
+                .setReplaceAll(replaceAll);
+    }
+
+    private String random(Random random, String chars, int length) {
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            b.append(chars.charAt(random.nextInt(chars.length())));
+        }
+        return b.toString();
+    }
+}